@@ -25,9 +25,17 @@ android {
         }
     }
     compileOptions {
+        // java.time on all API levels (minSdk 21), see FormatUtils
+        isCoreLibraryDesugaringEnabled = true
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+    testOptions {
+        // Database tests run on the host (Robolectric), with the real SQLite
+        unitTests.isIncludeAndroidResources = true
+        // Benchmark tests are skipped, unless run with -Pbenchmarks (See Benchmarks)
+        unitTests.all { it.systemProperty("benchmarks", project.hasProperty("benchmarks")) }
+    }
 }
 
 dependencies {
@@ -36,7 +44,9 @@ dependencies {
     implementation(libs.activity)
     implementation(libs.constraintlayout)
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation(libs.itext7.core)
+    coreLibraryDesugaring(libs.desugar.jdk.libs)
 }
\ No newline at end of file
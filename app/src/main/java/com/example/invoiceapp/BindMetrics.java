@@ -0,0 +1,107 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+
+/**
+ * Debug instrumentation of a RecyclerView adapter: Counts the full binds and the partial
+ * (payload) binds and their time, and logs them once per frame, after the layout pass. Use it
+ * for measure how many rows are rebound by each user action, and the cost of each bind.
+ * Disabled unless the tag is loggable (adb shell setprop log.tag.BindMetrics DEBUG, then
+ * restart the app). When disabled, each call is a single boolean check.
+ * NOTE: Main thread only, as binds are.
+ */
+final class BindMetrics {
+
+    private static final String TAG = "BindMetrics";
+
+    private final String name;
+    private final boolean enabled;
+    private final Handler handler;
+    private final Runnable report = this::report;
+    private boolean reportPosted = false;
+    private int fullBinds = 0; // Since the last report
+    private int partialBinds = 0;
+    private long fullNanos = 0; // Since the last report
+    private long partialNanos = 0;
+    private long totalFullBinds = 0;
+    private long totalPartialBinds = 0;
+
+    /** @param name Adapter name, for the log. */
+    BindMetrics(@NonNull String name) {
+        this.name = name;
+        this.enabled = Log.isLoggable(TAG, Log.DEBUG);
+        this.handler = enabled ? new Handler(Looper.getMainLooper()) : null;
+    }
+
+    /** @return Bind start time, call at the start of onBindViewHolder. 0 if disabled. */
+    long startBind() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Call from onBindViewHolder, when all the row views are set.
+     * @param startNanos Returned by startBind().
+     */
+    void onFullBind(long startNanos) {
+        if (!enabled) return;
+        fullBinds++;
+        fullNanos += System.nanoTime() - startNanos;
+        postReport();
+    }
+
+    /**
+     * Call from onBindViewHolder with payloads, when only part of the row views are set.
+     * @param startNanos Returned by startBind().
+     */
+    void onPartialBind(long startNanos) {
+        if (!enabled) return;
+        partialBinds++;
+        partialNanos += System.nanoTime() - startNanos;
+        postReport();
+    }
+
+    /** @return Full binds since start. 0 if disabled. */
+    long getTotalFullBinds() {
+        return totalFullBinds + fullBinds;
+    }
+
+    /** @return Partial binds since start. 0 if disabled. */
+    long getTotalPartialBinds() {
+        return totalPartialBinds + partialBinds;
+    }
+
+    private void postReport() {
+        if (reportPosted) return;
+        reportPosted = true;
+        handler.post(report);
+    }
+
+    private void report() {
+        reportPosted = false;
+        totalFullBinds += fullBinds;
+        totalPartialBinds += partialBinds;
+        Log.d(TAG, name + ": " + fullBinds + " full" + averageMicros(fullNanos, fullBinds) +
+                ", " + partialBinds + " partial binds" + averageMicros(partialNanos, partialBinds) +
+                " (Total " + totalFullBinds + " full, " + totalPartialBinds + " partial)");
+        fullBinds = 0;
+        partialBinds = 0;
+        fullNanos = 0;
+        partialNanos = 0;
+    }
+
+    /** @return Average time of a bind, as text like " (12.5 us each)". Empty if no binds. */
+    private static @NonNull String averageMicros(long nanos, int binds) {
+        if (binds == 0) return "";
+        return " (" + (nanos / binds / 100) / 10.0 + " us each)";
+    }
+}
@@ -30,7 +30,7 @@ public class CompanyActivity extends AppCompatActivity {
             editTextCompanyLocation;
     private Button buttonSave, buttonCancel;
     private boolean isEditMode;
-    private DatabaseHelper databaseHelper;
+    private InvoiceRepository.Scope requests;
     private CompanyDetails companyDetails;
 
     @Override
@@ -46,7 +46,7 @@ public class CompanyActivity extends AppCompatActivity {
             return insets;
         });
 
-        this.databaseHelper = DatabaseHelper.getInstance(getApplicationContext());
+        this.requests = InvoiceRepository.getInstance(this).newScope();
         this.editTextCompanyPhone = findViewById(R.id.editTextCompanyPhone);
         this.editTextCompanyId = findViewById(R.id.editTextCompanyId);
         this.editTextCompanyLocation = findViewById(R.id.editTextCompanyLocation);
@@ -81,17 +81,30 @@ public class CompanyActivity extends AppCompatActivity {
 
     private void loadCompanyData(){
         this.buttonCancel.setVisibility(View.VISIBLE);
-        CompanyDetails company = databaseHelper.getCompany();
-        if (company != null) {
-            editTextCompanyName.setText(company.getCompanyName());
-            editTextCompanyPhone.setText(company.getCompanyNumber());
-            editTextCompanyId.setText(company.getCompanyId());
-            editTextCompanyLocation.setText(company.getCompanyAddress());
-        }
-        else {
-            Toast.makeText(this, getString(R.string.error_action_data_base),
-                    Toast.LENGTH_SHORT).show();
-        }
+        this.requests.read(DatabaseHelper::getCompany, new DialogCallback<>() {
+            @Override
+            public void onSuccess(CompanyDetails company) {
+                if (company != null) {
+                    editTextCompanyName.setText(company.getCompanyName());
+                    editTextCompanyPhone.setText(company.getCompanyNumber());
+                    editTextCompanyId.setText(company.getCompanyId());
+                    editTextCompanyLocation.setText(company.getCompanyAddress());
+                }
+                else onFailure("");
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                Toast.makeText(CompanyActivity.this, getString(R.string.error_action_data_base),
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /** Drop all pending database requests of this activity (Saves are still done) */
+    @Override
+    protected void onDestroy() {
+        this.requests.cancelAll();
+        super.onDestroy();
     }
 
     private void saveCompanyData() {
@@ -121,21 +134,32 @@ public class CompanyActivity extends AppCompatActivity {
         // Create company object
         CompanyDetails company = new CompanyDetails(companyName,companyLocation, companyPhone, companyId);
 
-        if (isEditMode) {
-            databaseHelper.UpdateCompany(company);
-            Toast.makeText(this, getString(R.string.edit_profile_updated_successfully),
-                    Toast.LENGTH_SHORT).show();
-        } else {
-            databaseHelper.UpdateCompany(company);
-            Toast.makeText(this, getString(R.string.edit_profile_new_successfully),
-                    Toast.LENGTH_SHORT).show();
-        }
-
-        // Navigate back to MainActivity
-        Intent intent = new Intent(CompanyActivity.this, MainActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
-        startActivity(intent);
-        finish(); // Close the current activity
+        // Navigate back to MainActivity once saved (MainActivity reads the company)
+        this.buttonSave.setEnabled(false);
+        this.requests.write(database -> database.UpdateCompany(company), new DialogCallback<>() {
+            @Override
+            public void onSuccess(Boolean saved) {
+                if (isEditMode) {
+                    Toast.makeText(CompanyActivity.this,
+                            getString(R.string.edit_profile_updated_successfully),
+                            Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(CompanyActivity.this,
+                            getString(R.string.edit_profile_new_successfully),
+                            Toast.LENGTH_SHORT).show();
+                }
+                Intent intent = new Intent(CompanyActivity.this, MainActivity.class);
+                intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK);
+                startActivity(intent);
+                finish(); // Close the current activity
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                buttonSave.setEnabled(true);
+                Toast.makeText(CompanyActivity.this, getString(R.string.error_action_data_base),
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
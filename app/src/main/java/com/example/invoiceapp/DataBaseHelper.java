@@ -8,58 +8,94 @@ package com.example.invoiceapp;
  */
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
-import android.util.Pair;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.Build;
+import android.util.Log;
 import androidx.annotation.NonNull;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Calendar;
 import java.util.List;
-import java.util.Set;
 
 /**
  * DatabaseHelper is a singleton class that handles all database operations for managing invoices,
  * items, and related tables.
  * It manages access to three main tables: itemsTable, invoiceRowsTable, and invoicesFramesTable.
+ * The revenueRollupTable (statistics buckets) is updated in the same transaction as any
+ * invoice change. The invoiceDraftsTable and invoiceDraftRowsTable keep the autosaved invoices
+ * being composed.
  * This class ensures safe database transactions and offers various operations for
  * manipulating invoice data.
  * NOTE: This class follows a singleton pattern to ensure only one instance of the database
  *       helper is created.
  * NOTE: It is possible for empty invoice, which is: Frame in invoicesFramesTable,
  *       and no matching rows in invoiceRowsTable
+ * NOTE: Each table get a writing and a reading handle, both are the same SQLiteDatabase
+ *       instance. With the default profile (WAL), the concurrency comes from the framework
+ *       connection pool: Reads outside a transaction run on pooled read connections, while
+ *       the writer holds the primary connection.
  */
 final class DatabaseHelper extends SQLiteOpenHelper {
 
     private static final String DATABASE_NAME = "invoices.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = DatabaseMigrations.LATEST_VERSION;
     private static DatabaseHelper INSTANCE;
 
+    private final DatabaseProfile profile;
     private itemsTable itemsTable;
     private invoiceRowsTable invoiceRowsTable;
     private invoicesFramesTable invoicesFramesTable;
     private companyDetailsTable companyDetailsTable;
-
-    /** Private constructor to prevent direct instantiation, and prevent multiple
-     * instances from being created. Make call to static method "getInstance()" instead. */
-    private DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    private revenueRollupTable revenueRollupTable;
+    private invoiceDraftsTable invoiceDraftsTable;
+    private invoiceDraftRowsTable invoiceDraftRowsTable;
+    private ItemCatalog itemCatalog;
+    /** Items catalog updates of the current outer transaction (by thread), see afterCommit */
+    private final ThreadLocal<List<Runnable>> pendingCacheUpdates = new ThreadLocal<>();
+
+    /** Package private constructor to prevent direct instantiation, and prevent multiple
+     * instances from being created. Make call to static method "getInstance()" instead.
+     * Used directly only by the tests, with their own database file. */
+    DatabaseHelper(Context context, String name, @NonNull DatabaseProfile profile) {
+        super(context, name, null, DATABASE_VERSION);
+        this.profile = profile;
+        setWriteAheadLoggingEnabled(profile.isWriteAheadLogging());
         initializeTables();
     }
 
-    /** Init tables if needed */
+    /**
+     * Init tables if needed. Writer handle must be opened first (create/upgrade the database),
+     * once it is open getReadableDatabase() returns the same instance.
+     */
     private void initializeTables() {
+        SQLiteDatabase writeDatabase = getWritableDatabase();
+        SQLiteDatabase readDatabase = getReadableDatabase();
         if (itemsTable == null) {
-            itemsTable = new itemsTable(getWritableDatabase());
+            itemsTable = new itemsTable(writeDatabase, readDatabase);
         }
         if (invoiceRowsTable == null) {
-            invoiceRowsTable = new invoiceRowsTable(getWritableDatabase());
+            invoiceRowsTable = new invoiceRowsTable(writeDatabase, readDatabase);
         }
         if (invoicesFramesTable == null) {
-            invoicesFramesTable = new invoicesFramesTable(getWritableDatabase());
+            invoicesFramesTable = new invoicesFramesTable(writeDatabase, readDatabase);
         }
         if (companyDetailsTable == null) {
-            companyDetailsTable = new companyDetailsTable((getWritableDatabase()));
+            companyDetailsTable = new companyDetailsTable(writeDatabase, readDatabase);
+        }
+        if (revenueRollupTable == null) {
+            revenueRollupTable = new revenueRollupTable(writeDatabase, readDatabase);
+        }
+        if (invoiceDraftsTable == null) {
+            invoiceDraftsTable = new invoiceDraftsTable(writeDatabase, readDatabase);
+        }
+        if (invoiceDraftRowsTable == null) {
+            invoiceDraftRowsTable = new invoiceDraftRowsTable(writeDatabase, readDatabase);
+        }
+        if (itemCatalog == null) {
+            itemCatalog = new ItemCatalog(itemsTable::loadCatalog);
         }
     }
 
@@ -69,45 +105,108 @@ final class DatabaseHelper extends SQLiteOpenHelper {
      * @return Instance of DatabaseHelper - Will have all operation for database.
      */
     public static DatabaseHelper getInstance(Context context) {
+        return getInstance(context, DatabaseProfile.DEFAULT);
+    }
+
+    /**
+     * Create an accesses to database with a specific connection profile.
+     * NOTE: The profile is used only by the first call, which create the instance.
+     * @param context Context type, use *application context* and not activity.
+     * @param profile Journal mode, synchronous level, cache and checkpoint settings.
+     * @return Instance of DatabaseHelper - Will have all operation for database.
+     */
+    public static synchronized DatabaseHelper getInstance(Context context,
+                                                          @NonNull DatabaseProfile profile) {
         /*
          * Use the application context as suggested by CommonsWare.
          * this will ensure that we don't accidentally leak (memory) an Activity context.
          */
         if (INSTANCE == null) {
-            INSTANCE = new DatabaseHelper(context.getApplicationContext());
+            INSTANCE = new DatabaseHelper(context.getApplicationContext(), DATABASE_NAME, profile);
         }
         return INSTANCE;
     }
 
+    /**
+     * Called when the database connection is being configured, before onCreate / onUpgrade.
+     * Apply the profile settings (See DatabaseProfile). Journal mode is set by
+     * setWriteAheadLoggingEnabled() for WAL, as the framework require.
+     * NOTE: Synchronous, cache, memory map and checkpoint are per connection settings.
+     *       From Android 11 they are registered for every connection of the pool (Also the
+     *       read connections opened later). Before it, they reach only the connection which
+     *       runs them: Pooled read connections keep the SQLite defaults.
+     * @param database The database.
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase database) {
+        super.onConfigure(database);
+        // Rollback journal has a single connection
+        if (!profile.isWriteAheadLogging())
+            applyPragma(database, "journal_mode = " + profile.getJournalMode());
+        applyConnectionPragma(database, "synchronous = " + profile.getSynchronous());
+        // Negative value is size in KiB, instead of pages
+        applyConnectionPragma(database, "cache_size = -" + profile.getCacheSizeKiB());
+        applyConnectionPragma(database, "mmap_size = " + profile.getMmapSizeBytes());
+        if (profile.isWriteAheadLogging())
+            applyConnectionPragma(database, "wal_autocheckpoint = " + profile.getCheckpointPages());
+    }
+
+    /**
+     * Run a per connection PRAGMA statement on all the pooled connections, the existing and
+     * the future ones (Android 11+). Else, on the current connection only.
+     */
+    private static void applyConnectionPragma(@NonNull SQLiteDatabase database,
+                                              @NonNull String pragma) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) {
+            applyPragma(database, pragma);
+            return;
+        }
+        try { database.execPerConnectionSQL("PRAGMA " + pragma, null); }
+        catch (Exception e) { Log.e(DATABASE_NAME, "PRAGMA " + pragma, e); }
+    }
+
+    /**
+     * Run a PRAGMA statement on the current connection. Some of the PRAGMAs return a row (as
+     * the new value), so it run as query and the cursor must be stepped to execute it.
+     */
+    private static void applyPragma(@NonNull SQLiteDatabase database, @NonNull String pragma) {
+        try (Cursor cursor = database.rawQuery("PRAGMA " + pragma, null)) {
+            cursor.moveToFirst();
+        }
+        catch (Exception e) { Log.e(DATABASE_NAME, "PRAGMA " + pragma, e); }
+    }
+
+    /** @return The connection profile this database was opened with. */
+    public @NonNull DatabaseProfile getProfile() {
+        return this.profile;
+    }
+
     /**
      * This method is only run when the database file did not exist and was just created.
      * If onCreate() returns successfully (doesn't throw an exception),
      * the database is assumed to be created with the requested version number.
+     * Create the base schema (version 1), and replay all migrations on it, so a new database
+     * and an upgraded database always have the same schema.
      * @param database DataBase.
      */
     @Override
     public void onCreate(SQLiteDatabase database) {
-        database.execSQL(com.example.invoiceapp.itemsTable.SQL_CREATE_ENTRIES);
-        database.execSQL(com.example.invoiceapp.invoiceRowsTable.SQL_CREATE_ENTRIES);
-        database.execSQL(com.example.invoiceapp.invoicesFramesTable.SQL_CREATE_ENTRIES);
-        database.execSQL(com.example.invoiceapp.companyDetailsTable.SQL_CREATE_ENTRIES);
+        DatabaseMigrations.createBaseSchema(database);
+        DatabaseMigrations.migrate(database, DatabaseMigrations.BASE_VERSION, DATABASE_VERSION);
     }
 
     /**
      * This method is only called when the database file exists but the stored version number is
      * lower than requested in the constructor. The onUpgrade() should update the table schema
-     * to the requested version. In this case will drop all tables.
+     * to the requested version. Run the ordered migration steps (See DatabaseMigrations),
+     * all data is kept. Called inside a transaction: Any failed step rollback the whole upgrade.
      * @param database The database.
-     * @param i The old database version.
-     * @param i1 The new database version.
+     * @param oldVersion The old database version.
+     * @param newVersion The new database version.
      */
     @Override
-    public void onUpgrade(SQLiteDatabase database, int i, int i1) {
-        database.execSQL("DROP TABLE IF EXISTS " + com.example.invoiceapp.itemsTable.getTableName());
-        database.execSQL("DROP TABLE IF EXISTS " + com.example.invoiceapp.invoiceRowsTable.getTableName());
-        database.execSQL("DROP TABLE IF EXISTS " + com.example.invoiceapp.invoicesFramesTable.getTableName());
-        database.execSQL("DROP TABLE IF EXISTS " + com.example.invoiceapp.companyDetailsTable.getTableName());
-        onCreate(database);
+    public void onUpgrade(SQLiteDatabase database, int oldVersion, int newVersion) {
+        DatabaseMigrations.migrate(database, oldVersion, newVersion);
     }
 
     /*//////////////////////////////////////////////////////////////////////////////////////////////
@@ -159,7 +258,10 @@ final class DatabaseHelper extends SQLiteOpenHelper {
      * @return New item ID as in the data base.
      */
     public int addNewItem(@NonNull Item item) {
-        return this.itemsTable.addItem(item);
+        int ID = this.itemsTable.addItem(item);
+        if (ID > 0) afterCommit(() -> this.itemCatalog.put(
+                new Item(ID, item.getName(), item.getDescription(), item.getValueCents()), false));
+        return ID;
     }
 
     /**
@@ -168,7 +270,9 @@ final class DatabaseHelper extends SQLiteOpenHelper {
      * @return True if successes.
      */
     public boolean editItem(Item item) {
-        return this.itemsTable.editItem(item);
+        boolean success = this.itemsTable.editItem(item);
+        if (success) afterCommit(() -> this.itemCatalog.update(item));
+        return success;
     }
 
     /**
@@ -176,11 +280,32 @@ final class DatabaseHelper extends SQLiteOpenHelper {
      * NOTE: This will mark the item as 'removed': For any case for future use such as display
      * invoice with removed items.
      * @param itemsIDs Selected item by ID to remove from table.
-     * @return Set of all invoice IDs items successfully removed from the table. If null,
-     *          no success, Or empty Set. If no rows, will return the same items IDs.
+     * @return IDs of the items successfully removed from the table. Empty if no success.
      */
-    public @NonNull Set<Integer> removeItems(@NonNull Set<Integer> itemsIDs) {
-        return this.itemsTable.RemoveItems(itemsIDs);
+    public @NonNull long[] removeItems(@NonNull long[] itemsIDs) {
+        long[] removedIDs = this.itemsTable.RemoveItems(itemsIDs);
+        afterCommit(() -> this.itemCatalog.markRemoved(removedIDs));
+        return removedIDs;
+    }
+
+    /**
+     * Search items by words prefix in the name or description (Full-text index).
+     * Removed items are not included.
+     * @param query User query, e.g. "cof bl" match "Black Coffee".
+     * @param limit Max results.
+     * @return List of items. Empty if no match.
+     */
+    public @NonNull List<Item> searchItems(@NonNull String query, int limit) {
+        return this.itemsTable.searchItems(query, limit);
+    }
+
+    /**
+     * Get a single item by ID, from the items catalog (No query, after the first load).
+     * @param ID Item ID as in database.
+     * @return Item, null if not found. Removed items are included.
+     */
+    public Item getItemByID(long ID) {
+        return this.itemCatalog.getItem(ID);
     }
 
     /**
@@ -198,10 +323,79 @@ final class DatabaseHelper extends SQLiteOpenHelper {
     invoiceRowsTable ///////////////////////////////////////////////////////////////////////////////
     /*//////////////////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Get all rows of a single invoice, in one query: Rows are joined with the items table,
+     * so no items are loaded in memory.
+     * @param invoiceID Invoice UNIQUE ID.
+     * @param showRemovedItems If false, removed items are shown as "Item Removed".
+     * @return List of rows. Empty if not found.
+     */
     public @NonNull List<InvoiceRow> getAllRowsByID(long invoiceID, boolean showRemovedItems) {
         if (invoiceID <= 0) return new ArrayList<>();
-        List<Item> allItem = getAllItems(false, false, showRemovedItems);
-        return this.invoiceRowsTable.getAllRowsByID(invoiceID, allItem);
+        return this.invoiceRowsTable.getAllRowsByIDJoined(invoiceID, showRemovedItems);
+    }
+
+    /**
+     * Bulk loader: Stream the full invoices (frame and rows) of the given IDs, by ID order.
+     * Rows are read in one ordered cursor pass (for each chunk of IDs), instead of a query for
+     * each invoice. Only the rows of the current invoice are held in memory.
+     * @param IDs Invoices UNIQUE IDs, sorted ascending. IDs not found are skipped.
+     * @param showRemovedItems If false, removed items are shown as "Item Removed".
+     * @param consumer Called once for each invoice.
+     * @return True if all invoices were passed to the consumer.
+     */
+    public boolean forEachInvoice(@NonNull long[] IDs, boolean showRemovedItems,
+                                  @NonNull InvoiceConsumer consumer) {
+        if (IDs.length == 0) return true;
+        List<InvoiceFrame> frames = this.invoicesFramesTable.getInvoicesByIDs(IDs);
+        return mergeFramesRows(frames, consumer, rowsConsumer ->
+                this.invoiceRowsTable.streamRowsByIDs(IDs, showRemovedItems, rowsConsumer));
+    }
+
+    /**
+     * Bulk loader: Stream the full invoices (frame and rows) in the IDs range, by ID order.
+     * See forEachInvoice(long[], boolean, InvoiceConsumer).
+     * @param fromID First invoice ID, included.
+     * @param toID Last invoice ID, included.
+     * @param showRemovedItems If false, removed items are shown as "Item Removed".
+     * @param consumer Called once for each invoice.
+     * @return True if all invoices were passed to the consumer.
+     */
+    public boolean forEachInvoice(long fromID, long toID, boolean showRemovedItems,
+                                  @NonNull InvoiceConsumer consumer) {
+        if (toID < fromID) return true;
+        List<InvoiceFrame> frames = this.invoicesFramesTable.getInvoicesByIDRange(fromID, toID);
+        return mergeFramesRows(frames, consumer, rowsConsumer ->
+                this.invoiceRowsTable.streamRowsByRange(fromID, toID, showRemovedItems,
+                        rowsConsumer));
+    }
+
+    /** Rows stream source, for mergeFramesRows */
+    private interface RowsStream {
+        boolean stream(@NonNull invoiceRowsTable.RowsGroupConsumer consumer);
+    }
+
+    /**
+     * Merge the frames (ordered by ID) with the rows groups (ordered by ID).
+     * Frames without rows are passed with an empty list, rows without frame are skipped.
+     */
+    private static boolean mergeFramesRows(@NonNull List<InvoiceFrame> frames,
+                                           @NonNull InvoiceConsumer consumer,
+                                           @NonNull RowsStream rowsStream) {
+        int[] next = { 0 }; // Next frame index
+        boolean streamed = rowsStream.stream((invoiceID, rows) -> {
+            while (next[0] < frames.size() && frames.get(next[0]).getID() < invoiceID) {
+                if (!consumer.onInvoice(frames.get(next[0]++), new ArrayList<>())) return false;
+            }
+            if (next[0] < frames.size() && frames.get(next[0]).getID() == invoiceID)
+                return consumer.onInvoice(frames.get(next[0]++), rows);
+            return true; // Rows without a frame
+        });
+        if (!streamed) return false;
+        while (next[0] < frames.size()) {
+            if (!consumer.onInvoice(frames.get(next[0]++), new ArrayList<>())) return false;
+        }
+        return true;
     }
 
     /*//////////////////////////////////////////////////////////////////////////////////////////////
@@ -213,62 +407,88 @@ final class DatabaseHelper extends SQLiteOpenHelper {
      * @param ID UNIQUE ID invoiceFrame
      * @return Invoice frame. Null if not found.
      */
-    public InvoiceFrame getInvoiceById(int ID) {
+    public InvoiceFrame getInvoiceById(long ID) {
         return this.invoicesFramesTable.getInvoiceById(ID);
     }
 
     /**
-     * Removing all frame along with their matching rows, given the Set of UNIQUE IDs.
-     * If desired only one frame to remove, input into the Set the single ID.
-     * Safe deleting: For each removed set of rows in the InvoiceRows, delete the match frame.
+     * Removing all frame along with their matching rows, given the UNIQUE IDs (e.g. the
+     * selected IDs, as is). If desired only one frame to remove, input the single ID.
+     * Safe deleting: Rows, frames, the revenue buckets and the edit drafts are updated in one
+     * transaction (all or nothing).
      * @param IDs UNIQUE IDs of invoices
      * @return True if all success.
      */
-    public boolean RemoveInvoiceFrames(@NonNull Set<Integer> IDs) {
-        if (IDs.isEmpty()) return false;
-        // Remove rows, return Set is all IDs that has been successfully removed.
-        Set<Integer> successIDsRemoved = this.invoiceRowsTable.removeRows(IDs);
-        // If Set is not empty, next: Remove all matching invoiceFrame.
-        if (!successIDsRemoved.isEmpty())
-            return this.invoicesFramesTable.RemoveInvoiceFrames(IDs);
-        else return false;
+    public boolean RemoveInvoiceFrames(@NonNull long[] IDs) {
+        if (IDs.length == 0) return false;
+        return runInTransaction(() -> {
+            // Subtract the invoices from their buckets, while their frames and rows still exist
+            if (!this.revenueRollupTable.subtractInvoices(IDs)) return false;
+            // Drafts are few: Look up the selected IDs in them, not each ID in the table
+            LongHashSet drafts = new LongHashSet();
+            drafts.addAll(this.invoiceDraftsTable.getEditIDs());
+            for (long ID : IDs) {
+                if (drafts.contains(ID) && !discardDraft(ID)) return false;
+            }
+            // Remove rows, then all matching invoiceFrame
+            return this.invoiceRowsTable.removeRows(IDs)
+                    && this.invoicesFramesTable.RemoveInvoiceFrames(IDs);
+        });
+    }
+
+    /**
+     * Subtract an existing invoice from its revenue bucket. Must run inside a transaction,
+     * before the invoice is removed or changed.
+     * @param ID UNIQUE ID of the invoice frame.
+     * @return True if success, or the invoice not found (Nothing to subtract).
+     */
+    private boolean removeFromRollup(long ID) {
+        InvoiceFrame oldFrame = this.invoicesFramesTable.getInvoiceById(ID);
+        if (oldFrame == null) return true;
+        long oldItems = this.invoiceRowsTable.getItemsCount(ID);
+        return oldItems >= 0 && this.revenueRollupTable.addToBucket(
+                oldFrame.getDate(), -oldFrame.getTotalCents(), -1, -oldItems);
+    }
+
+    /** @return Total quantity of items in the rows. */
+    private static long countItems(@NonNull List<InvoiceRow> rows) {
+        long items = 0;
+        for (InvoiceRow r : rows) items += r.getQuantity();
+        return items;
     }
 
     /**
      * Edit invoice frame - All safe operation.
-     * First Removing rows -> Successes? -> edit frame and adding new rows.
-     * Safe Edit for safe edit. If any fail, any reason, the old rows will be kept in database.
+     * Removing rows, edit frame and adding new rows, all in one transaction.
+     * If any fail, any reason, nothing is changed and the old rows will be kept in database.
      * @param ID invoice UNIQUE ID for the invoice frame matching the new rows
      * @param NewInvoiceRows New rows, replace instead of the excited rows.
      * @return True if all safe edited. Any fail, the old rows will be kept in database.
      */
-    public boolean editInvoice(int ID, @NonNull List<InvoiceRow> NewInvoiceRows) {
+    public boolean editInvoice(long ID, @NonNull List<InvoiceRow> NewInvoiceRows) {
         String fullDateEdit = FormatUtils.getCurrentTimestamp();
         if (ID <= 0 || fullDateEdit.isEmpty()) return false;
 
-        // Remove all rows by given ID. Set contain only one ID (@NoNull)
-        // First safe save copy.
-        List<InvoiceRow> safeCopy = getAllRowsByID(ID, true);
-        Set<Integer> successIDsRemoved = this.invoiceRowsTable.removeRows(Collections.singleton(ID));
-
-        // After removing all rows, edit the selected InvoiceFrame.
-        // If successes add the new rows, with the same ID
-        // Double check for ID for safe transaction.
-
-        if (!successIDsRemoved.isEmpty() && successIDsRemoved.contains(ID)) {
-            double totalPrice = 0;
-            for (InvoiceRow r: NewInvoiceRows) totalPrice += r.getTotalRowValue();
-            if (this.invoicesFramesTable.EditInvoiceFrame(fullDateEdit, totalPrice, ID))
-                return this.invoiceRowsTable.addInvoiceRows(NewInvoiceRows, ID);
-            else if (!safeCopy.isEmpty())
-                // Fail edit (Not in case of empty invoice - No rows)
-                addComposedInvoice(safeCopy);
-        }
-        return false;
+        long totalPrice = 0;
+        for (InvoiceRow r: NewInvoiceRows) totalPrice += r.getTotalRowCents();
+        final long invoiceTotal = totalPrice;
+
+        return runInTransaction(() -> {
+            // Move the invoice out of its old bucket, before the rows are removed
+            if (!removeFromRollup(ID)) return false;
+            // Remove all rows by given ID, then edit the frame and add the new rows with the
+            // same ID
+            return this.invoiceRowsTable.removeRows(ID)
+                    && this.invoicesFramesTable.EditInvoiceFrame(fullDateEdit, invoiceTotal, ID)
+                    && this.invoiceRowsTable.addInvoiceRows(NewInvoiceRows, ID)
+                    && this.revenueRollupTable.addToBucket(
+                            fullDateEdit, invoiceTotal, 1, countItems(NewInvoiceRows));
+        });
     }
 
     /**
      * Add composed list of invoice rows to the invoiceRowsTable.
+     * The frame and all of its rows are committed in one transaction.
      * Date format "yyyy-MM-dd 00:00:00"
      * @param invoiceRows List type InvoiceRow extend InvoiceItem
      * @return True for success transaction.
@@ -277,18 +497,173 @@ final class DatabaseHelper extends SQLiteOpenHelper {
         String fullDate = FormatUtils.getCurrentTimestamp();
         if (fullDate.isEmpty()) return false;
 
-        try { FormatUtils.formatDateFull(fullDate); }
+        try { FormatUtils.parseDateFullMillis(fullDate); }
         catch (ParseException e) { return false; }
 
-        double totalPriceInvoice = 0;
-        for (InvoiceRow row: invoiceRows) totalPriceInvoice += row.getTotalRowValue();
-        long InvoiceFrameID = this.invoicesFramesTable.addNewInvoiceFrame(fullDate, totalPriceInvoice);
+        long totalPriceInvoice = 0;
+        for (InvoiceRow row: invoiceRows) totalPriceInvoice += row.getTotalRowCents();
+        final long invoiceTotal = totalPriceInvoice;
+
+        return runInTransaction(() -> {
+            long InvoiceFrameID = this.invoicesFramesTable.addNewInvoiceFrame(fullDate, invoiceTotal);
+            // Check fail insert Frame, then insert all rows with the same InvoiceFrameID
+            return InvoiceFrameID > 0
+                    && this.invoiceRowsTable.addInvoiceRows(invoiceRows, InvoiceFrameID)
+                    && this.revenueRollupTable.addToBucket(
+                            fullDate, invoiceTotal, 1, countItems(invoiceRows));
+        });
+    }
 
-        // Check fail insert Frame
-        if (InvoiceFrameID <= 0) return false;
+    /*//////////////////////////////////////////////////////////////////////////////////////////////
+    invoiceDraftsTable   ///////////////////////////////////////////////////////////////////////////
+    /*//////////////////////////////////////////////////////////////////////////////////////////////
 
-        // Safe insert all rows with the correct InvoiceFrameID as inserted before
-        return this.invoiceRowsTable.addInvoiceRows(invoiceRows, InvoiceFrameID);
+    /**
+     * Save the draft of an invoice being composed: Its rows replace the previous draft rows.
+     * The draft is created by the first save. All in one transaction.
+     * @param editID Edited invoice ID, invoiceDraftsTable.NEW_INVOICE for a new invoice.
+     * @param rows Current rows of the invoice. Must not be changed during the save.
+     * @return True if success.
+     */
+    public boolean saveDraft(long editID, @NonNull List<InvoiceRow> rows) {
+        if (editID < 0) return false;
+        return runInTransaction(() -> {
+            long draftID = this.invoiceDraftsTable.getOrCreateDraft(editID);
+            if (draftID <= 0) return false;
+            return this.invoiceDraftRowsTable.removeRows(draftID)
+                    && this.invoiceDraftRowsTable.addRows(rows, draftID)
+                    && this.invoiceDraftsTable.touch(draftID);
+        });
+    }
+
+    /**
+     * Get the saved draft rows of an invoice, for restore the composing.
+     * @param editID Edited invoice ID, invoiceDraftsTable.NEW_INVOICE for a new invoice.
+     * @return List of rows (May be empty). Null if no draft.
+     */
+    public List<InvoiceRow> getDraftRows(long editID) {
+        long draftID = this.invoiceDraftsTable.getDraftID(editID);
+        if (draftID <= 0) return null;
+        return this.invoiceDraftRowsTable.getRows(draftID, editID);
+    }
+
+    /**
+     * Remove the draft of an invoice and its rows. The invoice itself is not changed.
+     * @param editID Edited invoice ID, invoiceDraftsTable.NEW_INVOICE for a new invoice.
+     * @return True if success (Also if no draft).
+     */
+    public boolean discardDraft(long editID) {
+        return runInTransaction(() -> {
+            long draftID = this.invoiceDraftsTable.getDraftID(editID);
+            if (draftID <= 0) return true; // No draft
+            return this.invoiceDraftRowsTable.removeRows(draftID)
+                    && this.invoiceDraftsTable.removeDraft(draftID);
+        });
+    }
+
+    /**
+     * Commit the draft as the invoice: A new invoice frame, or the edited one (Its old rows
+     * are removed). The draft rows are copied to the invoice by a single INSERT ... SELECT,
+     * not inserted again row by row. If the saved draft rows differ from the given rows (Changes not saved yet), they
+     * are written first. Frame, rows, revenue bucket and draft removal are all in one
+     * transaction: Any fail, nothing is changed and the draft is kept.
+     * @param editID Edited invoice ID, invoiceDraftsTable.NEW_INVOICE for a new invoice.
+     * @param rows Final rows of the invoice. Must not be changed during the commit.
+     * @return True if all success.
+     */
+    public boolean commitDraft(long editID, @NonNull List<InvoiceRow> rows) {
+        String fullDate = FormatUtils.getCurrentTimestamp();
+        if (editID < 0 || fullDate.isEmpty()) return false;
+
+        try { FormatUtils.parseDateFullMillis(fullDate); }
+        catch (ParseException e) { return false; }
+
+        long totalPrice = 0;
+        for (InvoiceRow r: rows) totalPrice += r.getTotalRowCents();
+        final long invoiceTotal = totalPrice;
+
+        return runInTransaction(() -> {
+            long draftID = this.invoiceDraftsTable.getOrCreateDraft(editID);
+            if (draftID <= 0) return false;
+            // Usually the last autosave already holds these rows
+            if (!this.invoiceDraftRowsTable.hasSameRows(draftID, rows)
+                    && !(this.invoiceDraftRowsTable.removeRows(draftID)
+                            && this.invoiceDraftRowsTable.addRows(rows, draftID))) return false;
+
+            long invoiceID = editID;
+            if (editID == invoiceDraftsTable.NEW_INVOICE)
+                invoiceID = this.invoicesFramesTable.addNewInvoiceFrame(fullDate, invoiceTotal);
+            // Move the edited invoice out of its old bucket, before its rows are removed
+            else if (!removeFromRollup(editID)
+                    || !this.invoiceRowsTable.removeRows(editID)
+                    || !this.invoicesFramesTable.EditInvoiceFrame(fullDate, invoiceTotal, editID))
+                return false;
+
+            return invoiceID > 0
+                    && this.invoiceDraftRowsTable.copyToInvoice(draftID, invoiceID)
+                    && this.invoiceDraftRowsTable.removeRows(draftID)
+                    && this.invoiceDraftsTable.removeDraft(draftID)
+                    && this.revenueRollupTable.addToBucket(
+                            fullDate, invoiceTotal, 1, countItems(rows));
+        });
+    }
+
+    /**
+     * Run the given unit of work in a single transaction. Tables operations inside it join
+     * this transaction (nested), so all of them are committed once (one fsync), or rollback
+     * together if any of them fail.
+     * The items catalog updates of the work are applied only when the outer transaction is
+     * committed (See afterCommit). If it is rolled back, they are dropped, and the catalog is
+     * reloaded on the next lookup (It may have been loaded inside the transaction).
+     * @param work Operations on the tables. Return false for rollback.
+     * @return True if committed. Nested: True if this part succeeded.
+     */
+    boolean runInTransaction(@NonNull UnitOfWork work) {
+        SQLiteDatabase database = getWritableDatabase();
+        boolean outer = !database.inTransaction();
+        List<Runnable> cacheUpdates = new ArrayList<>();
+        boolean[] committed = { false };
+        if (outer) {
+            pendingCacheUpdates.set(cacheUpdates);
+            // Called by the outer end only, also false if a nested transaction failed
+            database.beginTransactionWithListenerNonExclusive(new SQLiteTransactionListener() {
+                @Override public void onBegin() { }
+                @Override public void onCommit() { committed[0] = true; }
+                @Override public void onRollback() { }
+            });
+        }
+        else database.beginTransactionNonExclusive();
+        boolean success = false;
+        try {
+            if (work.perform()) {
+                database.setTransactionSuccessful();
+                success = true;
+            }
+        }
+        catch (Exception e) { Log.e(DATABASE_NAME, "Transaction rollback", e); }
+        finally {
+            try { database.endTransaction(); }
+            finally { if (outer) pendingCacheUpdates.remove(); }
+        }
+        if (!outer) return success;
+        if (!committed[0]) {
+            this.itemCatalog.invalidate();
+            return false;
+        }
+        for (Runnable update : cacheUpdates) update.run();
+        return success;
+    }
+
+    /**
+     * Apply an update of the in memory caches (items catalog) after the write is committed:
+     * At the end of the outer runInTransaction, or now if not in one (The table operation
+     * was committed by itself). So readers never see a write that may be rolled back.
+     * @param update Cache update, run on this thread.
+     */
+    private void afterCommit(@NonNull Runnable update) {
+        List<Runnable> pending = pendingCacheUpdates.get();
+        if (pending != null) pending.add(update);
+        else update.run();
     }
 
     /**
@@ -317,6 +692,75 @@ final class DatabaseHelper extends SQLiteOpenHelper {
         return this.invoicesFramesTable.getInvoicesByDate(date);
     }
 
+    /**
+     * Get a single page of invoice frames, right after the anchor frame (keyset pagination).
+     * Sorted by the database (index of the sort key). See InvoicePager for loading pages as
+     * the user scroll.
+     * @param sort Sort key.
+     * @param descending True for descending order.
+     * @param filter Frames filter (Date, price, ID, item). InvoiceFilter.ALL for all frames.
+     * @param anchor Last frame of the previous page. Null for the first page.
+     * @param limit Page size.
+     * @return List of frames. Empty if no more frames.
+     */
+    public @NonNull List<InvoiceFrame> getInvoicesPage(@NonNull InvoiceSort sort,
+                                                       boolean descending,
+                                                       @NonNull InvoiceFilter filter,
+                                                       InvoiceFrame anchor, int limit) {
+        return this.invoicesFramesTable.getInvoicesPage(sort, descending, filter, anchor, limit);
+    }
+
+    /** @return Total number of invoices in database. */
+    public long getInvoicesCount() {
+        return this.invoicesFramesTable.getInvoicesCount();
+    }
+
+    /**
+     * @param filter Frames filter (Date, price, ID, item).
+     * @return Number of invoices of the filter.
+     */
+    public long getInvoicesCount(@NonNull InvoiceFilter filter) {
+        return this.invoicesFramesTable.getInvoicesCount(filter);
+    }
+
+    /** @return IDs of all invoices in database, ascending (e.g. select all). */
+    public @NonNull long[] getAllInvoiceIDs() {
+        return this.invoicesFramesTable.getInvoiceIDs(InvoiceFilter.ALL);
+    }
+
+    /**
+     * @param filter Frames filter (Date, price, ID, item).
+     * @return IDs of the invoices of the filter, ascending (e.g. select all).
+     */
+    public @NonNull long[] getInvoiceIDs(@NonNull InvoiceFilter filter) {
+        return this.invoicesFramesTable.getInvoiceIDs(filter);
+    }
+
+    /**
+     * Get a single page of the invoices which sold the item (e.g. recall, price correction),
+     * newest first, with the quantity of the item in each invoice. Served by the item, invoice
+     * index of the rows.
+     * @param itemID Item ID.
+     * @param beforeInvoiceID Last invoice ID of the previous page. Long.MAX_VALUE for the
+     *                        first page.
+     * @param limit Page size.
+     * @return List of invoices and quantities. Empty if no more invoices.
+     */
+    public @NonNull List<ItemSale> getInvoicesByItem(long itemID, long beforeInvoiceID,
+                                                     int limit) {
+        return this.invoicesFramesTable.getInvoicesByItem(itemID, beforeInvoiceID, limit);
+    }
+
+    /**
+     * Search all frames in the date range, recent first.
+     * @param fromMillis Range start (epoch millis), included.
+     * @param toMillis Range end (epoch millis), excluded.
+     * @return List of all frame founded in database. Empty if no found.
+     */
+    public @NonNull List<InvoiceFrame> getInvoicesByDateRange(long fromMillis, long toMillis) {
+        return this.invoicesFramesTable.getInvoicesByDateRange(fromMillis, toMillis);
+    }
+
     /*//////////////////////////////////////////////////////////////////////////////////////////////
     Statics   //////////////////////////////////////////////////////////////////////////////////////
     /*//////////////////////////////////////////////////////////////////////////////////////////////
@@ -328,33 +772,61 @@ final class DatabaseHelper extends SQLiteOpenHelper {
      */
     public @NonNull String bestSellingItem() {
         int itemID = this.invoiceRowsTable.getBestSellingItem();
-        Pair<Item, Boolean> resPair = this.itemsTable.getItem(itemID);
+        Item item = getItemByID(itemID);
         String res = "N/A";
 
-        if (resPair != null && resPair.first != null) {
-            if (resPair.second) {
-                res = "(Removed item) " + resPair.first;
+        if (item != null) {
+            if (this.itemCatalog.isRemoved(itemID)) {
+                res = "(Removed item) " + item;
             }
-            else res = resPair.first.toString();
+            else res = item.toString();
         }
         return res;
     }
 
     /**
-     * Calculates the total revenue for each month.
+     * Calculates the total revenue for each month of the current year.
      * If no revenue, the value will be 0.
-     * @return Array of revenue. Index 0 is January.
-     */
-    public @NonNull double[] getTotalRevenues() {
-        double[] revenues = {0,0,0,0,0,0,0,0,0,0,0,0};
-        String[] IDsByMonths = this.invoicesFramesTable.getIDsByMonths();
-        // Query for all months in this year, get list of all invoice IDs for each month.
-        int month = 0;
-        for (String IDs: IDsByMonths) {
-            // IDs Format "ID_1,ID_2,..." or empty. 12 Months, Each one is one String.
-            double revenue = this.invoiceRowsTable.getTotalRevenueByIDs(IDs);
-            revenues[month++] = revenue;
-        }
+     * @return Array of revenue in cents. Index 0 is January.
+     */
+    public @NonNull long[] getTotalRevenues() {
+        int year = Calendar.getInstance().get(Calendar.YEAR);
+        return getRevenuesByMonths(year, year)[0];
+    }
+
+    /**
+     * Calculates the total revenue for each month in the given years, from the revenue
+     * buckets (One row for each day), instead of all invoices.
+     * @param fromYear First year, included.
+     * @param toYear Last year, included.
+     * @return Array [year - fromYear][month] in cents. Month index 0 is January.
+     */
+    public @NonNull long[][] getRevenuesByMonths(int fromYear, int toYear) {
+        return this.revenueRollupTable.getRevenuesByMonths(fromYear, toYear);
+    }
+
+    /**
+     * Reconstruct the revenue buckets from all invoices. Use it to repair any drift between
+     * the statistics and the invoices.
+     * @return True if success.
+     */
+    public boolean rebuildRevenueRollup() {
+        return this.revenueRollupTable.rebuild();
+    }
+
+    /**
+     * Calculates the total revenue for each year in the given range: The months of
+     * getRevenuesByMonths (read from the revenue buckets), summed for each year. The revenue of
+     * an invoice is the total price of its frame, not a sum of its rows.
+     * @param fromYear First year, included.
+     * @param toYear Last year, included.
+     * @return Array of revenue in cents. Index 0 is fromYear.
+     */
+    public @NonNull long[] getRevenuesByYears(int fromYear, int toYear) {
+        long[][] byMonths = getRevenuesByMonths(fromYear, toYear);
+        long[] revenues = new long[byMonths.length];
+        for (int year = 0; year < byMonths.length; year++)
+            for (long monthRevenue : byMonths[year]) revenues[year] += monthRevenue;
         return revenues;
     }
 }
@@ -0,0 +1,292 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import androidx.annotation.NonNull;
+
+/**
+ * Ordered schema migration steps, from the base schema (version 1) upward.
+ * Each step upgrade the schema by exactly one version, and must keep all the data.
+ * Used by DatabaseHelper both for upgrade an existing database, and for a new database
+ * (Base schema is created, then all steps are replayed).
+ * NOTE: For a new schema change, add a new step at the end of MIGRATIONS. Never edit or
+ *       reorder a step that already shipped.
+ * NOTE: Each step holds its own SQL as literals, as the schema was at its version. Never use
+ *       the tables constants or queries here: They follow the latest schema, and would change
+ *       what an old step does.
+ */
+final class DatabaseMigrations {
+
+    private static final String TAG = "DatabaseMigrations";
+
+    /** Single migration step: Upgrade the schema from version N to N + 1. */
+    interface Migration {
+        void migrate(@NonNull SQLiteDatabase database);
+    }
+
+    /** Index i upgrade the schema from version (BASE_VERSION + i) to (BASE_VERSION + i + 1). */
+    private static final Migration[] MIGRATIONS = {
+            DatabaseMigrations::addLookupIndexes,       // 1 -> 2
+            DatabaseMigrations::addRevenueRollup,       // 2 -> 3
+            DatabaseMigrations::addDateEpoch,           // 3 -> 4
+            DatabaseMigrations::addItemsSearch,         // 4 -> 5
+            DatabaseMigrations::convertMoneyToCents,    // 5 -> 6
+            DatabaseMigrations::addInvoiceDrafts,       // 6 -> 7
+            DatabaseMigrations::addSortIndexes,         // 7 -> 8
+            DatabaseMigrations::addItemInvoiceIndex,    // 8 -> 9
+    };
+
+    /** Version of the schema as created by createBaseSchema() */
+    public static final int BASE_VERSION = 1;
+
+    /** Current schema version */
+    public static final int LATEST_VERSION = BASE_VERSION + MIGRATIONS.length;
+
+    private DatabaseMigrations() { }
+
+    /**
+     * Run all the steps between the given versions, by order.
+     * @param database The database. Caller is responsible for the transaction.
+     * @param fromVersion Current schema version of the database.
+     * @param toVersion Requested schema version.
+     * @throws IllegalArgumentException If no migration path between the versions.
+     */
+    public static void migrate(@NonNull SQLiteDatabase database, int fromVersion, int toVersion) {
+        if (fromVersion < BASE_VERSION || toVersion > LATEST_VERSION || fromVersion > toVersion)
+            throw new IllegalArgumentException(
+                    "No migration path from version " + fromVersion + " to " + toVersion);
+
+        for (int version = fromVersion; version < toVersion; version++) {
+            MIGRATIONS[version - BASE_VERSION].migrate(database);
+            Log.i(TAG, "Database migrated from version " + version + " to " + (version + 1));
+        }
+    }
+
+    /*//////////////////////////////////////////////////////////////////////////////////////////////
+    Migration steps   //////////////////////////////////////////////////////////////////////////////
+    /*//////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * Version 1: Base schema. Items, invoice rows and invoice frames (money as REAL), and the
+     * company profile.
+     */
+    static void createBaseSchema(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE TABLE IF NOT EXISTS BasicItem ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,Name TEXT NOT NULL,Description TEXT," +
+                "Value REAL NOT NULL,isRemoved INTEGER NOT NULL);");
+        database.execSQL("CREATE TABLE IF NOT EXISTS InvoiceRows ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,InvoiceID INTEGER NOT NULL," +
+                "ItemID INTEGER NOT NULL,Value REAL NOT NULL,Amount INTEGER NOT NULL);");
+        database.execSQL("CREATE TABLE IF NOT EXISTS InvoiceFrame ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,Date TEXT NOT NULL,Price REAL NOT NULL);");
+        database.execSQL("CREATE TABLE IF NOT EXISTS CompanyDetails ( " +
+                "ID INTEGER PRIMARY KEY CHECK(ID = 1),CompanyName TEXT NOT NULL UNIQUE," +
+                "CompanyAddress TEXT NOT NULL UNIQUE,CompanyNumber TEXT NOT NULL UNIQUE," +
+                "CompanyID TEXT NOT NULL UNIQUE);");
+    }
+
+    /**
+     * Version 2: Indexes for the lookups that were full table scans.
+     * InvoiceRows by invoice (get / remove rows) and by item (best-selling item),
+     * InvoiceFrame by date and by price (sort and search).
+     */
+    private static void addLookupIndexes(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceRows_InvoiceID " +
+                "ON InvoiceRows (InvoiceID);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceRows_ItemID ON InvoiceRows (ItemID);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceFrame_Date ON InvoiceFrame (Date);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceFrame_Price ON InvoiceFrame (Price);");
+    }
+
+    /**
+     * Version 3: Revenue rollup table (daily buckets for the statistics), filled from the
+     * existing invoices.
+     */
+    private static void addRevenueRollup(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE TABLE IF NOT EXISTS RevenueRollup ( " +
+                "Year INTEGER NOT NULL,Month INTEGER NOT NULL,Day INTEGER NOT NULL," +
+                "Revenue REAL NOT NULL,InvoiceCount INTEGER NOT NULL,ItemCount INTEGER NOT NULL," +
+                "PRIMARY KEY (Year, Month, Day));");
+        fillRevenueRollup(database);
+    }
+
+    /**
+     * Version 4: Invoice date as integer (epoch millis) with an index, for date range queries.
+     * The text date index is no longer used by any query, and dropped.
+     */
+    private static void addDateEpoch(@NonNull SQLiteDatabase database) {
+        database.execSQL("ALTER TABLE InvoiceFrame ADD COLUMN " +
+                "DateEpoch INTEGER NOT NULL DEFAULT 0;");
+        // Local time text date to epoch millis
+        database.execSQL("UPDATE InvoiceFrame SET " +
+                "DateEpoch = CAST(strftime('%s', Date, 'utc') AS INTEGER) * 1000;");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceFrame_DateEpoch " +
+                "ON InvoiceFrame (DateEpoch);");
+        database.execSQL("DROP INDEX IF EXISTS InvoiceFrame_Date;");
+    }
+
+    /**
+     * Version 5: Full-text search index (FTS4) over items names and descriptions, filled from
+     * the not removed items, and case insensitive names index for the duplicate check.
+     */
+    private static void addItemsSearch(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS BasicItemSearch " +
+                "USING fts4(Name, Description);");
+        database.execSQL("INSERT INTO BasicItemSearch (docid, Name, Description) " +
+                "SELECT _id, Name, Description FROM BasicItem WHERE isRemoved = 0;");
+        database.execSQL("CREATE INDEX IF NOT EXISTS BasicItem_Name " +
+                "ON BasicItem (Name COLLATE NOCASE);");
+    }
+
+    /**
+     * Version 6: Money as exact INTEGER cents instead of REAL. Items value, rows value and
+     * frames price are converted (rounded to the nearest cent, half away from zero), by
+     * replacing each table: SQLite can't change a column type. IDs and the AUTOINCREMENT
+     * sequences are kept, and the indexes are created again. The revenue rollup is created
+     * again and refilled from the frames.
+     * The REAL is rounded to 4 digits after the cents first, dropping the binary error of the
+     * multiply (0.285 * 100 is 28.499999999999996), so halves round up (29) as written.
+     * NOTE: A new database is created with the REAL base schema, and converted here (empty).
+     */
+    private static void convertMoneyToCents(@NonNull SQLiteDatabase database) {
+        String replaced = replaceTable(database, "BasicItem", "CREATE TABLE BasicItem ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,Name TEXT NOT NULL,Description TEXT," +
+                "Value INTEGER NOT NULL,isRemoved INTEGER NOT NULL);");
+        database.execSQL("INSERT INTO BasicItem (_id, Name, Description, Value, isRemoved) " +
+                "SELECT _id, Name, Description, " +
+                "CAST(ROUND(ROUND(Value * 100, 4)) AS INTEGER), isRemoved FROM " + replaced + ";");
+        dropReplacedTable(database, "BasicItem", replaced);
+        database.execSQL("CREATE INDEX IF NOT EXISTS BasicItem_Name " +
+                "ON BasicItem (Name COLLATE NOCASE);");
+
+        replaced = replaceTable(database, "InvoiceRows", "CREATE TABLE InvoiceRows ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,InvoiceID INTEGER NOT NULL," +
+                "ItemID INTEGER NOT NULL,Value INTEGER NOT NULL,Amount INTEGER NOT NULL);");
+        database.execSQL("INSERT INTO InvoiceRows (_id, InvoiceID, ItemID, Value, Amount) " +
+                "SELECT _id, InvoiceID, ItemID, " +
+                "CAST(ROUND(ROUND(Value * 100, 4)) AS INTEGER), Amount FROM " + replaced + ";");
+        dropReplacedTable(database, "InvoiceRows", replaced);
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceRows_InvoiceID " +
+                "ON InvoiceRows (InvoiceID);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceRows_ItemID ON InvoiceRows (ItemID);");
+
+        replaced = replaceTable(database, "InvoiceFrame", "CREATE TABLE InvoiceFrame ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,Date TEXT NOT NULL," +
+                "Price INTEGER NOT NULL,DateEpoch INTEGER NOT NULL DEFAULT 0);");
+        database.execSQL("INSERT INTO InvoiceFrame (_id, Date, Price, DateEpoch) " +
+                "SELECT _id, Date, CAST(ROUND(ROUND(Price * 100, 4)) AS INTEGER), DateEpoch " +
+                "FROM " + replaced + ";");
+        dropReplacedTable(database, "InvoiceFrame", replaced);
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceFrame_DateEpoch " +
+                "ON InvoiceFrame (DateEpoch);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceFrame_Price ON InvoiceFrame (Price);");
+
+        database.execSQL("DROP TABLE IF EXISTS RevenueRollup;");
+        database.execSQL("CREATE TABLE RevenueRollup ( " +
+                "Year INTEGER NOT NULL,Month INTEGER NOT NULL,Day INTEGER NOT NULL," +
+                "Revenue INTEGER NOT NULL,InvoiceCount INTEGER NOT NULL," +
+                "ItemCount INTEGER NOT NULL,PRIMARY KEY (Year, Month, Day));");
+        fillRevenueRollup(database);
+    }
+
+    /**
+     * Version 7: Drafts tables, for the autosave of the invoices being composed. The draft rows
+     * are kept by draft ID in their own table (Same columns as InvoiceRows), no change to the
+     * other tables.
+     */
+    private static void addInvoiceDrafts(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE TABLE IF NOT EXISTS InvoiceDraft ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,EditID INTEGER NOT NULL," +
+                "Updated INTEGER NOT NULL);");
+        database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS InvoiceDraft_EditID " +
+                "ON InvoiceDraft (EditID);");
+        database.execSQL("CREATE TABLE IF NOT EXISTS InvoiceDraftRows ( " +
+                "_id INTEGER PRIMARY KEY AUTOINCREMENT,DraftID INTEGER NOT NULL," +
+                "ItemID INTEGER NOT NULL,Value INTEGER NOT NULL,Amount INTEGER NOT NULL);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceDraftRows_DraftID " +
+                "ON InvoiceDraftRows (DraftID);");
+    }
+
+    /**
+     * Version 8: Composite indexes for the sort of the frames by two keys (date then price,
+     * price then date), so each sorted page is read by the index. Items are sorted by the
+     * database as well: By price, and by name then price (replacing the names index, which is
+     * its prefix for the duplicate check).
+     */
+    private static void addSortIndexes(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceFrame_DateEpoch_Price " +
+                "ON InvoiceFrame (DateEpoch, Price);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceFrame_Price_DateEpoch " +
+                "ON InvoiceFrame (Price, DateEpoch);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS BasicItem_Value ON BasicItem (Value);");
+        database.execSQL("CREATE INDEX IF NOT EXISTS BasicItem_Name_Value " +
+                "ON BasicItem (Name COLLATE NOCASE, Value DESC);");
+        database.execSQL("DROP INDEX IF EXISTS BasicItem_Name;");
+    }
+
+    /**
+     * Version 9: Reverse index of the rows, item to invoices (with the quantity), for find the
+     * invoices of an item by pages. Replaces the item index, which is its prefix.
+     */
+    private static void addItemInvoiceIndex(@NonNull SQLiteDatabase database) {
+        database.execSQL("CREATE INDEX IF NOT EXISTS InvoiceRows_ItemID_InvoiceID " +
+                "ON InvoiceRows (ItemID, InvoiceID, Amount);");
+        database.execSQL("DROP INDEX IF EXISTS InvoiceRows_ItemID;");
+    }
+
+    /**
+     * Fill the revenue rollup (empty) with the daily totals of the invoices, as the schema is
+     * at versions 3 to 6: No drafts yet, all rows belong to a frame.
+     */
+    private static void fillRevenueRollup(@NonNull SQLiteDatabase database) {
+        database.execSQL("INSERT INTO RevenueRollup " +
+                "(Year, Month, Day, Revenue, InvoiceCount, ItemCount) SELECT " +
+                "CAST(strftime('%Y', f.Date) AS INTEGER), " +
+                "CAST(strftime('%m', f.Date) AS INTEGER), " +
+                "CAST(strftime('%d', f.Date) AS INTEGER), " +
+                "SUM(f.Price), COUNT(*), IFNULL(SUM(r.ItemsCount), 0) FROM InvoiceFrame f " +
+                "LEFT JOIN (SELECT InvoiceID, SUM(Amount) AS ItemsCount FROM InvoiceRows " +
+                "GROUP BY InvoiceID) r ON r.InvoiceID = f._id GROUP BY 1, 2, 3;");
+    }
+
+    /**
+     * Rename a table out of the way, and create its replacement under the original name.
+     * @param table Table name.
+     * @param createReplacement Query for create the new table.
+     * @return Name of the renamed (old) table, for copy its data.
+     */
+    private static @NonNull String replaceTable(@NonNull SQLiteDatabase database,
+                                                @NonNull String table,
+                                                @NonNull String createReplacement) {
+        String replaced = table + "_replaced";
+        database.execSQL("ALTER TABLE " + table + " RENAME TO " + replaced + ";");
+        database.execSQL(createReplacement);
+        return replaced;
+    }
+
+    /**
+     * Drop the renamed (old) table, after its data was copied. The AUTOINCREMENT sequence of
+     * the old table is kept by the new one, so removed IDs are never recycled. Its indexes are
+     * dropped with it, create them again after.
+     * @param table Name of the new table.
+     * @param replaced Name of the old table.
+     */
+    private static void dropReplacedTable(@NonNull SQLiteDatabase database, @NonNull String table,
+                                          @NonNull String replaced) {
+        database.execSQL("UPDATE sqlite_sequence SET seq = (SELECT MAX(seq) FROM " +
+                "sqlite_sequence WHERE name IN (?, ?)) WHERE name = ?;",
+                new Object[]{ table, replaced, table });
+        database.execSQL("INSERT INTO sqlite_sequence (name, seq) SELECT ?, seq FROM " +
+                "sqlite_sequence WHERE name = ? AND NOT EXISTS " +
+                "(SELECT 1 FROM sqlite_sequence WHERE name = ?);",
+                new Object[]{ table, replaced, table });
+        database.execSQL("DROP TABLE " + replaced + ";");
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+
+/**
+ * Tunable connection profile, applied by DatabaseHelper each time the database is opened.
+ * Contain the journal mode, synchronous level, page cache size, memory map size and the
+ * WAL checkpoint threshold.
+ * NOTE: In WAL mode readers never block the writer (and vice versa), so the invoice list and
+ *       the statistics can be loaded while a new invoice is being saved.
+ */
+final class DatabaseProfile {
+
+    /** Journal modes */
+    public static final String JOURNAL_WAL = "WAL";
+    public static final String JOURNAL_TRUNCATE = "TRUNCATE";
+
+    /** Synchronous levels. NORMAL is safe in WAL mode: Only the last commit may be lost. */
+    public static final String SYNCHRONOUS_FULL = "FULL";
+    public static final String SYNCHRONOUS_NORMAL = "NORMAL";
+
+    /** Default profile: WAL, 2MB page cache, 32MB memory map, checkpoint every 1000 pages. */
+    public static final DatabaseProfile DEFAULT = new DatabaseProfile(
+            JOURNAL_WAL, SYNCHRONOUS_NORMAL, 2048, 32L * 1024 * 1024, 1000);
+
+    /** Old behaviour: Rollback journal, full sync and SQLite default cache. */
+    public static final DatabaseProfile ROLLBACK_JOURNAL = new DatabaseProfile(
+            JOURNAL_TRUNCATE, SYNCHRONOUS_FULL, 2000, 0, 1000);
+
+    private final String journalMode;
+    private final String synchronous;
+    private final int cacheSizeKiB;
+    private final long mmapSizeBytes;
+    private final int checkpointPages;
+
+    /**
+     * Create a new profile. No validation for the data is performed.
+     * @param journalMode One of JOURNAL_WAL or JOURNAL_TRUNCATE.
+     * @param synchronous One of SYNCHRONOUS_FULL or SYNCHRONOUS_NORMAL.
+     * @param cacheSizeKiB Page cache size for each connection, in KiB.
+     * @param mmapSizeBytes Memory mapped I/O size, in bytes. 0 disable it.
+     * @param checkpointPages WAL auto checkpoint threshold, in pages.
+     */
+    public DatabaseProfile(@NonNull String journalMode, @NonNull String synchronous,
+                           int cacheSizeKiB, long mmapSizeBytes, int checkpointPages) {
+        this.journalMode = journalMode;
+        this.synchronous = synchronous;
+        this.cacheSizeKiB = cacheSizeKiB;
+        this.mmapSizeBytes = mmapSizeBytes;
+        this.checkpointPages = checkpointPages;
+    }
+
+    /**
+     * @return True if the profile use write-ahead logging.
+     */
+    public boolean isWriteAheadLogging() {
+        return JOURNAL_WAL.equals(this.journalMode);
+    }
+
+    public @NonNull String getJournalMode() {
+        return this.journalMode;
+    }
+
+    public @NonNull String getSynchronous() {
+        return this.synchronous;
+    }
+
+    public int getCacheSizeKiB() {
+        return this.cacheSizeKiB;
+    }
+
+    public long getMmapSizeBytes() {
+        return this.mmapSizeBytes;
+    }
+
+    public int getCheckpointPages() {
+        return this.checkpointPages;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return journalMode + " " + synchronous + " cache:" + cacheSizeKiB + "KiB mmap:"
+                + mmapSizeBytes + " checkpoint:" + checkpointPages;
+    }
+}
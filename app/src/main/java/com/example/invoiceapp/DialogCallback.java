@@ -13,6 +13,7 @@ package com.example.invoiceapp;
  * The dialog helpers classes doesn't required to implement it:
  * Target activity must implement it and with the call for the dialog, type the DialogCallback
  * as arguments.
+ * Also used by InvoiceRepository, for the result of a database operation (main thread).
  */
 public interface DialogCallback<T> {
 
@@ -0,0 +1,82 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import java.util.List;
+
+/**
+ * Write-behind autosave of the invoice being composed, as a draft (See invoiceDraftsTable).
+ * Each change of the cart schedules a save after a quiet period (debounce), so a burst of taps
+ * costs a single write: A copy of the whole cart, saved by one grouped write of the
+ * InvoiceRepository (Off the UI thread). flush() saves the pending changes now, call it when
+ * the activity is paused: The process may be killed after it.
+ * Saves run on the single writer by submit order, so a later commit or discard of the draft
+ * always runs after them.
+ * NOTE: Main thread only.
+ */
+final class DraftAutosave {
+
+    /** Quiet period after the last change, before the save */
+    static final long DEBOUNCE_MILLIS = 500;
+
+    private final InvoiceRepository.Scope requests;
+    private final ShoppingCard card;
+    private final long editID;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable save = this::flush;
+    private boolean pending = false; // Changes not saved yet
+    private boolean stopped = false;
+
+    /**
+     * @param requests Requests scope of the activity.
+     * @param card The cart being composed.
+     * @param editID Edited invoice ID, invoiceDraftsTable.NEW_INVOICE for a new invoice.
+     */
+    DraftAutosave(@NonNull InvoiceRepository.Scope requests, @NonNull ShoppingCard card,
+                  long editID) {
+        this.requests = requests;
+        this.card = card;
+        this.editID = editID;
+    }
+
+    /** Call after each change of the cart. */
+    void onCartChanged() {
+        if (stopped) return;
+        pending = true;
+        handler.removeCallbacks(save);
+        handler.postDelayed(save, DEBOUNCE_MILLIS);
+    }
+
+    /** Save the pending changes now, if any. */
+    void flush() {
+        handler.removeCallbacks(save);
+        if (!pending || stopped) return;
+        pending = false;
+        List<InvoiceRow> rows = card.getComposedList();
+        requests.writeGrouped(database -> database.saveDraft(editID, rows),
+                Boolean.TRUE::equals, new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(Boolean saved) {
+                        if (!saved) pending = true; // Retry by the next flush
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        pending = true;
+                    }
+                });
+    }
+
+    /** Stop saving, when the draft is committed or discarded. Pending changes are dropped. */
+    void stop() {
+        stopped = true;
+        handler.removeCallbacks(save);
+    }
+}
@@ -7,71 +7,120 @@ package com.example.invoiceapp;
  * See the LICENSE file in the root directory for details.
  */
 
-import java.text.DecimalFormat;
+import androidx.annotation.NonNull;
 import java.text.NumberFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.Locale;
-import java.util.Date;
 
+/**
+ * Formatting and parsing of dates, numbers and money, safe for any thread (UI and database
+ * threads alike).
+ * Dates use immutable DateTimeFormatter constants (java.time, desugared below API 26). Their
+ * patterns are numeric only, so the text is the same in any locale (ASCII digits, as stored in
+ * database), and the time zone is read on each call.
+ * Numbers use NumberFormat, which is not thread safe: Each thread holds its own formats, for
+ * the current default locale. If the default locale was changed, the formats of the thread are
+ * created again on the next call.
+ */
 public class FormatUtils {
 
-    private static NumberFormat integerFormat = null; // Format example: 1,000.00 ; 1.000.00
-    private static NumberFormat serialFormat = null; // 10 zero fill
-    private static NumberFormat currencyFormat = null; // Max fraction digits: 2
-    private static SimpleDateFormat dateFormatFull = null; // yyyy-MM-dd HH:mm:ss
-    private static SimpleDateFormat targetFormat = null;
-    private static SimpleDateFormat dateFormatCompress = null; // dd-MM-yyyy
-    private static SimpleDateFormat inputUserDateFormat = null; // yyyy-MM-dd
-    private static SimpleDateFormat outputFormatDateFormat = null; // dd/MM/yyyy
-
-    private static boolean init = false;
+    private static final DateTimeFormatter dateFormatFull = // yyyy-MM-dd HH:mm:ss
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss", Locale.ROOT);
+    private static final DateTimeFormatter targetFormat = // dd-MM-yyyy HH:mm:ss
+            DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm:ss", Locale.ROOT);
+    private static final DateTimeFormatter dateFormatCompress = // dd-MM-yyyy
+            DateTimeFormatter.ofPattern("dd-MM-yyyy", Locale.ROOT);
+    private static final DateTimeFormatter inputUserDateFormat = // yyyy-MM-dd
+            DateTimeFormatter.ofPattern("yyyy-MM-dd", Locale.ROOT);
+    private static final DateTimeFormatter outputFormatDateFormat = // dd/MM/yyyy
+            DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.ROOT);
+
+    /** Serial number digits, zero filled */
+    private static final int SERIAL_DIGITS = 10;
+    private static final long SERIAL_LIMIT = 10_000_000_000L; // 10 ^ SERIAL_DIGITS
+
+    private static final ThreadLocal<NumberFormats> numberFormats = new ThreadLocal<>();
+
+    /** Number formats of a single thread, for a single locale */
+    private static final class NumberFormats {
+        final Locale locale;
+        final NumberFormat integerFormat; // Format example: 1,000 ; 1.000
+        final NumberFormat currencyFormat; // Max fraction digits: 2
+        final char[] serial = new char[SERIAL_DIGITS + 1]; // "#" and the digits
+
+        NumberFormats(@NonNull Locale locale) {
+            this.locale = locale;
+            this.integerFormat = NumberFormat.getIntegerInstance(locale);
+            this.currencyFormat = NumberFormat.getCurrencyInstance(locale);
+            this.currencyFormat.setMaximumFractionDigits(Money.SCALE);
+            this.serial[0] = '#';
+        }
+    }
 
     private FormatUtils() { }
 
-    private static void initAll() {
-        integerFormat = NumberFormat.getIntegerInstance(Locale.getDefault());
-        serialFormat = NumberFormat.getInstance(Locale.getDefault());
-        serialFormat = new DecimalFormat("0000000000");
-        currencyFormat = NumberFormat.getCurrencyInstance(Locale.getDefault());
-        currencyFormat.setMaximumFractionDigits(2);
-        dateFormatFull = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-        dateFormatCompress = new SimpleDateFormat("dd-MM-yyyy", Locale.getDefault());
-        targetFormat = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss", Locale.getDefault());
-        inputUserDateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        outputFormatDateFormat = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
-        init = true;
+    /** @return The number formats of this thread, for the current default locale. */
+    private static @NonNull NumberFormats numberFormats() {
+        Locale locale = Locale.getDefault();
+        NumberFormats formats = numberFormats.get();
+        if (formats == null || !formats.locale.equals(locale)) {
+            formats = new NumberFormats(locale);
+            numberFormats.set(formats);
+        }
+        return formats;
     }
 
     public static String formatInteger(int number) {
-        if (!init) initAll();
-        return integerFormat.format(number);
+        return numberFormats().integerFormat.format(number);
     }
 
-    public static String formatSerialNumber(double number) {
-        if (!init) initAll();
-        return "#" + serialFormat.format(number);
+    /**
+     * Format an ID as serial number: "#" and 10 digits, zero filled (e.g. "#0000000042").
+     * The digits are written directly, the result string is the only allocation.
+     * @param number ID. Longer numbers are not cut.
+     * @return Formatted serial number.
+     */
+    public static String formatSerialNumber(long number) {
+        if (number < 0 || number >= SERIAL_LIMIT) {
+            String digits = Long.toString(Math.abs(number));
+            StringBuilder builder = new StringBuilder(SERIAL_DIGITS + 2).append('#');
+            if (number < 0) builder.append('-');
+            for (int i = digits.length(); i < SERIAL_DIGITS; i++) builder.append('0');
+            return builder.append(digits).toString();
+        }
+        char[] serial = numberFormats().serial;
+        for (int i = SERIAL_DIGITS; i > 0; i--) {
+            serial[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return new String(serial);
     }
 
-    public static String formatCurrency(double amount) {
-        if (!init) initAll();
-        return currencyFormat.format(amount);
+    /**
+     * Format money for display, exact (No floating point).
+     * @param cents Amount in cents.
+     * @return Formatted currency, e.g. "$1,000.50".
+     */
+    public static String formatCurrency(long cents) {
+        return numberFormats().currencyFormat.format(Money.toDecimal(cents));
     }
 
     public static String formatDateFull(String dateString) throws ParseException {
-        if (!init) initAll();
-        return formatDate(dateString, dateFormatCompress, dateFormatFull);
+        return parseDate(dateString, dateFormatCompress).atStartOfDay().format(dateFormatFull);
     }
 
     public static String formatDateCompressed(String dateString) throws ParseException{
-        if (!init) initAll();
-        return formatDate(dateString, dateFormatFull, dateFormatCompress);
+        return parseDateTime(dateString, dateFormatFull).format(dateFormatCompress);
     }
 
     public static String changeFullDateFormat(String dateString) throws ParseException {
-        Date date = dateFormatFull.parse(dateString);
-        assert date != null;
-        return targetFormat.format(date);
+        return parseDateTime(dateString, dateFormatFull).format(targetFormat);
     }
 
     // String compressedDate = FormatUtils.formatDateCompressed("2025-02-18 12:30:45");
@@ -80,20 +129,63 @@ public class FormatUtils {
     // String fullDate = FormatUtils.formatDateFull("18-02-2025");
     // "2025-02-18 00:00:00"
 
-    private static String formatDate(String dateString, SimpleDateFormat inputFormat,
-                                     SimpleDateFormat outputFormat) throws ParseException {
-        Date date = inputFormat.parse(dateString);
-        assert date != null;
-        return outputFormat.format(date);
+    /**
+     * Parse date formatted "yyyy-MM-dd HH:mm:ss" (as stored in database) to epoch millis.
+     * @param dateString Full date.
+     * @return Milliseconds since epoch, of the local date time.
+     */
+    public static long parseDateFullMillis(String dateString) throws ParseException {
+        return parseDateTime(dateString, dateFormatFull)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Parse date formatted "yyyy-MM-dd" (as given by the date picker) to epoch millis.
+     * @param dateString Date, without time.
+     * @return Milliseconds since epoch, of the start of this local day.
+     */
+    public static long parseDateMillis(String dateString) throws ParseException {
+        return parseDate(dateString, inputUserDateFormat)
+                .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Format epoch millis for display, "dd-MM-yyyy HH:mm:ss". No string parsing.
+     * @param millis Milliseconds since epoch.
+     * @return Formatted date.
+     */
+    public static String formatDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault())
+                .format(targetFormat);
     }
 
     public static String formatDateForDisplay(String date) throws ParseException {
-        Date parsedDate = inputUserDateFormat.parse(date);
-        assert parsedDate != null;
-        return outputFormatDateFormat.format(parsedDate);
+        return parseDate(date, inputUserDateFormat).format(outputFormatDateFormat);
     }
 
     public static String getCurrentTimestamp() {
-        return dateFormatFull.format(new Date());
+        return LocalDateTime.now().format(dateFormatFull);
+    }
+
+    /** Parse a date, as checked ParseException (Same as the callers expect) */
+    private static @NonNull LocalDate parseDate(String dateString,
+                                                @NonNull DateTimeFormatter format)
+            throws ParseException {
+        if (dateString == null) throw new ParseException("null", 0);
+        try { return LocalDate.parse(dateString, format); }
+        catch (DateTimeParseException e) {
+            throw new ParseException(dateString, e.getErrorIndex());
+        }
+    }
+
+    /** Parse a date time, as checked ParseException (Same as the callers expect) */
+    private static @NonNull LocalDateTime parseDateTime(String dateString,
+                                                        @NonNull DateTimeFormatter format)
+            throws ParseException {
+        if (dateString == null) throw new ParseException("null", 0);
+        try { return LocalDateTime.parse(dateString, format); }
+        catch (DateTimeParseException e) {
+            throw new ParseException(dateString, e.getErrorIndex());
+        }
     }
 }
@@ -0,0 +1,207 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single writer of InvoiceRepository. Writes are run one by one by submit order, on a
+ * single thread. Grouped writes (invoice saves, frame updates, item edits) that are pending
+ * together are committed in one transaction (group commit), so a burst of saves pays for a
+ * single commit (fsync) instead of one for each.
+ * The first write of a group waits up to the latency budget for more writes, the group ends
+ * when the budget is over, the group is full, or a non grouped write is next.
+ * If any write of the group fails, the whole group is rolled back, and each write is run again
+ * alone (its own transaction), so a single bad write never fails the others.
+ * NOTE: Each write is delivered his own result, after his group is committed.
+ */
+final class GroupCommitQueue {
+
+    private static final String TAG = "GroupCommitQueue";
+    public static final long DEFAULT_BUDGET_MILLIS = 5;
+    public static final int DEFAULT_MAX_GROUP = 64;
+    private static final int LATENCY_SAMPLES = 1024;
+
+    /** Write waiting in the queue */
+    interface Entry {
+        /**
+         * Run the write, and keep the result for complete().
+         * @return True if success. False will roll back the group.
+         */
+        boolean perform(@NonNull DatabaseHelper database) throws Exception;
+
+        /** Deliver the kept result. Called once, after commit. */
+        void complete();
+
+        /** Deliver a failure. Called once, instead of complete(). */
+        void fail(@NonNull Throwable error);
+
+        /** @return True if this write can be committed with other writes. */
+        boolean isGrouped();
+    }
+
+    private final Context context;
+    private final long budgetNanos;
+    private final int maxGroup;
+    private final BlockingQueue<Entry> queue;
+
+    // Statistics, written by the writer thread
+    private final long[] latencies = new long[LATENCY_SAMPLES]; // Nanos, ring buffer
+    private int latencyCount = 0; // Samples in the buffer
+    private int latencyNext = 0; // Next index to write
+    private long committedWrites = 0;
+    private long commitGroups = 0;
+
+    /**
+     * Create the queue, and start the writer thread.
+     * @param context Application context.
+     * @param budgetMillis Max wait for more writes of a group, 0 for no grouping wait.
+     * @param maxGroup Max writes in one group, at least 1.
+     */
+    public GroupCommitQueue(@NonNull Context context, long budgetMillis, int maxGroup) {
+        this.context = context;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, budgetMillis));
+        this.maxGroup = Math.max(1, maxGroup);
+        this.queue = new LinkedBlockingQueue<>();
+        Thread writer = new Thread(this::writeLoop, "db-write");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.NORM_PRIORITY - 1); // Below the UI thread
+        writer.start();
+    }
+
+    /**
+     * Add a write to the queue.
+     * @param entry The write.
+     */
+    public void submit(@NonNull Entry entry) {
+        queue.add(entry);
+    }
+
+    /** Writer thread: Take a group, commit it, and so on */
+    private void writeLoop() {
+        List<Entry> group = new ArrayList<>(maxGroup);
+        Entry next = null; // Taken from the queue but not grouped, first of the next round
+        while (true) {
+            try {
+                Entry first = next != null ? next : queue.take();
+                next = null;
+                long start = System.nanoTime();
+                group.add(first);
+                if (first.isGrouped()) {
+                    long deadline = start + budgetNanos;
+                    while (group.size() < maxGroup) {
+                        long left = deadline - System.nanoTime();
+                        Entry entry = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS)
+                                : queue.poll();
+                        if (entry == null) break;
+                        if (!entry.isGrouped()) {
+                            next = entry;
+                            break;
+                        }
+                        group.add(entry);
+                    }
+                }
+                commit(group, start);
+            }
+            catch (InterruptedException e) {
+                Log.e(TAG, e.toString());
+                return;
+            }
+            catch (Exception e) {
+                // Keep the writer alive. Writes already delivered ignore the failure
+                Log.e(TAG, e.toString());
+                for (Entry entry : group) entry.fail(e);
+            }
+            finally { group.clear(); }
+        }
+    }
+
+    /**
+     * Commit a group in one transaction. If failed, run each write alone.
+     * @param group Writes by submit order.
+     * @param start Time the group started.
+     */
+    private void commit(@NonNull List<Entry> group, long start) {
+        DatabaseHelper database = DatabaseHelper.getInstance(context);
+        if (group.size() == 1) {
+            performAlone(database, group.get(0));
+            record(1, start);
+            return;
+        }
+        boolean committed = database.runInTransaction(() -> {
+            for (Entry entry : group) {
+                try {
+                    if (!entry.perform(database)) return false;
+                }
+                catch (Exception e) {
+                    Log.e(TAG, e.toString());
+                    return false;
+                }
+            }
+            return true;
+        });
+        if (committed) {
+            for (Entry entry : group) entry.complete();
+        }
+        else {
+            // Rolled back (The caches get only committed writes, see runInTransaction)
+            for (Entry entry : group) performAlone(database, entry);
+        }
+        record(group.size(), start);
+    }
+
+    /** Run a single write in his own transaction, and deliver the result either way. */
+    private static void performAlone(@NonNull DatabaseHelper database, @NonNull Entry entry) {
+        try {
+            entry.perform(database);
+            entry.complete();
+        }
+        catch (Exception e) { entry.fail(e); }
+    }
+
+    private synchronized void record(int writes, long start) {
+        latencies[latencyNext] = System.nanoTime() - start;
+        latencyNext = (latencyNext + 1) % LATENCY_SAMPLES;
+        if (latencyCount < LATENCY_SAMPLES) latencyCount++;
+        committedWrites += writes;
+        commitGroups++;
+    }
+
+    /** @return Total writes committed (or failed) since start. */
+    public synchronized long getCommittedWrites() {
+        return committedWrites;
+    }
+
+    /** @return Number of commits (groups) since start. Writes / groups is the average group. */
+    public synchronized long getCommitGroups() {
+        return commitGroups;
+    }
+
+    /**
+     * Commit latency of the last groups: From the group start (first write taken) until all
+     * its writes are delivered, including the grouping wait.
+     * @param percentile Between 0 and 100, e.g. 99.
+     * @return Latency in microseconds, 0 if no commit yet.
+     */
+    public synchronized long getCommitLatencyMicros(double percentile) {
+        int samples = latencyCount;
+        if (samples == 0) return 0;
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * samples) - 1;
+        return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(0, index)]);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Selection of a RecyclerView list, by the stable IDs of the adapter (getItemId), not by
+ * positions: It stays right when the list is sorted, paged or changed, and may contain IDs not
+ * displayed at all (e.g. select all invoices, not only the loaded page).
+ * The IDs are kept in a LongHashSet, no boxing. A change rebinds only the selection of the
+ * changed views (the given payload).
+ * NOTE: Main thread only.
+ */
+final class IdSelection {
+
+    private final RecyclerView.Adapter<?> adapter;
+    private final Object payload;
+    private final LongHashSet selectedIDs = new LongHashSet();
+
+    /**
+     * @param adapter Adapter with stable IDs.
+     * @param payload Payload of a selection change, for the partial bind of the adapter.
+     */
+    IdSelection(@NonNull RecyclerView.Adapter<?> adapter, @NonNull Object payload) {
+        this.adapter = adapter;
+        this.payload = payload;
+    }
+
+    /**
+     * Select or unselect the item at this position.
+     * @param position Adapter position (e.g. getBindingAdapterPosition).
+     */
+    void toggle(int position) {
+        if (position == RecyclerView.NO_POSITION) return; // Being removed
+        long ID = adapter.getItemId(position);
+        if (ID == RecyclerView.NO_ID) return;
+        if (!selectedIDs.remove(ID)) selectedIDs.add(ID);
+        adapter.notifyItemChanged(position, payload);
+    }
+
+    /**
+     * @param ID Stable ID.
+     * @return True if selected.
+     */
+    boolean isSelected(long ID) {
+        return selectedIDs.contains(ID);
+    }
+
+    /**
+     * Select all the given IDs, displayed or not.
+     * @param IDs Stable IDs.
+     */
+    void selectAll(@NonNull long[] IDs) {
+        selectedIDs.addAll(IDs);
+        refresh();
+    }
+
+    /**
+     * Unselect an ID, without rebinding (e.g. the item was removed from the list).
+     * @param ID Stable ID.
+     */
+    void deselect(long ID) {
+        selectedIDs.remove(ID);
+    }
+
+    /** Clear the selection. */
+    void clear() {
+        if (selectedIDs.isEmpty()) return;
+        selectedIDs.clear();
+        refresh();
+    }
+
+    int size() {
+        return selectedIDs.size();
+    }
+
+    boolean isEmpty() {
+        return selectedIDs.isEmpty();
+    }
+
+    /** @return Selected IDs, sorted ascending. */
+    @NonNull long[] toArray() {
+        return selectedIDs.toArray();
+    }
+
+    /** Rebind the selection of all items (Only the bound views are rebound). */
+    private void refresh() {
+        adapter.notifyItemRangeChanged(0, adapter.getItemCount(), payload);
+    }
+}
@@ -17,11 +17,9 @@ import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.Button;
 import android.widget.EditText;
-import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
 import androidx.annotation.NonNull;
@@ -32,7 +30,6 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -51,11 +48,17 @@ public class InvoiceComposingActivity extends AppCompatActivity {
                 Also, removed for the invoice frame itself, and added it with the same ID.
             Safe operation in this activity:
                 if user cancel, nothing will be change on database.
+        Autosave (DraftAutosave):
+            Each change of the cart is saved as a draft (debounced, off the UI thread), and on
+            pause. Opening the same invoice (or a new invoice) again restores its draft, also
+            after the process was killed. Finish commits the draft, cancel discards it.
      */
 
-    private DatabaseHelper databaseHelper;
+    private InvoiceRepository.Scope requests;
     private ShoppingCard shoppingCard;
+    private DraftAutosave draftAutosave;
     private List<Item> itemsList;
+    private long editID; // Draft key: Edited invoice ID, or new invoice
 
     /// Temp selected values (Item, Amount) are update live according the user
     private Item selectedItem;
@@ -65,7 +68,7 @@ public class InvoiceComposingActivity extends AppCompatActivity {
     /// GUI elements
     private RecyclerView RV;
     private RVAdapterInvoiceRows RVAdapter;
-    private Spinner spinnerAddItem;
+    private AutoCompleteTextView itemPicker;
     private EditText editQuantity;
     private TextView totalPriceItemTempTV, totalNumberItemsTV;
     private TextView totalComposedInvoicePriceTV;
@@ -79,45 +82,99 @@ public class InvoiceComposingActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_invoice_composing);
         this.setTitle("");
-        this.databaseHelper = DatabaseHelper.getInstance(getApplicationContext());
-        int invoiceID = (int) databaseHelper.getNextInvoiceID();
-        this.itemsList = this.databaseHelper.getAllItems(true, true, false);
-
-        if (this.itemsList.isEmpty())
-            displaySnackBar(getString(R.string.invoice_compose_no_items_found));
+        this.requests = InvoiceRepository.getInstance(this).newScope();
 
         // Check if asked if edit invoice: Init activity for edit an invoice frame
         Intent intent = getIntent();
         long requestedInvoiceID = intent.getLongExtra("InvoiceFrameID", -1);
-        if (requestedInvoiceID != -1) {
+        this.isActivityForEdit = requestedInvoiceID != -1;
+        this.editID = isActivityForEdit ? requestedInvoiceID : invoiceDraftsTable.NEW_INVOICE;
+        final long draftKey = this.editID;
+        if (this.isActivityForEdit)
             this.setTitle(getString(R.string.invoice_compose_edit_mode_title));
-            this.isActivityForEdit = true;
-            List<InvoiceRow> rows = this.databaseHelper.getAllRowsByID(requestedInvoiceID, true);
-            this.shoppingCard = new ShoppingCard(rows, requestedInvoiceID);
-        }
-        // If not for edit, init normal composing invoice from scratch
-        else {
-            this.shoppingCard = new ShoppingCard(null, invoiceID);
+
+        // Load items and the card (async), the GUI is set when both are loaded.
+        // A saved draft is restored instead of the invoice rows
+        this.requests.read(database -> {
+            List<Item> items = database.getAllItems(true, true, false);
+            List<InvoiceRow> draftRows = database.getDraftRows(draftKey);
+            ShoppingCard card;
+            if (requestedInvoiceID != -1)
+                card = new ShoppingCard(draftRows != null ? draftRows
+                        : database.getAllRowsByID(requestedInvoiceID, true), requestedInvoiceID);
+            // If not for edit, init normal composing invoice from scratch
+            else card = new ShoppingCard(draftRows, database.getNextInvoiceID());
+            return new LoadedCard(items, card, draftRows != null);
+        }, new DialogCallback<>() {
+            @Override
+            public void onSuccess(LoadedCard loaded) {
+                itemsList = loaded.items;
+                shoppingCard = loaded.card;
+                draftAutosave = new DraftAutosave(requests, shoppingCard, editID);
+                if (itemsList.isEmpty())
+                    displaySnackBar(getString(R.string.invoice_compose_no_items_found));
+                else if (loaded.restored)
+                    displaySnackBar(getString(R.string.invoice_compose_draft_restored));
+                setupRecyclerView();
+                setupCardGUI();
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
+    }
+
+    /** Items and the card, loaded together */
+    private static final class LoadedCard {
+        final List<Item> items;
+        final ShoppingCard card;
+        final boolean restored; // From a saved draft
+
+        LoadedCard(@NonNull List<Item> items, @NonNull ShoppingCard card, boolean restored) {
+            this.items = items;
+            this.card = card;
+            this.restored = restored;
         }
-        setupRecyclerView();
-        setupCardGUI();
+    }
+
+    /** Save the draft now: The process may be killed while in background */
+    @Override
+    protected void onPause() {
+        if (this.draftAutosave != null) this.draftAutosave.flush();
+        super.onPause();
+    }
+
+    /** Drop all pending database requests of this activity (Saves are still done) */
+    @Override
+    protected void onDestroy() {
+        this.requests.cancelAll();
+        super.onDestroy();
     }
 
     /**
-     * Each time submit a new list, ListAdapter runs DiffUtil on a background thread to
-     * compute the difference between the new list and the old list: Any change.
+     * Call after each change of the cart: Update the totals, and schedule the draft save.
+     * The rows are updated by the adapter itself, which listens to the card changes
+     * (Only the changed rows).
      */
-    @SuppressLint({"NotifyDataSetChanged"})
     private void updateCardGUI() {
+        this.draftAutosave.onCartChanged();
         this.totalNumberItemsTV.setText(getString(R.string.item_manager_total_items,
                 this.shoppingCard.getTotalItems()));
-        this.totalComposedInvoicePriceTV.setText(FormatUtils.formatCurrency(shoppingCard.getTotalPrice()));
-        this.RVAdapter.submitList(this.shoppingCard.getComposedList());
-        this.RVAdapter.notifyDataSetChanged();
+        this.totalComposedInvoicePriceTV.setText(FormatUtils.formatCurrency(shoppingCard.getTotalCents()));
     }
 
     private void addRow() {
         if (itemsList.isEmpty()) return;
+        if (this.selectedItem == null) {
+            this.itemPicker.setError(getString(R.string.invoice_compose_no_item_selected));
+            return;
+        }
+        // Checked before the row is created, as its total must not overflow
+        if (!this.shoppingCard.canAdd(this.selectedItem, this.selectedQuantity)) {
+            displaySnackBar(getString(R.string.invoice_compose_total_too_large));
+            return;
+        }
         InvoiceRow newInvoiceRow
                 = new InvoiceRow(shoppingCard.getInvoiceID(), this.selectedQuantity, this.selectedItem);
         this.shoppingCard.addRow(newInvoiceRow);
@@ -130,7 +187,7 @@ public class InvoiceComposingActivity extends AppCompatActivity {
      * If no selected items, notify the user.
      */
     private void removeSelectedItems() {
-        this.shoppingCard.removeSelectedItems(new HashSet<>(this.RVAdapter.getSelectedPositions()));
+        this.shoppingCard.removeSelectedItems(this.RVAdapter.getSelectedPositions());
         updateCardGUI();
         this.RVAdapter.clearSelection();
         displaySnackBar(getString(R.string.invoice_compose_selected_items_removed));
@@ -142,7 +199,16 @@ public class InvoiceComposingActivity extends AppCompatActivity {
      * Note: This is not the added row price.
      */
     private void updateItemTempPrice() {
-        double totalPriceItemTemp = this.selectedItem.getValue() * this.selectedQuantity;
+        if (this.selectedItem == null) {
+            this.totalPriceItemTempTV.setText(FormatUtils.formatCurrency(0));
+            return;
+        }
+        if (!Money.fitsTotal(0, this.selectedItem.getValueCents(), this.selectedQuantity)) {
+            this.editQuantity.setError(getString(R.string.invoice_compose_total_too_large));
+            this.totalPriceItemTempTV.setText(FormatUtils.formatCurrency(0));
+            return;
+        }
+        long totalPriceItemTemp = Money.times(this.selectedItem.getValueCents(), this.selectedQuantity);
         this.totalPriceItemTempTV.setText(FormatUtils.formatCurrency(totalPriceItemTemp));
     }
 
@@ -170,7 +236,8 @@ public class InvoiceComposingActivity extends AppCompatActivity {
             displaySnackBar(getString(R.string.selection_no_input_selected));
         }
         else {
-            this.shoppingCard.addSelectedItemsQuantity(targetSelection);
+            if (!this.shoppingCard.addSelectedItemsQuantity(targetSelection))
+                displaySnackBar(getString(R.string.invoice_compose_total_too_large));
             updateCardGUI();
         }
     }
@@ -186,11 +253,11 @@ public class InvoiceComposingActivity extends AppCompatActivity {
         this.totalPriceItemTempTV = findViewById(R.id.textview_total_price_item_added);
         this.totalComposedInvoicePriceTV = findViewById(R.id.textview_total_price_invoice);
         this.totalNumberItemsTV = findViewById(R.id.textview_total_items);
-        this.spinnerAddItem = findViewById(R.id.spinner_items);
+        this.itemPicker = findViewById(R.id.item_picker);
         this.editQuantity = findViewById(R.id.edit_quantity);
         this.selectedQuantity = 0;
         this.totalNumberItemsTV.setText(getString(R.string.invoice_compose_total_items, this.itemsList.size()));
-        this.totalComposedInvoicePriceTV.setText(FormatUtils.formatCurrency(this.shoppingCard.getTotalPrice()));
+        this.totalComposedInvoicePriceTV.setText(FormatUtils.formatCurrency(this.shoppingCard.getTotalCents()));
         /// Setup quantity listener
         editQuantity.addTextChangedListener(new TextWatcher() {
             @Override
@@ -202,7 +269,6 @@ public class InvoiceComposingActivity extends AppCompatActivity {
                 try {
                     selectedQuantity = Integer.parseInt(s.toString());
                     if (selectedQuantity <= 0) throw new Exception();
-                    selectedItem = (Item) spinnerAddItem.getSelectedItem();
                     updateItemTempPrice();
                 }
                 catch (Exception e) {
@@ -212,26 +278,26 @@ public class InvoiceComposingActivity extends AppCompatActivity {
             }
         });
 
-        /// Setup spinner for items from database
-        ArrayAdapter<Item> adapter = new ArrayAdapter<>(this,
-                android.R.layout.simple_spinner_item, this.itemsList);
-        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        this.spinnerAddItem.setAdapter(adapter);
-
-        /// Setup spinner listener
-        spinnerAddItem.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+        /// Setup type-ahead picker for items from database (Filtered off the UI thread)
+        ItemPickerAdapter adapter = new ItemPickerAdapter(this, new ItemPrefixIndex(this.itemsList));
+        this.itemPicker.setAdapter(adapter);
+        this.itemPicker.setOnItemClickListener((parent, view, position, id) -> {
+            selectedItem = adapter.getItem(position);
+            itemPicker.setError(null);
+            updateItemTempPrice();
+        });
+        /// Typing after a selection drops it, until an item is chosen again
+        this.itemPicker.addTextChangedListener(new TextWatcher() {
             @Override
-            public void onItemSelected(AdapterView<?> parentView,
-                                       View selectedItemView, int position, long id) {
-                // Getting at position return Object type. Safe casting
-                selectedItem = (Item) parentView.getItemAtPosition(position);
-                updateItemTempPrice();
-                ((TextView) parentView.getChildAt(0)).setTextColor(getResources().getColor(R.color.Navy));
-                ((TextView) parentView.getChildAt(0)).setTextSize(26);
-            }
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {}
             @Override
-            public void onNothingSelected(AdapterView<?> parentView) {
-                ((TextView) parentView.getChildAt(0)).setTextSize(26);
+            public void onTextChanged(CharSequence s, int start, int before, int count) {}
+            @Override
+            public void afterTextChanged(Editable s) {
+                if (selectedItem != null && !selectedItem.getName().contentEquals(s)) {
+                    selectedItem = null;
+                    updateItemTempPrice();
+                }
             }
         });
 
@@ -252,6 +318,7 @@ public class InvoiceComposingActivity extends AppCompatActivity {
             dialog.setOnShowListener(d -> {
                 dialog.getButton(androidx.appcompat.app.AlertDialog.BUTTON_POSITIVE)
                         .setOnClickListener(v -> {
+                            discardDraft();
                             finishActivityAndCallManager();
                             dialog.dismiss();
                         });
@@ -280,7 +347,7 @@ public class InvoiceComposingActivity extends AppCompatActivity {
 
         RV.setLayoutManager(layoutManager);
         RV.setAdapter(this.RVAdapter);
-        this.RVAdapter.submitList(this.shoppingCard.getComposedList());
+        this.RVAdapter.setCard(this.shoppingCard);
     }
 
     private void changeLayoutRV() {
@@ -321,21 +388,61 @@ public class InvoiceComposingActivity extends AppCompatActivity {
     }
 
     private void finishCompose() {
-        if (databaseHelper.addComposedInvoice(shoppingCard.getComposedList()))
-            displaySnackBar(getString(R.string.invoice_compose_saved));
-        finishActivityAndCallManager();
+        commitDraft(R.string.invoice_compose_saved);
     }
 
     private void finishEdit() {
-        if (databaseHelper.editInvoice((int) this.shoppingCard.getInvoiceID(), this.shoppingCard.getComposedList()))
-            displaySnackBar(getString(R.string.invoice_compose_edit_saved));
-        finishActivityAndCallManager();
+        commitDraft(R.string.invoice_compose_edit_saved);
+    }
+
+    /**
+     * Commit the draft as the invoice (new or edited). Its saved rows are copied to the invoice
+     * by the database, not written again. If the commit fails, the draft is kept with the current rows.
+     * @param savedMsgRes Message for success.
+     */
+    private void commitDraft(int savedMsgRes) {
+        this.draftAutosave.stop();
+        long editID = this.editID;
+        List<InvoiceRow> rows = this.shoppingCard.getComposedList();
+        this.requests.writeGrouped(database -> {
+            if (database.commitDraft(editID, rows)) return true;
+            database.saveDraft(editID, rows);
+            return false;
+        }, Boolean.TRUE::equals, saveCallback(savedMsgRes));
+    }
+
+    /** Discard the draft, the invoice is not changed. */
+    private void discardDraft() {
+        if (this.draftAutosave != null) this.draftAutosave.stop();
+        long editID = this.editID;
+        this.requests.write(database -> database.discardDraft(editID), null);
     }
 
-    /** Suppress BackPressed from user, in order to prevent data lost on composed invoice. */
+    /**
+     * @param savedMsgRes Message for success.
+     * @return Callback for save the invoice: Notify and go back to the manager.
+     */
+    private @NonNull DialogCallback<Boolean> saveCallback(int savedMsgRes) {
+        return new DialogCallback<>() {
+            @Override
+            public void onSuccess(Boolean saved) {
+                if (saved) displaySnackBar(getString(savedMsgRes));
+                finishActivityAndCallManager();
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+                finishActivityAndCallManager();
+            }
+        };
+    }
+
+    /** Back to the manager. The composed invoice is kept as draft, restored when opened again. */
     @SuppressLint("MissingSuperCall")
+    @Override
     public void onBackPressed() {
-        // Suppress back call from user
+        if (this.draftAutosave != null) this.draftAutosave.flush();
+        finishActivityAndCallManager();
     }
 
     /**
@@ -357,6 +464,7 @@ public class InvoiceComposingActivity extends AppCompatActivity {
      */
     @Override
     public boolean onOptionsItemSelected(MenuItem m) {
+        if (this.shoppingCard == null) return true; // Still loading
         if (m.getItemId() == R.id.invoice_composing_reduce_amount) {
             reduceSelectedItemQuantity();
             return true;
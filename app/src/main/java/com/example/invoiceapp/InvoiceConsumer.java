@@ -0,0 +1,26 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import java.util.List;
+
+/**
+ * Receive full invoices (frame and rows) one by one, from the bulk loader
+ * (See DatabaseHelper.forEachInvoice). Used by batch operations: PDF / CSV export, etc.
+ */
+public interface InvoiceConsumer {
+
+    /**
+     * Called once for each invoice, by invoice ID order.
+     * @param frame Invoice frame.
+     * @param rows All rows of this invoice. Empty for an empty invoice.
+     * @return True for continue, false for stop.
+     */
+    boolean onInvoice(@NonNull InvoiceFrame frame, @NonNull List<InvoiceRow> rows);
+}
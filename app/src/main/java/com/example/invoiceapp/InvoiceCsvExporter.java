@@ -0,0 +1,115 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Environment;
+import android.util.Log;
+import android.widget.Toast;
+import androidx.annotation.NonNull;
+import androidx.core.content.FileProvider;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Export invoices rows as CSV file: One line for each row.
+ * Invoices are loaded by the bulk loader (DatabaseHelper.forEachInvoice), and written one by
+ * one, so only a single invoice is held in memory.
+ */
+public class InvoiceCsvExporter {
+
+    private static final String TAG = "InvoiceCsvExporter";
+    private static final String HEADER =
+            "InvoiceID,Date,ItemID,ItemName,Quantity,UnitPrice,RowTotal,InvoiceTotal\n";
+
+    private InvoiceCsvExporter() { }
+
+    /**
+     * Write the given invoices as CSV.
+     * @param database Database.
+     * @param invoiceIDs Invoices IDs, sorted ascending and unique.
+     * @param writer Output, not closed by this method.
+     * @return True if all invoices were written.
+     */
+    public static boolean writeCsv(@NonNull DatabaseHelper database,
+                                   @NonNull long[] invoiceIDs, @NonNull Writer writer) {
+        try {
+            writer.write(HEADER);
+        }
+        catch (Exception e) { Log.e(TAG, e.toString()); return false; }
+        return database.forEachInvoice(invoiceIDs, true, (frame, rows) -> {
+            try {
+                for (InvoiceRow row : rows) {
+                    writer.write(String.format(Locale.ROOT, "%d,%s,%d,%s,%d,%s,%s,%s\n",
+                            frame.getID(), frame.getDate(), row.getItemID(),
+                            escape(row.getItemName()), row.getQuantity(),
+                            Money.toPlainString(row.getItemValueCents()),
+                            Money.toPlainString(row.getTotalRowCents()),
+                            Money.toPlainString(frame.getTotalCents())));
+                }
+                return true;
+            }
+            catch (Exception e) { Log.e(TAG, e.toString()); }
+            return false;
+        });
+    }
+
+    /**
+     * Create a CSV file of the given invoices.
+     * @param context Context.
+     * @param database Database.
+     * @param invoiceIDs Invoices IDs, sorted ascending and unique.
+     * @return CSV file, null if failed.
+     */
+    public static File createCsv(@NonNull Context context, @NonNull DatabaseHelper database,
+                                 @NonNull long[] invoiceIDs) {
+        File csvDir = new File(context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), "Invoices");
+        if (!csvDir.exists() && !csvDir.mkdirs()) return null;
+        File csvFile = new File(csvDir, "Invoices_" + invoiceIDs.length + ".csv");
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(csvFile), StandardCharsets.UTF_8))) {
+            if (writeCsv(database, invoiceIDs, writer)) return csvFile;
+        }
+        catch (Exception e) { Log.e(TAG, e.toString()); }
+        return null;
+    }
+
+    /**
+     * Share CSV file via compatible apps.
+     * @param context Context.
+     * @param csvFile CSV file.
+     */
+    public static void shareCsv(@NonNull Context context, File csvFile) {
+        if (csvFile == null || !csvFile.exists()) {
+            Toast.makeText(context, "No file to share", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        Uri csvUri = FileProvider.getUriForFile(context, context.getPackageName() + ".fileprovider", csvFile);
+        Intent shareIntent = new Intent(Intent.ACTION_SEND);
+        shareIntent.setType("text/csv");
+        shareIntent.putExtra(Intent.EXTRA_STREAM, csvUri);
+        shareIntent.putExtra(Intent.EXTRA_SUBJECT, csvFile.getName());
+        shareIntent.addFlags(Intent.FLAG_GRANT_READ_URI_PERMISSION);
+        context.startActivity(Intent.createChooser(shareIntent, "Share Invoices"));
+    }
+
+    /** Quote a CSV field if needed */
+    private static @NonNull String escape(String field) {
+        if (field == null) return "";
+        if (field.contains(",") || field.contains("\"") || field.contains("\n"))
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        return field;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+
+/**
+ * Filter of the invoice frames: Date range, total price range, invoice ID range, contains an
+ * item and minimum quantity. All conditions are combined (AND), an unset condition is not part
+ * of the query at all.
+ * Compiled by invoicesFramesTable into a single parameterized WHERE clause, each condition
+ * served by an index (See invoicesFramesTable.getInvoicesPage), so it is used for the pages,
+ * the count and the IDs of the same result.
+ * Immutable: Each with...() returns a new filter, e.g.
+ * InvoiceFilter.ALL.withDateRange(from, to).withItem(42).
+ */
+public final class InvoiceFilter {
+
+    /** No item condition */
+    public static final long NO_ITEM = -1;
+
+    /** All invoices, no conditions */
+    public static final InvoiceFilter ALL = new InvoiceFilter(Long.MIN_VALUE, Long.MAX_VALUE,
+            Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE, NO_ITEM, 0);
+
+    private final long fromMillis, toMillis; // Date (epoch millis), from included, to excluded
+    private final long minCents, maxCents; // Total price, both included
+    private final long fromID, toID; // Invoice ID, both included
+    private final long itemID; // Contains this item, NO_ITEM if any
+    private final int minQuantity; // Items quantity (of itemID, or of all items), 0 if any
+
+    private InvoiceFilter(long fromMillis, long toMillis, long minCents, long maxCents,
+                          long fromID, long toID, long itemID, int minQuantity) {
+        this.fromMillis = fromMillis;
+        this.toMillis = toMillis;
+        this.minCents = minCents;
+        this.maxCents = maxCents;
+        this.fromID = fromID;
+        this.toID = toID;
+        this.itemID = itemID;
+        this.minQuantity = minQuantity;
+    }
+
+    /**
+     * @param fromMillis Range start, epoch millis, included.
+     * @param toMillis Range end, epoch millis, excluded.
+     * @return New filter, only invoices in the date range.
+     */
+    public @NonNull InvoiceFilter withDateRange(long fromMillis, long toMillis) {
+        return new InvoiceFilter(fromMillis, toMillis, minCents, maxCents, fromID, toID,
+                itemID, minQuantity);
+    }
+
+    /**
+     * @param minCents Min total price, in cents, included. Long.MIN_VALUE if unbounded.
+     * @param maxCents Max total price, in cents, included. Long.MAX_VALUE if unbounded.
+     * @return New filter, only invoices in the total price range.
+     */
+    public @NonNull InvoiceFilter withPriceRange(long minCents, long maxCents) {
+        return new InvoiceFilter(fromMillis, toMillis, minCents, maxCents, fromID, toID,
+                itemID, minQuantity);
+    }
+
+    /**
+     * @param fromID First invoice ID, included. Long.MIN_VALUE if unbounded.
+     * @param toID Last invoice ID, included. Long.MAX_VALUE if unbounded.
+     * @return New filter, only invoices in the ID range.
+     */
+    public @NonNull InvoiceFilter withIDRange(long fromID, long toID) {
+        return new InvoiceFilter(fromMillis, toMillis, minCents, maxCents, fromID, toID,
+                itemID, minQuantity);
+    }
+
+    /**
+     * @param itemID Item ID, as in database. NO_ITEM for any item.
+     * @return New filter, only invoices with a row of this item.
+     */
+    public @NonNull InvoiceFilter withItem(long itemID) {
+        return new InvoiceFilter(fromMillis, toMillis, minCents, maxCents, fromID, toID,
+                itemID, minQuantity);
+    }
+
+    /**
+     * @param minQuantity Min quantity of the filter item (withItem), or of all the invoice items
+     *                    if no item. 0 for any quantity.
+     * @return New filter, only invoices with at least this quantity.
+     */
+    public @NonNull InvoiceFilter withMinQuantity(int minQuantity) {
+        return new InvoiceFilter(fromMillis, toMillis, minCents, maxCents, fromID, toID,
+                itemID, Math.max(0, minQuantity));
+    }
+
+    public boolean hasDateRange() {
+        return fromMillis != Long.MIN_VALUE || toMillis != Long.MAX_VALUE;
+    }
+
+    public boolean hasPriceRange() {
+        return minCents != Long.MIN_VALUE || maxCents != Long.MAX_VALUE;
+    }
+
+    public boolean hasIDRange() {
+        return fromID != Long.MIN_VALUE || toID != Long.MAX_VALUE;
+    }
+
+    public boolean hasItem() {
+        return itemID != NO_ITEM;
+    }
+
+    /** @return True if the item quantity is checked (More than a single item). */
+    public boolean hasMinQuantity() {
+        return minQuantity > 1 || (minQuantity == 1 && !hasItem());
+    }
+
+    /** @return True if no conditions at all (Same as ALL). */
+    public boolean isAll() {
+        return !hasDateRange() && !hasPriceRange() && !hasIDRange() && !hasItem()
+                && !hasMinQuantity();
+    }
+
+    /**
+     * @return True if no invoice can match (e.g. empty range), no need to query.
+     */
+    public boolean isEmpty() {
+        return toMillis <= fromMillis || maxCents < minCents || toID < fromID;
+    }
+
+    public long getFromMillis() {
+        return this.fromMillis;
+    }
+
+    public long getToMillis() {
+        return this.toMillis;
+    }
+
+    public long getMinCents() {
+        return this.minCents;
+    }
+
+    public long getMaxCents() {
+        return this.maxCents;
+    }
+
+    public long getFromID() {
+        return this.fromID;
+    }
+
+    public long getToID() {
+        return this.toID;
+    }
+
+    public long getItemID() {
+        return this.itemID;
+    }
+
+    public int getMinQuantity() {
+        return this.minQuantity;
+    }
+}
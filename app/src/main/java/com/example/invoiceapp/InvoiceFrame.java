@@ -17,18 +17,21 @@ import java.util.Objects;
  */
 public class InvoiceFrame implements Comparable<InvoiceFrame> {
     private final String date;
-    private final double totalValue;
+    private final long dateMillis;
+    private final long totalCents;
     private final long ID;
 
     /**
      * Compose invoice frame including unique ID, date and value.
      * @param ID Unique ID
      * @param date Formatted: yyyy-mm-dd hh:mm:ss
-     * @param totalValue Double for total value for this invoice
+     * @param dateMillis Same date, as epoch millis (As stored in database)
+     * @param totalCents Total value for this invoice, in cents
      */
-    public InvoiceFrame(long ID, @NonNull String date, double totalValue) {
+    public InvoiceFrame(long ID, @NonNull String date, long dateMillis, long totalCents) {
         this.date = date;
-        this.totalValue = totalValue;
+        this.dateMillis = dateMillis;
+        this.totalCents = totalCents;
         this.ID = ID;
     }
 
@@ -41,10 +44,19 @@ public class InvoiceFrame implements Comparable<InvoiceFrame> {
     }
 
     /**
-     * @return Get total price for this invoice
+     * Get invoice frame created date, already parsed. Use it for compare and display,
+     * instead of parsing getDate().
+     * @return Milliseconds since epoch
      */
-    public double getTotalPrice() {
-        return this.totalValue;
+    public long getDateMillis() {
+        return this.dateMillis;
+    }
+
+    /**
+     * @return Get total price for this invoice, in cents
+     */
+    public long getTotalCents() {
+        return this.totalCents;
     }
 
     /**
@@ -61,7 +73,7 @@ public class InvoiceFrame implements Comparable<InvoiceFrame> {
     @NonNull
     @Override
     public String toString() {
-        return  getID() + " " + getDate() + " " + getTotalPrice();
+        return  getID() + " " + getDate() + " " + Money.toPlainString(getTotalCents());
     }
 
     @Override
@@ -88,16 +100,14 @@ public class InvoiceFrame implements Comparable<InvoiceFrame> {
         return Long.compare(this.getID(), invoiceFrame.getID());
     }
 
-    /** Comparator by invoice date dd-MM-yyyy format. Comparing only day, month and year */
+    /** Comparator by invoice date (epoch millis), recent is first */
     public static int compareToByDate(@NonNull InvoiceFrame f1, @NonNull InvoiceFrame f2) {
-        int res;
-        res = f2.getDate().compareTo(f1.getDate());
-        return res;
+        return Long.compare(f2.getDateMillis(), f1.getDateMillis());
     }
 
     /** Comparator by invoice values */
     public static int compareToByValue(InvoiceFrame f1, InvoiceFrame f2) {
-        return Double.compare(f2.getTotalPrice(), f1.getTotalPrice());
+        return Long.compare(f2.getTotalCents(), f1.getTotalCents());
     }
 
     /** Comparator by invoice dates (day, month, year) recent is first. Then, comparing if
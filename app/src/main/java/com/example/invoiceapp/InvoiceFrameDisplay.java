@@ -0,0 +1,71 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Invoice frame with its display text, formatted once: Serial number, date and total.
+ * Create it on the loading thread (See of()), together with the frames, so binding the frame
+ * to the view only sets the ready text. No formatting on the UI thread while scrolling.
+ * Immutable.
+ */
+final class InvoiceFrameDisplay {
+
+    private final InvoiceFrame frame;
+    private final CharSequence serial;
+    private final CharSequence date;
+    private final CharSequence total;
+
+    /**
+     * Format the frame (FormatUtils, any thread).
+     * @param frame Invoice frame.
+     */
+    InvoiceFrameDisplay(@NonNull InvoiceFrame frame) {
+        this.frame = frame;
+        this.serial = FormatUtils.formatSerialNumber(frame.getID());
+        this.date = FormatUtils.formatDateTime(frame.getDateMillis());
+        this.total = FormatUtils.formatCurrency(frame.getTotalCents());
+    }
+
+    /**
+     * Format a list of frames. Call it on the background thread, which loaded the frames.
+     * @param frames Invoice frames.
+     * @return Display models, same order.
+     */
+    static @NonNull List<InvoiceFrameDisplay> of(@NonNull List<InvoiceFrame> frames) {
+        List<InvoiceFrameDisplay> displays = new ArrayList<>(frames.size());
+        for (InvoiceFrame frame : frames) displays.add(new InvoiceFrameDisplay(frame));
+        return displays;
+    }
+
+    public @NonNull InvoiceFrame getFrame() {
+        return this.frame;
+    }
+
+    public long getID() {
+        return this.frame.getID();
+    }
+
+    /** @return Serial number, e.g. "#0000000042". */
+    public @NonNull CharSequence getSerial() {
+        return this.serial;
+    }
+
+    /** @return Date, "dd-MM-yyyy HH:mm:ss". */
+    public @NonNull CharSequence getDate() {
+        return this.date;
+    }
+
+    /** @return Total, formatted currency. */
+    public @NonNull CharSequence getTotal() {
+        return this.total;
+    }
+}
@@ -7,13 +7,13 @@ package com.example.invoiceapp;
  * See the LICENSE file in the root directory for details.
  */
 
-import android.annotation.SuppressLint;
 import androidx.annotation.NonNull;
 import android.app.AlertDialog;
 import android.content.Intent;
 import android.graphics.Color;
 import android.graphics.PorterDuff;
 import android.os.Bundle;
+import android.util.Pair;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -34,31 +34,40 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
+import java.io.File;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * InvoiceRow manager for adding and display invoice from database.
  * This activity allow user the following operation with invoices:
  * 1. Look for invoice by number (invoiceID).
- * 2. Show all invoice by given date.
+ * 2. Show all invoice by given date range, or by filter (ID, total, item and quantity).
  * 3. Composing a new invoice - Starting a new activity.
  * 4. Print/Sharing selected (full) invoice frame.
  * NOTE: First invoice frame list display sorted be recent
+ * NOTE: The full list and the search by date are loaded by pages (InvoicePager), only a window
+ *       of pages is kept in memory. All sorts are done by the database (A single page query
+ *       for each sort change). Search result by ID is a regular list (single frame).
+ * NOTE: All database operations are async (InvoiceRepository), results are handled on the
+ *       main thread. Pending requests are cancelled on onDestroy.
  */
 public class InvoiceManagerActivity extends AppCompatActivity {
 
     // Data from database
-    private DatabaseHelper database;
-    private List<InvoiceFrame> allInvoiceFrames;
+    private InvoiceRepository.Scope requests;
+    private InvoicePager pager; // Full list, by pages
+    private List<InvoiceFrameDisplay> allInvoiceFrames; // Search by ID result only
+    private InvoiceFilter searchFilter = InvoiceFilter.ALL; // Pages filter
 
     // GUI Elements
     private TextView editDate;
-    private String selectedDate;
+    private String selectedDate; // Range start, format: yyyy-MM-dd
+    private String selectedToDate; // Range end (included), format: yyyy-MM-dd
     private SearchView searchViewID;
     private LinearLayoutManager gridLayoutManagerRV;
     private ImageButton sortByRecentButton, sortByValueButton;
@@ -81,6 +90,7 @@ public class InvoiceManagerActivity extends AppCompatActivity {
     private int sortColor, nonSortColor, sortReverseColor;
     private int sortRecentMode = NON_SORT, sortValueMode = NON_SORT;
     private boolean searchByMode = false;
+    private boolean searchByIDMode = false; // Search by ID result displayed (Not the pages)
 
     /**
      * Patch all invoice frames and put into the RV, order by date.
@@ -98,10 +108,11 @@ public class InvoiceManagerActivity extends AppCompatActivity {
             return insets;
         });
         this.selectedDate = "";
-        this.database = DatabaseHelper.getInstance(getApplicationContext());
-        this.invoiceManagerDialog = new InvoiceManagerDialog(
-                database.getAllItems(false, false, true), this);
-        this.allInvoiceFrames = new ArrayList<>(database.getByRecentInvoices());
+        this.selectedToDate = "";
+        this.requests = InvoiceRepository.getInstance(this).newScope();
+        this.invoiceManagerDialog = new InvoiceManagerDialog(this);
+        this.allInvoiceFrames = new ArrayList<>();
+        this.pager = new InvoicePager(this.requests);
         setupRecyclerView();
         setupDatePicker();
         setupSearchByID();
@@ -113,41 +124,63 @@ public class InvoiceManagerActivity extends AppCompatActivity {
         String msg = getString(R.string.invoice_manager_activity_no_data);
 
         // Init sorting by recent
-        if (!this.allInvoiceFrames.isEmpty()) {
-            toggleSortedByRecent();
-            SortBy();
-        }
-        else displaySnackBar(msg);
+        this.requests.read(DatabaseHelper::getInvoicesCount, new DialogCallback<>() {
+            @Override
+            public void onSuccess(Long count) {
+                if (count > 0) {
+                    toggleSortedByRecent();
+                    SortBy();
+                }
+                else displaySnackBar(msg);
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
+    }
+
+    /** Drop all pending database requests of this activity */
+    @Override
+    protected void onDestroy() {
+        this.requests.cancelAll();
+        super.onDestroy();
     }
 
     /**
-     * Removed selected invoices (IDs) frames from current list:
-     * First removing from the this list, after, removing from database.
-     * If removing from database failing, will reload the prev list.
-     * Else, will update the current list, and notify the RV for removed items.
-     * @SuppressLint NotifyDataSetChanged for the RV (must).
+     * Removed selected invoices (IDs) frames from database, then from the current list
+     * (search result or the pages window). No reload: Other frames are kept at their order.
+     * If removing from database failing, nothing is changed.
+     * The new list is submitted, so only the removed frames are updated (DiffUtil).
      */
-    @SuppressLint("NotifyDataSetChanged")
     private void removeSelectedInvoices() {
-        Set<Integer> IDs = new TreeSet<>();
-        List<InvoiceFrame> frameList = RVAdapter.getSelectedFrames();
-
-        for (InvoiceFrame rmv_frame: frameList) {
-            this.allInvoiceFrames.remove(rmv_frame);
-            IDs.add((int) rmv_frame.getID()); // Casting from long
-        }
-        if (this.database.RemoveInvoiceFrames(IDs)) {
-            // If successes, submit the update list (All frames removed) via the setResultBy.
-            SortBy();
-            displaySnackBar(getString(R.string.invoice_manager_activity_total_removed, IDs.size()));
-        }
-        else {
-            displaySnackBar(getString(R.string.error_action_data_base));
-            this.allInvoiceFrames = this.database.getByRecentInvoices(); // Reload undo list
-            SortBy(); // Resort
-        }
+        long[] IDs = this.RVAdapter.getSelectedIDs();
         this.RVAdapter.clearSelection();
-        this.RVAdapter.notifyDataSetChanged(); // Either way there is a new list
+
+        this.requests.writeGrouped(database -> database.RemoveInvoiceFrames(IDs),
+                Boolean.TRUE::equals, new DialogCallback<>() {
+            @Override
+            public void onSuccess(Boolean removed) {
+                if (removed) {
+                    if (searchByIDMode) {
+                        allInvoiceFrames.removeIf(
+                                frame -> Arrays.binarySearch(IDs, frame.getID()) >= 0);
+                        RVAdapter.submitList(new ArrayList<>(allInvoiceFrames));
+                    }
+                    else {
+                        pager.remove(IDs, pageLoaded());
+                        RVAdapter.submitList(pager.snapshot());
+                    }
+                    displaySnackBar(getString(R.string.invoice_manager_activity_total_removed,
+                            IDs.length));
+                }
+                else displaySnackBar(getString(R.string.error_action_data_base));
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
     }
 
     /** Toggle button for recent sort option - Setup color and boolean variable only */
@@ -180,7 +213,7 @@ public class InvoiceManagerActivity extends AppCompatActivity {
 
     /**
      * Reset sorting modes: Both by date and value.
-     * Patch the updated frames list from database, and notify the RV.
+     * Load the first page of the frames (recent first) from database, and notify the RV.
      * Will clear the current selection as well.
      */
     private void resetToggleOption() {
@@ -188,61 +221,89 @@ public class InvoiceManagerActivity extends AppCompatActivity {
         sortValueMode = NON_SORT;
         sortByValueButton.setColorFilter(nonSortColor, PorterDuff.Mode.SRC_IN);
         sortByRecentButton.setColorFilter(nonSortColor, PorterDuff.Mode.SRC_IN);
-        this.allInvoiceFrames = new ArrayList<>(this.database.getByRecentInvoices());
-        int currentPosition = gridLayoutManagerRV.findFirstVisibleItemPosition();
-        this.RVAdapter.submitList(allInvoiceFrames,() -> gridLayoutManagerRV.scrollToPosition(currentPosition));
         this.RVAdapter.clearSelection();
+        this.pager.reset(InvoiceSort.DATE, true, pageLoaded());
     }
 
-    /**
-     * Set the sorting mode as toggled by user.
-     * Will notify the user for current sort mode by display msg (SnakeBar).
-     * */
-    private void SortBy() {
-        if (this.allInvoiceFrames.isEmpty()) return;
-        this.RVAdapter.clearSelection();
-        int numFrames = this.allInvoiceFrames.size();
+    /** @return Callback for the pager first page: Display the window from the top. */
+    private @NonNull DialogCallback<Integer> pageLoaded() {
+        return new DialogCallback<>() {
+            @Override
+            public void onSuccess(Integer windowSize) {
+                if (searchByIDMode) return; // Search result displayed meanwhile
+                RVAdapter.setPager(pager);
+                gridLayoutManagerRV.scrollToPosition(0);
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        };
+    }
 
-        // Both filter (reversed or normal)
-        if (sortRecentMode == SORT_REVERSE && sortValueMode == SORT_REVERSE) {
-            displaySnackBar(getString(R.string.invoice_manager_sort_both_rev, numFrames));
-            Collections.sort(this.allInvoiceFrames,
-                    Collections.reverseOrder(InvoiceFrame::compareToValueDate));
-        }
-        else if ((sortRecentMode == SORT  || sortRecentMode == SORT_REVERSE) &&
-                (sortValueMode == SORT  || sortValueMode == SORT_REVERSE)) {
-            displaySnackBar(getString(R.string.invoice_manager_sort_both, numFrames));
-            Collections.sort(this.allInvoiceFrames, InvoiceFrame::compareToDateValue);
-        }
-        // Single filter
-        else if (sortRecentMode == SORT) {
-            displaySnackBar(getString(R.string.invoice_manager_sort_date, numFrames));
-            Collections.sort(this.allInvoiceFrames, InvoiceFrame::compareToByDate);
+    /**
+     * Set the sorting mode of the pages (full list, or search by date): The sort is done by
+     * the database, using the index of the sort key, and the first page is loaded.
+     * Both toggled: Date then value (Both in the direction of the date toggle), or value then
+     * date if both reversed. Single toggle: That key. Ties are ordered by ID.
+     * Non sort is by invoice ID, newest first.
+     * The selection is kept (by IDs).
+     * @param announce True for notify the user of the sort mode and the total (SnackBar).
+     */
+    private void sortPages(boolean announce) {
+        InvoiceSort sort;
+        boolean descending;
+        int msgRes;
+        boolean bothReversed = sortRecentMode == SORT_REVERSE && sortValueMode == SORT_REVERSE;
+
+        if (bothReversed) {
+            sort = InvoiceSort.PRICE_DATE;
+            descending = false; // Lowest first, then oldest
+            msgRes = R.string.invoice_manager_sort_both_rev;
         }
-        else if (sortValueMode == SORT) {
-            displaySnackBar(getString(R.string.invoice_manager_sort_value, numFrames));
-            Collections.sort(this.allInvoiceFrames, InvoiceFrame::compareToByValue);
-
+        else if (sortRecentMode != NON_SORT && sortValueMode != NON_SORT) {
+            sort = InvoiceSort.DATE_PRICE;
+            descending = sortRecentMode == SORT; // Recent first, then highest
+            msgRes = R.string.invoice_manager_sort_both;
         }
-        else if (sortRecentMode == SORT_REVERSE) {
-            displaySnackBar(getString(R.string.invoice_manager_sort_date_rev, numFrames));
-            Collections.sort(this.allInvoiceFrames,
-                    Collections.reverseOrder(InvoiceFrame::compareToByDate));
+        else if (sortRecentMode != NON_SORT) {
+            sort = InvoiceSort.DATE;
+            descending = sortRecentMode == SORT; // Recent first
+            msgRes = descending ? R.string.invoice_manager_sort_date
+                    : R.string.invoice_manager_sort_date_rev;
         }
-        else if (sortValueMode == SORT_REVERSE) {
-            displaySnackBar(getString(R.string.invoice_manager_sort_value_rev, numFrames));
-            Collections.sort(this.allInvoiceFrames,
-                    Collections.reverseOrder(InvoiceFrame::compareToByValue));
+        else if (sortValueMode != NON_SORT) {
+            sort = InvoiceSort.PRICE;
+            descending = sortValueMode == SORT; // Highest first
+            msgRes = descending ? R.string.invoice_manager_sort_value
+                    : R.string.invoice_manager_sort_value_rev;
         }
-        // Non filter, random order
         else {
-            displaySnackBar(getString(R.string.invoice_manager_sort_random, numFrames));
-            Collections.shuffle(this.allInvoiceFrames);
+            sort = InvoiceSort.ID;
+            descending = true;
+            msgRes = R.string.invoice_manager_sort_id;
+        }
+        final InvoiceFilter filter = this.searchFilter;
+        if (announce) {
+            this.requests.read(database -> database.getInvoicesCount(filter),
+                    new DialogCallback<>() {
+                @Override
+                public void onSuccess(Long total) { displaySnackBar(getString(msgRes, total)); }
+                @Override
+                public void onFailure(String failMSG) { }
+            });
         }
-        // Save the last point display, and submit the new list
-        int currentPosition = gridLayoutManagerRV.findFirstVisibleItemPosition();
-        this.RVAdapter.submitList(allInvoiceFrames,() ->
-                gridLayoutManagerRV.scrollToPosition(currentPosition));
+        this.pager.reset(sort, descending, filter, pageLoaded());
+    }
+
+    /**
+     * Set the sorting mode as toggled by user.
+     * Will notify the user for current sort mode by display msg (SnakeBar).
+     * The search by ID result is a single frame, nothing to sort.
+     * */
+    private void SortBy() {
+        if (this.searchByIDMode) return;
+        sortPages(true);
     }
 
     /**
@@ -252,32 +313,102 @@ public class InvoiceManagerActivity extends AppCompatActivity {
     public void showFullInvoice(InvoiceFrame frame) {
         if (frame == null) return;
         if (frame.isEmpty()) return;
-        List<InvoiceRow> invoiceRows = this.database.getAllRowsByID(frame.getID(), true);
-        invoiceManagerDialog.displayInvoice(frame, invoiceRows);
+        this.requests.read(database -> database.getAllRowsByID(frame.getID(), true),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(List<InvoiceRow> invoiceRows) {
+                invoiceManagerDialog.displayInvoice(frame, invoiceRows);
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
     }
 
-    /** Search by date all invoices frame. Updating 'resultByDateList'. */
+    /**
+     * Search by date range all invoices frame.
+     * The range is served by the database date index (epoch millis), from the start of the
+     * first day, to the start of the day after the last day.
+     */
     private void searchByDate() {
+        String msgNoOutput = getString(R.string.invoices_manager_search_date_no_output,
+                editDate.getText());
+        if (selectedDate != null && !selectedDate.isEmpty()) {
+            InvoiceFilter filter = withSelectedDates(InvoiceFilter.ALL);
+            if (filter == null) displaySnackBar(msgNoOutput);
+            else searchByFilter(filter, msgNoOutput);
+        }
+    }
+
+    /**
+     * Open the filter dialog (ID, total, item and quantity), and search by the filter. The
+     * selected date range (if any) is part of the filter.
+     */
+    private void filterInvoices() {
+        this.invoiceManagerDialog.filterDialog(new DialogCallback<>() {
+            @Override
+            public void onSuccess(InvoiceFilter filter) {
+                InvoiceFilter withDates = withSelectedDates(filter);
+                if (withDates == null)
+                    displaySnackBar(getString(R.string.invoice_manager_filter_invalid));
+                else searchByFilter(withDates,
+                        getString(R.string.invoice_manager_filter_no_output));
+            }
+            @Override
+            public void onFailure(String failMSG) { }
+        });
+    }
+
+    /**
+     * @param filter Filter to add the selected date range to.
+     * @return The filter, with the selected date range (Same filter if no date selected).
+     *         Null if the selected dates are invalid.
+     */
+    private InvoiceFilter withSelectedDates(@NonNull InvoiceFilter filter) {
+        if (selectedDate == null || selectedDate.isEmpty()) return filter;
+        try {
+            long fromMillis = FormatUtils.parseDateMillis(selectedDate);
+            Calendar toDay = Calendar.getInstance();
+            toDay.setTimeInMillis(FormatUtils.parseDateMillis(selectedToDate));
+            toDay.add(Calendar.DAY_OF_MONTH, 1);
+            return filter.withDateRange(fromMillis, toDay.getTimeInMillis());
+        }
+        catch (ParseException e) { return null; }
+    }
+
+    /**
+     * Count the invoices of the filter, and if found any, display them by pages (current
+     * sort). A single query for the count, and a single query for the first page.
+     * @param filter Invoices filter.
+     * @param msgNoOutput Message if no invoice found. The current list is kept.
+     */
+    private void searchByFilter(@NonNull InvoiceFilter filter, @NonNull String msgNoOutput) {
         searchViewID.setQuery("", false);
         searchViewID.clearFocus();
-        String msgRes = getString(R.string.invoices_manager_search_date_no_output, selectedDate);
-        if (selectedDate != null && !selectedDate.isEmpty()) {
-            List<InvoiceFrame> filteredInvoices = database.getInvoicesByDate(selectedDate);
-            if (!filteredInvoices.isEmpty()) {
-                msgRes = getString(R.string.invoice_manager_activity_found_invoices,
-                        filteredInvoices.size());
-                this.allInvoiceFrames = new ArrayList<>(filteredInvoices);
-                this.RVAdapter.submitList(this.allInvoiceFrames);
-                this.searchByMode = true;
-                this.dateSearchButton.setText(getString(R.string.invoice_manager_button_undo_search));
-                SortBy();
+        this.requests.read(database -> database.getInvoicesCount(filter),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(Long found) {
+                String msgRes = msgNoOutput;
+                if (found > 0) {
+                    msgRes = getString(R.string.invoice_manager_activity_found_invoices, found);
+                    searchByMode = true;
+                    searchByIDMode = false;
+                    allInvoiceFrames = new ArrayList<>();
+                    searchFilter = filter;
+                    dateSearchButton.setText(
+                            getString(R.string.invoice_manager_button_undo_search));
+                    sortPages(false); // First page of the filter, current sort
+                }
+                // Else, no changes on the current list.
+                displaySnackBar(msgRes);
             }
-            else {
-                this.searchByMode = false;
-                // No changes on the current list.
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
             }
-            displaySnackBar(msgRes);
-        }
+        });
     }
 
     /** Search the current search ID and update the 'searchResultInvoices' list */
@@ -285,18 +416,32 @@ public class InvoiceManagerActivity extends AppCompatActivity {
         String query = searchViewID.getQuery().toString();
         if (!query.isEmpty()) {
             try {
-                int invoiceID = Integer.parseInt(query);
+                long invoiceID = Long.parseLong(query);
                 String msgRes = getString(R.string.invoice_manager_search_by_id_no_found, invoiceID);
                 // Frame searched by user
-                InvoiceFrame invoiceFrameResID;
-                invoiceFrameResID = database.getInvoiceById(invoiceID);
-                if (invoiceFrameResID != null) {
-                    this.searchByMode = true;
-                    this.dateSearchButton.setText(R.string.invoice_manager_button_undo_search);
-                    RVAdapter.submitList(Collections.singletonList(invoiceFrameResID));
-                }
-                else
-                    displaySnackBar(msgRes);
+                this.requests.read(database -> {
+                    InvoiceFrame frame = database.getInvoiceById(invoiceID);
+                    return frame != null ? new InvoiceFrameDisplay(frame) : null;
+                }, new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(InvoiceFrameDisplay invoiceFrameResID) {
+                        if (invoiceFrameResID != null) {
+                            searchByMode = true;
+                            searchByIDMode = true;
+                            dateSearchButton.setText(R.string.invoice_manager_button_undo_search);
+                            allInvoiceFrames = new ArrayList<>(
+                                    Collections.singletonList(invoiceFrameResID));
+                            RVAdapter.setPager(null);
+                            RVAdapter.submitList(new ArrayList<>(allInvoiceFrames));
+                        }
+                        else
+                            displaySnackBar(msgRes);
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        displaySnackBar(getString(R.string.error_action_data_base));
+                    }
+                });
             }
             catch (NumberFormatException e) {
                 displaySnackBar(getString(R.string.invoice_manager_activity_invalid_invoice_id));
@@ -338,7 +483,6 @@ public class InvoiceManagerActivity extends AppCompatActivity {
                 (this, 2,RecyclerView.VERTICAL, false);
         itemsRecyclerView.setLayoutManager(gridLayoutManagerRV);
         itemsRecyclerView.setAdapter(this.RVAdapter);
-        this.RVAdapter.submitList(this.allInvoiceFrames);
         this.gridLayoutManagerRV.setOrientation(RecyclerView.VERTICAL);
         this.gridLayoutManagerRV.setSmoothScrollbarEnabled(true);
         this.gridLayoutManagerRV.scrollToPosition(0);
@@ -369,10 +513,14 @@ public class InvoiceManagerActivity extends AppCompatActivity {
     }
 
     private void clearSearchResult() {
-        resetToggleOption(); // Reload the full list
         this.searchByMode = false;
+        this.searchByIDMode = false;
+        this.searchFilter = InvoiceFilter.ALL;
+        resetToggleOption(); // Reload the full list (first page)
+        this.allInvoiceFrames = new ArrayList<>();
         this.editDate.setText(getString(R.string.invoice_manager_date_input_default));
         this.selectedDate = "";
+        this.selectedToDate = "";
         this.searchViewID.setQuery("", false);
         this.dateSearchButton.setText(R.string.invoice_manager_searchDate_button);
     }
@@ -387,18 +535,25 @@ public class InvoiceManagerActivity extends AppCompatActivity {
     }
 
     /**
-     * Setup dialog for date search by user, and the search by date button.
-     * This button has 2 modes: First, for filter by date. Second, clear search result.
+     * Setup dialog for date range search by user, and the search by date button.
+     * This button has 2 modes: First, for filter by date range. Second, clear search result.
      * */
     private void setupDatePicker() {
         this.editDate = findViewById(R.id.invoice_manager_date_textview);
         this.editDate.setText(getString(R.string.invoice_manager_date_input_default));
         this.editDate.setOnClickListener(v ->
-                invoiceManagerDialog.datePickerDialog(new DialogCallback<String>() {
+                invoiceManagerDialog.dateRangePickerDialog(
+                        new DialogCallback<Pair<String, String>>() {
             @Override
-            public void onSuccess(String callbackItem) {
-                selectedDate = callbackItem;
-                try { editDate.setText(FormatUtils.formatDateForDisplay(selectedDate)); }
+            public void onSuccess(Pair<String, String> callbackItem) {
+                selectedDate = callbackItem.first;
+                selectedToDate = callbackItem.second;
+                try {
+                    String from = FormatUtils.formatDateForDisplay(selectedDate);
+                    if (selectedDate.equals(selectedToDate)) editDate.setText(from);
+                    else editDate.setText(getString(R.string.invoice_manager_date_range, from,
+                            FormatUtils.formatDateForDisplay(selectedToDate)));
+                }
                 catch (ParseException e) { e.fillInStackTrace(); }
             }
             @Override
@@ -437,9 +592,9 @@ public class InvoiceManagerActivity extends AppCompatActivity {
     private void setUpRemove() {
         ImageButton removeButton = findViewById(R.id.button_invoices_remove);
         removeButton.setOnClickListener(view -> {
-            if (!this.RVAdapter.getSelectedPositions().isEmpty()) {
+            if (!this.RVAdapter.isSelectedEmpty()) {
                 String msg = getString(R.string.invoice_manager_activity_total_removing_conf,
-                        this.RVAdapter.getSelectedPositions().size());
+                        this.RVAdapter.getSelectedCount());
                 AlertDialog dialog = new AlertDialog.Builder(this)
                         .setMessage(msg)
                         .setPositiveButton(getString(R.string.dialog_confirm), null)
@@ -467,15 +622,11 @@ public class InvoiceManagerActivity extends AppCompatActivity {
     private void setupEditInvoice() {
         ImageButton editButton = findViewById(R.id.button_edit_selected_invoice);
         editButton.setOnClickListener(v -> {
-            List<InvoiceFrame> temp = this.RVAdapter.getSelectedFrames();
-            if (temp.size() == 1) {
-                InvoiceFrame selectedFrame = temp.get(0);
-                if (selectedFrame != null) {
-                    Intent intent = new Intent(this.getBaseContext(), InvoiceComposingActivity.class);
-                    intent.putExtra("InvoiceFrameID", selectedFrame.getID());
-                    startActivity(intent);
-                    finish();
-                }
+            if (this.RVAdapter.getSelectedCount() == 1) {
+                Intent intent = new Intent(this.getBaseContext(), InvoiceComposingActivity.class);
+                intent.putExtra("InvoiceFrameID", this.RVAdapter.getSelectedIDs()[0]);
+                startActivity(intent);
+                finish();
             }
             else displaySnackBar(getString(R.string.invoices_manager_edit_fail));
         });
@@ -508,26 +659,60 @@ public class InvoiceManagerActivity extends AppCompatActivity {
             finish();
             return true;
         }
+        if (m.getItemId() == R.id.invoice_manager_filter) {
+            filterInvoices();
+            return true;
+        }
+        if (m.getItemId() == R.id.invoice_manager_select_all) {
+            selectAllInvoices();
+            return true;
+        }
         if (m.getItemId() == R.id.invoice_manager_invoice_share) {
-            if (this.RVAdapter.getSelectedPositions().size() == 1) {
-                for (Integer single : this.RVAdapter.getSelectedPositions()) {
-                    InvoiceFrame invoiceFrame = allInvoiceFrames.get(single);
-                    invoiceManagerDialog.shareInvoiceFrame(invoiceFrame,
-                            database.getAllRowsByID(invoiceFrame.getID(), true),
-                            database.getCompany());
-                }
+            if (this.RVAdapter.getSelectedCount() == 1) {
+                loadFullInvoice(this.RVAdapter.getSelectedIDs()[0], (frame, rows, company) ->
+                        invoiceManagerDialog.shareInvoiceFrame(frame, rows, company));
+            }
+            else if (!this.RVAdapter.isSelectedEmpty()) {
+                // Many invoices: Single PDF, loaded by the bulk loader (Off the UI thread)
+                long[] IDs = this.RVAdapter.getSelectedIDs(); // Sorted
+                this.requests.read(database -> PDFGenerator.createInvoicesPdf(
+                        getApplicationContext(), database, IDs, database.getCompany()),
+                        new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(File pdfFile) {
+                        PDFGenerator.shareInvoicePdf(InvoiceManagerActivity.this, pdfFile);
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        displaySnackBar(getString(R.string.error_action_data_base));
+                    }
+                });
             }
             else displaySnackBar(getString(R.string.invoices_manager_share_fail));
             return true;
         }
+        if (m.getItemId() == R.id.invoice_manager_export_csv) {
+            if (!this.RVAdapter.isSelectedEmpty()) {
+                long[] IDs = this.RVAdapter.getSelectedIDs(); // Sorted
+                this.requests.read(database -> InvoiceCsvExporter.createCsv(
+                        getApplicationContext(), database, IDs), new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(File csvFile) {
+                        InvoiceCsvExporter.shareCsv(InvoiceManagerActivity.this, csvFile);
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        displaySnackBar(getString(R.string.error_action_data_base));
+                    }
+                });
+            }
+            else displaySnackBar(getString(R.string.invoices_manager_export_fail));
+            return true;
+        }
         if (m.getItemId() == R.id.invoice_manager_print_selected) {
-            if (this.RVAdapter.getSelectedPositions().size() == 1) {
-                for (Integer single : this.RVAdapter.getSelectedPositions()) {
-                    InvoiceFrame invoiceFrame = allInvoiceFrames.get(single);
-                    invoiceManagerDialog.printInvoiceFrame(invoiceFrame,
-                            database.getAllRowsByID(invoiceFrame.getID(), true),
-                            database.getCompany());
-                }
+            if (this.RVAdapter.getSelectedCount() == 1) {
+                loadFullInvoice(this.RVAdapter.getSelectedIDs()[0], (frame, rows, company) ->
+                        invoiceManagerDialog.printInvoiceFrame(frame, rows, company));
             }
             else displaySnackBar(getString(R.string.invoices_manager_print_fail));
             return true;
@@ -535,6 +720,82 @@ public class InvoiceManagerActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(m);
     }
 
+    /** Receive the frame, the rows and the company profile of a single invoice */
+    private interface FullInvoiceConsumer {
+        void accept(@NonNull InvoiceFrame frame, @NonNull List<InvoiceRow> rows,
+                    CompanyDetails company);
+    }
+
+    /** Frame, rows and company profile of a single invoice, loaded together */
+    private static final class FullInvoice {
+        final InvoiceFrame frame;
+        final List<InvoiceRow> rows;
+        final CompanyDetails company;
+
+        FullInvoice(@NonNull InvoiceFrame frame, @NonNull List<InvoiceRow> rows,
+                    CompanyDetails company) {
+            this.frame = frame;
+            this.rows = rows;
+            this.company = company;
+        }
+    }
+
+    /**
+     * Load the frame, the rows and the company profile of the invoice (async), for share /
+     * print. By ID: The selected frame may be out of the loaded pages.
+     * @param ID Invoice ID.
+     * @param consumer Called on the main thread.
+     */
+    private void loadFullInvoice(long ID, @NonNull FullInvoiceConsumer consumer) {
+        this.requests.read(database -> {
+            InvoiceFrame frame = database.getInvoiceById(ID);
+            if (frame == null) return null;
+            return new FullInvoice(frame, database.getAllRowsByID(ID, true),
+                    database.getCompany());
+        }, new DialogCallback<FullInvoice>() {
+            @Override
+            public void onSuccess(FullInvoice invoice) {
+                if (invoice == null) {
+                    displaySnackBar(getString(R.string.error_action_data_base));
+                    return;
+                }
+                consumer.accept(invoice.frame, invoice.rows, invoice.company);
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
+    }
+
+    /**
+     * Select all invoices: All the search result, or all the invoices in database (Not only
+     * the loaded pages). The IDs are loaded off the UI thread.
+     */
+    private void selectAllInvoices() {
+        if (this.searchByIDMode) {
+            long[] IDs = new long[this.allInvoiceFrames.size()];
+            for (int i = 0; i < IDs.length; i++) IDs[i] = this.allInvoiceFrames.get(i).getID();
+            this.RVAdapter.selectAll(IDs);
+            displaySnackBar(getString(R.string.invoice_manager_selected_all, IDs.length));
+            return;
+        }
+        final InvoiceFilter filter = this.searchFilter;
+        this.requests.read(database -> database.getInvoiceIDs(filter),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(long[] IDs) {
+                if (searchByIDMode) return; // Search result displayed meanwhile
+                RVAdapter.selectAll(IDs);
+                displaySnackBar(getString(R.string.invoice_manager_selected_all, IDs.length));
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
+    }
+
     /** Display msg as SnackBar */
     private void displaySnackBar(@NonNull String msg) {
         Snackbar snackbar = Snackbar.make(findViewById(android.R.id.content), msg,
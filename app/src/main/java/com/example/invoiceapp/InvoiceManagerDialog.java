@@ -13,10 +13,13 @@ import android.app.AlertDialog;
 import android.app.DatePickerDialog;
 import android.app.Dialog;
 import android.content.Context;
+import android.util.Pair;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.LinearLayout;
+import com.google.android.material.snackbar.Snackbar;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Locale;
@@ -29,18 +32,17 @@ public class InvoiceManagerDialog {
      * 1. Display the full invoice in dialog.
      * 2. User query for remove confirmation.
      * 3. User query for edit.
+ * 4. Invoices filter input (InvoiceFilter).
      * NOTE: This class does not interaction with database.
-     * NOTE: This class does not hold any list/Ref/Sync object from the activity itself,
-     *       Only item list, which can be change via the ItemManger activity only.
+     * NOTE: This class does not hold any list/Ref/Sync object from the activity itself.
+     *       Item names are taken from the invoice rows (Resolved by item ID).
      */
 
-    private final List<Item> allItemsList;
     private final Context context;
     private final int ROW_TEXT_SIZE = 12;
     private final int PADDING_LEFT_RIGHT = 2;
 
-    public InvoiceManagerDialog(@NonNull List<Item> allItemsList, Context context) {
-        this.allItemsList = allItemsList;
+    public InvoiceManagerDialog(Context context) {
         this.context = context;
     }
 
@@ -58,7 +60,7 @@ public class InvoiceManagerDialog {
         LinearLayout dialogInvoiceLayout = dialogView.findViewById(R.id.invoice_layout);
 
         long invoiceID = invoiceFrame.getID();
-        double invoicePrice = invoiceFrame.getTotalPrice();
+        long invoicePrice = invoiceFrame.getTotalCents();
         String formattedDate = invoiceFrame.getDate();
 
         // Set header for this invoiceFrame
@@ -73,9 +75,10 @@ public class InvoiceManagerDialog {
         for (InvoiceRow invoiceRow : invoiceRows) {
             LinearLayout rowLayout = createInvoiceRowLayout(
                     invoiceRow.getItemID(),
-                    invoiceRow.getItemValue(),
+                    invoiceRow.getItemName(),
+                    invoiceRow.getItemValueCents(),
                     invoiceRow.getQuantity(),
-                    invoiceRow.getTotalRowValue());
+                    invoiceRow.getTotalRowCents());
             dialogInvoiceLayout.addView(rowLayout);
         }
         Dialog dialog = new AlertDialog.Builder(context)
@@ -101,16 +104,14 @@ public class InvoiceManagerDialog {
         return textView;
     }
 
-    private LinearLayout createInvoiceRowLayout(long itemID, double itemPrice,
-                                                int itemQuantity, double totalRowPrice) {
+    private LinearLayout createInvoiceRowLayout(long itemID, String itemName, long itemPrice,
+                                                int itemQuantity, long totalRowPrice) {
         LinearLayout rowLayout = new LinearLayout(this.context);
         rowLayout.setOrientation(LinearLayout.HORIZONTAL);
         rowLayout.setPadding(PADDING_LEFT_RIGHT, 12, PADDING_LEFT_RIGHT, 12);
 
-        int itemID_index = (int) itemID;
         rowLayout.addView(createTextView(String.valueOf(itemID), 1));
-        rowLayout.addView(createTextView(
-                String.valueOf(this.allItemsList.get(itemID_index - 1).getName()), 3));
+        rowLayout.addView(createTextView(String.valueOf(itemName), 3));
         rowLayout.addView(createTextView(FormatUtils.formatCurrency(itemPrice), 1));
         rowLayout.addView(createTextView(String.valueOf(itemQuantity), 1));
         rowLayout.addView(createTextView(FormatUtils.formatCurrency(totalRowPrice), 1));
@@ -128,9 +129,46 @@ public class InvoiceManagerDialog {
         PDFGenerator.printInvoicePdf(this.context, invoiceFrame, rows, profile);
     }
 
+    /**
+     * Start two date piker dialogs, for date range: First the start date, then the end date.
+     * If the end date is before the start date, the dates are swapped.
+     * @param callback Pair of dates (from, to), both included. Format: yyyy-MM-dd.
+     */
+    public void dateRangePickerDialog(DialogCallback<Pair<String, String>> callback) {
+        datePickerDialog(context.getString(R.string.invoice_manager_date_from_title),
+                new DialogCallback<String>() {
+            @Override
+            public void onSuccess(String fromDate) {
+                datePickerDialog(context.getString(R.string.invoice_manager_date_to_title),
+                        new DialogCallback<String>() {
+                    @Override
+                    public void onSuccess(String toDate) {
+                        // Same format (yyyy-MM-dd), so compare as text is compare by date
+                        if (toDate.compareTo(fromDate) < 0)
+                            callback.onSuccess(new Pair<>(toDate, fromDate));
+                        else callback.onSuccess(new Pair<>(fromDate, toDate));
+                    }
+                    @Override
+                    public void onFailure(String failMSG) { callback.onFailure(failMSG); }
+                });
+            }
+            @Override
+            public void onFailure(String failMSG) { callback.onFailure(failMSG); }
+        });
+    }
+
     /** Start date piker dialog */
-    @SuppressLint("DefaultLocale")
     public void datePickerDialog(DialogCallback<String> callback) {
+        datePickerDialog(null, callback);
+    }
+
+    /**
+     * Start date piker dialog, with title.
+     * @param title Dialog title. Null for no title.
+     * @param callback Selected date, format: yyyy-MM-dd.
+     */
+    @SuppressLint("DefaultLocale")
+    public void datePickerDialog(String title, DialogCallback<String> callback) {
         final Calendar calendarInstance = Calendar.getInstance();
         int year = calendarInstance.get(Calendar.YEAR);
         int month = calendarInstance.get(Calendar.MONTH);
@@ -149,10 +187,67 @@ public class InvoiceManagerDialog {
         DatePickerDialog datePickerDialog = new DatePickerDialog(this.context,
                 android.R.style.Theme_Material_Dialog,
                 onDateSetListener, year, month, day);
+        if (title != null) datePickerDialog.setTitle(title);
         Objects.requireNonNull(datePickerDialog.getWindow());
         datePickerDialog.show();
     }
 
+    /**
+     * Filter dialog: ID range, total price range, item ID and min quantity. An empty field is
+     * not part of the filter. The date range is not in this dialog (See dateRangePickerDialog).
+     * @param callback The filter, starting from InvoiceFilter.ALL. Not called if canceled.
+     */
+    public void filterDialog(DialogCallback<InvoiceFilter> callback) {
+        View dialogView = LayoutInflater.from(this.context)
+                .inflate(R.layout.activity_invoice_manager_dialog_filter, null);
+        EditText fromID = dialogView.findViewById(R.id.invoice_filter_from_id);
+        EditText toID = dialogView.findViewById(R.id.invoice_filter_to_id);
+        EditText minPrice = dialogView.findViewById(R.id.invoice_filter_min_price);
+        EditText maxPrice = dialogView.findViewById(R.id.invoice_filter_max_price);
+        EditText itemID = dialogView.findViewById(R.id.invoice_filter_item_id);
+        EditText minQuantity = dialogView.findViewById(R.id.invoice_filter_min_quantity);
+        AlertDialog dialog = new AlertDialog.Builder(context)
+                .setView(dialogView)
+                .setPositiveButton(context.getString(R.string.invoice_manager_filter_apply), null)
+                .setNegativeButton(context.getString(R.string.dialog_cancel), null)
+                .create();
+        dialog.show();
+
+        dialog.getButton(AlertDialog.BUTTON_POSITIVE).setOnClickListener(v -> {
+            InvoiceFilter filter;
+            try {
+                filter = InvoiceFilter.ALL
+                        .withIDRange(parseLong(fromID, Long.MIN_VALUE),
+                                parseLong(toID, Long.MAX_VALUE))
+                        .withPriceRange(parseCents(minPrice, Long.MIN_VALUE),
+                                parseCents(maxPrice, Long.MAX_VALUE))
+                        .withItem(parseLong(itemID, InvoiceFilter.NO_ITEM))
+                        .withMinQuantity((int) Math.min(Integer.MAX_VALUE,
+                                parseLong(minQuantity, 0)));
+            }
+            catch (NumberFormatException e) { filter = null; }
+            if (filter == null || filter.isEmpty()) {
+                Snackbar.make(dialogView, context.getString(
+                        R.string.invoice_manager_filter_invalid), Snackbar.LENGTH_LONG).show();
+                return;
+            }
+            callback.onSuccess(filter);
+            dialog.dismiss();
+        });
+    }
+
+    /** @return The number in the field, or the given value if empty. */
+    private static long parseLong(@NonNull EditText field, long ifEmpty) {
+        String text = field.getText().toString().trim();
+        return text.isEmpty() ? ifEmpty : Long.parseLong(text);
+    }
+
+    /** @return The price in the field (cents), or the given value if empty. */
+    private static long parseCents(@NonNull EditText field, long ifEmpty) {
+        String text = field.getText().toString().trim();
+        return text.isEmpty() ? ifEmpty : Money.parse(text);
+    }
+
     public void confirmQuery(@NonNull String queryConfirmation, DialogCallback<Object> callback) {
         AlertDialog dialog = new AlertDialog.Builder(context)
                 .setMessage(queryConfirmation)
@@ -0,0 +1,308 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Load the invoice frames page by page (keyset pagination), and keep in memory only a bounded
+ * window of pages. When the user scroll down, the next page is loaded and the first page in
+ * the window is dropped (and vice versa when scrolling up).
+ * The pages are sorted by the database (InvoiceSort, by index), optionally only the frames of
+ * a filter (InvoiceFilter): Changing the sort is a reset, which costs a single page query.
+ * Pages are queried on the repository readers (See InvoiceRepository), and formatted there for
+ * display (InvoiceFrameDisplay). The window itself is changed only on the main thread, when
+ * the page arrives.
+ * NOTE: Window positions are changed when pages are dropped or added at the start of the
+ *       window. Both loadNext() and loadPrevious() deliver the shift of the positions.
+ * NOTE: A page requested before reset() is dropped when it arrives.
+ */
+final class InvoicePager {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int DEFAULT_MAX_PAGES = 5;
+
+    private final InvoiceRepository.Scope requests;
+    private final int pageSize;
+    private final int maxPages;
+    private final ArrayDeque<List<InvoiceFrameDisplay>> pages;
+
+    private InvoiceSort sort = InvoiceSort.DATE;
+    private boolean descending = true;
+    private InvoiceFilter filter = InvoiceFilter.ALL;
+    private boolean startReached = true; // No more pages before the window
+    private boolean endReached = true; // No more pages after the window
+    private boolean loading = false; // One page at a time
+    private int generation = 0; // Changed by reset(), for drop older pages
+
+    public InvoicePager(@NonNull InvoiceRepository.Scope requests) {
+        this(requests, DEFAULT_PAGE_SIZE, DEFAULT_MAX_PAGES);
+    }
+
+    /**
+     * @param requests Repository scope of the owner activity.
+     * @param pageSize Frames for each page.
+     * @param maxPages Max pages in memory, at least 2.
+     */
+    public InvoicePager(@NonNull InvoiceRepository.Scope requests, int pageSize, int maxPages) {
+        this.requests = requests;
+        this.pageSize = Math.max(1, pageSize);
+        this.maxPages = Math.max(2, maxPages);
+        this.pages = new ArrayDeque<>();
+    }
+
+    /**
+     * Drop all pages, and load the first page of all frames by the given order.
+     * @param sort Sort key.
+     * @param descending True for descending order.
+     * @param callback Called with the window size when the first page is loaded.
+     */
+    public void reset(@NonNull InvoiceSort sort, boolean descending,
+                      @NonNull DialogCallback<Integer> callback) {
+        reset(sort, descending, InvoiceFilter.ALL, callback);
+    }
+
+    /**
+     * Drop all pages, and load the first page of the frames of the filter, by the given order.
+     * @param sort Sort key.
+     * @param descending True for descending order.
+     * @param filter Frames filter.
+     * @param callback Called with the window size when the first page is loaded.
+     */
+    public void reset(@NonNull InvoiceSort sort, boolean descending,
+                      @NonNull InvoiceFilter filter, @NonNull DialogCallback<Integer> callback) {
+        this.sort = sort;
+        this.descending = descending;
+        this.filter = filter;
+        this.pages.clear();
+        this.startReached = true;
+        this.endReached = true;
+        this.loading = true;
+        final int requestGeneration = ++this.generation;
+        final int size = this.pageSize;
+        requests.read(database -> InvoiceFrameDisplay.of(
+                database.getInvoicesPage(sort, descending, filter, null, size)),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(List<InvoiceFrameDisplay> first) {
+                if (requestGeneration != generation) return;
+                loading = false;
+                if (!first.isEmpty()) pages.add(first);
+                endReached = first.size() < pageSize;
+                callback.onSuccess(size());
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                if (requestGeneration != generation) return;
+                loading = false;
+                callback.onFailure(failMSG);
+            }
+        });
+    }
+
+    /**
+     * Reload the window from the first page, same order and filter.
+     * @param callback Called with the window size when the first page is loaded.
+     */
+    public void reload(@NonNull DialogCallback<Integer> callback) {
+        reset(this.sort, this.descending, this.filter, callback);
+    }
+
+    /**
+     * Load the page after the window. If the window is full, the first page is dropped.
+     * @param callback onSuccess with the number of frames dropped from the window start
+     *                 (positions shift back). onFailure if no page was loaded.
+     * @return False if no page was requested (No more pages, or already loading).
+     */
+    public boolean loadNext(@NonNull DialogCallback<Integer> callback) {
+        if (loading || endReached || pages.isEmpty()) return false;
+        List<InvoiceFrameDisplay> last = pages.getLast();
+        loadAfter(last.get(last.size() - 1).getFrame(), callback);
+        return true;
+    }
+
+    /** Load the page after the anchor frame to the window end, drop the first page if full */
+    private void loadAfter(@NonNull InvoiceFrame anchor,
+                           @NonNull DialogCallback<Integer> callback) {
+        loadPage(descending, anchor, callback, page -> {
+            if (page.size() < pageSize) endReached = true;
+            if (page.isEmpty()) return -1;
+            pages.addLast(page);
+            int dropped = 0;
+            if (pages.size() > maxPages) {
+                dropped = pages.removeFirst().size();
+                startReached = false;
+            }
+            return dropped;
+        });
+    }
+
+    /**
+     * Load the page before the window (which was dropped). If the window is full, the last
+     * page is dropped.
+     * @param callback onSuccess with the number of frames added to the window start
+     *                 (positions shift forward). onFailure if no page was loaded.
+     * @return False if no page was requested (No more pages, or already loading).
+     */
+    public boolean loadPrevious(@NonNull DialogCallback<Integer> callback) {
+        if (loading || startReached || pages.isEmpty()) return false;
+        loadBefore(pages.getFirst().get(0).getFrame(), callback);
+        return true;
+    }
+
+    /** Load the page before the anchor frame to the window start, drop the last page if full */
+    private void loadBefore(@NonNull InvoiceFrame anchor,
+                            @NonNull DialogCallback<Integer> callback) {
+        // Same query in the opposite order, starting before the anchor
+        loadPage(!descending, anchor, callback, page -> {
+            if (page.size() < pageSize) startReached = true;
+            if (page.isEmpty()) return -1;
+            Collections.reverse(page);
+            pages.addFirst(page);
+            if (pages.size() > maxPages) {
+                pages.removeLast();
+                endReached = false;
+            }
+            return page.size();
+        });
+    }
+
+    /** Apply a loaded page on the window (main thread), return the shift or -1 */
+    private interface PageApplier {
+        int apply(@NonNull List<InvoiceFrameDisplay> page);
+    }
+
+    private void loadPage(boolean pageDescending, @NonNull InvoiceFrame anchor,
+                          @NonNull DialogCallback<Integer> callback,
+                          @NonNull PageApplier applier) {
+        this.loading = true;
+        final int requestGeneration = this.generation;
+        final InvoiceSort pageSort = this.sort;
+        final InvoiceFilter pageFilter = this.filter;
+        final int size = this.pageSize;
+        requests.read(database -> InvoiceFrameDisplay.of(database.getInvoicesPage(
+                pageSort, pageDescending, pageFilter, anchor, size)),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(List<InvoiceFrameDisplay> page) {
+                if (requestGeneration != generation) return;
+                loading = false;
+                int shift = applier.apply(page);
+                if (shift < 0) callback.onFailure("");
+                else callback.onSuccess(shift);
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                if (requestGeneration != generation) return;
+                loading = false;
+                callback.onFailure(failMSG);
+            }
+        });
+    }
+
+    /**
+     * Remove frames from the window (After removed from database). No reload.
+     * If the window is left empty while there are more frames out of it, the page after the
+     * last removed frame is loaded (or the page before the first removed frame, if the window
+     * was the last page), since loadNext() and loadPrevious() need a frame in the window.
+     * @param IDs Invoice IDs, sorted ascending (e.g. the selected IDs).
+     * @param callback Called with the window size when that page is loaded.
+     * @return True if a page was requested.
+     */
+    public boolean remove(@NonNull long[] IDs, @NonNull DialogCallback<Integer> callback) {
+        InvoiceFrame firstRemoved = null, lastRemoved = null;
+        Iterator<List<InvoiceFrameDisplay>> pagesIterator = pages.iterator();
+        while (pagesIterator.hasNext()) {
+            Iterator<InvoiceFrameDisplay> iterator = pagesIterator.next().iterator();
+            boolean pageLeft = false;
+            while (iterator.hasNext()) {
+                InvoiceFrame frame = iterator.next().getFrame();
+                if (Arrays.binarySearch(IDs, frame.getID()) < 0) pageLeft = true;
+                else {
+                    if (firstRemoved == null) firstRemoved = frame;
+                    lastRemoved = frame;
+                    iterator.remove();
+                }
+            }
+            if (!pageLeft) pagesIterator.remove();
+        }
+        // A page in loading fills the window
+        if (!pages.isEmpty() || loading || lastRemoved == null) return false;
+        final InvoiceFrame before = firstRemoved;
+        DialogCallback<Integer> windowLoaded = new DialogCallback<>() {
+            @Override
+            public void onSuccess(Integer shift) {
+                callback.onSuccess(size());
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                // No frames after all (The window ended on a full page), try before it
+                if (pages.isEmpty() && endReached && !startReached && !loading)
+                    loadBefore(before, this);
+                else if (pages.isEmpty() && endReached && startReached)
+                    callback.onSuccess(0); // No frames left
+                else callback.onFailure(failMSG);
+            }
+        };
+        if (!endReached) loadAfter(lastRemoved, windowLoaded);
+        else if (!startReached) loadBefore(firstRemoved, windowLoaded);
+        else return false;
+        return true;
+    }
+
+    /** @return True if there are more pages before the window. */
+    public boolean hasPrevious() {
+        return !startReached;
+    }
+
+    /** @return True while a page is being loaded. */
+    public boolean isLoading() {
+        return this.loading;
+    }
+
+    /** @return True if there are more pages after the window. */
+    public boolean hasNext() {
+        return !endReached;
+    }
+
+    public @NonNull InvoiceSort getSort() {
+        return this.sort;
+    }
+
+    public boolean isDescending() {
+        return this.descending;
+    }
+
+    /** @return Filter of the frames. */
+    public @NonNull InvoiceFilter getFilter() {
+        return this.filter;
+    }
+
+    /** @return Number of frames in the window. */
+    public int size() {
+        int size = 0;
+        for (List<InvoiceFrameDisplay> page : pages) size += page.size();
+        return size;
+    }
+
+    /**
+     * Copy of the current window, for submit to the adapter.
+     * @return List of frames in the window, by order.
+     */
+    public @NonNull List<InvoiceFrameDisplay> snapshot() {
+        List<InvoiceFrameDisplay> window = new ArrayList<>(size());
+        for (List<InvoiceFrameDisplay> page : pages) window.addAll(page);
+        return window;
+    }
+}
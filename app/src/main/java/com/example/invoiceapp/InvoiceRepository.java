@@ -0,0 +1,279 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous access to DatabaseHelper, so no database operation runs on the UI thread.
+ * Reads run on a bounded pool (WAL allows concurrent readers), writes run one by one on a
+ * single writer thread, by submit order (See GroupCommitQueue). Grouped writes (invoice
+ * saves, item edits) pending together are committed in one transaction. Results are delivered to a DialogCallback on the
+ * main thread: onSuccess with the operation result, onFailure if the operation thrown.
+ * Each request returns a Future, cancel it (or the whole Scope) when the result is no longer
+ * needed: A cancelled request never calls his callback.
+ * NOTE: The database itself is opened (and created / upgraded) by the first request, on the
+ *       background thread.
+ * NOTE: Activities should use a Scope, and cancel it on onDestroy.
+ */
+final class InvoiceRepository {
+
+    private static final String TAG = "InvoiceRepository";
+    private static final int READ_THREADS = Math.max(2,
+            Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static InvoiceRepository INSTANCE;
+
+    /** Single database operation, run on a background thread */
+    interface Query<T> {
+        T run(@NonNull DatabaseHelper database) throws Exception;
+    }
+
+    /** Success check of a grouped write result. False roll back the group */
+    interface Accept<T> {
+        boolean test(T result);
+    }
+
+    private final Context context;
+    private final ExecutorService readers;
+    private final GroupCommitQueue writer;
+    private final Handler mainHandler;
+
+    private InvoiceRepository(@NonNull Context context, long commitBudgetMillis) {
+        this.context = context;
+        this.readers = new ThreadPoolExecutor(READ_THREADS, READ_THREADS, 30L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedThreads("db-read"));
+        ((ThreadPoolExecutor) this.readers).allowCoreThreadTimeOut(true);
+        this.writer = new GroupCommitQueue(context, commitBudgetMillis,
+                GroupCommitQueue.DEFAULT_MAX_GROUP);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+    }
+
+    /**
+     * @param context Any context, the application context is kept.
+     * @return The repository instance.
+     */
+    public static InvoiceRepository getInstance(@NonNull Context context) {
+        return getInstance(context, GroupCommitQueue.DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Get the repository with a specific group commit latency budget.
+     * NOTE: The budget is used only by the first call, which create the instance.
+     * @param context Any context, the application context is kept.
+     * @param commitBudgetMillis Max wait of a grouped write for more writes, 0 for no wait.
+     * @return The repository instance.
+     */
+    public static synchronized InvoiceRepository getInstance(@NonNull Context context,
+                                                             long commitBudgetMillis) {
+        if (INSTANCE == null) INSTANCE = new InvoiceRepository(
+                context.getApplicationContext(), commitBudgetMillis);
+        return INSTANCE;
+    }
+
+    /** @return The single writer, for its commit statistics. */
+    public @NonNull GroupCommitQueue getWriter() {
+        return this.writer;
+    }
+
+    /** @return New scope of requests, for a single activity. */
+    public @NonNull Scope newScope() {
+        return new Scope();
+    }
+
+    /**
+     * Run a read only operation on the readers pool.
+     * @param query Operation, must not write.
+     * @param callback Result on the main thread. Nullable.
+     * @return Future of the operation, cancel it to drop the callback.
+     */
+    public <T> Future<T> read(@NonNull Query<T> query, DialogCallback<T> callback) {
+        return dispatch(new Request<>(query, null, callback, null, false));
+    }
+
+    /**
+     * Run a write operation on the single writer thread, after all the writes before it.
+     * NOTE: A submitted write is never skipped nor interrupted, cancel only drop the callback.
+     *       So leaving the activity right after a save doesn't lose it.
+     * @param query Operation.
+     * @param callback Result on the main thread. Nullable.
+     * @return Future of the operation, cancel it to drop the callback.
+     */
+    public <T> Future<T> write(@NonNull Query<T> query, DialogCallback<T> callback) {
+        return dispatch(new Request<>(query, null, callback, null, true));
+    }
+
+    /**
+     * Run a write operation on the single writer thread, committed together with the other
+     * grouped writes pending with it. The callback is called after the group is committed.
+     * NOTE: The operation must not have effects out of the database transaction, other than
+     *       the DatabaseHelper caches (Updated only after the group is committed).
+     * @param query Operation.
+     * @param accept Check the result for success. False roll back the group, and each write
+     *               is run again alone.
+     * @param callback Result on the main thread. Nullable.
+     * @return Future of the operation, cancel it to drop the callback.
+     */
+    public <T> Future<T> writeGrouped(@NonNull Query<T> query, @NonNull Accept<T> accept,
+                                      DialogCallback<T> callback) {
+        return dispatch(new Request<>(query, accept, callback, null, true));
+    }
+
+    private <T> Request<T> dispatch(@NonNull Request<T> request) {
+        if (request.isWrite) writer.submit(request);
+        else readers.execute(request);
+        return request;
+    }
+
+    /** Requests of a single owner (activity), all cancelled together. */
+    final class Scope {
+
+        private final Set<Future<?>> pending =
+                Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+        private volatile boolean closed = false;
+
+        private Scope() { }
+
+        /** Same as InvoiceRepository.read, tracked by this scope. */
+        public <T> Future<T> read(@NonNull Query<T> query, DialogCallback<T> callback) {
+            return submit(new Request<>(query, null, callback, this, false));
+        }
+
+        /** Same as InvoiceRepository.write, tracked by this scope. */
+        public <T> Future<T> write(@NonNull Query<T> query, DialogCallback<T> callback) {
+            return submit(new Request<>(query, null, callback, this, true));
+        }
+
+        /** Same as InvoiceRepository.writeGrouped, tracked by this scope. */
+        public <T> Future<T> writeGrouped(@NonNull Query<T> query, @NonNull Accept<T> accept,
+                                          DialogCallback<T> callback) {
+            return submit(new Request<>(query, accept, callback, this, true));
+        }
+
+        private <T> Future<T> submit(@NonNull Request<T> request) {
+            if (closed) {
+                request.cancel(false);
+                if (!request.isWrite) return request; // Writes are still done, without callback
+            }
+            pending.add(request);
+            return dispatch(request);
+        }
+
+        /** Cancel all pending requests, and any later request. Call on onDestroy. */
+        public void cancelAll() {
+            closed = true;
+            Future<?>[] requests;
+            synchronized (pending) {
+                requests = pending.toArray(new Future<?>[0]);
+                pending.clear();
+            }
+            for (Future<?> future : requests) future.cancel(false);
+        }
+    }
+
+    /**
+     * Operation and his callback. The result is posted to the main thread when done, and
+     * checked again for cancel there (cancel after done still drop the callback).
+     * Cancel of a write only drop the callback.
+     * Reads are run by the pool (FutureTask.run), writes by the GroupCommitQueue (Entry).
+     */
+    private final class Request<T> extends FutureTask<T> implements GroupCommitQueue.Entry {
+
+        private final Query<T> query;
+        private final Accept<T> accept; // Null if not grouped
+        private final DialogCallback<T> callback;
+        private final Scope scope;
+        private final boolean isWrite;
+        private volatile boolean cancelled = false;
+        private T result; // Write result, kept until commit (Writer thread only)
+
+        Request(@NonNull Query<T> query, Accept<T> accept, DialogCallback<T> callback,
+                Scope scope, boolean isWrite) {
+            super(() -> query.run(DatabaseHelper.getInstance(context)));
+            this.query = query;
+            this.accept = accept;
+            this.callback = callback;
+            this.scope = scope;
+            this.isWrite = isWrite;
+        }
+
+        @Override
+        public boolean perform(@NonNull DatabaseHelper database) throws Exception {
+            this.result = query.run(database);
+            return accept == null || accept.test(this.result);
+        }
+
+        @Override
+        public void complete() {
+            set(this.result);
+        }
+
+        @Override
+        public void fail(@NonNull Throwable error) {
+            setException(error);
+        }
+
+        @Override
+        public boolean isGrouped() {
+            return accept != null;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            this.cancelled = true;
+            if (isWrite) return false;
+            return super.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        protected void done() {
+            if (scope != null) scope.pending.remove(this);
+            if (cancelled || isCancelled()) return;
+            T result;
+            try {
+                result = get();
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                Log.e(TAG, cause.toString());
+                if (callback != null) mainHandler.post(() -> {
+                    if (!cancelled) callback.onFailure(cause.toString());
+                });
+                return;
+            }
+            catch (Exception e) { return; } // Interrupted, as cancelled
+            if (callback != null) mainHandler.post(() -> {
+                if (!cancelled) callback.onSuccess(result);
+            });
+        }
+    }
+
+    private static @NonNull ThreadFactory namedThreads(@NonNull String name) {
+        AtomicInteger count = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setPriority(Thread.NORM_PRIORITY - 1); // Below the UI thread
+            return thread;
+        };
+    }
+}
@@ -19,7 +19,7 @@ public class InvoiceRow implements Comparable<InvoiceRow> {
     private final long invoiceID;
     private final Item item;
     private int quantity;
-    private double totalPrice;
+    private long totalCents; // Item value * quantity, in cents
 
     /**
      * Constructs an InvoiceRow with the given invoice ID, quantity, and item.
@@ -35,6 +35,17 @@ public class InvoiceRow implements Comparable<InvoiceRow> {
         updateTotalPrice();
     }
 
+    /**
+     * Copy constructor. The item is shared (immutable), the quantity is copied.
+     * @param other the row to copy.
+     */
+    public InvoiceRow(@NonNull InvoiceRow other) {
+        this.quantity = other.quantity;
+        this.invoiceID = other.invoiceID;
+        this.item = other.item;
+        this.totalCents = other.totalCents;
+    }
+
     /**
      * Gets the ID of the item associated with this invoice row.
      * @return the ID of the item.
@@ -61,18 +72,18 @@ public class InvoiceRow implements Comparable<InvoiceRow> {
 
     /**
      * Gets the value (price) of the item associated with this invoice row.
-     * @return the value of the item.
+     * @return the value of the item, in cents.
      */
-    public double getItemValue() {
-        return this.item.getValue();
+    public long getItemValueCents() {
+        return this.item.getValueCents();
     }
 
     /**
      * Gets the total value of this invoice row (item value * quantity).
-     * @return the total value of the row.
+     * @return the total value of the row, in cents.
      */
-    public double getTotalRowValue() {
-        return this.totalPrice;
+    public long getTotalRowCents() {
+        return this.totalCents;
     }
 
     /**
@@ -103,7 +114,7 @@ public class InvoiceRow implements Comparable<InvoiceRow> {
      * Updates the total price for this invoice row based on the current quantity and item value.
      */
     private void updateTotalPrice() {
-        this.totalPrice = this.item.getValue() * this.quantity;
+        this.totalCents = Money.times(this.item.getValueCents(), this.quantity);
     }
 
     /**
@@ -133,7 +144,7 @@ public class InvoiceRow implements Comparable<InvoiceRow> {
     @NonNull
     @Override
     public String toString() {
-        return "#" + getInvoiceID() + " #" + getItemID() + " " + getItemName() + " " + getQuantity() + " " + getTotalRowValue();
+        return "#" + getInvoiceID() + " #" + getItemID() + " " + getItemName() + " " + getQuantity() + " " + Money.toPlainString(getTotalRowCents());
     }
 
     /**
@@ -0,0 +1,25 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+/**
+ * Sort key for the invoice frames pages (See invoicesFramesTable.getInvoicesPage).
+ * Each key is served by an index, ties are ordered by the invoice ID.
+ */
+public enum InvoiceSort {
+    /** By invoice date (DateEpoch) */
+    DATE,
+    /** By invoice total price */
+    PRICE,
+    /** By invoice date, then by total price (Composite index) */
+    DATE_PRICE,
+    /** By invoice total price, then by date (Composite index) */
+    PRICE_DATE,
+    /** By invoice ID (insert order) */
+    ID
+}
@@ -20,7 +20,7 @@ public class Item implements Comparable<Item> {
     private final long ID;  // Unique ID for the item in the database
     private final String name;  // Name of the item, as stored in the database
     private final String description; // Description of the item, as stored in the database
-    private final double value; // Value (price) of the item, as stored in the database
+    private final long valueCents; // Value (price) of the item in cents, as stored in the database
     public static final int ITEM_NAME_MAX_LEN = 50;
     public static final int ITEM_DESCRIPTION_MAX_LEN = 50;
 
@@ -30,12 +30,12 @@ public class Item implements Comparable<Item> {
      * @param ID Unique identifier for the item.
      * @param name Name of the item. Should be less than ITEM_NAME_MAX_LEN characters.
      * @param description Description of the item. Should be less than ITEM_DESCRIPTION_MAX_LEN characters.
-     * @param value Value (price) of the item, must be greater than 0.
+     * @param valueCents Value (price) of the item in cents, must be greater than 0.
      */
-    public Item(long ID, @NonNull String name, String description, double value) {
+    public Item(long ID, @NonNull String name, String description, long valueCents) {
         this.name = name;
         this.description = description;
-        this.value = value;
+        this.valueCents = valueCents;
         this.ID = ID;
     }
 
@@ -61,10 +61,10 @@ public class Item implements Comparable<Item> {
     }
 
     /**
-     * @return the value (price) of the item.
+     * @return the value (price) of the item, in cents.
      */
-    public double getValue() {
-        return this.value;
+    public long getValueCents() {
+        return this.valueCents;
     }
 
     /**
@@ -78,7 +78,7 @@ public class Item implements Comparable<Item> {
     @NonNull
     @Override
     public String toString() {
-        return getName() + ", " + FormatUtils.formatCurrency(getValue());
+        return getName() + ", " + FormatUtils.formatCurrency(getValueCents());
     }
 
     /**
@@ -119,10 +119,10 @@ public class Item implements Comparable<Item> {
             return INVALID_ITEM_DESCRIPTION;
         if (description.length() > ITEM_DESCRIPTION_MAX_LEN) return INVALID_ITEM_DESCRIPTION_LEN;
 
-        double price;
+        long price;
         try {
-            price = Double.parseDouble(value);
-            if (price <= 0) {
+            price = Money.parse(value); // Exact cents, at most 2 fraction digits
+            if (price <= 0 || price > Money.MAX_PRICE_CENTS) {
                 return INVALID_ITEM_VALUE; // Must be positive
             }
         } catch (NumberFormatException e) {
@@ -154,7 +154,7 @@ public class Item implements Comparable<Item> {
         if (!(o instanceof Item)) return false;
         Item item = (Item) o;
         return getID() == item.getID() &&
-                getValue() == item.getValue() &&
+                getValueCents() == item.getValueCents() &&
                 getName().equals(item.getName()) &&
                 getDescription().equals(item.getDescription());
     }
@@ -170,7 +170,7 @@ public class Item implements Comparable<Item> {
 
     /** Comparator by values */
     public static int compareToByValue(Item f1, Item f2) {
-        return Double.compare(f2.getValue(), f1.getValue());
+        return Long.compare(f2.getValueCents(), f1.getValueCents());
     }
 
     /** Comparator by names */
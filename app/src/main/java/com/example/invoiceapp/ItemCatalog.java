@@ -0,0 +1,106 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.util.LongSparseArray;
+import androidx.annotation.NonNull;
+
+/**
+ * In memory cache of all items (including removed items), keyed by the item ID.
+ * Loaded once from itemsTable on the first lookup, then kept up to date by DatabaseHelper on
+ * each add, edit and remove of items (once committed), so it never need a full reload.
+ * Used for resolve the item names of invoice rows, without any query.
+ * NOTE: Thread safe. Keyed by a primitive long map (No boxing for lookups).
+ */
+final class ItemCatalog {
+
+    /** Loader of all items rows, called once */
+    interface Loader {
+        void loadAll(@NonNull ItemCatalog catalog);
+    }
+
+    private final Loader loader;
+    private final LongSparseArray<Item> items;
+    private final LongSparseArray<Boolean> removed;
+    private boolean loaded = false;
+
+    public ItemCatalog(@NonNull Loader loader) {
+        this.loader = loader;
+        this.items = new LongSparseArray<>();
+        this.removed = new LongSparseArray<>();
+    }
+
+    /** Load all items, if not loaded yet. */
+    private void ensureLoaded() {
+        if (loaded) return;
+        items.clear();
+        removed.clear();
+        loader.loadAll(this);
+        loaded = true;
+    }
+
+    /**
+     * Get item by ID.
+     * @param ID Item ID as in database.
+     * @return Item, null if not found.
+     */
+    public synchronized Item getItem(long ID) {
+        ensureLoaded();
+        return items.get(ID);
+    }
+
+    /**
+     * @param ID Item ID as in database.
+     * @return True if the item was marked as removed. False if not removed or not found.
+     */
+    public synchronized boolean isRemoved(long ID) {
+        ensureLoaded();
+        return Boolean.TRUE.equals(removed.get(ID));
+    }
+
+    /**
+     * Add or replace a single item. Used by the loader, and after add / edit an item.
+     * @param item Item, with his database ID.
+     * @param isRemoved True if the item is marked as removed.
+     */
+    public synchronized void put(@NonNull Item item, boolean isRemoved) {
+        items.put(item.getID(), item);
+        removed.put(item.getID(), isRemoved);
+    }
+
+    /**
+     * Replace a single item, keep his removed mark. Used after edit an item.
+     * @param item Item, with his database ID.
+     */
+    public synchronized void update(@NonNull Item item) {
+        if (!loaded) return; // Will be loaded with the new values
+        put(item, Boolean.TRUE.equals(removed.get(item.getID())));
+    }
+
+    /**
+     * Mark items as removed, after removed from database.
+     * @param IDs Items IDs.
+     */
+    public synchronized void markRemoved(@NonNull long[] IDs) {
+        if (!loaded) return;
+        for (long ID : IDs) if (items.get(ID) != null) removed.put(ID, true);
+    }
+
+    /** Drop all items, next lookup will reload from database. */
+    public synchronized void invalidate() {
+        loaded = false;
+        items.clear();
+        removed.clear();
+    }
+
+    /** @return Number of cached items, including removed items. */
+    public synchronized int size() {
+        ensureLoaded();
+        return items.size();
+    }
+}
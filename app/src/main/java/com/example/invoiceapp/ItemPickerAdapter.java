@@ -0,0 +1,103 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter for the type-ahead item picker (AutoCompleteTextView) in InvoiceComposingActivity.
+ * Holds only the top matches of the typed text, never the full items list.
+ * Matching is done by the ItemPrefixIndex inside Filter.performFiltering, which runs on the
+ * filter worker thread, only publishing the results is done on the UI thread.
+ */
+final class ItemPickerAdapter extends BaseAdapter implements Filterable {
+
+    public static final int MAX_MATCHES = 30;
+
+    private final LayoutInflater inflater;
+    private final ItemPrefixIndex index;
+    private List<Item> matches;
+    private Filter filter;
+
+    public ItemPickerAdapter(@NonNull Context context, @NonNull ItemPrefixIndex index) {
+        this.inflater = LayoutInflater.from(context);
+        this.index = index;
+        this.matches = new ArrayList<>();
+    }
+
+    @Override
+    public int getCount() {
+        return matches.size();
+    }
+
+    @Override
+    public Item getItem(int position) {
+        return matches.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return matches.get(position).getID();
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return true;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) (convertView != null ? convertView : inflater.inflate(
+                android.R.layout.simple_dropdown_item_1line, parent, false));
+        view.setText(matches.get(position).toString());
+        return view;
+    }
+
+    @Override
+    public @NonNull Filter getFilter() {
+        if (filter == null) filter = new PrefixFilter();
+        return filter;
+    }
+
+    private class PrefixFilter extends Filter {
+
+        /** Runs on the filter worker thread */
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            FilterResults results = new FilterResults();
+            List<Item> found = index.find(constraint, MAX_MATCHES);
+            results.values = found;
+            results.count = found.size();
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            matches = results.values != null ? (List<Item>) results.values : new ArrayList<>();
+            if (results.count > 0) notifyDataSetChanged();
+            else notifyDataSetInvalidated();
+        }
+
+        /** Text placed in the picker once an item is chosen */
+        @Override
+        public CharSequence convertResultToString(Object resultValue) {
+            return ((Item) resultValue).getName();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable prefix index over items names, for type-ahead lookup.
+ * Each word of the item name is a key (the name from that word to the end), so "milk" finds
+ * both "Milk 3%" and "Whole Milk". Keys are kept in a sorted array, and a lookup is a binary
+ * search for the first key with the prefix, then a linear scan while the prefix matches.
+ * NOTE: Built once from the items list, safe to query from any thread.
+ */
+final class ItemPrefixIndex {
+
+    private final String[] keys; // Sorted, lower case
+    private final int[] owners; // Index in 'items' for each key
+    private final Item[] items;
+
+    /**
+     * Build the index. Items order is kept for an empty prefix.
+     * @param items Items to index.
+     */
+    public ItemPrefixIndex(@NonNull List<Item> items) {
+        this.items = items.toArray(new Item[0]);
+        List<Key> entries = new ArrayList<>(this.items.length);
+        for (int i = 0; i < this.items.length; i++) {
+            String name = normalize(this.items[i].getName());
+            for (int start = 0; start < name.length(); start++) {
+                if (name.charAt(start) == ' ') continue;
+                if (start == 0 || name.charAt(start - 1) == ' ')
+                    entries.add(new Key(name.substring(start), i));
+            }
+        }
+        Key[] sorted = entries.toArray(new Key[0]);
+        Arrays.sort(sorted, (k1, k2) -> k1.key.compareTo(k2.key));
+        this.keys = new String[sorted.length];
+        this.owners = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            this.keys[i] = sorted[i].key;
+            this.owners[i] = sorted[i].owner;
+        }
+    }
+
+    /**
+     * Find items with a word of the name starting with the prefix (Ignore case).
+     * Each item appears once, by name order of the matched word.
+     * @param prefix Typed text, empty for the first items.
+     * @param limit Max number of results.
+     * @return Matched items, up to limit.
+     */
+    public @NonNull List<Item> find(CharSequence prefix, int limit) {
+        List<Item> result = new ArrayList<>(Math.min(Math.max(limit, 0), items.length));
+        if (limit <= 0) return result;
+        String query = prefix == null ? "" : normalize(prefix.toString());
+        if (query.isEmpty()) {
+            for (int i = 0; i < items.length && result.size() < limit; i++) result.add(items[i]);
+            return result;
+        }
+        boolean[] added = new boolean[items.length];
+        for (int i = lowerBound(query); i < keys.length && result.size() < limit; i++) {
+            if (!keys[i].startsWith(query)) break;
+            if (added[owners[i]]) continue;
+            added[owners[i]] = true;
+            result.add(items[owners[i]]);
+        }
+        return result;
+    }
+
+    /** @return Number of indexed items. */
+    public int size() {
+        return items.length;
+    }
+
+    /** @return Index of the first key which is not less than the given key. */
+    private int lowerBound(@NonNull String key) {
+        int low = 0, high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(key) < 0) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /** Lower case, trimmed and single spaced */
+    private static @NonNull String normalize(@NonNull String text) {
+        return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Key {
+        final String key;
+        final int owner;
+
+        Key(String key, int owner) {
+            this.key = key;
+            this.owner = owner;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+
+/**
+ * Invoice which sold a given item, and the quantity of the item in this invoice (All its rows
+ * of the item). See DatabaseHelper.getInvoicesByItem.
+ * Immutable.
+ */
+public final class ItemSale {
+
+    private final InvoiceFrame frame;
+    private final long quantity;
+
+    /**
+     * @param frame Invoice frame.
+     * @param quantity Quantity of the item in this invoice.
+     */
+    public ItemSale(@NonNull InvoiceFrame frame, long quantity) {
+        this.frame = frame;
+        this.quantity = quantity;
+    }
+
+    public @NonNull InvoiceFrame getFrame() {
+        return this.frame;
+    }
+
+    public long getInvoiceID() {
+        return this.frame.getID();
+    }
+
+    public long getQuantity() {
+        return this.quantity;
+    }
+}
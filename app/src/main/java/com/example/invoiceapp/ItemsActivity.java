@@ -7,7 +7,6 @@ package com.example.invoiceapp;
  * See the LICENSE file in the root directory for details.
  */
 
-import android.annotation.SuppressLint;
 import android.os.Bundle;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -16,13 +15,14 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.SearchView;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.snackbar.Snackbar;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Future;
 
 /**
  * Activity for displaying and managing a list of items.
@@ -31,11 +31,15 @@ import java.util.List;
  */
 public class ItemsActivity extends AppCompatActivity {
 
-    private DatabaseHelper databaseHelper;
+    private InvoiceRepository.Scope requests;
+    private Future<List<Item>> pendingSearch; // Last search, cancelled by the next one
     private ItemsDialogHelper dialogHelper;
     private List<Item> itemsList;
     private RVAdapterItems RVAdapter;
     private TextView TextViewTotalItems;
+    private SearchView searchView;
+    private static final int SEARCH_LIMIT = 200; // Max search results on the RV
+    private static final int ITEM_INVOICES_PAGE = 50; // Invoices of an item, for each page
 
     /// Icons ID to unable toggle options (Sort by name / value of items)
     int id_icon_sorted_name, id_icon_sorted_name_selected,
@@ -53,12 +57,31 @@ public class ItemsActivity extends AppCompatActivity {
         setIconsIDs();
         this.setTitle("");
         this.dialogHelper = new ItemsDialogHelper(this);
-        this.databaseHelper = DatabaseHelper.getInstance(getApplicationContext());
-        this.itemsList = new ArrayList<>(
-                databaseHelper.getAllItems(sortedByName, sortedByPrice, false));
-        if (itemsList.isEmpty())
-            new AlertDialog.Builder(this).setMessage(R.string.no_data_found).show();
+        this.requests = InvoiceRepository.getInstance(this).newScope();
+        this.itemsList = new ArrayList<>();
         setupRecyclerView();
+        this.requests.read(database -> database.getAllItems(sortedByName, sortedByPrice, false),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(List<Item> items) {
+                itemsList.addAll(items);
+                if (itemsList.isEmpty())
+                    new AlertDialog.Builder(ItemsActivity.this)
+                            .setMessage(R.string.no_data_found).show();
+                updateItemListRV();
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
+    }
+
+    /** Drop all pending database requests of this activity */
+    @Override
+    protected void onDestroy() {
+        this.requests.cancelAll();
+        super.onDestroy();
     }
 
     /**
@@ -70,9 +93,69 @@ public class ItemsActivity extends AppCompatActivity {
     public boolean onCreateOptionsMenu(Menu menu) {
         MenuInflater inflater = getMenuInflater();
         inflater.inflate(R.menu.menu_items_manager, menu);
+        setupSearch(menu.findItem(R.id.item_manager_search));
         return super.onCreateOptionsMenu(menu);
     }
 
+    /**
+     * Setup the search action: Each change of the query, display the items matching the
+     * words prefix (full-text index in database). Empty query display all items.
+     * @param searchItem Menu item with the SearchView.
+     */
+    private void setupSearch(MenuItem searchItem) {
+        if (searchItem == null) return;
+        this.searchView = (SearchView) searchItem.getActionView();
+        if (this.searchView == null) return;
+        this.searchView.setQueryHint(getString(R.string.menu_search_items));
+        this.searchView.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
+            @Override
+            public boolean onQueryTextSubmit(String query) {
+                searchView.clearFocus();
+                return true;
+            }
+            @Override
+            public boolean onQueryTextChange(String newText) {
+                RVAdapter.clearSelection();
+                // Only the result of the last query is displayed
+                if (pendingSearch != null) pendingSearch.cancel(false);
+                pendingSearch = null;
+                if (newText.trim().isEmpty()) {
+                    updateItemListRV();
+                    return true;
+                }
+                pendingSearch = requests.read(database ->
+                        database.searchItems(newText, SEARCH_LIMIT), new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(List<Item> found) {
+                        RVAdapter.submitList(found);
+                        TextViewTotalItems.setText(getString(
+                                R.string.item_manager_search_results, found.size()));
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        displaySnackBar(getString(R.string.error_action_data_base));
+                    }
+                });
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Clear the search query (if any), the full list will be displayed. The pending search
+     * is cancelled (See onQueryTextChange), so its result cannot replace the list later.
+     */
+    private void clearSearch() {
+        if (this.searchView != null && this.searchView.getQuery().length() > 0)
+            this.searchView.setQuery("", false);
+    }
+
+    /** @return True if the search results are displayed (or pending), not the full list. */
+    private boolean isSearching() {
+        return this.searchView != null
+                && !this.searchView.getQuery().toString().trim().isEmpty();
+    }
+
     /**
      * Handles menu item selection. Menu included:
      * Edit item by selection, adding new item, remove selected items, sorted by price,
@@ -99,6 +182,10 @@ public class ItemsActivity extends AppCompatActivity {
             removeSelectedItems();
             return true;
         }
+        if (itemID == R.id.item_manager_select_all) {
+            selectAllItems();
+            return true;
+        }
         if (itemID == R.id.item_manager_sorted_name) {
             // Toggle option using boolean
             if (!sortedByName) item.setIcon(this.id_icon_sorted_name_selected);
@@ -122,36 +209,51 @@ public class ItemsActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
+    /**
+     * Sort the items by the toggled options (name, price, both or none for ID order). The
+     * sort is done by the database, by index (Off the UI thread), and the list is replaced.
+     * The selection is kept (by IDs).
+     * The search results are not sorted: The search is cleared first (Its pending result is
+     * cancelled), and if a new search is typed before the sort is done, its results stay
+     * displayed.
+     */
     private void setResultBy() {
         if (this.itemsList.isEmpty()) return;
-        if (this.sortedByName && this.sortedByPrice) {
-            Collections.sort(this.itemsList, Item::compareToValueName);
-            updateItemListRV(false);
-        }
-        else if (this.sortedByName) {
-            Collections.sort(this.itemsList, Item::compareToByName);
-            updateItemListRV(false);
-        }
-        else if (this.sortedByPrice) {
-            Collections.sort(this.itemsList, Item::compareToByValue);
-            updateItemListRV(false);
-        }
-        this.RVAdapter.clearSelection();
+        clearSearch();
+        final boolean byName = this.sortedByName, byPrice = this.sortedByPrice;
+        this.requests.read(database -> database.getAllItems(byName, byPrice, false),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(List<Item> items) {
+                if (byName != sortedByName || byPrice != sortedByPrice) return; // Toggled again
+                itemsList.clear();
+                itemsList.addAll(items);
+                if (!isSearching()) updateItemListRV();
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
+    }
+
+    /** Select all the displayed items (All items, or the search result). */
+    private void selectAllItems() {
+        List<Item> displayed = this.RVAdapter.getCurrentList();
+        long[] IDs = new long[displayed.size()];
+        for (int i = 0; i < IDs.length; i++) IDs[i] = displayed.get(i).getID();
+        this.RVAdapter.selectAll(IDs);
     }
 
     /**
-     * Updating (Notify) the RV for any changes such as: Editing item, new item, or removing items.
-     * @param submitNewList If new item added, or removed items. Else, edited item, will updated.
+     * Updating the RV for any changes such as: Editing item, new item, removing items or sort.
+     * Submit a copy of the list: DiffUtil updates only the changed, moved, added or removed
+     * items (The same list instance would be ignored by the adapter).
      */
-    @SuppressLint("NotifyDataSetChanged")
-    private void updateItemListRV(boolean submitNewList) {
-        if (submitNewList) {
-            this.RVAdapter.submitList(this.itemsList);
-            this.TextViewTotalItems.setText(getString(R.string.item_manager_total_items,
-                    itemsList.size()));
-        }
-
-        this.RVAdapter.notifyDataSetChanged();
+    private void updateItemListRV() {
+        this.RVAdapter.submitList(new ArrayList<>(this.itemsList));
+        this.TextViewTotalItems.setText(getString(R.string.item_manager_total_items,
+                itemsList.size()));
     }
 
     /** Prompts the user to confirm item removal and removes selected items if confirmed. */
@@ -165,12 +267,24 @@ public class ItemsActivity extends AppCompatActivity {
             @Override
             public void onSuccess(Item item) {
                 // NOTE: the return item is null
-                if (databaseHelper.removeItems(RVAdapter.getSelectedIDs()).isEmpty())
-                    displaySnackBar(getString(R.string.error_action_data_base));
-                else {
-                    updateItemListRemoved(selectedItems);
-                    displaySnackBar(getString((R.string.item_manager_selected_removed)));
-                }
+                long[] IDs = RVAdapter.getSelectedIDs();
+                requests.writeGrouped(database -> database.removeItems(IDs),
+                        removed -> removed.length > 0, new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(long[] removed) {
+                        if (removed.length == 0)
+                            displaySnackBar(getString(R.string.error_action_data_base));
+                        else {
+                            clearSearch();
+                            updateItemListRemoved(selectedItems);
+                            displaySnackBar(getString((R.string.item_manager_selected_removed)));
+                        }
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        displaySnackBar(getString(R.string.error_action_data_base));
+                    }
+                });
             }
             @Override
             public void onFailure(String failMSG) { displaySnackBar(failMSG); }
@@ -182,19 +296,30 @@ public class ItemsActivity extends AppCompatActivity {
         this.dialogHelper.NewItemDialog(new DialogCallback<>() {
             @Override
             public void onSuccess(Item item) {
-                int newItemID = databaseHelper.addNewItem(item); // We need the new ID
-                if (newItemID == -2) {
-                    displaySnackBar(getString(R.string.item_manager_exists_item));
-                 }
-                else if (newItemID > 0) {
-                    displaySnackBar(getString((R.string.item_manager_item_added)));
-                    Item newItem = new Item(
-                            newItemID, item.getName(), item.getDescription(), item.getValue());
-                    itemsList.add(newItem);
-                    RVAdapter.notifyItemInserted(0);
-                    setResultBy();
-                }
-                else displaySnackBar(getString(R.string.error_action_data_base));
+                // We need the new ID
+                requests.writeGrouped(database -> database.addNewItem(item),
+                        newItemID -> newItemID > 0, new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(Integer newItemID) {
+                        if (newItemID == -2) {
+                            displaySnackBar(getString(R.string.item_manager_exists_item));
+                        }
+                        else if (newItemID > 0) {
+                            clearSearch();
+                            displaySnackBar(getString((R.string.item_manager_item_added)));
+                            Item newItem = new Item(newItemID, item.getName(),
+                                    item.getDescription(), item.getValueCents());
+                            itemsList.add(newItem);
+                            RVAdapter.notifyItemInserted(0);
+                            setResultBy();
+                        }
+                        else displaySnackBar(getString(R.string.error_action_data_base));
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        displaySnackBar(getString(R.string.error_action_data_base));
+                    }
+                });
             }
             @Override
             public void onFailure(String failMSG) {
@@ -218,13 +343,25 @@ public class ItemsActivity extends AppCompatActivity {
         this.dialogHelper.EditItemDialog(tempTest, new DialogCallback<>() {
             @Override
             public void onSuccess(Item item) {
-                if (databaseHelper.editItem(item)) {
-                    updateItem(item);
-                    displaySnackBar(getString((R.string.dialog_edited)));
-                    updateItemListRV(true);
-                }
-                else displaySnackBar(getString((R.string.action_failed)));
-                RVAdapter.clearSelection();
+                requests.writeGrouped(database -> database.editItem(item),
+                        Boolean.TRUE::equals, new DialogCallback<>() {
+                    @Override
+                    public void onSuccess(Boolean edited) {
+                        if (edited) {
+                            clearSearch();
+                            updateItem(item);
+                            displaySnackBar(getString((R.string.dialog_edited)));
+                            updateItemListRV();
+                        }
+                        else displaySnackBar(getString((R.string.action_failed)));
+                        RVAdapter.clearSelection();
+                    }
+                    @Override
+                    public void onFailure(String failMSG) {
+                        displaySnackBar(getString((R.string.action_failed)));
+                        RVAdapter.clearSelection();
+                    }
+                });
             }
             @Override
             public void onFailure(String failMSG) {
@@ -242,7 +379,7 @@ public class ItemsActivity extends AppCompatActivity {
         for (int i = 0; i < this.itemsList.size(); i++) {
             if (this.itemsList.get(i).getID() == updatedItem.getID()) {
                 this.itemsList.set(i, updatedItem);
-                updateItemListRV(true);
+                updateItemListRV();
                 break;
             }
         }
@@ -256,10 +393,38 @@ public class ItemsActivity extends AppCompatActivity {
     private void updateItemListRemoved(@NonNull List<Item> selectedItemRemoved) {
         if (selectedItemRemoved.isEmpty()) return;
         for (Item item: selectedItemRemoved) this.itemsList.remove(item);
-        updateItemListRV(true);
+        updateItemListRV();
         this.RVAdapter.clearSelection();
     }
 
+    /**
+     * Display the invoices which sold the item (e.g. recall, price correction), newest first,
+     * with the quantity sold in each. Loaded by pages, by the item reverse index.
+     * @param item Long pressed item.
+     */
+    private void showItemInvoices(@NonNull Item item) {
+        final long itemID = item.getID();
+        this.requests.read(database ->
+                database.getInvoicesByItem(itemID, Long.MAX_VALUE, ITEM_INVOICES_PAGE),
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(List<ItemSale> firstPage) {
+                if (firstPage.isEmpty()) {
+                    displaySnackBar(getString(R.string.item_manager_item_invoices_none));
+                    return;
+                }
+                dialogHelper.displayItemInvoices(item, firstPage, ITEM_INVOICES_PAGE,
+                        (beforeID, callback) -> requests.read(database ->
+                                database.getInvoicesByItem(itemID, beforeID, ITEM_INVOICES_PAGE),
+                                callback));
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                displaySnackBar(getString(R.string.error_action_data_base));
+            }
+        });
+    }
+
     /** Display msg as SnackBar */
     private void displaySnackBar(@NonNull String msg) {
         /// GUI Elements
@@ -285,7 +450,9 @@ public class ItemsActivity extends AppCompatActivity {
         itemsRecyclerView.setLayoutManager(RVLayout);
         itemsRecyclerView.setAdapter(this.RVAdapter);
         itemsRecyclerView.setClipToPadding(true);
-        this.RVAdapter.submitList(this.itemsList);
+        this.RVAdapter.submitList(new ArrayList<>(this.itemsList));
+        // Long press: The invoices which sold the item
+        this.RVAdapter.setOnItemLongClickListener(this::showItemInvoices);
         this.TextViewTotalItems = findViewById(R.id.items_activity_info);
         this.TextViewTotalItems.setText(getString(R.string.item_manager_total_items, itemsList.size()));
     }
@@ -11,7 +11,10 @@ import androidx.annotation.NonNull;
 import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.widget.Button;
 import android.widget.EditText;
+import android.widget.LinearLayout;
+import android.widget.ScrollView;
 import android.widget.TextView;
 import androidx.appcompat.app.AlertDialog;
 import com.google.android.material.snackbar.Snackbar;
@@ -20,11 +23,22 @@ import java.util.List;
 /**
  * Dialog offer 2 methods: Updating item or adding a new item.
  * Both responsible for layout and interaction including msg display for each action.
- * NOTE: No operation on database.
+ * Also display the invoices which sold an item, by pages.
+ * NOTE: No operation on database (Pages are loaded by the activity, see ItemSalesLoader).
  */
 public class ItemsDialogHelper {
 
     private final Context context;
+    private static final int ROW_TEXT_SIZE = 12;
+
+    /** Load the next page of the invoices of an item, off the UI thread */
+    public interface ItemSalesLoader {
+        /**
+         * @param beforeInvoiceID Last invoice ID of the displayed pages.
+         * @param callback The next page, on the main thread.
+         */
+        void loadPage(long beforeInvoiceID, @NonNull DialogCallback<List<ItemSale>> callback);
+    }
 
     /**
      * @param context Activity context.
@@ -102,7 +116,7 @@ public class ItemsDialogHelper {
         EditText editPrice = dialogView.findViewById(R.id.items_dialog_item_price);
         editItemName.setText(prevItem.getName());
         editDescription.setText(prevItem.getDescription());
-        editPrice.setText(String.valueOf(prevItem.getValue()));
+        editPrice.setText(Money.toPlainString(prevItem.getValueCents()));
         AlertDialog dialog = new AlertDialog.Builder(this.context)
                 .setView(dialogView)
                 .setPositiveButton(context.getString(R.string.dialog_save), null)
@@ -127,7 +141,7 @@ public class ItemsDialogHelper {
                 else {
                     editItemName.setText(prevItem.getName());
                     editDescription.setText(prevItem.getDescription());
-                    editPrice.setText(String.valueOf(prevItem.getValue()));
+                    editPrice.setText(Money.toPlainString(prevItem.getValueCents()));
                     Snackbar snackbar = Snackbar.make(dialogView,
                             (String) test, Snackbar.LENGTH_LONG);
                     snackbar.show();
@@ -187,4 +201,83 @@ public class ItemsDialogHelper {
             dialog.show();
         }
     }
+
+    /**
+     * Display the invoices which sold the item: Invoice number, date, quantity of the item and
+     * invoice total. More pages are loaded by the "More" button, while there are more.
+     * @param item The item.
+     * @param firstPage First page of the invoices, newest first. Not empty.
+     * @param pageSize Page size of the loader. A shorter page is the last page.
+     * @param loader Loader of the next pages.
+     */
+    public void displayItemInvoices(@NonNull Item item, @NonNull List<ItemSale> firstPage,
+                                    int pageSize, @NonNull ItemSalesLoader loader) {
+        LinearLayout table = new LinearLayout(this.context);
+        table.setOrientation(LinearLayout.VERTICAL);
+        table.setPadding(12, 12, 12, 12);
+        table.addView(createRowLayout(
+                context.getString(R.string.item_manager_item_invoices_invoice),
+                context.getString(R.string.item_manager_item_invoices_date),
+                context.getString(R.string.item_manager_item_invoices_quantity),
+                context.getString(R.string.item_manager_item_invoices_total)));
+        ScrollView scrollView = new ScrollView(this.context);
+        scrollView.addView(table);
+
+        AlertDialog dialog = new AlertDialog.Builder(context)
+                .setTitle(context.getString(R.string.item_manager_item_invoices_title,
+                        item.getName()))
+                .setView(scrollView)
+                .setPositiveButton(context.getString(R.string.dialog_close), null)
+                .setNeutralButton(context.getString(R.string.dialog_more), null)
+                .create();
+        dialog.show();
+
+        Button more = dialog.getButton(AlertDialog.BUTTON_NEUTRAL);
+        long[] lastInvoiceID = { addSalesRows(table, firstPage) };
+        more.setVisibility(firstPage.size() < pageSize ? View.GONE : View.VISIBLE);
+        more.setOnClickListener(v -> {
+            more.setEnabled(false); // One page at a time
+            loader.loadPage(lastInvoiceID[0], new DialogCallback<>() {
+                @Override
+                public void onSuccess(List<ItemSale> page) {
+                    if (!page.isEmpty()) lastInvoiceID[0] = addSalesRows(table, page);
+                    more.setEnabled(true);
+                    if (page.size() < pageSize) more.setVisibility(View.GONE);
+                }
+                @Override
+                public void onFailure(String failMSG) { more.setEnabled(true); }
+            });
+        });
+    }
+
+    /** Add a row for each invoice, return the last invoice ID */
+    private long addSalesRows(@NonNull LinearLayout table, @NonNull List<ItemSale> sales) {
+        long lastID = Long.MAX_VALUE;
+        for (ItemSale sale : sales) {
+            InvoiceFrame frame = sale.getFrame();
+            table.addView(createRowLayout(
+                    FormatUtils.formatSerialNumber(frame.getID()),
+                    FormatUtils.formatDateTime(frame.getDateMillis()),
+                    String.valueOf(sale.getQuantity()),
+                    FormatUtils.formatCurrency(frame.getTotalCents())));
+            lastID = frame.getID();
+        }
+        return lastID;
+    }
+
+    private @NonNull LinearLayout createRowLayout(@NonNull String... columns) {
+        LinearLayout rowLayout = new LinearLayout(this.context);
+        rowLayout.setOrientation(LinearLayout.HORIZONTAL);
+        rowLayout.setPadding(2, 8, 2, 8);
+        for (String column : columns) {
+            TextView textView = new TextView(this.context);
+            textView.setText(column);
+            textView.setLayoutParams(new LinearLayout.LayoutParams
+                    (0, LinearLayout.LayoutParams.WRAP_CONTENT, 1));
+            textView.setTextSize(ROW_TEXT_SIZE);
+            textView.setPadding(2, 5, 2, 5);
+            rowLayout.addView(textView);
+        }
+        return rowLayout;
+    }
 }
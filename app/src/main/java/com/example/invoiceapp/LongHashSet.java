@@ -0,0 +1,160 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * Set of long values, without boxing: Open addressing (linear probing) over a single long[].
+ * Adding 100,000 IDs allocates a few arrays only, not an object for each ID.
+ * Slot value 0 is the empty slot, so the value 0 itself is kept aside (hasZero).
+ * NOTE: Not thread safe.
+ */
+final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16; // Power of 2
+    private static final float LOAD_FACTOR = 0.5f; // Short probes, at the cost of memory
+
+    private long[] slots;
+    private int size = 0; // Without the zero value
+    private boolean hasZero = false;
+
+    LongHashSet() {
+        this.slots = new long[MIN_CAPACITY];
+    }
+
+    /**
+     * @param value Value to add.
+     * @return True if added, false if already in the set.
+     */
+    boolean add(long value) {
+        if (value == 0) {
+            if (hasZero) return false;
+            hasZero = true;
+            return true;
+        }
+        int index = indexOf(value);
+        if (slots[index] == value) return false;
+        slots[index] = value;
+        if (++size > slots.length * LOAD_FACTOR) resize(slots.length * 2);
+        return true;
+    }
+
+    /**
+     * Add all the values. The table grows once, before adding.
+     * @param values Values to add.
+     */
+    void addAll(@NonNull long[] values) {
+        ensureCapacity(size + values.length);
+        for (long value : values) add(value);
+    }
+
+    /**
+     * @param value Value to remove.
+     * @return True if removed, false if it was not in the set.
+     */
+    boolean remove(long value) {
+        if (value == 0) {
+            boolean had = hasZero;
+            hasZero = false;
+            return had;
+        }
+        int index = indexOf(value);
+        if (slots[index] != value) return false;
+        size--;
+        shiftBack(index);
+        return true;
+    }
+
+    boolean contains(long value) {
+        if (value == 0) return hasZero;
+        return slots[indexOf(value)] == value;
+    }
+
+    int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Remove all values, and release the memory of a large set. */
+    void clear() {
+        if (slots.length > MIN_CAPACITY) slots = new long[MIN_CAPACITY];
+        else Arrays.fill(slots, 0);
+        size = 0;
+        hasZero = false;
+    }
+
+    /** @return The values, sorted ascending. A new array. */
+    @NonNull long[] toArray() {
+        long[] values = new long[size()];
+        int count = 0;
+        if (hasZero) values[count++] = 0;
+        for (long slot : slots) if (slot != 0) values[count++] = slot;
+        Arrays.sort(values);
+        return values;
+    }
+
+    /** @return Slot of the value, or the empty slot where it would be added. */
+    private int indexOf(long value) {
+        int mask = slots.length - 1;
+        int index = hash(value) & mask;
+        while (slots[index] != 0 && slots[index] != value) index = (index + 1) & mask;
+        return index;
+    }
+
+    /**
+     * Fill the slot just emptied: Move back the next values of the probe sequence, which
+     * cannot be found anymore across the empty slot (No tombstones).
+     */
+    private void shiftBack(int empty) {
+        int mask = slots.length - 1;
+        int index = empty;
+        while (true) {
+            index = (index + 1) & mask;
+            long value = slots[index];
+            if (value == 0) break;
+            int home = hash(value) & mask;
+            // Move it if its home slot is not between the empty slot and its slot (cyclic)
+            boolean between = (empty <= index) ? (empty < home && home <= index)
+                                               : (empty < home || home <= index);
+            if (!between) {
+                slots[empty] = value;
+                empty = index;
+            }
+        }
+        slots[empty] = 0;
+    }
+
+    private void ensureCapacity(int count) {
+        int capacity = slots.length;
+        while (count > capacity * LOAD_FACTOR) capacity *= 2;
+        if (capacity != slots.length) resize(capacity);
+    }
+
+    private void resize(int capacity) {
+        long[] old = slots;
+        slots = new long[capacity];
+        int mask = capacity - 1;
+        for (long value : old) {
+            if (value == 0) continue;
+            int index = hash(value) & mask;
+            while (slots[index] != 0) index = (index + 1) & mask;
+            slots[index] = value;
+        }
+    }
+
+    /** Spread the bits, sequential IDs would else fill adjacent slots */
+    private static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
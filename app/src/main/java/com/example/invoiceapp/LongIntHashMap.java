@@ -0,0 +1,163 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Map of long keys to int values, without boxing: Open addressing (linear probing) over a
+ * long[] of keys and an int[] of values, by slot. Same layout as LongHashSet.
+ * Slot key 0 is the empty slot, so the key 0 itself is kept aside (hasZero, zeroValue).
+ * NOTE: Not thread safe.
+ */
+final class LongIntHashMap {
+
+    private static final int MIN_CAPACITY = 16; // Power of 2
+    private static final float LOAD_FACTOR = 0.5f; // Short probes, at the cost of memory
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0; // Without the zero key
+    private boolean hasZero = false;
+    private int zeroValue;
+
+    LongIntHashMap() {
+        this(0);
+    }
+
+    /** @param expected Number of keys to hold without growing. */
+    LongIntHashMap(int expected) {
+        int capacity = MIN_CAPACITY;
+        while (expected > capacity * LOAD_FACTOR) capacity *= 2;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * @param key Key to find.
+     * @param missing Value returned if the key is not in the map.
+     * @return Value of the key, or missing.
+     */
+    int get(long key, int missing) {
+        if (key == 0) return hasZero ? zeroValue : missing;
+        int index = indexOf(key);
+        return keys[index] == key ? values[index] : missing;
+    }
+
+    boolean containsKey(long key) {
+        if (key == 0) return hasZero;
+        return keys[indexOf(key)] == key;
+    }
+
+    /**
+     * Set the value of a key, add the key if not in the map.
+     * @param key Key.
+     * @param value New value.
+     */
+    void put(long key, int value) {
+        if (key == 0) {
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int index = indexOf(key);
+        values[index] = value;
+        if (keys[index] == key) return;
+        keys[index] = key;
+        if (++size > keys.length * LOAD_FACTOR) resize(keys.length * 2);
+    }
+
+    /**
+     * @param key Key to remove.
+     * @return True if removed, false if it was not in the map.
+     */
+    boolean remove(long key) {
+        if (key == 0) {
+            boolean had = hasZero;
+            hasZero = false;
+            return had;
+        }
+        int index = indexOf(key);
+        if (keys[index] != key) return false;
+        size--;
+        shiftBack(index);
+        return true;
+    }
+
+    int size() {
+        return hasZero ? size + 1 : size;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Remove all keys, and release the memory of a large map. */
+    void clear() {
+        if (keys.length > MIN_CAPACITY) {
+            keys = new long[MIN_CAPACITY];
+            values = new int[MIN_CAPACITY];
+        }
+        else Arrays.fill(keys, 0);
+        size = 0;
+        hasZero = false;
+    }
+
+    /** @return Slot of the key, or the empty slot where it would be added. */
+    private int indexOf(long key) {
+        int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != 0 && keys[index] != key) index = (index + 1) & mask;
+        return index;
+    }
+
+    /**
+     * Fill the slot just emptied: Move back the next keys of the probe sequence, which
+     * cannot be found anymore across the empty slot (No tombstones). See LongHashSet.
+     */
+    private void shiftBack(int empty) {
+        int mask = keys.length - 1;
+        int index = empty;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == 0) break;
+            int home = hash(key) & mask;
+            // Move it if its home slot is not between the empty slot and its slot (cyclic)
+            boolean between = (empty <= index) ? (empty < home && home <= index)
+                                               : (empty < home || home <= index);
+            if (!between) {
+                keys[empty] = key;
+                values[empty] = values[index];
+                empty = index;
+            }
+        }
+        keys[empty] = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == 0) continue;
+            int index = hash(oldKeys[i]) & mask;
+            while (keys[index] != 0) index = (index + 1) & mask;
+            keys[index] = oldKeys[i];
+            values[index] = oldValues[i];
+        }
+    }
+
+    /** Spread the bits, sequential IDs would else fill adjacent slots */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -55,14 +55,21 @@ public class MainActivity extends AppCompatActivity {
         Button buttonInvoices = findViewById(R.id.home_invoices_button);
         Button buttonStatistics = findViewById(R.id.home_statistics_button);
         Button buttonEditProfile = findViewById(R.id.profile_edit_button);
-        DatabaseHelper databaseHelper = DatabaseHelper.getInstance(getApplicationContext());
-
-        if (databaseHelper.getCompany() == null) {
-            Intent intent = new Intent(this, CompanyActivity.class);
-            intent.putExtra("isEditMode","false");
-            startActivity(intent);
-            finish();
-        }
+        // First run (No company profile): Go to the profile. The database is opened off the UI
+        // thread by this first request.
+        InvoiceRepository.getInstance(this).read(DatabaseHelper::getCompany,
+                new DialogCallback<>() {
+            @Override
+            public void onSuccess(CompanyDetails company) {
+                if (company != null || isFinishing()) return;
+                Intent intent = new Intent(MainActivity.this, CompanyActivity.class);
+                intent.putExtra("isEditMode","false");
+                startActivity(intent);
+                finish();
+            }
+            @Override
+            public void onFailure(String failMSG) { }
+        });
 
         buttonItems.setOnClickListener(view -> {
             Intent intent = new Intent(MainActivity.super.getBaseContext(), ItemsActivity.class);
@@ -0,0 +1,91 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money amounts as exact fixed-point cents (long), instead of floating point (double).
+ * All prices, row totals, invoice totals and revenues are held and stored (INTEGER columns)
+ * in cents, so sums are exact, and the arithmetic is plain long (No allocation).
+ * Decimal text is used only at the edges: User input, display and export.
+ */
+public final class Money {
+
+    /** Digits after the decimal point */
+    public static final int SCALE = 2;
+
+    /** Max price of a single item, 1,000,000,000.00. Keep the totals far from overflow */
+    public static final long MAX_PRICE_CENTS = 100_000_000_000L;
+
+    /** Max total of an invoice (and of its rows), 10,000,000,000,000.00. Sums of many totals
+     *  (revenues) stay far from overflow */
+    public static final long MAX_TOTAL_CENTS = 1_000_000_000_000_000L;
+
+    private Money() { }
+
+    /**
+     * Parse decimal text (e.g. "12", "12.5", "12.50") to cents. Exact, no rounding.
+     * @param text Decimal number, at most 2 digits after the decimal point.
+     * @return Amount in cents.
+     * @throws NumberFormatException If not a number, or more than 2 fraction digits.
+     */
+    public static long parse(@NonNull String text) {
+        try {
+            return new BigDecimal(text.trim()).setScale(SCALE, RoundingMode.UNNECESSARY)
+                    .movePointRight(SCALE).longValueExact();
+        }
+        catch (ArithmeticException e) { throw new NumberFormatException(text); }
+    }
+
+    /**
+     * Multiply a price by a quantity.
+     * @param cents Price in cents.
+     * @param quantity Quantity.
+     * @return Total in cents.
+     * @throws ArithmeticException If the total overflow.
+     */
+    public static long times(long cents, int quantity) {
+        if (quantity != 0 && Math.abs(cents) > Long.MAX_VALUE / Math.abs((long) quantity))
+            throw new ArithmeticException("Money overflow: " + cents + " * " + quantity);
+        return cents * quantity;
+    }
+
+    /**
+     * Check a price * quantity can be added to a total, without overflow.
+     * @param totalCents Current total in cents.
+     * @param cents Price in cents.
+     * @param quantity Quantity to add.
+     * @return True if all are not negative, and the new total is at most MAX_TOTAL_CENTS.
+     */
+    public static boolean fitsTotal(long totalCents, long cents, long quantity) {
+        if (totalCents < 0 || totalCents > MAX_TOTAL_CENTS || cents < 0 || quantity < 0)
+            return false;
+        if (cents == 0 || quantity == 0) return true;
+        return cents <= (MAX_TOTAL_CENTS - totalCents) / quantity;
+    }
+
+    /**
+     * @param cents Amount in cents.
+     * @return Exact decimal value, for NumberFormat.
+     */
+    public static @NonNull BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Plain decimal text, no grouping nor currency symbol. For export and edit fields.
+     * @param cents Amount in cents.
+     * @return Text like "12.50".
+     */
+    public static @NonNull String toPlainString(long cents) {
+        return toDecimal(cents).toPlainString();
+    }
+}
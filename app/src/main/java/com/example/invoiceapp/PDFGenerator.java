@@ -20,12 +20,14 @@ import android.print.PrintAttributes;
 import android.print.PrintDocumentAdapter;
 import android.print.PrintDocumentInfo;
 import android.widget.Toast;
+import com.itextpdf.layout.element.AreaBreak;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.element.Cell;
 import androidx.core.content.FileProvider;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
+import com.itextpdf.layout.properties.AreaBreakType;
 import com.itextpdf.layout.properties.TextAlignment;
 import java.io.File;
 import java.io.FileInputStream;
@@ -48,67 +50,7 @@ public class PDFGenerator {
             PdfWriter writer = new PdfWriter(new FileOutputStream(pdfFile));
             PdfDocument pdfDocument = new PdfDocument(writer);
             Document document = new Document(pdfDocument);
-
-            // Add company name and contact info at the top
-            document.add(new Paragraph(profile.toString())
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold()
-                    .setFontSize(16));
-
-            // Add invoiceFrame details header
-            document.add(new Paragraph("Account Breakdown")
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold()
-                    .setFontSize(14));
-
-            // Create a table for the invoiceFrame details
-            Table table = new Table(4); // 4 columns for Description, Amount, Price, and Total
-            table.setWidth(100); // Make the table span the full width
-
-            // Add headers to the table
-            table.addCell(new Cell().add(new Paragraph("Description"))
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold());
-            table.addCell(new Cell().add(new Paragraph("Amount"))
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold());
-            table.addCell(new Cell().add(new Paragraph("Price"))
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold());
-            table.addCell(new Cell().add(new Paragraph("Total"))
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold());
-
-            double total = 0;
-
-            // Loop through each row in the invoiceFrame and add to the table
-            for (InvoiceRow row : rows) {
-                // Add description, amount, price, and total to the table cells
-                table.addCell(new Cell().add(new Paragraph(row.getItemName()))
-                        .setTextAlignment(TextAlignment.CENTER));
-                table.addCell(new Cell().add(new Paragraph(String.valueOf(row.getQuantity())))
-                        .setTextAlignment(TextAlignment.CENTER));
-                table.addCell(new Cell().add(new Paragraph(String.format("%.2f", row.getItemValue())))
-                        .setTextAlignment(TextAlignment.CENTER));
-                table.addCell(new Cell().add(new Paragraph(String.format("%.2f", row.getTotalRowValue())))
-                        .setTextAlignment(TextAlignment.CENTER));
-            }
-
-            total = invoiceFrame.getTotalPrice();
-            // Center the table in the document
-            document.add(new Paragraph().add(table).setTextAlignment(TextAlignment.CENTER));
-
-            // Add total invoiceFrame amount, centered
-            document.add(new Paragraph("\nTotal Account: " + String.format("%.2f", total))
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold()
-                    .setFontSize(14));
-
-            // Add service note
-            document.add(new Paragraph("\nSERVICE NOT INCLUDED :)....")
-                    .setTextAlignment(TextAlignment.CENTER)
-                    .setBold()
-                    .setFontSize(12));
+            addInvoiceContent(document, invoiceFrame, rows, profile);
 
             // Close the document after adding all content
             document.close();
@@ -123,6 +65,108 @@ public class PDFGenerator {
         }
     }
 
+    /**
+     * Create a single PDF for many invoices, each invoice start at a new page.
+     * Invoices are loaded by the bulk loader (one rows query), one invoice in memory at a time.
+     * @param context Context.
+     * @param database Database.
+     * @param invoiceIDs Invoices IDs, sorted ascending and unique.
+     * @param profile Company profile, for the header of each invoice.
+     * @return PDF file, null if failed.
+     */
+    public static File createInvoicesPdf(Context context, DatabaseHelper database,
+                                         long[] invoiceIDs, CompanyDetails profile) {
+        if (invoiceIDs.length == 0) return null;
+        try {
+            File pdfDir = new File(context.getExternalFilesDir(Environment.DIRECTORY_DOCUMENTS), "Invoices");
+            if (!pdfDir.exists()) pdfDir.mkdirs();
+
+            File pdfFile = new File(pdfDir, "Invoices_" + invoiceIDs.length + ".pdf");
+            PdfWriter writer = new PdfWriter(new FileOutputStream(pdfFile));
+            PdfDocument pdfDocument = new PdfDocument(writer);
+            Document document = new Document(pdfDocument);
+
+            boolean[] first = { true };
+            boolean success = database.forEachInvoice(invoiceIDs, true, (frame, rows) -> {
+                if (!first[0]) document.add(new AreaBreak(AreaBreakType.NEXT_PAGE));
+                first[0] = false;
+                addInvoiceContent(document, frame, rows, profile);
+                return true;
+            });
+            document.close();
+            return success && !first[0] ? pdfFile : null;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /** Add a single invoice (header, rows table and total) to the document */
+    private static void addInvoiceContent(Document document, InvoiceFrame invoiceFrame,
+                                          List<InvoiceRow> rows, CompanyDetails profile) {
+        // Add company name and contact info at the top
+        document.add(new Paragraph(profile.toString())
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold()
+                .setFontSize(16));
+
+        // Add invoiceFrame details header
+        document.add(new Paragraph("Account Breakdown")
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold()
+                .setFontSize(14));
+
+        // Create a table for the invoiceFrame details
+        Table table = new Table(4); // 4 columns for Description, Amount, Price, and Total
+        table.setWidth(100); // Make the table span the full width
+
+        // Add headers to the table
+        table.addCell(new Cell().add(new Paragraph("Description"))
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold());
+        table.addCell(new Cell().add(new Paragraph("Amount"))
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold());
+        table.addCell(new Cell().add(new Paragraph("Price"))
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold());
+        table.addCell(new Cell().add(new Paragraph("Total"))
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold());
+
+        long total = 0;
+
+        // Loop through each row in the invoiceFrame and add to the table
+        for (InvoiceRow row : rows) {
+            // Add description, amount, price, and total to the table cells
+            table.addCell(new Cell().add(new Paragraph(row.getItemName()))
+                    .setTextAlignment(TextAlignment.CENTER));
+            table.addCell(new Cell().add(new Paragraph(String.valueOf(row.getQuantity())))
+                    .setTextAlignment(TextAlignment.CENTER));
+            table.addCell(new Cell().add(new Paragraph(Money.toPlainString(row.getItemValueCents())))
+                    .setTextAlignment(TextAlignment.CENTER));
+            table.addCell(new Cell().add(new Paragraph(Money.toPlainString(row.getTotalRowCents())))
+                    .setTextAlignment(TextAlignment.CENTER));
+        }
+
+        total = invoiceFrame.getTotalCents();
+        // Center the table in the document
+        document.add(new Paragraph().add(table).setTextAlignment(TextAlignment.CENTER));
+
+        // Add total invoiceFrame amount, centered
+        document.add(new Paragraph("\nTotal Account: " + Money.toPlainString(total))
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold()
+                .setFontSize(14));
+
+        // Add service note
+        document.add(new Paragraph("\nSERVICE NOT INCLUDED :)....")
+                .setTextAlignment(TextAlignment.CENTER)
+                .setBold()
+                .setFontSize(12));
+    }
+
     public static void printInvoicePdf(Context context, InvoiceFrame invoice,
                                        List<InvoiceRow> rows, CompanyDetails profile) {
         // Generate the invoice PDF file.
@@ -8,7 +8,6 @@ package com.example.invoiceapp;
  */
 
 import android.content.Context;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,25 +15,39 @@ import android.widget.ImageView;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
-/** RecyclerView Adapter for composing invoice */
+/**
+ * RecyclerView Adapter for composing invoice.
+ * Submit a new list for any change: DiffUtil updates only the changed frames. A selection
+ * change rebinds only the background (payload).
+ * The selection is kept by frame IDs (IdSelection), so it is kept on sort and paging, and may
+ * contain frames out of the loaded pages (Select all).
+ * Frames are submitted already formatted (InvoiceFrameDisplay, formatted off the UI thread),
+ * so a bind only sets the ready text. Click listeners are set once, for each view holder.
+ */
 public class RVAdapterInvoiceFrame
-        extends ListAdapter<InvoiceFrame, RVAdapterInvoiceFrame.ViewHolder> {
+        extends ListAdapter<InvoiceFrameDisplay, RVAdapterInvoiceFrame.ViewHolder> {
+
+    /** Payload: Only the selection (background) changed */
+    private static final Object PAYLOAD_SELECTION = new Object();
 
+    private final BindMetrics bindMetrics = new BindMetrics("InvoiceFrames");
     private final Context context;
-    public final Set<Integer> localSelection; // Buffer selection by user. Contain positions
+    private final IdSelection selection; // Buffer selection by user. Contain frames IDs
     private OnItemLongClickListener<InvoiceFrame> onItemLongClickListener = null;
+    private InvoicePager pager = null; // Null if the list is not paged (search results)
+    private boolean loadingPage = false;
+    private static final int PREFETCH_DISTANCE = 10; // Load a page when this close to the edge
 
     public RVAdapterInvoiceFrame(@NonNull Context context) {
         super(DIFF_CALLBACK);
         this.context = context;
-        this.localSelection = new TreeSet<>();
+        this.selection = new IdSelection(this, PAYLOAD_SELECTION);
         this.setHasStableIds(true);
     }
 
@@ -53,7 +66,94 @@ public class RVAdapterInvoiceFrame
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).
                 inflate(R.layout.item_recycler_view, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+
+        // Handle selection
+        holder.itemView.setOnClickListener(
+                v -> selection.toggle(holder.getBindingAdapterPosition()));
+
+        // Set long press
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (onItemLongClickListener == null || position == RecyclerView.NO_POSITION)
+                return false;
+            onItemLongClickListener.onItemLongClick(getItem(position).getFrame());
+            return true;
+        });
+        return holder;
+    }
+
+    /**
+     * Display the pages window of the given pager, and load more pages as the user scroll.
+     * @param pager Loaded pager. Null for a regular list (submitList).
+     */
+    public void setPager(InvoicePager pager) {
+        this.pager = pager;
+        this.loadingPage = false;
+        if (pager != null) submitList(pager.snapshot());
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        recyclerView.addOnScrollListener(pagingScrollListener);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        recyclerView.removeOnScrollListener(pagingScrollListener);
+        super.onDetachedFromRecyclerView(recyclerView);
+    }
+
+    /**
+     * Load the next page when scrolling down near the end of the window, and the previous
+     * page when scrolling up near the start of the window. Only one page at a time.
+     */
+    private final RecyclerView.OnScrollListener pagingScrollListener =
+            new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+            if (pager == null || loadingPage) return;
+            if (!(recyclerView.getLayoutManager() instanceof LinearLayoutManager)) return;
+            LinearLayoutManager layoutManager =
+                    (LinearLayoutManager) recyclerView.getLayoutManager();
+
+            if (dy > 0 && pager.hasNext() && layoutManager.findLastVisibleItemPosition()
+                    >= getItemCount() - PREFETCH_DISTANCE) {
+                loadingPage = pager.loadNext(windowCallback());
+            }
+            else if (dy < 0 && pager.hasPrevious()
+                    && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                loadingPage = pager.loadPrevious(windowCallback());
+            }
+        }
+    };
+
+    /**
+     * @return Callback for the pager, submit the new window when the page arrives.
+     */
+    private @NonNull DialogCallback<Integer> windowCallback() {
+        final InvoicePager requestPager = this.pager;
+        return new DialogCallback<>() {
+            @Override
+            public void onSuccess(Integer shift) {
+                if (requestPager != pager) return; // Pager replaced meanwhile
+                submitWindow();
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                if (requestPager == pager) loadingPage = false;
+            }
+        };
+    }
+
+    /**
+     * Submit the current pager window. The selection is by IDs, so it needs no change: Frames
+     * dropped from the window stay selected.
+     */
+    private void submitWindow() {
+        this.loadingPage = true;
+        submitList(pager.snapshot(), () -> this.loadingPage = false);
     }
 
     /**
@@ -64,7 +164,7 @@ public class RVAdapterInvoiceFrame
     @Override
     public void onViewRecycled(@NonNull ViewHolder holder) {
         super.onViewRecycled(holder);
-        if (this.localSelection.isEmpty()) {
+        if (this.selection.isEmpty()) {
             holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.white));
         }
     }
@@ -79,42 +179,39 @@ public class RVAdapterInvoiceFrame
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        InvoiceFrame invoiceFrame = getItem(position);
-        if (invoiceFrame == null) return;
-
-        // Get data from invoice row (Strings)
-        String invoiceID = FormatUtils.formatSerialNumber(invoiceFrame.getID());
-        String invoiceDate = "";
-        try { invoiceDate = FormatUtils.changeFullDateFormat(invoiceFrame.getDate()); }
-        catch (Exception e) { Log.i("Invoice Manager", "Error patching invoice date"); }
-        String invoiceTotalPrice = FormatUtils.formatCurrency(invoiceFrame.getTotalPrice());
+        long bindStart = bindMetrics.startBind();
+        InvoiceFrameDisplay display = getItem(position);
+        if (display == null) return;
 
-        // Set the text data on holder
-        holder.item_id.setText(invoiceID);
-        holder.item_name.setText(invoiceDate);
-        holder.item_value.setText(invoiceTotalPrice);
+        // Set the text data on holder (Already formatted)
+        holder.item_id.setText(display.getSerial());
+        holder.item_name.setText(display.getDate());
+        holder.item_value.setText(display.getTotal());
 
-        // Handle selection
-        holder.itemView.setOnClickListener(v -> toggleSelection(holder));
+        bindSelection(holder, position);
+        bindMetrics.onFullBind(bindStart);
+    }
 
-        // Set long press
-        holder.itemView.setOnLongClickListener(v -> {
-            if (onItemLongClickListener != null) {
-                InvoiceFrame selectedItem = null;
-                long rowID = getItemId(holder.getAdapterPosition());
-                for (InvoiceFrame f: getCurrentList()) if (f.getID() == rowID) {
-                        selectedItem = f;
-                        break;
-                    }
-                if (selectedItem != null) {
-                    onItemLongClickListener.onItemLongClick(selectedItem);
-                    return true;
-                }
-            }
-            return false;
-        });
+    /**
+     * Partial bind: Update only the selection background. No payload is a full bind.
+     * @param holder   The ViewHolder of the frame.
+     * @param position The position of the frame.
+     * @param payloads PAYLOAD_SELECTION.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (!payloads.contains(PAYLOAD_SELECTION)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        long bindStart = bindMetrics.startBind();
+        bindSelection(holder, position);
+        bindMetrics.onPartialBind(bindStart);
+    }
 
-        if (localSelection.contains(position))
+    private void bindSelection(@NonNull ViewHolder holder, int position) {
+        if (selection.isSelected(getItemId(position)))
             holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.Cornsilk));
         else
             holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.White));
@@ -127,32 +224,15 @@ public class RVAdapterInvoiceFrame
      */
     @Override
     public long getItemId(int position) {
-        InvoiceFrame item = getItem(position);
+        InvoiceFrameDisplay item = getItem(position);
         return (item != null) ? item.getID() : RecyclerView.NO_ID;
     }
 
-    /**
-     * Selecting one frame from the list. Will update the localSelection (Set) list.
-     * @param holder ViewHolder to be selected.
-     */
-    private void toggleSelection(ViewHolder holder) {
-        boolean wasSelected = localSelection.contains(holder.getAdapterPosition());
-        if (wasSelected) {
-            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.White));
-            localSelection.remove(holder.getAdapterPosition());
-        }
-        else {
-            localSelection.add(holder.getAdapterPosition());
-            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.BlanchedAlmond));
-        }
-    }
-
     /**
      * Will clear the selection list.
      * */
     public void clearSelection() {
-        for (int index: localSelection) notifyItemChanged(index);
-        this.localSelection.clear();
+        this.selection.clear();
     }
 
     /**
@@ -160,40 +240,56 @@ public class RVAdapterInvoiceFrame
      * @return True if empty.
      */
     public boolean isSelectedEmpty() {
-        return this.getSelectedPositions().isEmpty();
+        return this.selection.isEmpty();
+    }
+
+    /** @return Number of selected frames, displayed or not. */
+    public int getSelectedCount() {
+        return this.selection.size();
+    }
+
+    /**
+     * Return the IDs of the selected frames, displayed or not.
+     * @return Frames IDs, sorted ascending.
+     */
+    public @NonNull long[] getSelectedIDs() {
+        return this.selection.toArray();
     }
 
     /**
-     * Return the selected positions as in this adapter list.
-     * @return Set of all indexes of those been selected
+     * Select all the given frames, displayed or not.
+     * @param IDs Frames IDs.
      */
-    public @NonNull Set<Integer> getSelectedPositions() {
-        return new TreeSet<>(localSelection);
+    public void selectAll(@NonNull long[] IDs) {
+        this.selection.selectAll(IDs);
     }
 
     /**
-     * Return the selected frames.
-     * @return List of selected frames.
+     * Return the selected frames of the displayed list (Selected frames out of the loaded
+     * pages are not included, see getSelectedIDs).
+     * @return List of selected frames, by list order.
      */
     public @NonNull List<InvoiceFrame> getSelectedFrames() {
         List<InvoiceFrame> frameList = new ArrayList<>();
-        for (Integer pos: this.localSelection) frameList.add(getItem(pos));
+        if (this.selection.isEmpty()) return frameList;
+        for (InvoiceFrameDisplay display : getCurrentList())
+            if (this.selection.isSelected(display.getID())) frameList.add(display.getFrame());
         return frameList;
     }
 
-    private static final DiffUtil.ItemCallback<InvoiceFrame> DIFF_CALLBACK
+    private static final DiffUtil.ItemCallback<InvoiceFrameDisplay> DIFF_CALLBACK
             = new DiffUtil.ItemCallback<>() {
         @Override
-        public boolean areItemsTheSame(@NonNull InvoiceFrame oldItem, @NonNull InvoiceFrame newItem) {
+        public boolean areItemsTheSame(@NonNull InvoiceFrameDisplay oldItem,
+                                       @NonNull InvoiceFrameDisplay newItem) {
             return oldItem.getID() == newItem.getID();
         }
+        /** Frames equals by ID only, compare the displayed values */
         @Override
-        public boolean areContentsTheSame(@NonNull InvoiceFrame oldItem, @NonNull InvoiceFrame newItem) {
-            return oldItem.equals(newItem);
-        }
-        @Override
-        public Object getChangePayload(@NonNull InvoiceFrame oldItem, @NonNull InvoiceFrame newItem) {
-            return super.getChangePayload(oldItem, newItem);
+        public boolean areContentsTheSame(@NonNull InvoiceFrameDisplay oldItem,
+                                          @NonNull InvoiceFrameDisplay newItem) {
+            return oldItem.getFrame().getDateMillis() == newItem.getFrame().getDateMillis()
+                    && oldItem.getFrame().getTotalCents() == newItem.getFrame().getTotalCents();
         }
     };
 
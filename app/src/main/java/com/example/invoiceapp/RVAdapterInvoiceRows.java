@@ -7,31 +7,92 @@ package com.example.invoiceapp;
  * See the LICENSE file in the root directory for details.
  */
 
+import android.annotation.SuppressLint;
 import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
-import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
 
-/** RecyclerView Adapter */
-public class RVAdapterInvoiceRows extends ListAdapter<InvoiceRow, RVAdapterInvoiceRows.ViewHolder> {
+/**
+ * RecyclerView Adapter of the composed invoice rows.
+ * Displays the rows view of the ShoppingCard directly (No copy and no diff of the list), and
+ * listens to the card changes: Only the inserted, removed or changed rows are updated.
+ * A quantity change or a selection change rebinds only its views (payload).
+ * The selection is kept by items IDs (IdSelection), so removed rows need no shift of it.
+ */
+public class RVAdapterInvoiceRows extends RecyclerView.Adapter<RVAdapterInvoiceRows.ViewHolder>
+        implements ShoppingCard.Listener {
+
+    /** Payload: Only the quantity and the row total changed */
+    private static final Object PAYLOAD_QUANTITY = new Object();
+    /** Payload: Only the selection (background) changed */
+    private static final Object PAYLOAD_SELECTION = new Object();
 
     private final Context context;
-    private final Set<Integer> localSelection;
+    private final IdSelection selection; // Selected rows, by items IDs
+    private final BindMetrics bindMetrics = new BindMetrics("InvoiceRows");
+    private ShoppingCard card = null;
+    private List<InvoiceRow> rows = Collections.emptyList();
 
     public RVAdapterInvoiceRows(Context context) {
-        super(DIFF_CALLBACK);
         this.context = context;
-        this.localSelection = new TreeSet<>();
+        this.selection = new IdSelection(this, PAYLOAD_SELECTION);
         this.setHasStableIds(true);
     }
 
+    /**
+     * Display the rows of the given card, and listen to its changes.
+     * @param card Shopping card. This adapter replace its listener.
+     */
+    @SuppressLint("NotifyDataSetChanged")
+    public void setCard(@NonNull ShoppingCard card) {
+        this.card = card;
+        this.rows = card.getRows();
+        this.selection.clear();
+        card.setListener(this);
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public void onRowInserted(int position) {
+        notifyItemInserted(position);
+    }
+
+    @Override
+    public void onRowQuantityChanged(int position) {
+        notifyItemChanged(position, PAYLOAD_QUANTITY);
+    }
+
+    /** Remove the rows, and unselect the removed items */
+    @Override
+    public void onRowsRemoved(@NonNull int[] positions) {
+        if (!selection.isEmpty()) {
+            for (long itemID : selection.toArray())
+                if (card.indexOfItem(itemID) < 0) selection.deselect(itemID);
+        }
+        for (int i = positions.length - 1; i >= 0; i--) notifyItemRemoved(positions[i]);
+    }
+
+    /**
+     * @param position Adapter position.
+     * @return Row at this position.
+     */
+    public InvoiceRow getItem(int position) {
+        return rows.get(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
     /**
      * Called when RecyclerView needs a new {@link ViewHolder} of the given type to represent
      * an item.
@@ -41,7 +102,12 @@ public class RVAdapterInvoiceRows extends ListAdapter<InvoiceRow, RVAdapterInvoi
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).
                 inflate(R.layout.item_recycler_view, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+
+        // Handle selection
+        holder.itemView.setOnClickListener(
+                v -> selection.toggle(holder.getBindingAdapterPosition()));
+        return holder;
     }
 
     /**
@@ -52,7 +118,7 @@ public class RVAdapterInvoiceRows extends ListAdapter<InvoiceRow, RVAdapterInvoi
     @Override
     public void onViewRecycled(@NonNull ViewHolder holder) {
         super.onViewRecycled(holder);
-        if (this.localSelection.isEmpty()) {
+        if (this.selection.isEmpty()) {
             holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.white));
         }
     }
@@ -67,16 +133,17 @@ public class RVAdapterInvoiceRows extends ListAdapter<InvoiceRow, RVAdapterInvoi
      */
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        long bindStart = bindMetrics.startBind();
         InvoiceRow invoiceRow = getItem(position);
         if (invoiceRow == null) return;
 
         // Format the data
         String itemID = FormatUtils.formatSerialNumber(invoiceRow.getItemID());
         String itemName = invoiceRow.getItemName() + ", "
-                + FormatUtils.formatCurrency(invoiceRow.getItemValue());
+                + FormatUtils.formatCurrency(invoiceRow.getItemValueCents());
         String itemDescription = invoiceRow.getItemDescription();
         String itemQuantity = "Quantity: " + FormatUtils.formatInteger(invoiceRow.getQuantity());
-        String totalPriceRow = FormatUtils.formatCurrency(invoiceRow.getTotalRowValue());
+        String totalPriceRow = FormatUtils.formatCurrency(invoiceRow.getTotalRowCents());
 
         // Set text values
         holder.item_id.setText(itemID);
@@ -86,28 +153,39 @@ public class RVAdapterInvoiceRows extends ListAdapter<InvoiceRow, RVAdapterInvoi
         holder.item_quantity.setText(itemQuantity);
         holder.item_quantity.setVisibility(View.VISIBLE);
 
-        // Handle selection
-        holder.itemView.setOnClickListener(v -> toggleSelection(holder));
-        if (localSelection.contains(position))
-            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.Cornsilk));
-        else
-            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.White));
+        bindSelection(holder, position);
+        bindMetrics.onFullBind(bindStart);
     }
 
     /**
-     * Tag selected item, called from listener. Mark both color and container.
-     * @param holder ViewHolder clicked.
+     * Partial bind: Update only the views of the payloads. No payload is a full bind.
+     * @param holder   The ViewHolder of the row.
+     * @param position The position of the row.
+     * @param payloads PAYLOAD_QUANTITY and / or PAYLOAD_SELECTION.
      */
-    private void toggleSelection(ViewHolder holder) {
-        boolean wasSelected = localSelection.contains(holder.getAdapterPosition());
-        if (wasSelected) {
-            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.White));
-            localSelection.remove(holder.getAdapterPosition());
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
         }
-        else {
-            localSelection.add(holder.getAdapterPosition());
-            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.Cornsilk));
+        long bindStart = bindMetrics.startBind();
+        InvoiceRow invoiceRow = getItem(position);
+        if (payloads.contains(PAYLOAD_QUANTITY)) {
+            holder.item_quantity.setText("Quantity: " +
+                    FormatUtils.formatInteger(invoiceRow.getQuantity()));
+            holder.item_value.setText(FormatUtils.formatCurrency(invoiceRow.getTotalRowCents()));
         }
+        if (payloads.contains(PAYLOAD_SELECTION)) bindSelection(holder, position);
+        bindMetrics.onPartialBind(bindStart);
+    }
+
+    private void bindSelection(@NonNull ViewHolder holder, int position) {
+        if (selection.isSelected(getItemId(position)))
+            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.Cornsilk));
+        else
+            holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.White));
     }
 
     /**
@@ -122,29 +200,22 @@ public class RVAdapterInvoiceRows extends ListAdapter<InvoiceRow, RVAdapterInvoi
     }
 
     public void clearSelection() {
-        for (int index: localSelection) notifyItemChanged(index);
-        this.localSelection.clear();
+        this.selection.clear();
     }
 
+    /**
+     * Return the current positions of the selected rows.
+     * @return Positions, sorted ascending.
+     */
     public @NonNull Set<Integer> getSelectedPositions() {
-        return new TreeSet<>(this.localSelection);
-    }
-
-    private static final DiffUtil.ItemCallback<InvoiceRow> DIFF_CALLBACK
-            = new DiffUtil.ItemCallback<InvoiceRow>() {
-        @Override
-        public boolean areItemsTheSame(@NonNull InvoiceRow oldItem, @NonNull InvoiceRow newItem) {
-            return oldItem.getItemID() == newItem.getItemID();
-        }
-        @Override
-        public boolean areContentsTheSame(@NonNull InvoiceRow oldItem, @NonNull InvoiceRow newItem) {
-            return oldItem.equals(newItem);
+        Set<Integer> positions = new TreeSet<>();
+        if (card == null) return positions;
+        for (long itemID : this.selection.toArray()) {
+            int position = card.indexOfItem(itemID);
+            if (position >= 0) positions.add(position);
         }
-        @Override
-        public Object getChangePayload(@NonNull InvoiceRow oldItem, @NonNull InvoiceRow newItem) {
-            return super.getChangePayload(oldItem, newItem);
-        }
-    };
+        return positions;
+    }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
         private final TextView item_name;
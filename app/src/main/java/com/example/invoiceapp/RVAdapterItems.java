@@ -19,22 +19,30 @@ import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.Objects;
 
 /**
  * Adapter for displaying InvoiceItem in a RecyclerView.
  * This adapter binds a list of items to views that are displayed within a RecyclerView.
  * Also, will handle selected InvoiceItem by user. Use method getSelectedItems().
+ * Submit a new list for any change (Never the same list instance): DiffUtil updates only the
+ * changed items, a price change or a selection change rebinds only its view (payload).
+ * The selection is kept by items IDs (IdSelection), so it is kept when the list is sorted.
  */
 
 public class RVAdapterItems extends
         ListAdapter<Item, RVAdapterItems.ViewHolder> {
 
+    /** Payload: Only the price changed */
+    private static final Object PAYLOAD_VALUE = new Object();
+    /** Payload: Only the selection (background) changed */
+    private static final Object PAYLOAD_SELECTION = new Object();
+
     private final Context context;
-    private final Set<Integer> localSelection; // Buffer selection by user. Contain positions.
+    private final IdSelection selection; // Buffer selection by user. Contain items IDs.
+    private final BindMetrics bindMetrics = new BindMetrics("Items");
+    private OnItemLongClickListener<Item> onItemLongClickListener = null;
 
     /**
      * Initialize the dataset of the Adapter.
@@ -43,7 +51,7 @@ public class RVAdapterItems extends
     public RVAdapterItems(Context context) {
         super(DIFF_CALLBACK);
         this.context = context;
-        this.localSelection = new TreeSet<>();
+        this.selection = new IdSelection(this, PAYLOAD_SELECTION);
         this.setHasStableIds(true);
     }
 
@@ -62,7 +70,21 @@ public class RVAdapterItems extends
     public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         View view = LayoutInflater.from(context).
                 inflate(R.layout.item_recycler_view, parent, false);
-        return new ViewHolder(view);
+        ViewHolder holder = new ViewHolder(view);
+
+        // Handle selection
+        holder.itemView.setOnClickListener(
+                v -> selection.toggle(holder.getBindingAdapterPosition()));
+
+        // Set long press
+        holder.itemView.setOnLongClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (onItemLongClickListener == null || position == RecyclerView.NO_POSITION)
+                return false;
+            onItemLongClickListener.onItemLongClick(getItem(position));
+            return true;
+        });
+        return holder;
     }
 
     /**
@@ -73,7 +95,7 @@ public class RVAdapterItems extends
     @Override
     public void onViewRecycled(@NonNull ViewHolder holder) {
         super.onViewRecycled(holder);
-        if (this.localSelection.isEmpty()) {
+        if (this.selection.isEmpty()) {
             ((CardView) holder.itemView).setCardBackgroundColor(
                     context.getResources().getColor(R.color.white));
         }
@@ -98,17 +120,41 @@ public class RVAdapterItems extends
     @SuppressLint({"ResourceAsColor", "SetTextI18n"})
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, final int position) {
+        long bindStart = bindMetrics.startBind();
         Item item = getItem(position);
         if (item == null) return;
 
         holder.item_name.setText(item.getName());
         holder.item_description.setText(item.getDescription());
         holder.item_id.setText(FormatUtils.formatSerialNumber(item.getID()));
-        holder.item_value.setText(FormatUtils.formatCurrency(item.getValue()));
+        holder.item_value.setText(FormatUtils.formatCurrency(item.getValueCents()));
 
-        // Handle selection
-        holder.itemView.setOnClickListener(v -> toggleSelection(holder));
-        if (localSelection.contains(position))
+        bindSelection(holder, position);
+        bindMetrics.onFullBind(bindStart);
+    }
+
+    /**
+     * Partial bind: Update only the views of the payloads. No payload is a full bind.
+     * @param holder The ViewHolder instance.
+     * @param position The position of the Item within the item list.
+     * @param payloads PAYLOAD_VALUE and / or PAYLOAD_SELECTION.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position,
+                                 @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        long bindStart = bindMetrics.startBind();
+        if (payloads.contains(PAYLOAD_VALUE))
+            holder.item_value.setText(FormatUtils.formatCurrency(getItem(position).getValueCents()));
+        if (payloads.contains(PAYLOAD_SELECTION)) bindSelection(holder, position);
+        bindMetrics.onPartialBind(bindStart);
+    }
+
+    private void bindSelection(@NonNull ViewHolder holder, int position) {
+        if (selection.isSelected(getItemId(position)))
             ((CardView) holder.itemView).setCardBackgroundColor(
                     context.getResources().getColor(R.color.Cornsilk));
         else
@@ -118,8 +164,7 @@ public class RVAdapterItems extends
 
     /** Will clear the selection list, as well the background */
     public void clearSelection() {
-        for (int index: localSelection) notifyItemChanged(index);
-        this.localSelection.clear();
+        this.selection.clear();
     }
 
     /**
@@ -127,56 +172,44 @@ public class RVAdapterItems extends
      * @return True if empty.
      */
     public boolean isSelectedEmpty() {
-        return this.localSelection.isEmpty();
+        return this.selection.isEmpty();
     }
 
     /**
      * If selection list contain one item, it will return it, else will return null.
      */
     public Item getOneSelectedItem() {
-        if (this.localSelection.size() == 1) {
-            Iterator<Integer> iterator = this.localSelection.iterator();
-            int pos = iterator.next();
-            return this.getItem(pos);
-        }
-        else return null;
+        if (this.selection.size() != 1) return null;
+        List<Item> selectedItems = this.getSelectedItems();
+        return selectedItems.isEmpty() ? null : selectedItems.get(0);
     }
 
     /**
-     * Return the selected items (type Item).
-     * @return List of all selected items
+     * Return the selected items (type Item), of the displayed list.
+     * @return List of all selected items, by list order.
      */
     public @NonNull List<Item> getSelectedItems() {
         List<Item> itemsList = new ArrayList<>();
-        for (Integer pos: this.localSelection) itemsList.add(getItem(pos));
+        if (this.selection.isEmpty()) return itemsList;
+        for (Item item : getCurrentList())
+            if (this.selection.isSelected(item.getID())) itemsList.add(item);
         return itemsList;
     }
 
     /**
      * Return the IDs of all selected items.
-     * @return Set of all items IDs.
+     * @return Items IDs, sorted ascending.
      */
-    public @NonNull Set<Integer> getSelectedIDs() {
-        Set<Integer> IDs = new TreeSet<>();
-        List<Item> selectedItems = this.getSelectedItems();
-        for (Item itemRemoving : selectedItems)
-            IDs.add((int) (itemRemoving.getID()));
-        return IDs;
+    public @NonNull long[] getSelectedIDs() {
+        return this.selection.toArray();
     }
 
-    private void toggleSelection(ViewHolder holder) {
-        boolean wasSelected = localSelection.contains(holder.getAdapterPosition());
-        if (wasSelected) {
-            // holder.itemView.setBackgroundColor(context.getResources().getColor(R.color.White));
-            ((CardView) holder.itemView).setCardBackgroundColor(
-                    context.getResources().getColor(R.color.White));
-            localSelection.remove(holder.getAdapterPosition());
-        }
-        else {
-            localSelection.add(holder.getAdapterPosition());
-            ((CardView) holder.itemView).setCardBackgroundColor(
-                    context.getResources().getColor(R.color.Cornsilk));
-        }
+    /**
+     * Select all the given items.
+     * @param IDs Items IDs.
+     */
+    public void selectAll(@NonNull long[] IDs) {
+        this.selection.selectAll(IDs);
     }
 
     private static final DiffUtil.ItemCallback<Item> DIFF_CALLBACK
@@ -189,12 +222,24 @@ public class RVAdapterItems extends
         public boolean areContentsTheSame(@NonNull Item oldItem, @NonNull Item newItem) {
             return oldItem.equals(newItem);
         }
+        /** Only the price changed: Rebind only the price. Else, full bind (null) */
         @Override
         public Object getChangePayload(@NonNull Item oldItem, @NonNull Item newItem) {
-            return super.getChangePayload(oldItem, newItem);
+            if (oldItem.getName().equals(newItem.getName())
+                    && Objects.equals(oldItem.getDescription(), newItem.getDescription()))
+                return PAYLOAD_VALUE;
+            return null;
         }
     };
 
+    /**
+     * Set a listener for item long click events.
+     * @param listener The listener to handle item long clicks.
+     */
+    public void setOnItemLongClickListener(OnItemLongClickListener<Item> listener) {
+        this.onItemLongClickListener = listener;
+    }
+
     /** ViewHolder class for caching view references */
     public static class ViewHolder extends RecyclerView.ViewHolder {
         private final TextView item_name;
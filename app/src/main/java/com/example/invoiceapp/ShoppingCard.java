@@ -9,22 +9,44 @@ package com.example.invoiceapp;
 
 import androidx.annotation.NonNull;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
 
 /**
  * Represents a shopping cart (ShoppingCard) for an invoice, which contains a list of items (InvoiceRows).
  * It calculates and manages the total price and total number of items in the cart.
+ * Rows are kept in an array list by insertion order (position = index), with a map from the
+ * item ID to its index: Add, find and change quantity of a row are O(1), no scan.
+ * Removing rows compacts the list in a single pass, for any number of removed rows.
+ * Each change is reported to the Listener by position (row inserted, changed, removed), so
+ * the display updates only the changed rows.
+ * NOTE: Not thread safe, use from the UI thread. Use getComposedList() for a copy to save.
  */
 public class ShoppingCard {
 
-    private final Set<InvoiceRow> composedList;
+    /** Receive the precise changes of the rows, by position. Called after each change */
+    public interface Listener {
+        /** A new row was added at this position (Always the last). */
+        void onRowInserted(int position);
+
+        /** The quantity (and total) of the row at this position was changed. */
+        void onRowQuantityChanged(int position);
+
+        /**
+         * Rows were removed, the others moved up by order.
+         * @param positions Positions before the removal, ascending.
+         */
+        void onRowsRemoved(@NonNull int[] positions);
+    }
+
+    private final ArrayList<InvoiceRow> rows; // By insertion order
+    private final LongIntHashMap indexByItem; // Item ID -> index in rows (No boxing)
+    private final List<InvoiceRow> rowsView; // Read only, backed by rows
     private final long invoiceID;
-    private double totalPrice;
-    private int totalItems;
+    private long totalCents;
+    private Listener listener = null;
 
     /**
      * Constructor for initializing the ShoppingCard object.
@@ -33,19 +55,21 @@ public class ShoppingCard {
      */
     public ShoppingCard(List<InvoiceRow> editedList, long invoiceID) {
         this.invoiceID = invoiceID;
-        this.totalItems = 0;
-        this.totalPrice = 0;
+        this.totalCents = 0;
+        int size = editedList != null ? editedList.size() : 0;
+        this.rows = new ArrayList<>(size);
+        this.indexByItem = new LongIntHashMap(size);
+        this.rowsView = Collections.unmodifiableList(this.rows);
         // If for edit
-        if (editedList != null && !editedList.isEmpty()) {
-            this.composedList = new LinkedHashSet<>(editedList);
-            for (InvoiceRow row: this.composedList) {
-                totalItems++;
-                totalPrice += row.getTotalRowValue();
-            }
-        }
-        else {
-            this.composedList = new LinkedHashSet<>();
-        }
+        if (editedList != null) for (InvoiceRow row : editedList) addRow(row);
+    }
+
+    /**
+     * Set the listener of the rows changes.
+     * @param listener Listener, null for none.
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
     }
 
     /**
@@ -53,15 +77,36 @@ public class ShoppingCard {
      * @return The size of the composed list.
      */
     public int getComposedListSize() {
-        return this.composedList.size();
+        return this.rows.size();
     }
 
     /**
-     * Gets the composed list of invoice rows.
+     * Gets a copy of the composed list of invoice rows, e.g. for saving on another thread.
+     * Rows are copied too, so later changes of the cart don't change the copy.
      * @return A list containing all items in the cart.
      */
     public List<InvoiceRow> getComposedList() {
-        return new ArrayList<>(composedList);
+        List<InvoiceRow> copy = new ArrayList<>(rows.size());
+        for (InvoiceRow row : rows) copy.add(new InvoiceRow(row));
+        return copy;
+    }
+
+    /**
+     * Read only view of the rows, by position. No copy: It reflects any later change of the
+     * cart, so use it from the UI thread only (e.g. by the adapter).
+     * @return Rows view.
+     */
+    public @NonNull List<InvoiceRow> getRows() {
+        return this.rowsView;
+    }
+
+    /**
+     * Position of the row of an item.
+     * @param itemID Item ID.
+     * @return Position, -1 if the item is not in the cart.
+     */
+    public int indexOfItem(long itemID) {
+        return indexByItem.get(itemID, -1);
     }
 
     /**
@@ -74,10 +119,10 @@ public class ShoppingCard {
 
     /**
      * Gets the total price of all items in the cart.
-     * @return The total price of the items in the cart.
+     * @return The total price of the items in the cart, in cents.
      */
-    public double getTotalPrice() {
-        return totalPrice;
+    public long getTotalCents() {
+        return totalCents;
     }
 
     /**
@@ -85,64 +130,72 @@ public class ShoppingCard {
      * @return The total number of items in the cart.
      */
     public int getTotalItems() {
-        return totalItems;
+        return this.rows.size();
     }
 
     /**
      * Removes the selected items from the cart based on their indexes.
      * @param selectedIndexes A set of indexes representing the items to remove from the cart.
      */
-    public void removeSelectedItems(@NonNull Set<Integer> selectedIndexes) {
+    public void removeSelectedItems(@NonNull Collection<Integer> selectedIndexes) {
         if (selectedIndexes.isEmpty()) return;
+        boolean[] remove = new boolean[rows.size()];
+        boolean any = false;
+        for (int index : selectedIndexes) {
+            if (index < 0 || index >= remove.length) continue;
+            remove[index] = true;
+            any = true;
+        }
+        if (any) compact(remove);
+    }
 
-        List<Integer> sortedIndexes = new ArrayList<>(selectedIndexes);
-        Collections.sort(sortedIndexes);
-
-        Iterator<InvoiceRow> iterator = this.composedList.iterator();
-        int currentIndex = 0;
-        int nextRemoveIndex = sortedIndexes.get(0);
-        int removeIndexPosition = 0;
-
-        while (iterator.hasNext()) {
-            InvoiceRow tempRow = iterator.next();
-            if (currentIndex == nextRemoveIndex) {
-                this.totalPrice -= tempRow.getTotalRowValue();
-                this.totalItems--;
-                iterator.remove();
-                removeIndexPosition++;
-                if (removeIndexPosition < sortedIndexes.size()) {
-                    nextRemoveIndex = sortedIndexes.get(removeIndexPosition);
-                }
-                else break;
-            }
-            currentIndex++;
+    /**
+     * Check a quantity of an item can be added: Positive, and the row quantity and the cart
+     * total stay in bounds (Money.MAX_TOTAL_CENTS), so the totals never overflow.
+     * @param item The item. If it is in the cart already, the price of its row is used.
+     * @param quantity Quantity to add.
+     * @return True if it can be added.
+     */
+    public boolean canAdd(@NonNull Item item, int quantity) {
+        return canAdd(item.getID(), item.getValueCents(), quantity);
+    }
+
+    private boolean canAdd(long itemID, long valueCents, int quantity) {
+        if (quantity <= 0) return false;
+        int index = indexByItem.get(itemID, -1);
+        if (index >= 0) {
+            InvoiceRow existing = rows.get(index);
+            if ((long) existing.getQuantity() + quantity > Integer.MAX_VALUE) return false;
+            valueCents = existing.getItemValueCents();
         }
+        return Money.fitsTotal(this.totalCents, valueCents, quantity);
     }
 
     /**
      * Adds a new row to the cart. If the item already exists in the cart, it updates its quantity.
-     *
+     * Rows out of bounds (See canAdd) are rejected, the cart is not changed.
      * @param newRow The invoice row to be added to the cart.
+     * @return Position of the row: The existing row, or the new row at the end. -1 if rejected.
      */
-    public void addRow(@NonNull InvoiceRow newRow) {
-        // If the row existed in composed list
-        int insertedIndex = 0;
-        if (this.composedList.contains(newRow))
-            for (InvoiceRow row : this.composedList) {
-                if (row.equals(newRow)) {
-                    this.totalPrice += newRow.getTotalRowValue();
-                    row.addQuantity(newRow.getQuantity());
-                    break;
-                }
-                else insertedIndex++;
-            }
-            // Else add new row
-        else {
-            insertedIndex = this.composedList.size();
-            this.composedList.add(newRow);
-            this.totalItems++;
-            this.totalPrice += newRow.getTotalRowValue();
+    public int addRow(@NonNull InvoiceRow newRow) {
+        if (!canAdd(newRow.getItemID(), newRow.getItemValueCents(), newRow.getQuantity()))
+            return -1;
+        int index = indexByItem.get(newRow.getItemID(), -1);
+        // If the row existed in composed list: Added at its price (Same as the row total)
+        if (index >= 0) {
+            InvoiceRow existing = rows.get(index);
+            existing.addQuantity(newRow.getQuantity());
+            this.totalCents += Money.times(existing.getItemValueCents(), newRow.getQuantity());
+            if (listener != null) listener.onRowQuantityChanged(index);
+            return index;
         }
+        // Else add new row
+        this.totalCents += newRow.getTotalRowCents();
+        rows.add(newRow);
+        int position = rows.size() - 1;
+        indexByItem.put(newRow.getItemID(), position);
+        if (listener != null) listener.onRowInserted(position);
+        return position;
     }
 
     /**
@@ -151,41 +204,68 @@ public class ShoppingCard {
      * @return A boolean indicating if any item was removed due to quantity reduction.
      */
     public boolean reduceSelectedItemQuantity(@NonNull List<Integer> selectedIndexes) {
-        int index = 0;
-        int selectedIndex = 0;
-        boolean anyRemoved = false;
-        for (InvoiceRow row : this.composedList) {
-            if (selectedIndex < selectedIndexes.size() && index == selectedIndexes.get(selectedIndex)) {
-                row.reduceQuantity();
-                this.totalPrice += -1 * row.getItemValue();
-                selectedIndex++;
+        boolean[] remove = null;
+        for (int index : selectedIndexes) {
+            if (index < 0 || index >= rows.size()) continue;
+            InvoiceRow row = rows.get(index);
+            if (row.getQuantity() > 0) this.totalCents -= row.getItemValueCents();
+            row.reduceQuantity();
+            if (row.getQuantity() == 0) {
+                if (remove == null) remove = new boolean[rows.size()];
+                remove[index] = true;
             }
-            index++;
+            else if (listener != null) listener.onRowQuantityChanged(index);
         }
+        if (remove == null) return false;
+        compact(remove);
+        return true;
+    }
 
-        Iterator<InvoiceRow> iterator = this.composedList.iterator();
-        while (iterator.hasNext()) {
-            InvoiceRow checkRow = iterator.next();
-            if (checkRow.getQuantity() == 0) {
-                this.totalItems--;
-                iterator.remove();
-                anyRemoved = true;
+    /**
+     * Add 1 to the quantity of the selected items. Rows out of bounds (See canAdd) are skipped.
+     * @param selectedIndexes A list of indexes representing the items to add quantity.
+     * @return False if any row was skipped.
+     */
+    public boolean addSelectedItemsQuantity(@NonNull List<Integer> selectedIndexes) {
+        boolean allAdded = true;
+        for (int index : selectedIndexes) {
+            if (index < 0 || index >= rows.size()) continue;
+            InvoiceRow row = rows.get(index);
+            if (!canAdd(row.getItemID(), row.getItemValueCents(), 1)) {
+                allAdded = false;
+                continue;
             }
+            row.addQuantity(1);
+            this.totalCents += row.getItemValueCents();
+            if (listener != null) listener.onRowQuantityChanged(index);
         }
-        return anyRemoved;
+        return allAdded;
     }
 
-    public void addSelectedItemsQuantity(@NonNull List<Integer> selectedIndexes) {
-        int index = 0;
-        int selectedIndex = 0;
-        for (InvoiceRow row : this.composedList) {
-            if (selectedIndex < selectedIndexes.size() && index == selectedIndexes.get(selectedIndex)) {
-                row.addQuantity(1);
-                this.totalPrice += row.getItemValue();
-                selectedIndex++;
+    /**
+     * Remove the marked rows in a single pass, keep the order of the others, and update the
+     * index of each moved row. Report the removed positions.
+     * @param remove Marks by position, same size as rows.
+     */
+    private void compact(@NonNull boolean[] remove) {
+        int[] removed = new int[remove.length];
+        int removedCount = 0;
+        int write = 0;
+        for (int read = 0; read < remove.length; read++) {
+            InvoiceRow row = rows.get(read);
+            if (remove[read]) {
+                this.totalCents -= row.getTotalRowCents();
+                indexByItem.remove(row.getItemID());
+                removed[removedCount++] = read;
+                continue;
             }
-            index++;
+            if (write != read) {
+                rows.set(write, row);
+                indexByItem.put(row.getItemID(), write);
+            }
+            write++;
         }
+        rows.subList(write, rows.size()).clear();
+        if (listener != null) listener.onRowsRemoved(Arrays.copyOf(removed, removedCount));
     }
 }
-
@@ -9,6 +9,7 @@ package com.example.invoiceapp;
 
 import android.annotation.SuppressLint;
 import android.os.Bundle;
+import android.util.Pair;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -27,6 +28,7 @@ public class StatisticsActivity extends AppCompatActivity {
 
     private TextView totalRevenueTextView;
     private TextView bestSellingItemTextView;
+    private InvoiceRepository.Scope requests;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -42,16 +44,32 @@ public class StatisticsActivity extends AppCompatActivity {
         // Bind UI elements
         totalRevenueTextView = findViewById(R.id.total_revenue_value);
         bestSellingItemTextView = findViewById(R.id.best_selling_value);
-        loadStatistics();
+        requests = InvoiceRepository.getInstance(this).newScope();
+        requests.read(database -> new Pair<>(database.getTotalRevenues(),
+                database.bestSellingItem()), new DialogCallback<>() {
+            @Override
+            public void onSuccess(Pair<long[], String> statistics) {
+                loadStatistics(statistics.first, statistics.second);
+            }
+            @Override
+            public void onFailure(String failMSG) {
+                Toast.makeText(StatisticsActivity.this,
+                        getString(R.string.error_action_data_base), Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    /** Drop all pending database requests of this activity */
+    @Override
+    protected void onDestroy() {
+        requests.cancelAll();
+        super.onDestroy();
     }
 
     @SuppressLint("SetTextI18n")
-    private void loadStatistics() {
-        DatabaseHelper database = DatabaseHelper.getInstance(getApplicationContext());
-        double[] revenues = database.getTotalRevenues();
-        String bestSellingItem = database.bestSellingItem();
+    private void loadStatistics(long[] revenues, String bestSellingItem) {
         String allRevs = getRevenuesString(revenues);
-        double thisRev = getCurrentMonthRevenue(revenues);
+        long thisRev = getCurrentMonthRevenue(revenues);
 
         totalRevenueTextView.setText(allRevs);
         bestSellingItemTextView.setText(bestSellingItem);
@@ -94,7 +112,7 @@ public class StatisticsActivity extends AppCompatActivity {
         return super.onOptionsItemSelected(item);
     }
 
-    private static String getRevenuesString(double[] revs) {
+    private static String getRevenuesString(long[] revs) {
         String[] months = {
                 "January:\t\t\t\t ",
                 "February:\t\t\t ",
@@ -119,7 +137,7 @@ public class StatisticsActivity extends AppCompatActivity {
         return result.toString();
     }
 
-    private static double getCurrentMonthRevenue(double[] revs) {
+    private static long getCurrentMonthRevenue(long[] revs) {
         if (revs == null || revs.length != 12) return 0;
         int currentMonth = Calendar.getInstance().get(Calendar.MONTH);
         return revs[currentMonth];
@@ -0,0 +1,22 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+/**
+ * Interface for a group of database operations, that must be committed together or not at all.
+ * Run by DatabaseHelper in a single transaction (See DatabaseHelper.runInTransaction).
+ * Tables operations called inside it are joining the same transaction.
+ */
+public interface UnitOfWork {
+
+    /**
+     * Perform all the operations of this unit.
+     * @return True for commit, false for rollback all the operations.
+     */
+    boolean perform();
+}
@@ -17,6 +17,7 @@ import androidx.annotation.NonNull;
 
 public class companyDetailsTable {
     private final SQLiteDatabase database;
+    private final SQLiteDatabase readDatabase; // Queries only
 
     /** Inner class that defines the table contents */
     private static class FeedEntry implements BaseColumns {
@@ -48,8 +49,10 @@ public class companyDetailsTable {
         return companyDetailsTable.FeedEntry.TABLE_NAME;
     }
 
-    public companyDetailsTable(@NonNull SQLiteDatabase database) {
+    public companyDetailsTable(@NonNull SQLiteDatabase database,
+                               @NonNull SQLiteDatabase readDatabase) {
         this.database = database;
+        this.readDatabase = readDatabase;
     }
 
     public boolean UpdateCompany(CompanyDetails companyDetails) {
@@ -70,7 +73,7 @@ public class companyDetailsTable {
      */
     public CompanyDetails getCompany() {
         CompanyDetails cd = null;
-        Cursor cursor = database.query(
+        Cursor cursor = readDatabase.query(
                 FeedEntry.TABLE_NAME,
                 null,
                 "ID = 1",
@@ -0,0 +1,173 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.provider.BaseColumns;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rows of the drafts (See invoiceDraftsTable), by draft ID. Same columns as InvoiceRows, but
+ * kept apart: The invoices rows and all their aggregates never see a draft row.
+ * Committing a draft copies its rows to InvoiceRows by a single INSERT ... SELECT, they are
+ * not read and inserted again row by row.
+ */
+public class invoiceDraftRowsTable {
+
+    private final SQLiteDatabase sqLiteDatabase;
+    private final SQLiteDatabase readDatabase; // Queries only
+
+    /** Inner class that defines the table contents. Schema: See DatabaseMigrations */
+    private static class FeedEntry implements BaseColumns {
+        public static final String TABLE_NAME = "InvoiceDraftRows";
+        public static final String DRAFT_ID = "DraftID";
+        public static final String ITEM_ID = "ItemID";
+        public static final String VALUE = "Value";
+        public static final String AMOUNT = "Amount";
+    }
+
+    private static final String SQL_INSERT_ROW = "INSERT INTO " + FeedEntry.TABLE_NAME + " (" +
+                    FeedEntry.DRAFT_ID + ", " + FeedEntry.ITEM_ID + ", " +
+                    FeedEntry.VALUE + ", " + FeedEntry.AMOUNT + ") VALUES (?, ?, ?, ?);";
+
+    public static @NonNull String getTableName() {
+        return FeedEntry.TABLE_NAME;
+    }
+
+    public invoiceDraftRowsTable(@NonNull SQLiteDatabase db, @NonNull SQLiteDatabase readDb) {
+        this.sqLiteDatabase = db;
+        this.readDatabase = readDb;
+    }
+
+    /**
+     * Add rows to a draft. One compiled insert, all rows in one transaction (Nested in the
+     * caller transaction).
+     * @param rows List of rows.
+     * @param draftID Draft ID.
+     * @return True if success.
+     */
+    public boolean addRows(@NonNull List<InvoiceRow> rows, long draftID) {
+        boolean success = false;
+        sqLiteDatabase.beginTransactionNonExclusive();
+        try (SQLiteStatement insert = sqLiteDatabase.compileStatement(SQL_INSERT_ROW)) {
+            for (InvoiceRow r : rows) {
+                insert.bindLong(1, draftID);
+                insert.bindLong(2, r.getItemID());
+                insert.bindLong(3, r.getTotalRowCents());
+                insert.bindLong(4, r.getQuantity());
+                if (insert.executeInsert() == -1) return false;
+            }
+            sqLiteDatabase.setTransactionSuccessful();
+            success = true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        finally { sqLiteDatabase.endTransaction(); }
+        return success;
+    }
+
+    /**
+     * Remove all rows of a draft.
+     * @param draftID Draft ID.
+     * @return True if success (Also if no rows).
+     */
+    public boolean removeRows(long draftID) {
+        try {
+            sqLiteDatabase.delete(FeedEntry.TABLE_NAME, FeedEntry.DRAFT_ID + " = ?",
+                    new String[]{ String.valueOf(draftID) });
+            return true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return false;
+    }
+
+    /**
+     * Copy all rows of a draft to the invoice rows, by their order, in a single statement.
+     * The draft rows are kept, caller must remove them.
+     * @param draftID Draft ID.
+     * @param invoiceID Invoice frame ID of the copied rows.
+     * @return True if success (Also if no rows).
+     */
+    public boolean copyToInvoice(long draftID, long invoiceID) {
+        try {
+            sqLiteDatabase.execSQL(invoiceRowsTable.SQL_INSERT_ROWS_COLUMNS + " SELECT ?, " +
+                    FeedEntry.ITEM_ID + ", " + FeedEntry.VALUE + ", " + FeedEntry.AMOUNT +
+                    " FROM " + FeedEntry.TABLE_NAME + " WHERE " + FeedEntry.DRAFT_ID + " = ?" +
+                    " ORDER BY " + FeedEntry._ID + ";", new Object[]{ invoiceID, draftID });
+            return true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return false;
+    }
+
+    /**
+     * Check the stored rows of a draft are exactly the given rows: Same items, values and
+     * amounts, by insertion order. Inside the write transaction it sees the changes of the
+     * transaction. Reading the rows is cheaper than writing them again.
+     * @param draftID Draft ID.
+     * @param rows Expected rows.
+     * @return True if the same rows. False if not, or error.
+     */
+    public boolean hasSameRows(long draftID, @NonNull List<InvoiceRow> rows) {
+        String query = "SELECT " + FeedEntry.ITEM_ID + ", " + FeedEntry.VALUE + ", " +
+                FeedEntry.AMOUNT + " FROM " + FeedEntry.TABLE_NAME +
+                " WHERE " + FeedEntry.DRAFT_ID + " = ? ORDER BY " + FeedEntry._ID + ";";
+        try (Cursor cursor = sqLiteDatabase.rawQuery(query,
+                new String[]{ String.valueOf(draftID) })) {
+            if (cursor.getCount() != rows.size()) return false;
+            for (InvoiceRow r : rows) {
+                if (!cursor.moveToNext() || cursor.getLong(0) != r.getItemID()
+                        || cursor.getLong(1) != r.getTotalRowCents()
+                        || cursor.getInt(2) != r.getQuantity()) return false;
+            }
+            return true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return false;
+    }
+
+    /**
+     * Get all rows of a draft, by their order, joined with the items table (Names resolved by
+     * SQL). Removed items keep their names, the composing shows them as they were saved.
+     * @param draftID Draft ID.
+     * @param invoiceID Invoice ID of the returned rows (The edited invoice, or new invoice).
+     * @return List of rows. Empty if no rows (or error).
+     */
+    public @NonNull List<InvoiceRow> getRows(long draftID, long invoiceID) {
+        List<InvoiceRow> rows = new ArrayList<>();
+        // Unit price is taken from the row (Price at the save time), the division is exact
+        String query = "SELECT d." + FeedEntry.ITEM_ID + ", " +
+                "CASE WHEN d." + FeedEntry.AMOUNT + " = 0 THEN 0 ELSE d." + FeedEntry.VALUE +
+                " / d." + FeedEntry.AMOUNT + " END, d." + FeedEntry.AMOUNT + ", " +
+                itemsTable.SQL_JOINED_ITEM_COLUMNS +
+                " FROM " + FeedEntry.TABLE_NAME + " d" +
+                itemsTable.sqlLeftJoinItems("d." + FeedEntry.ITEM_ID) +
+                " WHERE d." + FeedEntry.DRAFT_ID + " = ? ORDER BY d." + FeedEntry._ID + ";";
+
+        try (Cursor cursor = readDatabase.rawQuery(query,
+                new String[]{ String.valueOf(draftID) })) {
+            while (cursor.moveToNext()) {
+                long itemID = cursor.getLong(0);
+                long itemPrice = cursor.getLong(1);
+                int quantity = cursor.getInt(2);
+                Item tempItem;
+                if (cursor.isNull(3))
+                    tempItem = new Item(itemID, "Item Removed", "Item Removed", itemPrice);
+                else tempItem = new Item(itemID, cursor.getString(3), cursor.getString(4),
+                        itemPrice);
+                rows.add(new InvoiceRow(invoiceID, quantity, tempItem));
+            }
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return rows;
+    }
+}
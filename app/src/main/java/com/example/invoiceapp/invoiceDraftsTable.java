@@ -0,0 +1,126 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.provider.BaseColumns;
+import android.util.Log;
+import androidx.annotation.NonNull;
+
+/**
+ * Drafts of the invoices being composed (autosave), one for each composing: A new invoice
+ * (EditID 0), or an edited invoice (EditID is the invoice ID).
+ * The draft rows are kept by draft ID in their own table (See invoiceDraftRowsTable), never
+ * in InvoiceRows, so the invoices aggregates don't need to exclude them.
+ */
+public class invoiceDraftsTable {
+
+    private final SQLiteDatabase sqLiteDatabase;
+    private final SQLiteDatabase readDatabase; // Queries only
+
+    /** Inner class that defines the table contents. Schema: See DatabaseMigrations */
+    private static class FeedEntry implements BaseColumns {
+        public static final String TABLE_NAME = "InvoiceDraft";
+        public static final String EDIT_ID = "EditID";
+        public static final String UPDATED = "Updated";
+    }
+
+    /** EditID of the draft of a new invoice */
+    public static final long NEW_INVOICE = 0;
+
+    public static @NonNull String getTableName() {
+        return FeedEntry.TABLE_NAME;
+    }
+
+    public invoiceDraftsTable(@NonNull SQLiteDatabase db, @NonNull SQLiteDatabase readDb) {
+        this.sqLiteDatabase = db;
+        this.readDatabase = readDb;
+    }
+
+    /**
+     * Find the draft of an invoice. Inside the write transaction, the lookup runs on the
+     * connection of the transaction (Same SQLiteDatabase instance), so it sees its changes.
+     * @param editID Edited invoice ID, NEW_INVOICE for a new invoice.
+     * @return Draft ID, -1 if no draft (or error).
+     */
+    public long getDraftID(long editID) {
+        String query = "SELECT " + FeedEntry._ID + " FROM " + FeedEntry.TABLE_NAME +
+                " WHERE " + FeedEntry.EDIT_ID + " = ?;";
+        try (Cursor cursor = readDatabase.rawQuery(query,
+                new String[]{ String.valueOf(editID) })) {
+            if (cursor.moveToFirst()) return cursor.getLong(0);
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return -1;
+    }
+
+    /**
+     * Edited invoice IDs of all the drafts (A few drafts at most, one for each invoice being
+     * composed).
+     * @return Edit IDs, NEW_INVOICE included if a new invoice has a draft. Empty if error.
+     */
+    public @NonNull long[] getEditIDs() {
+        String query = "SELECT " + FeedEntry.EDIT_ID + " FROM " + FeedEntry.TABLE_NAME + ";";
+        try (Cursor cursor = readDatabase.rawQuery(query, null)) {
+            long[] editIDs = new long[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) editIDs[i] = cursor.getLong(0);
+            return editIDs;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return new long[0];
+    }
+
+    /**
+     * Find the draft of an invoice, create it if not found. Use inside the write transaction.
+     * @param editID Edited invoice ID, NEW_INVOICE for a new invoice.
+     * @return Draft ID, -1 if error.
+     */
+    public long getOrCreateDraft(long editID) {
+        long draftID = getDraftID(editID);
+        if (draftID > 0) return draftID;
+        ContentValues values = new ContentValues();
+        values.put(FeedEntry.EDIT_ID, editID);
+        values.put(FeedEntry.UPDATED, System.currentTimeMillis());
+        try { return sqLiteDatabase.insertOrThrow(FeedEntry.TABLE_NAME, null, values); }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return -1;
+    }
+
+    /**
+     * Set the last update time of a draft to now.
+     * @param draftID Draft ID.
+     * @return True if success.
+     */
+    public boolean touch(long draftID) {
+        ContentValues values = new ContentValues();
+        values.put(FeedEntry.UPDATED, System.currentTimeMillis());
+        try {
+            return sqLiteDatabase.update(FeedEntry.TABLE_NAME, values, FeedEntry._ID + " = ?",
+                    new String[]{ String.valueOf(draftID) }) == 1;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return false;
+    }
+
+    /**
+     * Remove a draft. Its rows are not removed, caller must remove them (See invoiceDraftRowsTable).
+     * @param draftID Draft ID.
+     * @return True if success (Also if not found).
+     */
+    public boolean removeDraft(long draftID) {
+        try {
+            sqLiteDatabase.delete(FeedEntry.TABLE_NAME, FeedEntry._ID + " = ?",
+                    new String[]{ String.valueOf(draftID) });
+            return true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return false;
+    }
+}
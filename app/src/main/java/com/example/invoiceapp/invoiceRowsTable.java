@@ -7,22 +7,22 @@ package com.example.invoiceapp;
  * See the LICENSE file in the root directory for details.
  */
 
-import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.provider.BaseColumns;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import java.io.Closeable;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 public class invoiceRowsTable {
 
     private final SQLiteDatabase sqLiteDatabase;
+    private final SQLiteDatabase readDatabase; // Queries only
 
-    /** Inner class that defines the table contents */
+    /** Inner class that defines the table contents. Schema: See DatabaseMigrations */
     private static class FeedEntry implements BaseColumns {
         public static final String TABLE_NAME = "InvoiceRows";
         public static final String INVOICE_ID = "InvoiceID";
@@ -31,162 +31,364 @@ public class invoiceRowsTable {
         public static final String AMOUNT = "Amount";
     }
 
-    /** Query for create the table */
-    public static final String SQL_CREATE_ENTRIES = "CREATE TABLE IF NOT EXISTS " +
-                    FeedEntry.TABLE_NAME + " ( " +
-                    FeedEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    FeedEntry.INVOICE_ID + " INTEGER NOT NULL," +
-                    FeedEntry.ITEM_ID + " INTEGER NOT NULL," +
-                    FeedEntry.VALUE +	" REAL NOT NULL," +
-                    FeedEntry.AMOUNT + " INTEGER NOT NULL);";
+    /**
+     * "INSERT INTO InvoiceRows (InvoiceID, ItemID, Value, Amount)", followed by the values or
+     * a SELECT of the same columns (e.g. copy the draft rows, see invoiceDraftRowsTable).
+     */
+    public static final String SQL_INSERT_ROWS_COLUMNS = "INSERT INTO " + FeedEntry.TABLE_NAME +
+                    " (" + FeedEntry.INVOICE_ID + ", " + FeedEntry.ITEM_ID + ", " +
+                    FeedEntry.VALUE + ", " + FeedEntry.AMOUNT + ")";
+
+    /** Insert a single row, compiled once for each RowsBatchWriter */
+    private static final String SQL_INSERT_ROW = SQL_INSERT_ROWS_COLUMNS +
+                    " VALUES (?, ?, ?, ?);";
 
     /**
-     * Removing the selected (by invoiceIDs) rows, and return all IDs that has been removed.
-     * @param invoiceIDs Selected rows by ID to remove from table.
-     * @return Set of all invoice IDs successfully removed from the table. If null, no success,
-     *          Or empty Set. If no rows, will return the same invoiceIDs.
+     * Invoices of a single item, newest invoice first, grouped by invoice. Served by the item,
+     * invoice index: A range of the index from the anchor, no sort (See
+     * invoicesFramesTable.getInvoicesByItem).
+     * Join the rows (alias r) to the frames table (alias f, on f._id). Arguments: Item ID and
+     * the anchor invoice ID (excluded).
      */
-    public @NonNull Set<Integer> removeRows(@NonNull Set<Integer> invoiceIDs) {
-        if (invoiceIDs.isEmpty()) return new HashSet<>();
-        Set<Integer> removedIDs = new HashSet<>();
-        boolean success = true;
+    public static final String SQL_FROM_ITEM_ROWS = "FROM " + FeedEntry.TABLE_NAME + " r JOIN " +
+                    invoicesFramesTable.getTableName() + " f ON f." + BaseColumns._ID + " = r." +
+                    FeedEntry.INVOICE_ID + " WHERE r." + FeedEntry.ITEM_ID + " = ? AND r." +
+                    FeedEntry.INVOICE_ID + " < ?" +
+                    " GROUP BY r." + FeedEntry.INVOICE_ID + " ORDER BY r." +
+                    FeedEntry.INVOICE_ID + " DESC";
 
-        // Go over the IDs, if deleted, adding to the HashSet
-        sqLiteDatabase.beginTransaction();
-        try {
-            for (Integer invoiceID : invoiceIDs) {
-                String selection = FeedEntry.INVOICE_ID + " = ?";
-                String[] selectionArgs = { String.valueOf(invoiceID) };
-                try {
-                    sqLiteDatabase.delete(FeedEntry.TABLE_NAME, selection, selectionArgs);
-                    removedIDs.add(invoiceID);
-                }
-                catch (Exception e) {
-                    Log.e(FeedEntry.TABLE_NAME, e.toString());
-                    success = false;
-                    break;
-                }
+    /** Quantity of the item in each invoice, column of SQL_FROM_ITEM_ROWS */
+    public static final String ITEM_QUANTITY = "SUM(r." + FeedEntry.AMOUNT + ")";
+
+    /** Alias of the total items column in SQL_SELECT_ITEMS_BY_INVOICE */
+    public static final String ITEMS_COUNT = "ItemsCount";
+
+    /**
+     * Total quantity of items for each invoice, as sub query for joins.
+     * Columns: InvoiceID, ItemsCount.
+     */
+    public static final String SQL_SELECT_ITEMS_BY_INVOICE = "SELECT " +
+                    FeedEntry.INVOICE_ID + ", SUM(" + FeedEntry.AMOUNT + ") AS " + ITEMS_COUNT +
+                    " FROM " + FeedEntry.TABLE_NAME +
+                    " GROUP BY " + FeedEntry.INVOICE_ID;
+
+    /**
+     * Total quantity of items of one invoice, as a correlated sub query (By the InvoiceID
+     * index, only the rows of this invoice are read).
+     * @param invoiceIDColumn Column of the outer query holding the invoice ID, e.g. "f._id".
+     * @return SQL "(SELECT IFNULL(SUM(Amount), 0) FROM InvoiceRows WHERE InvoiceID = ...)".
+     */
+    public static @NonNull String sqlItemsCountOf(@NonNull String invoiceIDColumn) {
+        return "(SELECT IFNULL(SUM(" + FeedEntry.AMOUNT + "), 0) FROM " + FeedEntry.TABLE_NAME +
+                " WHERE " + FeedEntry.INVOICE_ID + " = " + invoiceIDColumn + ")";
+    }
+
+    /**
+     * IDs of the invoices with the item and quantity of the filter, as sub query for
+     * "InvoiceID IN (...)".
+     * By item: Served by the item, invoice index (Only the index entries of the item are read,
+     * already grouped by invoice).
+     * By quantity only: Grouped by the InvoiceID index, all the rows are read.
+     * @param filter Invoices filter, with item or min quantity (See InvoiceFilter).
+     * @param args Query arguments, the filter values are added.
+     * @return SQL "SELECT InvoiceID FROM InvoiceRows WHERE ...".
+     */
+    public static @NonNull String sqlSelectInvoiceIDs(@NonNull InvoiceFilter filter,
+                                                      @NonNull List<String> args) {
+        StringBuilder query = new StringBuilder("SELECT ").append(FeedEntry.INVOICE_ID)
+                .append(" FROM ").append(FeedEntry.TABLE_NAME).append(' ');
+        if (filter.hasItem()) {
+            query.append("WHERE ").append(FeedEntry.ITEM_ID).append(" = ? ");
+            args.add(String.valueOf(filter.getItemID()));
+        }
+        if (filter.hasMinQuantity()) {
+            // Arguments are bound as TEXT, and a SUM has no column affinity to convert it
+            query.append("GROUP BY ").append(FeedEntry.INVOICE_ID).append(" HAVING SUM(")
+                    .append(FeedEntry.AMOUNT).append(") >= CAST(? AS INTEGER)");
+            args.add(String.valueOf(filter.getMinQuantity()));
+        }
+        return query.toString();
+    }
+
+    /**
+     * Removing the rows of the selected invoices (by invoiceIDs). One compiled delete, only
+     * the ID is bound for each invoice. All or nothing (Nested in the caller transaction).
+     * @param invoiceIDs Selected invoices IDs, rows to remove from table.
+     * @return True if success (Also if no rows).
+     */
+    public boolean removeRows(@NonNull long[] invoiceIDs) {
+        if (invoiceIDs.length == 0) return true;
+        boolean success = false;
+        sqLiteDatabase.beginTransactionNonExclusive();
+        try (SQLiteStatement delete = sqLiteDatabase.compileStatement("DELETE FROM " +
+                FeedEntry.TABLE_NAME + " WHERE " + FeedEntry.INVOICE_ID + " = ?;")) {
+            for (long invoiceID : invoiceIDs) {
+                delete.bindLong(1, invoiceID);
+                delete.executeUpdateDelete();
             }
-            if (success) { sqLiteDatabase.setTransactionSuccessful(); }
-        } finally { sqLiteDatabase.endTransaction(); }
-        return removedIDs;
+            sqLiteDatabase.setTransactionSuccessful();
+            success = true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        finally { sqLiteDatabase.endTransaction(); }
+        return success;
     }
 
     public static @NonNull String getTableName() {
         return FeedEntry.TABLE_NAME;
     }
 
-    public invoiceRowsTable(@NonNull SQLiteDatabase db) {
+    public invoiceRowsTable(@NonNull SQLiteDatabase db, @NonNull SQLiteDatabase readDb) {
         this.sqLiteDatabase = db;
+        this.readDatabase = readDb;
     }
 
     /**
-     * Add rows into the table, inserted with their InvoiceID
+     * Add rows into the table, inserted with their InvoiceID.
+     * All rows are inserted in one transaction, using one compiled statement (RowsBatchWriter).
      * @param rows List of InvoiceItem
      * @param invoiceID (long) invoiceID
      * @return True if success
      */
-    public boolean addInvoiceRows(List<InvoiceRow> rows, long invoiceID) {
-        boolean success = true;
-        sqLiteDatabase.beginTransaction();
-        try {
-            for (InvoiceRow r : rows) {
-                ContentValues values = new ContentValues();
-                values.put(FeedEntry.INVOICE_ID, invoiceID);
-                values.put(FeedEntry.ITEM_ID, r.getItemID());
-                values.put(FeedEntry.VALUE, r.getTotalRowValue());
-                values.put(FeedEntry.AMOUNT, r.getQuantity());
-                long result = sqLiteDatabase.insert(FeedEntry.TABLE_NAME, null, values);
-                if (result == -1) success = false;
+    public boolean addInvoiceRows(@NonNull List<InvoiceRow> rows, long invoiceID) {
+        boolean success = false;
+        sqLiteDatabase.beginTransactionNonExclusive();
+        try (RowsBatchWriter writer = newBatchWriter()) {
+            if (writer.writeAll(rows, invoiceID)) {
+                sqLiteDatabase.setTransactionSuccessful();
+                success = true;
             }
-            if (success) sqLiteDatabase.setTransactionSuccessful();
         }
-        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); success = false; }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
         finally { sqLiteDatabase.endTransaction(); }
         return success;
     }
 
     /**
-     * Get all invoice rows, given the unique invoice frame ID
+     * Remove all rows of a single invoice.
+     * @param invoiceID Invoice ID of the rows.
+     * @return True if success (Also if no rows).
+     */
+    public boolean removeRows(long invoiceID) {
+        try {
+            sqLiteDatabase.delete(FeedEntry.TABLE_NAME, FeedEntry.INVOICE_ID + " = ?",
+                    new String[]{ String.valueOf(invoiceID) });
+            return true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return false;
+    }
+
+    /**
+     * Open a new batch writer on this table. Caller must close it after use, and should
+     * hold a transaction during the writes (else each row will be committed by itself).
+     * @return RowsBatchWriter, ready for writing.
+     */
+    public @NonNull RowsBatchWriter newBatchWriter() {
+        return new RowsBatchWriter(sqLiteDatabase.compileStatement(SQL_INSERT_ROW));
+    }
+
+    /**
+     * Bulk insert of rows. The insert statement is compiled once, and for each row only the
+     * primitive values are bound. No ContentValues (map and boxing) for each row.
+     */
+    public static final class RowsBatchWriter implements Closeable {
+
+        private final SQLiteStatement insertStatement;
+
+        private RowsBatchWriter(@NonNull SQLiteStatement insertStatement) {
+            this.insertStatement = insertStatement;
+        }
+
+        /**
+         * Insert a single row.
+         * @param invoiceID Invoice frame ID of the row.
+         * @param itemID Item ID.
+         * @param rowCents Total value of the row (Item price * amount), in cents.
+         * @param amount Quantity of the item.
+         * @return Row ID, -1 if not inserted.
+         */
+        public long write(long invoiceID, long itemID, long rowCents, int amount) {
+            insertStatement.bindLong(1, invoiceID);
+            insertStatement.bindLong(2, itemID);
+            insertStatement.bindLong(3, rowCents);
+            insertStatement.bindLong(4, amount);
+            return insertStatement.executeInsert();
+        }
+
+        /**
+         * Insert all rows with the same invoice ID. Stop at the first fail.
+         * @param rows List of rows.
+         * @param invoiceID Invoice frame ID of all rows.
+         * @return True if all rows were inserted.
+         */
+        public boolean writeAll(@NonNull List<InvoiceRow> rows, long invoiceID) {
+            for (InvoiceRow r : rows) {
+                if (write(invoiceID, r.getItemID(), r.getTotalRowCents(), r.getQuantity()) == -1)
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() {
+            insertStatement.close();
+        }
+    }
+
+    /**
+     * Get all invoice rows, given the unique invoice frame ID, in a single query: Rows are
+     * joined with the items table, so item names are resolved by SQL. No items are loaded.
      * @param invoiceID Common ID for all requested rows in this table.
+     * @param showRemovedItems If false, removed items are shown as "Item Removed".
      * @return List of InvoiceRow (implements InvoiceItem)
      */
-    public @NonNull List<InvoiceRow> getAllRowsByID(long invoiceID, List<Item> itemList) {
+    public @NonNull List<InvoiceRow> getAllRowsByIDJoined(long invoiceID,
+                                                          boolean showRemovedItems) {
         List<InvoiceRow> invoiceList = new ArrayList<>();
-
-        String[] columns = {
-                FeedEntry.ITEM_ID,
-                FeedEntry.VALUE,
-                FeedEntry.AMOUNT
-        };
-
-        String selection = FeedEntry.INVOICE_ID + " = ?";
+        // Unit price is taken from the row (Price at the invoice time). Cents division is
+        // exact, the row value is price * amount
+        String query = "SELECT r." + FeedEntry.ITEM_ID + ", " +
+                "CASE WHEN r." + FeedEntry.AMOUNT + " = 0 THEN 0 ELSE r." + FeedEntry.VALUE +
+                " / r." + FeedEntry.AMOUNT + " END, r." + FeedEntry.AMOUNT + ", " +
+                itemsTable.SQL_JOINED_ITEM_COLUMNS +
+                " FROM " + FeedEntry.TABLE_NAME + " r" +
+                itemsTable.sqlLeftJoinItems("r." + FeedEntry.ITEM_ID) +
+                " WHERE r." + FeedEntry.INVOICE_ID + " = ?;";
         String[] selectionArgs = { String.valueOf(invoiceID) };
 
-        Cursor cursor = sqLiteDatabase.query(
-                FeedEntry.TABLE_NAME,  //
-                columns,               //
-                selection,             // WHERE
-                selectionArgs,         // condition values
-                null,                  // groupBy
-                null,                  // having
-                null                   // orderBy
-        );
-        try {
+        try (Cursor cursor = readDatabase.rawQuery(query, selectionArgs)) {
             while (cursor.moveToNext()) {
-                long itemID = cursor.getLong(cursor.getColumnIndexOrThrow(FeedEntry.ITEM_ID));
-                double totalPriceRow = cursor.getDouble(cursor.getColumnIndexOrThrow(FeedEntry.VALUE));
-                int quantity = cursor.getInt(cursor.getColumnIndexOrThrow(FeedEntry.AMOUNT));
-                double itemPrice = 0.f;
-                if (quantity == 0) itemPrice = 0.f;
-                else itemPrice = totalPriceRow / quantity;
+                long itemID = cursor.getLong(0);
+                long itemPrice = cursor.getLong(1);
+                int quantity = cursor.getInt(2);
+                boolean found = !cursor.isNull(3);
+                boolean isRemoved = found && cursor.getInt(5) == 1;
 
-                Item tempItem = new Item(itemID, "Item Removed", "Item Removed", itemPrice);
-
-                if ((int) itemID - 1 >= itemList.size()) {
+                Item tempItem;
+                if (!found || (!showRemovedItems && isRemoved))
                     tempItem = new Item(itemID, "Item Removed", "Item Removed", itemPrice);
-                } else {
-                    int fixedIndex = (int) itemID - 1;
-                    long tempID = itemList.get(fixedIndex).getID();
-                    if (tempID == itemID) {
-                        tempItem = new Item(
-                                itemID,
-                                itemList.get(fixedIndex).getName(),
-                                itemList.get(fixedIndex).getDescription(),
-                                itemPrice);
-                    }
-                }
+                else tempItem = new Item(itemID, cursor.getString(3), cursor.getString(4),
+                        itemPrice);
                 invoiceList.add(new InvoiceRow(invoiceID, quantity, tempItem));
             }
-            cursor.close();
         }
         catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
         return invoiceList;
     }
 
+    /** Receive the rows of a single invoice, from a bulk rows stream */
+    public interface RowsGroupConsumer {
+        /**
+         * @param invoiceID Invoice ID of the rows.
+         * @param rows All rows of this invoice (At least one row).
+         * @return True for continue, false for stop the stream.
+         */
+        boolean onRows(long invoiceID, @NonNull List<InvoiceRow> rows);
+    }
+
+    /** Max IDs for each "IN" query, below the SQLite host parameters limit (999) */
+    private static final int MAX_IDS_FOR_QUERY = 500;
+
     /**
-     * Retrieves the total revenue from given IDs (Invoice ID).
-     * Will go over each row where has the same InvoiceID, and sum it.
-     * @param IDs String format "ID_1,ID_2,ID_3,...ID_n"
-     * @return Double, total revenue from all selected invoices. Return 0 for any error, or no invoices.
+     * Stream the rows of all invoices in the IDs range, in one ordered cursor pass, grouped by
+     * invoice. Only the rows of the current invoice are held in memory.
+     * @param fromID First invoice ID, included.
+     * @param toID Last invoice ID, included.
+     * @param showRemovedItems If false, removed items are shown as "Item Removed".
+     * @param consumer Called once for each invoice with rows, by invoice ID order.
+     * @return True if all invoices were streamed (Not stopped, no error).
      */
-    public double getTotalRevenueByIDs(@NonNull String IDs) {
-        if (IDs.isEmpty()) return 0;
-        String query =
-                "SELECT SUM(" + FeedEntry.VALUE + ") " +
-                "FROM " + FeedEntry.TABLE_NAME + " " +
-                "WHERE " + FeedEntry.INVOICE_ID + " IN (" + IDs + ");";
+    public boolean streamRowsByRange(long fromID, long toID, boolean showRemovedItems,
+                                     @NonNull RowsGroupConsumer consumer) {
+        if (toID < fromID) return true;
+        return streamRows("r." + FeedEntry.INVOICE_ID + " BETWEEN ? AND ?",
+                new String[]{ String.valueOf(fromID), String.valueOf(toID) },
+                showRemovedItems, consumer);
+    }
 
-        double revenue = 0;
-        try {
-            Cursor cursor = sqLiteDatabase.rawQuery(query, null);
-            if (cursor.moveToFirst()) {
-                revenue = cursor.getDouble(0);
-                cursor.close();
+    /**
+     * Stream the rows of the given invoices, grouped by invoice, by invoice ID order.
+     * Large sets are queried in chunks (one ordered cursor pass for each chunk).
+     * @param invoiceIDs Invoices IDs, sorted ascending and unique (e.g. the selected IDs).
+     * @param showRemovedItems If false, removed items are shown as "Item Removed".
+     * @param consumer Called once for each invoice with rows, by invoice ID order.
+     * @return True if all invoices were streamed (Not stopped, no error).
+     */
+    public boolean streamRowsByIDs(@NonNull long[] invoiceIDs, boolean showRemovedItems,
+                                   @NonNull RowsGroupConsumer consumer) {
+        for (int start = 0; start < invoiceIDs.length; start += MAX_IDS_FOR_QUERY) {
+            String[] args = new String[Math.min(MAX_IDS_FOR_QUERY, invoiceIDs.length - start)];
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < args.length; i++) {
+                args[i] = String.valueOf(invoiceIDs[start + i]);
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            if (!streamRows("r." + FeedEntry.INVOICE_ID + " IN (" + placeholders + ")", args,
+                    showRemovedItems, consumer)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Single ordered cursor pass (by InvoiceID index), rows joined with their items.
+     * A group is flushed to the consumer each time the invoice ID changes.
+     */
+    private boolean streamRows(@NonNull String where, @NonNull String[] args,
+                               boolean showRemovedItems, @NonNull RowsGroupConsumer consumer) {
+        String query = "SELECT r." + FeedEntry.INVOICE_ID + ", r." + FeedEntry.ITEM_ID + ", " +
+                "CASE WHEN r." + FeedEntry.AMOUNT + " = 0 THEN 0 ELSE r." + FeedEntry.VALUE +
+                " / r." + FeedEntry.AMOUNT + " END, r." + FeedEntry.AMOUNT + ", " +
+                itemsTable.SQL_JOINED_ITEM_COLUMNS +
+                " FROM " + FeedEntry.TABLE_NAME + " r" +
+                itemsTable.sqlLeftJoinItems("r." + FeedEntry.ITEM_ID) +
+                " WHERE " + where +
+                " ORDER BY r." + FeedEntry.INVOICE_ID + ", r." + FeedEntry._ID + ";";
+
+        try (Cursor cursor = readDatabase.rawQuery(query, args)) {
+            long currentID = 0;
+            List<InvoiceRow> group = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                long invoiceID = cursor.getLong(0);
+                if (invoiceID != currentID && !group.isEmpty()) {
+                    if (!consumer.onRows(currentID, group)) return false;
+                    group = new ArrayList<>();
+                }
+                currentID = invoiceID;
+                long itemID = cursor.getLong(1);
+                long itemPrice = cursor.getLong(2);
+                int quantity = cursor.getInt(3);
+                boolean found = !cursor.isNull(4);
+                boolean isRemoved = found && cursor.getInt(6) == 1;
+
+                Item tempItem;
+                if (!found || (!showRemovedItems && isRemoved))
+                    tempItem = new Item(itemID, "Item Removed", "Item Removed", itemPrice);
+                else tempItem = new Item(itemID, cursor.getString(4), cursor.getString(5),
+                        itemPrice);
+                group.add(new InvoiceRow(invoiceID, quantity, tempItem));
             }
+            if (!group.isEmpty()) return consumer.onRows(currentID, group);
+            return true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return false;
+    }
+
+    /**
+     * Total quantity of items in a single invoice (Sum of the rows amount).
+     * @param invoiceID Invoice frame ID.
+     * @return Total quantity, 0 if no rows. -1 if error.
+     */
+    public long getItemsCount(long invoiceID) {
+        String query =
+                "SELECT TOTAL(" + FeedEntry.AMOUNT + ") FROM " + FeedEntry.TABLE_NAME +
+                        " WHERE " + FeedEntry.INVOICE_ID + " = ?;";
+        try (Cursor cursor = readDatabase.rawQuery(query, new String[]{ String.valueOf(invoiceID) })) {
+            if (cursor.moveToFirst()) return cursor.getLong(0);
         }
         catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
-        return revenue;
+        return -1;
     }
 
     /**
@@ -204,7 +406,7 @@ public class invoiceRowsTable {
                         "ORDER BY SUM(" + FeedEntry.AMOUNT + ") DESC " +
                         "LIMIT 1;";
         try {
-            Cursor cursor = sqLiteDatabase.rawQuery(query, null);
+            Cursor cursor = readDatabase.rawQuery(query, null);
             if (cursor.moveToFirst()) {
                 bestSellingItem = cursor.getInt(0);
             }
@@ -9,13 +9,16 @@ package com.example.invoiceapp;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.provider.BaseColumns;
 import android.util.Log;
 import androidx.annotation.NonNull;
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.List;
-import java.util.Set;
 
 public class invoicesFramesTable {
 
@@ -24,20 +27,57 @@ public class invoicesFramesTable {
      */
 
     private final SQLiteDatabase sqLiteDatabase;
+    private final SQLiteDatabase readDatabase; // Queries only
 
-    /** Inner class that defines the table contents */
+    /** Inner class that defines the table contents. Schema: See DatabaseMigrations */
     private static class FeedEntry implements BaseColumns {
         public static final String TABLE_NAME = "InvoiceFrame";
         public static final String DATE = "Date";
+        public static final String DATE_EPOCH = "DateEpoch"; // Same as DATE, epoch millis
         public static final String PRICE = "Price";
     }
 
-    /** Query for create the table */
-    public static final String SQL_CREATE_ENTRIES = "CREATE TABLE IF NOT EXISTS " +
-                        FeedEntry.TABLE_NAME + " ( " +
-                        FeedEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
-                        FeedEntry.DATE + " TEXT NOT NULL," +
-                        FeedEntry.PRICE + " REAL NOT NULL);";
+    /** Max IDs for each "IN" query, below the SQLite host parameters limit (999) */
+    private static final int MAX_IDS_FOR_QUERY = 500;
+
+    /** Columns of InvoiceFrame, for all queries. Use with readFrame() */
+    private static final String FRAME_COLUMNS = FeedEntry._ID + ", " + FeedEntry.DATE + ", " +
+                        FeedEntry.DATE_EPOCH + ", " + FeedEntry.PRICE;
+
+    /**
+     * Totals for each day with invoices: Year, Month, Day, Revenue, Invoices count and Items count.
+     * Source for rebuild the revenue rollup (See revenueRollupTable).
+     * Integer sums: The revenue is summed in cents, exact.
+     */
+    public static final String SQL_SELECT_DAILY_TOTALS = "SELECT " +
+                        "CAST(strftime('%Y', f." + FeedEntry.DATE + ") AS INTEGER), " +
+                        "CAST(strftime('%m', f." + FeedEntry.DATE + ") AS INTEGER), " +
+                        "CAST(strftime('%d', f." + FeedEntry.DATE + ") AS INTEGER), " +
+                        "SUM(f." + FeedEntry.PRICE + "), COUNT(*), " +
+                        "IFNULL(SUM(r." + invoiceRowsTable.ITEMS_COUNT + "), 0) " +
+                        "FROM " + FeedEntry.TABLE_NAME + " f LEFT JOIN (" +
+                        invoiceRowsTable.SQL_SELECT_ITEMS_BY_INVOICE + ") r " +
+                        "ON r.InvoiceID = f." + FeedEntry._ID + " " +
+                        "GROUP BY 1, 2, 3";
+
+    /**
+     * Totals of the given invoices for each day, as sub query. Columns: Year, Month, Day,
+     * Revenue, Invoices, Items. Served by the rowid, only the given frames and their rows
+     * are read.
+     * @param count Number of the IDs, each bound to a "?" of "_id IN (...)".
+     * @return SQL "SELECT ... WHERE f._id IN (?, ...) GROUP BY ...".
+     */
+    public static @NonNull String sqlSelectDailyTotalsOf(int count) {
+        StringBuilder query = new StringBuilder("SELECT " +
+                "CAST(strftime('%Y', f." + FeedEntry.DATE + ") AS INTEGER) Year, " +
+                "CAST(strftime('%m', f." + FeedEntry.DATE + ") AS INTEGER) Month, " +
+                "CAST(strftime('%d', f." + FeedEntry.DATE + ") AS INTEGER) Day, " +
+                "SUM(f." + FeedEntry.PRICE + ") Revenue, COUNT(*) Invoices, " +
+                "SUM(" + invoiceRowsTable.sqlItemsCountOf("f." + FeedEntry._ID) + ") Items " +
+                "FROM " + FeedEntry.TABLE_NAME + " f WHERE f." + FeedEntry._ID + " IN (");
+        for (int i = 0; i < count; i++) query.append(i == 0 ? "?" : ", ?");
+        return query.append(") GROUP BY 1, 2, 3").toString();
+    }
 
     public static @NonNull String getTableName() {
         return FeedEntry.TABLE_NAME;
@@ -47,19 +87,24 @@ public class invoicesFramesTable {
      * Edit invoice frame by given 'editID'. New values: date and invoiceValue.
      * Safe edit.
      * @param dateFormatted Date must be format as "yyyy-MM-dd hh:mm:ss".
-     * @param invoiceValue Total price of all rows in the invoice.
+     * @param invoiceValue Total price of all rows in the invoice, in cents.
      * @param editID InvoiceID as in database.
      * @return Edit successfully.
      */
-    public boolean EditInvoiceFrame(@NonNull String dateFormatted, double invoiceValue, int editID) {
+    public boolean EditInvoiceFrame(@NonNull String dateFormatted, long invoiceValue,
+                                    long editID) {
         if (dateFormatted.isEmpty() || editID <= 0) return false;
+        long dateMillis;
+        try { dateMillis = FormatUtils.parseDateFullMillis(dateFormatted); }
+        catch (ParseException e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); return false; }
         boolean success = false;
         String selection = FeedEntry._ID + " = ?";
         String[] selectionArgs = { String.valueOf(editID) };
-        sqLiteDatabase.beginTransaction();
+        sqLiteDatabase.beginTransactionNonExclusive();
         try {
             ContentValues values = new ContentValues();
             values.put(FeedEntry.DATE, dateFormatted);
+            values.put(FeedEntry.DATE_EPOCH, dateMillis);
             values.put(FeedEntry.PRICE, invoiceValue);
             int rowsAffected = sqLiteDatabase.update(FeedEntry.TABLE_NAME, values, selection, selectionArgs);
             if (rowsAffected > 0) {
@@ -72,31 +117,29 @@ public class invoicesFramesTable {
         return success;
     }
 
-    public invoicesFramesTable(SQLiteDatabase db) {
+    public invoicesFramesTable(@NonNull SQLiteDatabase db, @NonNull SQLiteDatabase readDb) {
         this.sqLiteDatabase = db;
+        this.readDatabase = readDb;
     }
 
     /**
      * Removing all selected invoices by given UNIQUE ID of the frames.
-     * @param IDs Set, UNIQUE IDs of the invoices
+     * One compiled delete, only the ID is bound for each frame.
+     * @param IDs UNIQUE IDs of the invoices
      * @return True if successes.
      */
-    public boolean RemoveInvoiceFrames(@NonNull Set<Integer> IDs) {
+    public boolean RemoveInvoiceFrames(@NonNull long[] IDs) {
         int deletedRows = 0;
-        sqLiteDatabase.beginTransaction();
-        try {
-            for (Integer ID: IDs) {
-                String selection = FeedEntry._ID + " = ?";
-                String[] selectionArgs = { String.valueOf(ID) };
-                deletedRows += sqLiteDatabase.delete(FeedEntry.TABLE_NAME, selection, selectionArgs);
+        sqLiteDatabase.beginTransactionNonExclusive();
+        try (SQLiteStatement delete = sqLiteDatabase.compileStatement("DELETE FROM " +
+                FeedEntry.TABLE_NAME + " WHERE " + FeedEntry._ID + " = ?;")) {
+            for (long ID : IDs) {
+                delete.bindLong(1, ID);
+                deletedRows += delete.executeUpdateDelete();
             }
             sqLiteDatabase.setTransactionSuccessful();
         }
-        catch (Exception e) {
-            { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
-
-            return false;
-        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); return false; }
         finally { sqLiteDatabase.endTransaction(); }
         return deletedRows > 0;
     }
@@ -114,7 +157,7 @@ public class invoicesFramesTable {
         long autoIncrement = 0;
         try {
             String[] selectionArgs = {FeedEntry.TABLE_NAME};
-            Cursor cursor = sqLiteDatabase.query(sqliteSequenceTableName,
+            Cursor cursor = readDatabase.query(sqliteSequenceTableName,
                     columns, selection, selectionArgs, null, null, null);
 
             if (cursor.moveToFirst()) {
@@ -136,19 +179,12 @@ public class invoicesFramesTable {
         Cursor cursor = null;
         try {
             String query =
-                    "SELECT " + FeedEntry._ID + ", " + FeedEntry.DATE + ", " + FeedEntry.PRICE +
+                    "SELECT " + FRAME_COLUMNS +
                             " FROM " + FeedEntry.TABLE_NAME +
-                            " ORDER BY " + FeedEntry.DATE + " DESC";
+                            " ORDER BY " + FeedEntry.DATE_EPOCH + " DESC";
 
-            cursor = sqLiteDatabase.rawQuery(query, null);
-            if (cursor.moveToFirst()) {
-                do {
-                    long ID = cursor.getLong(cursor.getColumnIndexOrThrow(FeedEntry._ID));
-                    String date = cursor.getString(cursor.getColumnIndexOrThrow(FeedEntry.DATE));
-                    double price = cursor.getDouble(cursor.getColumnIndexOrThrow(FeedEntry.PRICE));
-                    invoicesList.add(new InvoiceFrame(ID, date, price));
-                } while (cursor.moveToNext());
-            }
+            cursor = readDatabase.rawQuery(query, null);
+            while (cursor.moveToNext()) invoicesList.add(readFrame(cursor));
         }
         catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
         finally { if (cursor != null) cursor.close(); }
@@ -159,16 +195,20 @@ public class invoicesFramesTable {
      * Add new invoice frame to the data base and return the UNIQUE ID as shown in
      * this table. -1 If not success.
      * @param dateFormated Date must be format as "yyyy-MM-dd hh:mm:ss".
-     * @param invoiceValue Total price of all rows in the invoice.
+     * @param invoiceValue Total price of all rows in the invoice, in cents.
      * @return ID of the invoice frame. -1 If not successes.
      */
-    public long addNewInvoiceFrame(String dateFormated, double invoiceValue) {
+    public long addNewInvoiceFrame(String dateFormated, long invoiceValue) {
+        long dateMillis;
+        try { dateMillis = FormatUtils.parseDateFullMillis(dateFormated); }
+        catch (ParseException e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); return -1; }
         boolean success = true;
         long ID = 0;
-        sqLiteDatabase.beginTransaction();
+        sqLiteDatabase.beginTransactionNonExclusive();
         try {
             ContentValues values = new ContentValues();
             values.put(FeedEntry.DATE, dateFormated);
+            values.put(FeedEntry.DATE_EPOCH, dateMillis);
             values.put(FeedEntry.PRICE, invoiceValue);
             ID = sqLiteDatabase.insert(FeedEntry.TABLE_NAME, null, values);
             if (ID == -1) success = false;
@@ -180,29 +220,258 @@ public class invoicesFramesTable {
     }
 
     /**
-     * Get all invoice frames, by date match.
+     * Get all invoice frames created at the given day (local time).
      * @param date Date lookup. Format: YYYY-MM-DD
      * @return (@NoNull) List of invoice frames, matching the same date.
      */
     public @NonNull List<InvoiceFrame> getInvoicesByDate(String date) {
-        List<InvoiceFrame> invoices = new ArrayList<>();
-        Cursor cursor = null;
         try {
-            String query = "SELECT * FROM " + FeedEntry.TABLE_NAME + " WHERE " + FeedEntry.DATE + " LIKE ?";
-            cursor = sqLiteDatabase.rawQuery(query, new String[]{date + "%"});
-            while (cursor.moveToNext()) {
-                invoices.add(new InvoiceFrame(
-                        cursor.getLong(cursor.getColumnIndexOrThrow(FeedEntry._ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(FeedEntry.DATE)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(FeedEntry.PRICE))
-                ));
-            }
+            long fromMillis = FormatUtils.parseDateMillis(date);
+            Calendar nextDay = Calendar.getInstance();
+            nextDay.setTimeInMillis(fromMillis);
+            nextDay.add(Calendar.DAY_OF_MONTH, 1); // Not 24 hours, on daylight saving days
+            return getInvoicesByDateRange(fromMillis, nextDay.getTimeInMillis());
+        }
+        catch (ParseException e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Get all invoice frames in the date range, recent first. Served by the DateEpoch index.
+     * @param fromMillis Range start, epoch millis, included.
+     * @param toMillis Range end, epoch millis, excluded.
+     * @return (@NoNull) List of invoice frames in range.
+     */
+    public @NonNull List<InvoiceFrame> getInvoicesByDateRange(long fromMillis, long toMillis) {
+        List<InvoiceFrame> invoices = new ArrayList<>();
+        if (toMillis <= fromMillis) return invoices;
+        String query =
+                "SELECT " + FRAME_COLUMNS + " FROM " + FeedEntry.TABLE_NAME +
+                        " WHERE " + FeedEntry.DATE_EPOCH + " >= ? AND " +
+                        FeedEntry.DATE_EPOCH + " < ?" +
+                        " ORDER BY " + FeedEntry.DATE_EPOCH + " DESC";
+        String[] selectionArgs = { String.valueOf(fromMillis), String.valueOf(toMillis) };
+        try (Cursor cursor = readDatabase.rawQuery(query, selectionArgs)) {
+            while (cursor.moveToNext()) invoices.add(readFrame(cursor));
         }
         catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
-        finally { if (cursor != null) cursor.close(); }
         return invoices;
     }
 
+    /**
+     * Get a single page of invoice frames, by keyset: The page start right after the anchor
+     * frame (in the requested order), so no rows are skipped by OFFSET and each page cost the
+     * same. The sort is done by the index of the sort key (See InvoiceSort), never in memory.
+     * Ties on the sort key are ordered by ID.
+     * Only the frames of the filter (See sqlFilter): The filter conditions and the anchor
+     * condition are a single WHERE clause, all values are bound as parameters.
+     * @param sort Sort key.
+     * @param descending True for descending order (Recent, highest price or newest ID first),
+     *                   for all the keys.
+     * @param filter Frames filter. InvoiceFilter.ALL for all frames.
+     * @param anchor Last frame of the previous page. Null for the first page.
+     * @param limit Page size.
+     * @return (@NoNull) List of frames, at most limit. Empty if no more frames.
+     */
+    public @NonNull List<InvoiceFrame> getInvoicesPage(@NonNull InvoiceSort sort,
+                                                       boolean descending,
+                                                       @NonNull InvoiceFilter filter,
+                                                       InvoiceFrame anchor, int limit) {
+        List<InvoiceFrame> invoices = new ArrayList<>();
+        if (limit <= 0 || filter.isEmpty()) return invoices;
+        String[] columns = sortColumns(sort);
+        String direction = descending ? " DESC" : " ASC";
+
+        List<String> args = new ArrayList<>();
+        StringBuilder where = new StringBuilder(sqlFilter(filter, args));
+        if (anchor != null) {
+            where.append(where.length() == 0 ? " WHERE " : " AND ");
+            appendAfterAnchor(where, args, columns, sortKeys(sort, anchor), 0, descending);
+        }
+        StringBuilder orderBy = new StringBuilder();
+        for (String column : columns) {
+            if (orderBy.length() > 0) orderBy.append(", ");
+            orderBy.append(column).append(direction);
+        }
+        String query = "SELECT " + FRAME_COLUMNS + " FROM " + FeedEntry.TABLE_NAME + where +
+                " ORDER BY " + orderBy + " LIMIT " + limit;
+
+        try (Cursor cursor = readDatabase.rawQuery(query, args.toArray(new String[0]))) {
+            while (cursor.moveToNext()) invoices.add(readFrame(cursor));
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return invoices;
+    }
+
+    /** @return Columns of the sort key, by order. The last column is always the ID. */
+    private static @NonNull String[] sortColumns(@NonNull InvoiceSort sort) {
+        switch (sort) {
+            case DATE: return new String[]{ FeedEntry.DATE_EPOCH, FeedEntry._ID };
+            case PRICE: return new String[]{ FeedEntry.PRICE, FeedEntry._ID };
+            case DATE_PRICE:
+                return new String[]{ FeedEntry.DATE_EPOCH, FeedEntry.PRICE, FeedEntry._ID };
+            case PRICE_DATE:
+                return new String[]{ FeedEntry.PRICE, FeedEntry.DATE_EPOCH, FeedEntry._ID };
+            default: return new String[]{ FeedEntry._ID };
+        }
+    }
+
+    /** @return Values of the sort key of the frame, same order as sortColumns(). */
+    private static @NonNull long[] sortKeys(@NonNull InvoiceSort sort,
+                                            @NonNull InvoiceFrame frame) {
+        switch (sort) {
+            case DATE: return new long[]{ frame.getDateMillis(), frame.getID() };
+            case PRICE: return new long[]{ frame.getTotalCents(), frame.getID() };
+            case DATE_PRICE:
+                return new long[]{ frame.getDateMillis(), frame.getTotalCents(), frame.getID() };
+            case PRICE_DATE:
+                return new long[]{ frame.getTotalCents(), frame.getDateMillis(), frame.getID() };
+            default: return new long[]{ frame.getID() };
+        }
+    }
+
+    /**
+     * Append the condition "key after the anchor key" (Keys compared by order, as a tuple).
+     * Index friendly form: "c1 <= ? AND (c1 < ? OR (c2 <= ? AND (c2 < ? OR ID < ?)))", the
+     * leading range on the first column starts the index search at the anchor (No row values,
+     * not supported by the older SQLite versions).
+     */
+    private static void appendAfterAnchor(@NonNull StringBuilder where,
+                                          @NonNull List<String> args,
+                                          @NonNull String[] columns, @NonNull long[] keys,
+                                          int index, boolean descending) {
+        String column = columns[index];
+        String key = String.valueOf(keys[index]);
+        String after = descending ? " < ?" : " > ?";
+        if (index == columns.length - 1) {
+            where.append(column).append(after);
+            args.add(key);
+            return;
+        }
+        where.append(column).append(descending ? " <= ?" : " >= ?")
+                .append(" AND (").append(column).append(after).append(" OR (");
+        args.add(key);
+        args.add(key);
+        appendAfterAnchor(where, args, columns, keys, index + 1, descending);
+        where.append("))");
+    }
+
+    /**
+     * Compile the filter into a WHERE clause, only the set conditions. Each condition is a
+     * range (or equality) on an indexed column, so SQLite starts from the most selective
+     * index:
+     * Date range: DateEpoch index. Price range: Price index. ID range: the rowid.
+     * Item and quantity: "_id IN (sub query)" on InvoiceRows, by the ItemID index (See
+     * invoiceRowsTable.sqlSelectInvoiceIDs), then a rowid lookup for each invoice found.
+     * NOTE: Package private for the query plan tests.
+     * @param filter Frames filter.
+     * @param args Query arguments, the filter values are added by order.
+     * @return SQL " WHERE ... AND ...", empty if no conditions.
+     */
+    static @NonNull String sqlFilter(@NonNull InvoiceFilter filter,
+                                     @NonNull List<String> args) {
+        StringBuilder where = new StringBuilder();
+        if (filter.hasDateRange()) {
+            appendCondition(where, FeedEntry.DATE_EPOCH + " >= ? AND " + FeedEntry.DATE_EPOCH +
+                    " < ?");
+            args.add(String.valueOf(filter.getFromMillis()));
+            args.add(String.valueOf(filter.getToMillis()));
+        }
+        if (filter.hasPriceRange()) {
+            appendCondition(where, FeedEntry.PRICE + " BETWEEN ? AND ?");
+            args.add(String.valueOf(filter.getMinCents()));
+            args.add(String.valueOf(filter.getMaxCents()));
+        }
+        if (filter.hasIDRange()) {
+            appendCondition(where, FeedEntry._ID + " BETWEEN ? AND ?");
+            args.add(String.valueOf(filter.getFromID()));
+            args.add(String.valueOf(filter.getToID()));
+        }
+        if (filter.hasItem() || filter.hasMinQuantity()) {
+            appendCondition(where, FeedEntry._ID + " IN (" +
+                    invoiceRowsTable.sqlSelectInvoiceIDs(filter, args) + ")");
+        }
+        return where.toString();
+    }
+
+    /** Append a condition to the WHERE clause (Starts it, or AND) */
+    private static void appendCondition(@NonNull StringBuilder where, @NonNull String condition) {
+        where.append(where.length() == 0 ? " WHERE " : " AND ").append(condition);
+    }
+
+    /**
+     * Number of invoice frames of the filter.
+     * @param filter Frames filter. InvoiceFilter.ALL for all frames.
+     * @return Number of frames, 0 if error.
+     */
+    public long getInvoicesCount(@NonNull InvoiceFilter filter) {
+        if (filter.isEmpty()) return 0;
+        List<String> args = new ArrayList<>();
+        String query = "SELECT COUNT(*) FROM " + FeedEntry.TABLE_NAME + sqlFilter(filter, args);
+        try {
+            return DatabaseUtils.longForQuery(readDatabase, query, args.toArray(new String[0]));
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return 0;
+    }
+
+    /**
+     * @return Number of invoice frames in the table.
+     */
+    public long getInvoicesCount() {
+        try { return DatabaseUtils.queryNumEntries(readDatabase, FeedEntry.TABLE_NAME); }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return 0;
+    }
+
+    /**
+     * Get the IDs of all invoice frames of the filter, e.g. select all. Read from the
+     * indexes only, into a primitive array (No frame objects).
+     * @param filter Frames filter. InvoiceFilter.ALL for all frames.
+     * @return IDs, ascending. Empty if error.
+     */
+    public @NonNull long[] getInvoiceIDs(@NonNull InvoiceFilter filter) {
+        if (filter.isEmpty()) return new long[0];
+        List<String> args = new ArrayList<>();
+        String query = "SELECT " + FeedEntry._ID + " FROM " + FeedEntry.TABLE_NAME +
+                sqlFilter(filter, args) + " ORDER BY " + FeedEntry._ID;
+        try (Cursor cursor = readDatabase.rawQuery(query, args.toArray(new String[0]))) {
+            long[] IDs = new long[cursor.getCount()];
+            for (int i = 0; i < IDs.length && cursor.moveToNext(); i++) IDs[i] = cursor.getLong(0);
+            return IDs;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return new long[0];
+    }
+
+    /**
+     * Get a single page of the invoices which sold the item, newest invoice first, with the
+     * quantity of the item in each invoice. Keyset pagination by invoice ID.
+     * Read from the item, invoice index of the rows (a range from the anchor, no sort), then
+     * a frame lookup by ID for each invoice of the page only.
+     * @param itemID Item ID, as in database.
+     * @param beforeInvoiceID Last invoice ID of the previous page (excluded). Long.MAX_VALUE
+     *                        for the first page.
+     * @param limit Page size.
+     * @return (@NoNull) List of invoices, at most limit. Empty if no more invoices.
+     */
+    public @NonNull List<ItemSale> getInvoicesByItem(long itemID, long beforeInvoiceID,
+                                                     int limit) {
+        List<ItemSale> sales = new ArrayList<>();
+        if (limit <= 0) return sales;
+        String query = "SELECT f." + FeedEntry._ID + ", f." + FeedEntry.DATE + ", f." +
+                FeedEntry.DATE_EPOCH + ", f." + FeedEntry.PRICE + ", " +
+                invoiceRowsTable.ITEM_QUANTITY + " " + invoiceRowsTable.SQL_FROM_ITEM_ROWS +
+                " LIMIT " + limit;
+        String[] selectionArgs = { String.valueOf(itemID), String.valueOf(beforeInvoiceID) };
+        try (Cursor cursor = readDatabase.rawQuery(query, selectionArgs)) {
+            while (cursor.moveToNext())
+                sales.add(new ItemSale(readFrame(cursor), cursor.getLong(4)));
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return sales;
+    }
+
     /**
      * Get all invoice frame found in the database.
      * @return List of all frames.
@@ -211,82 +480,83 @@ public class invoicesFramesTable {
         List<InvoiceFrame> invoices = new ArrayList<>();
         Cursor cursor = null;
         try {
-            String query = "SELECT * FROM " + FeedEntry.TABLE_NAME;
-            cursor = sqLiteDatabase.rawQuery(query, null);
-            while (cursor.moveToNext()) {
-                invoices.add(new InvoiceFrame(
-                        cursor.getLong(cursor.getColumnIndexOrThrow(FeedEntry._ID)),
-                        cursor.getString(cursor.getColumnIndexOrThrow(FeedEntry.DATE)),
-                        cursor.getDouble(cursor.getColumnIndexOrThrow(FeedEntry.PRICE))
-                ));
-            }
+            String query = "SELECT " + FRAME_COLUMNS + " FROM " + FeedEntry.TABLE_NAME;
+            cursor = readDatabase.rawQuery(query, null);
+            while (cursor.moveToNext()) invoices.add(readFrame(cursor));
         }
         catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
         finally { if (cursor != null) cursor.close(); }
         return invoices;
     }
 
+    /**
+     * Get all invoice frames in the IDs range, by ID order.
+     * @param fromID First invoice ID, included.
+     * @param toID Last invoice ID, included.
+     * @return (@NoNull) List of frames.
+     */
+    public @NonNull List<InvoiceFrame> getInvoicesByIDRange(long fromID, long toID) {
+        List<InvoiceFrame> invoices = new ArrayList<>();
+        String query = "SELECT " + FRAME_COLUMNS + " FROM " + FeedEntry.TABLE_NAME +
+                " WHERE " + FeedEntry._ID + " BETWEEN ? AND ? ORDER BY " + FeedEntry._ID;
+        String[] selectionArgs = { String.valueOf(fromID), String.valueOf(toID) };
+        try (Cursor cursor = readDatabase.rawQuery(query, selectionArgs)) {
+            while (cursor.moveToNext()) invoices.add(readFrame(cursor));
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return invoices;
+    }
+
+    /**
+     * Get the invoice frames of the given IDs, by ID order. Large sets are queried in chunks.
+     * @param IDs Invoices IDs, sorted ascending and unique (e.g. the selected IDs).
+     * @return (@NoNull) List of frames found.
+     */
+    public @NonNull List<InvoiceFrame> getInvoicesByIDs(@NonNull long[] IDs) {
+        List<InvoiceFrame> invoices = new ArrayList<>();
+        for (int start = 0; start < IDs.length; start += MAX_IDS_FOR_QUERY) {
+            String[] args = new String[Math.min(MAX_IDS_FOR_QUERY, IDs.length - start)];
+            StringBuilder placeholders = new StringBuilder();
+            for (int i = 0; i < args.length; i++) {
+                args[i] = String.valueOf(IDs[start + i]);
+                placeholders.append(i == 0 ? "?" : ", ?");
+            }
+            String query = "SELECT " + FRAME_COLUMNS + " FROM " + FeedEntry.TABLE_NAME +
+                    " WHERE " + FeedEntry._ID + " IN (" + placeholders + ") ORDER BY " +
+                    FeedEntry._ID;
+            try (Cursor cursor = readDatabase.rawQuery(query, args)) {
+                while (cursor.moveToNext()) invoices.add(readFrame(cursor));
+            }
+            catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        }
+        return invoices;
+    }
+
     /**
      * Find invoice by UNIQUE ID as in table.
      * @param ID UNIQUE ID invoice target frame
      * @return InvoiceFrame. Null if not found.
      */
-    public InvoiceFrame getInvoiceById(int ID) {
+    public InvoiceFrame getInvoiceById(long ID) {
         InvoiceFrame invoice = null;
-        try (Cursor cursor = sqLiteDatabase.rawQuery(
-                "SELECT * FROM " + FeedEntry.TABLE_NAME + " WHERE " + FeedEntry._ID
-                        + " = ?", new String[]{String.valueOf(ID)})) {
-            if (cursor.moveToFirst()) {
-                int idIndex = cursor.getColumnIndexOrThrow(FeedEntry._ID);
-                int dateIndex = cursor.getColumnIndexOrThrow(FeedEntry.DATE);
-                int priceIndex = cursor.getColumnIndexOrThrow(FeedEntry.PRICE);
-                if (idIndex != -1 && dateIndex != -1 && priceIndex != -1) {
-                    invoice = new InvoiceFrame(
-                            cursor.getInt(idIndex),
-                            cursor.getString(dateIndex),
-                            cursor.getDouble(priceIndex)
-                    );
-                }
-            }
+        try (Cursor cursor = readDatabase.rawQuery(
+                "SELECT " + FRAME_COLUMNS + " FROM " + FeedEntry.TABLE_NAME + " WHERE " +
+                        FeedEntry._ID + " = ?", new String[]{String.valueOf(ID)})) {
+            if (cursor.moveToFirst()) invoice = readFrame(cursor);
         } catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
         return invoice;
     }
 
     /**
-     * Get for each month in the year all of invoice IDs. Index 0 is January.
-     * If no invoices for month x, there will be an empty String.
-     * @return Array (String) Format "ID_1, ID_2, ... , ID_n".
+     * Read the current cursor row. Cursor columns must be by FRAME_COLUMNS order.
+     * @param cursor Cursor, on a valid row.
+     * @return InvoiceFrame of this row.
      */
-    public @NonNull String[] getIDsByMonths() {
-        String[] IDsListByMonths = new String[12];
-        for (int i = 0; i < 12; i++) IDsListByMonths[i] = "";
-
-        String query =
-                "SELECT strftime('%m', " + FeedEntry.DATE + ") AS Month," +
-                        "       GROUP_CONCAT(" + FeedEntry._ID + ") AS InvoiceIDs " +
-                        "FROM " + FeedEntry.TABLE_NAME + " " +
-                        "WHERE strftime('%Y', " + FeedEntry.DATE + ") = strftime('%Y', 'now') " +
-                        "GROUP BY strftime('%m', " + FeedEntry.DATE + ") " +
-                        "ORDER BY Month;";
-
-        try (Cursor cursor = sqLiteDatabase.rawQuery(query, null)) {
-            while (cursor.moveToNext()) {
-                // Cursor over 'Months'
-                String invoiceIDsMonth = "";
-                int monthInt = 0;
-                int indexMonth = cursor.getColumnIndex("Month");
-                int indexIDs = cursor.getColumnIndex("InvoiceIDs");
-
-                // Path all IDs for current month, and patch the all IDs by this month
-                if (indexMonth >= 0 && indexIDs >= 0) {
-                    invoiceIDsMonth = cursor.getString(indexMonth);
-                    monthInt = Integer.parseInt(invoiceIDsMonth);
-                    String IDs = cursor.getString(indexIDs); // Format "ID_1,ID_2,..."
-                    IDsListByMonths[monthInt - 1] = IDs;
-                }
-            }
-        }
-        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
-        return IDsListByMonths;
+    private static @NonNull InvoiceFrame readFrame(@NonNull Cursor cursor) {
+        return new InvoiceFrame(
+                cursor.getLong(0),      // _ID
+                cursor.getString(1),    // Date
+                cursor.getLong(2),      // DateEpoch
+                cursor.getLong(3));     // Price (cents)
     }
 }
\ No newline at end of file
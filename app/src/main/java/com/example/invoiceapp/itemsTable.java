@@ -10,17 +10,18 @@ package com.example.invoiceapp;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 import android.provider.BaseColumns;
 import android.util.Log;
 import android.util.Pair;
 import androidx.annotation.NonNull;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 public class itemsTable {
     private final SQLiteDatabase database;
+    private final SQLiteDatabase readDatabase; // Queries only
 
     /*
      * This table contain all items with unique ID.
@@ -28,7 +29,7 @@ public class itemsTable {
      * this for any case of using invoice items names / ID as normal.
       */
 
-    /** Inner class that defines the table contents */
+    /** Inner class that defines the table contents. Schema: See DatabaseMigrations */
     private static class FeedEntry implements BaseColumns {
         public static final String TABLE_NAME = "BasicItem";
         public static final String NAME = "Name";
@@ -37,56 +38,66 @@ public class itemsTable {
         public static final String IS_REMOVED = "isRemoved";
     }
 
-    /** Query for create the table */
-    public static final String SQL_CREATE_ENTRIES = "CREATE TABLE IF NOT EXISTS " +
-                    FeedEntry.TABLE_NAME + " ( " +
-                    FeedEntry._ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    FeedEntry.NAME + " TEXT NOT NULL," +
-                    FeedEntry.DESCRIPTION + " TEXT," +
-                    FeedEntry.VALUE + " REAL NOT NULL," +
-                    FeedEntry.IS_REMOVED + " INTEGER NOT NULL);";
+    /**
+     * Join the items table (alias "i") to a query, by item ID.
+     * @param itemIdColumn Column of the item ID in the main query, e.g. "r.ItemID".
+     * @return SQL " LEFT JOIN BasicItem i ON ...". Unknown items get NULL columns.
+     */
+    public static @NonNull String sqlLeftJoinItems(@NonNull String itemIdColumn) {
+        return " LEFT JOIN " + FeedEntry.TABLE_NAME + " i ON i." + FeedEntry._ID + " = " +
+                itemIdColumn;
+    }
+
+    /** Columns of the joined items table (See sqlLeftJoinItems): Name, Description, isRemoved */
+    public static final String SQL_JOINED_ITEM_COLUMNS = "i." + FeedEntry.NAME + ", i." +
+                    FeedEntry.DESCRIPTION + ", i." + FeedEntry.IS_REMOVED;
+
+    /** Full-text search index over items names and descriptions. docid is the item _ID */
+    private static final String SEARCH_TABLE_NAME = FeedEntry.TABLE_NAME + "Search";
 
     public static @NonNull String getTableName() {
         return FeedEntry.TABLE_NAME;
     }
 
-    public itemsTable(@NonNull SQLiteDatabase db) {
+    public itemsTable(@NonNull SQLiteDatabase db, @NonNull SQLiteDatabase readDb) {
         this.database = db;
+        this.readDatabase = readDb;
     }
 
     /**
      * Removing the selected (by IDs) item, and return all IDs that has been removed.
      * NOTE: This will mark the item as 'removed'.
+     * The update and the delete from search are compiled once, only the ID is bound for each.
      * @param itemsIDs Selected item by ID to remove from table.
-     * @return Set of all invoice IDs items successfully removed from the table. If null,
-     *          no success, Or empty Set. If no rows, will return the same items IDs.
+     * @return IDs of the items successfully removed from the table (Sorted as given). Empty if
+     *          no success, then nothing is removed.
      */
-    public @NonNull Set<Integer> RemoveItems(@NonNull Set<Integer> itemsIDs) {
-        if (itemsIDs.isEmpty()) return new HashSet<>();
-        Set<Integer> removedIDs = new HashSet<>();
-        boolean success = true;
-        // Go over the IDs, if deleted, adding to the HashSet
-        database.beginTransaction();
-        try {
-            for (Integer itemID : itemsIDs) {
-                ContentValues values = new ContentValues();
-                values.put(FeedEntry.IS_REMOVED, 1);
-                String selection = FeedEntry._ID + " = ?";
-                String[] selectionArgs = { String.valueOf(itemID) };
-                try {
-//                    database.delete(FeedEntry.TABLE_NAME, selection, selectionArgs);
-                    if (database.update(FeedEntry.TABLE_NAME, values, selection, selectionArgs) > 0)
-                        removedIDs.add(itemID);
-                }
-                catch (Exception e) {
-                    Log.e(FeedEntry.TABLE_NAME, e.toString());
-                    success = false;
-                    break;
+    public @NonNull long[] RemoveItems(@NonNull long[] itemsIDs) {
+        if (itemsIDs.length == 0) return new long[0];
+        long[] removedIDs = new long[itemsIDs.length];
+        int removedCount = 0;
+        boolean success = false;
+        database.beginTransactionNonExclusive();
+        try (SQLiteStatement markRemoved = database.compileStatement("UPDATE " +
+                     FeedEntry.TABLE_NAME + " SET " + FeedEntry.IS_REMOVED + " = 1 WHERE " +
+                     FeedEntry._ID + " = ?;");
+             SQLiteStatement deleteSearch = database.compileStatement("DELETE FROM " +
+                     SEARCH_TABLE_NAME + " WHERE docid = ?;")) {
+            for (long itemID : itemsIDs) {
+                markRemoved.bindLong(1, itemID);
+                if (markRemoved.executeUpdateDelete() > 0) {
+                    // Removed items are not searchable
+                    deleteSearch.bindLong(1, itemID);
+                    deleteSearch.executeUpdateDelete();
+                    removedIDs[removedCount++] = itemID;
                 }
             }
-            if (success) { database.setTransactionSuccessful(); }
-        } finally { database.endTransaction(); }
-        return removedIDs;
+            database.setTransactionSuccessful();
+            success = true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        finally { database.endTransaction(); }
+        return success ? Arrays.copyOf(removedIDs, removedCount) : new long[0];
     }
 
     /**
@@ -100,7 +111,7 @@ public class itemsTable {
         String selection = FeedEntry._ID + " = ?";
         String[] selectionArgs = { String.valueOf(ID) };
 
-        Cursor cursor = database.query(
+        Cursor cursor = readDatabase.query(
                 FeedEntry.TABLE_NAME,
                 new String[]{FeedEntry._ID, FeedEntry.NAME, FeedEntry.DESCRIPTION, FeedEntry.VALUE, FeedEntry.IS_REMOVED}, // Columns to retrieve
                 selection,      // WHERE clause
@@ -114,7 +125,7 @@ public class itemsTable {
             long itemId = cursor.getLong(0);
             String name = cursor.getString(1);
             String description = cursor.getString(2);
-            double value = cursor.getDouble(3);
+            long value = cursor.getLong(3);
             isRemoved = cursor.getInt(4) == 1;
             item = new Item(itemId, name, description, value);
         }
@@ -130,9 +141,12 @@ public class itemsTable {
      * @return New item ID as in the data base.
      */
     public int addItem(@NonNull Item newItem) {
+        database.beginTransactionNonExclusive();
         try {
-            String selection = FeedEntry.NAME + " LIKE ? AND " + FeedEntry.IS_REMOVED + " = ?";
-            String[] selectionArgs = new String[]{newItem.getName().toLowerCase(), "0"};
+            // Case insensitive equality, served by the NOCASE name index
+            String selection = FeedEntry.NAME + " = ? COLLATE NOCASE AND " +
+                    FeedEntry.IS_REMOVED + " = ?";
+            String[] selectionArgs = new String[]{newItem.getName(), "0"};
             try (Cursor cursor = database.query(
                     FeedEntry.TABLE_NAME,
                     new String[] {FeedEntry._ID},
@@ -147,19 +161,37 @@ public class itemsTable {
 
             ContentValues values = new ContentValues();
             values.put(FeedEntry.DESCRIPTION, newItem.getDescription());
-            values.put(FeedEntry.VALUE, newItem.getValue());
+            values.put(FeedEntry.VALUE, newItem.getValueCents());
             values.put(FeedEntry.NAME, newItem.getName());
             values.put(FeedEntry.IS_REMOVED, 0);
 
             long tempID = database.insert(FeedEntry.TABLE_NAME, null, values);
-            if (tempID == -1) {
+            if (tempID == -1 || !putSearchEntry(tempID, newItem)) {
                 return -1;
             }
+            database.setTransactionSuccessful();
             return (int) tempID;
         } catch (Exception e) {
             Log.e("DatabaseError", "Error adding item: " + newItem.getName(), e);
             return -1;
         }
+        finally { database.endTransaction(); }
+    }
+
+    /**
+     * Insert or replace the search entry of an item. Caller hold the transaction.
+     * @param ID Item ID (docid in the search table).
+     * @param item Item name and description.
+     * @return True if success.
+     */
+    private boolean putSearchEntry(long ID, @NonNull Item item) {
+        String[] docID = { String.valueOf(ID) };
+        database.delete(SEARCH_TABLE_NAME, "docid = ?", docID);
+        ContentValues values = new ContentValues();
+        values.put("docid", ID);
+        values.put(FeedEntry.NAME, item.getName());
+        values.put(FeedEntry.DESCRIPTION, item.getDescription());
+        return database.insert(SEARCH_TABLE_NAME, null, values) != -1;
     }
 
     /**
@@ -173,22 +205,68 @@ public class itemsTable {
         ContentValues values = new ContentValues();
         values.put(FeedEntry.NAME, updatedItem.getName());
         values.put(FeedEntry.DESCRIPTION, updatedItem.getDescription());
-        values.put(FeedEntry.VALUE, updatedItem.getValue());
+        values.put(FeedEntry.VALUE, updatedItem.getValueCents());
 
         /// Update only where the _id matches the itemID
-        String selection = FeedEntry._ID + " LIKE ?";
+        String selection = FeedEntry._ID + " = ?";
         String[] selectionArgs = { String.valueOf(updatedItem.getID()) };
-        return database.update(
-                FeedEntry.TABLE_NAME,   // The table to update
-                values,                 // The new values to update
-                selection,              // The WHERE clause
-                selectionArgs           // The value (_ID) for the WHERE clause
-        ) > 0;
+        boolean success = false;
+        database.beginTransactionNonExclusive();
+        try {
+            if (database.update(
+                    FeedEntry.TABLE_NAME,   // The table to update
+                    values,                 // The new values to update
+                    selection,              // The WHERE clause
+                    selectionArgs           // The value (_ID) for the WHERE clause
+            ) > 0 && putSearchEntry(updatedItem.getID(), updatedItem)) {
+                database.setTransactionSuccessful();
+                success = true;
+            }
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        finally { database.endTransaction(); }
+        return success;
     }
 
     /**
-     * Get all items, sorted by name or by price or both.
-     * If both false, will return the list of items sorted by ID (last added).
+     * Search items (not removed) by prefix of words in the name or the description, using
+     * the full-text index. Each word of the query must match a word prefix, e.g. "cof bl"
+     * match "Black Coffee".
+     * @param query User query. Special characters are ignored.
+     * @param limit Max results.
+     * @return List of matching items. Empty if no match or empty query.
+     */
+    public @NonNull List<Item> searchItems(@NonNull String query, int limit) {
+        List<Item> itemsList = new ArrayList<>();
+        StringBuilder match = new StringBuilder();
+        // Keep only letters and digits, each word as prefix term (FTS syntax is not exposed)
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (match.length() > 0) match.append(' ');
+            match.append(word).append('*');
+        }
+        if (match.length() == 0 || limit <= 0) return itemsList;
+
+        String sql = "SELECT i." + FeedEntry._ID + ", i." + FeedEntry.NAME + ", i." +
+                FeedEntry.DESCRIPTION + ", i." + FeedEntry.VALUE +
+                " FROM " + SEARCH_TABLE_NAME + " s JOIN " + FeedEntry.TABLE_NAME +
+                " i ON i." + FeedEntry._ID + " = s.docid" +
+                " WHERE " + SEARCH_TABLE_NAME + " MATCH ? AND i." + FeedEntry.IS_REMOVED +
+                " = 0 LIMIT " + limit + ";";
+        try (Cursor cursor = readDatabase.rawQuery(sql, new String[]{ match.toString() })) {
+            while (cursor.moveToNext()) {
+                itemsList.add(new Item(cursor.getLong(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getLong(3)));
+            }
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return itemsList;
+    }
+
+    /**
+     * Get all items, sorted by name or by price or both. Sorted by the indexes: Names are case
+     * insensitive, prices are highest first.
+     * If both false, will return the list of items sorted by ID (first added).
      * @param byName boolean, sorted by names.
      * @param byPrice boolean, sorted by prices.
      * @param includingRemoved Get all items including those removed.
@@ -205,14 +283,15 @@ public class itemsTable {
             selectionArgs = new String[]{"0"};
         }
 
-        if (byName && byPrice) orderBy = FeedEntry.NAME + " ASC, " + FeedEntry.VALUE + " ASC";
-        else if (byName) orderBy = FeedEntry.NAME + " ASC";
-        else if (byPrice) orderBy = FeedEntry.VALUE + " ASC";
+        String byNameAsc = FeedEntry.NAME + " COLLATE NOCASE ASC";
+        if (byName && byPrice) orderBy = byNameAsc + ", " + FeedEntry.VALUE + " DESC";
+        else if (byName) orderBy = byNameAsc;
+        else if (byPrice) orderBy = FeedEntry.VALUE + " DESC, " + FeedEntry._ID + " DESC";
         else orderBy = FeedEntry._ID + " ASC";
 
         // SQL query
         try {
-            Cursor cursor = database.query(
+            Cursor cursor = readDatabase.query(
                     FeedEntry.TABLE_NAME,
                     new String[]{FeedEntry._ID, FeedEntry.NAME, FeedEntry.DESCRIPTION, FeedEntry.VALUE},
                     selection,
@@ -225,7 +304,7 @@ public class itemsTable {
                 int id = cursor.getInt(0);
                 String name = cursor.getString(1);
                 String description = cursor.getString(2);
-                double value = cursor.getDouble(3);
+                long value = cursor.getLong(3);
                 itemsList.add(new Item(id, name, description, value));
             }
             cursor.close();
@@ -233,4 +312,23 @@ public class itemsTable {
         catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
         return itemsList;
     }
+
+    /**
+     * Load all items (including removed items) into the catalog, in a single query.
+     * @param catalog Items catalog to fill.
+     */
+    public void loadCatalog(@NonNull ItemCatalog catalog) {
+        try (Cursor cursor = readDatabase.query(
+                FeedEntry.TABLE_NAME,
+                new String[]{FeedEntry._ID, FeedEntry.NAME, FeedEntry.DESCRIPTION,
+                        FeedEntry.VALUE, FeedEntry.IS_REMOVED},
+                null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                Item item = new Item(cursor.getLong(0), cursor.getString(1),
+                        cursor.getString(2), cursor.getLong(3));
+                catalog.put(item, cursor.getInt(4) == 1);
+            }
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+    }
 }
@@ -0,0 +1,217 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+import androidx.annotation.NonNull;
+
+public class revenueRollupTable {
+
+    /*
+     * This table contain one row (bucket) for each day with invoices: Total revenue,
+     * number of invoices and number of items sold at this day.
+     * The buckets are updated by DatabaseHelper in the same transaction as the invoice itself,
+     * so the statistics are computed from the buckets instead of all invoice rows.
+     * If the buckets drift from the invoices for any reason, use rebuild().
+     */
+
+    private final SQLiteDatabase database;
+    private final SQLiteDatabase readDatabase; // Queries only
+
+    /** Inner class that defines the table contents. Schema: See DatabaseMigrations */
+    private static class FeedEntry {
+        public static final String TABLE_NAME = "RevenueRollup";
+        public static final String YEAR = "Year";
+        public static final String MONTH = "Month";
+        public static final String DAY = "Day";
+        public static final String REVENUE = "Revenue";
+        public static final String INVOICE_COUNT = "InvoiceCount";
+        public static final String ITEM_COUNT = "ItemCount";
+    }
+
+    /** Create an empty bucket, if not exists */
+    private static final String SQL_INSERT_BUCKET = "INSERT OR IGNORE INTO " +
+                    FeedEntry.TABLE_NAME + " VALUES (?, ?, ?, 0, 0, 0);";
+
+    /** Add the deltas to a bucket */
+    private static final String SQL_UPDATE_BUCKET = "UPDATE " + FeedEntry.TABLE_NAME + " SET " +
+                    FeedEntry.REVENUE + " = " + FeedEntry.REVENUE + " + ?, " +
+                    FeedEntry.INVOICE_COUNT + " = " + FeedEntry.INVOICE_COUNT + " + ?, " +
+                    FeedEntry.ITEM_COUNT + " = " + FeedEntry.ITEM_COUNT + " + ? " +
+                    "WHERE " + FeedEntry.YEAR + " = ? AND " + FeedEntry.MONTH + " = ? AND " +
+                    FeedEntry.DAY + " = ?;";
+
+    /** Max IDs for each "IN" query, below the SQLite host parameters limit (999) */
+    private static final int MAX_IDS_FOR_QUERY = 500;
+
+    public static @NonNull String getTableName() {
+        return FeedEntry.TABLE_NAME;
+    }
+
+    public revenueRollupTable(@NonNull SQLiteDatabase db, @NonNull SQLiteDatabase readDb) {
+        this.database = db;
+        this.readDatabase = readDb;
+    }
+
+    /**
+     * Add an invoice to the bucket of its date. For removing an invoice, use negative values.
+     * Must be called inside the transaction of the invoice change.
+     * @param dateFormatted Invoice date, format as "yyyy-MM-dd hh:mm:ss".
+     * @param revenue Total price of the invoice in cents (Negative for remove).
+     * @param invoices Number of invoices (1 for add, -1 for remove).
+     * @param items Total quantity of items in the invoice (Negative for remove).
+     * @return True if success.
+     */
+    public boolean addToBucket(@NonNull String dateFormatted, long revenue, int invoices,
+                               long items) {
+        int year, month, day;
+        try {
+            year = Integer.parseInt(dateFormatted.substring(0, 4));
+            month = Integer.parseInt(dateFormatted.substring(5, 7));
+            day = Integer.parseInt(dateFormatted.substring(8, 10));
+        }
+        catch (Exception e) {
+            Log.e(FeedEntry.TABLE_NAME, "Invalid date: " + dateFormatted);
+            return false;
+        }
+
+        database.beginTransactionNonExclusive();
+        try (SQLiteStatement insert = database.compileStatement(SQL_INSERT_BUCKET);
+             SQLiteStatement update = database.compileStatement(SQL_UPDATE_BUCKET)) {
+            insert.bindLong(1, year);
+            insert.bindLong(2, month);
+            insert.bindLong(3, day);
+            insert.executeInsert();
+
+            update.bindLong(1, revenue);
+            update.bindLong(2, invoices);
+            update.bindLong(3, items);
+            update.bindLong(4, year);
+            update.bindLong(5, month);
+            update.bindLong(6, day);
+            if (update.executeUpdateDelete() == 1) {
+                database.setTransactionSuccessful();
+                return true;
+            }
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        finally { database.endTransaction(); }
+        return false;
+    }
+
+    /**
+     * Subtract the given invoices from their buckets: One grouped statement for each chunk of
+     * IDs, each bucket is updated once with the totals of its invoices (Not once per invoice).
+     * A bucket missing from the table is created with the negative totals, as addToBucket.
+     * Must be called inside the transaction of the removal, before the invoices are removed.
+     * @param IDs Invoices IDs, unique. IDs not found are ignored.
+     * @return True if success.
+     */
+    public boolean subtractInvoices(@NonNull long[] IDs) {
+        boolean success = false;
+        database.beginTransactionNonExclusive();
+        try {
+            for (int start = 0; start < IDs.length; start += MAX_IDS_FOR_QUERY) {
+                int count = Math.min(MAX_IDS_FOR_QUERY, IDs.length - start);
+                try (SQLiteStatement subtract = database.compileStatement(
+                        sqlSubtractTotals(count))) {
+                    for (int i = 0; i < count; i++) subtract.bindLong(i + 1, IDs[start + i]);
+                    subtract.execute();
+                }
+            }
+            database.setTransactionSuccessful();
+            success = true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        finally { database.endTransaction(); }
+        return success;
+    }
+
+    /**
+     * Replace each bucket of the invoices by itself minus their daily totals (Primary key:
+     * Year, Month, Day). The "IN" list has count IDs.
+     */
+    private static @NonNull String sqlSubtractTotals(int count) {
+        return "INSERT OR REPLACE INTO " + FeedEntry.TABLE_NAME + " (" +
+                FeedEntry.YEAR + ", " + FeedEntry.MONTH + ", " + FeedEntry.DAY + ", " +
+                FeedEntry.REVENUE + ", " + FeedEntry.INVOICE_COUNT + ", " +
+                FeedEntry.ITEM_COUNT + ") " +
+                "SELECT t.Year, t.Month, t.Day, " +
+                "IFNULL(b." + FeedEntry.REVENUE + ", 0) - t.Revenue, " +
+                "IFNULL(b." + FeedEntry.INVOICE_COUNT + ", 0) - t.Invoices, " +
+                "IFNULL(b." + FeedEntry.ITEM_COUNT + ", 0) - t.Items " +
+                "FROM (" + invoicesFramesTable.sqlSelectDailyTotalsOf(count) + ") t " +
+                "LEFT JOIN " + FeedEntry.TABLE_NAME + " b ON b." + FeedEntry.YEAR +
+                " = t.Year AND b." + FeedEntry.MONTH + " = t.Month AND b." + FeedEntry.DAY +
+                " = t.Day;";
+    }
+
+    /**
+     * Reconstruct all buckets from scratch, from the invoice frames and rows.
+     * Use it to repair any drift between the buckets and the invoices.
+     * @return True if success.
+     */
+    public boolean rebuild() {
+        boolean success = false;
+        database.beginTransactionNonExclusive();
+        try {
+            rebuild(database);
+            database.setTransactionSuccessful();
+            success = true;
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        finally { database.endTransaction(); }
+        return success;
+    }
+
+    /**
+     * Reconstruct all buckets.
+     * @param database The database. Caller is responsible for the transaction.
+     */
+    private static void rebuild(@NonNull SQLiteDatabase database) {
+        database.execSQL("DELETE FROM " + FeedEntry.TABLE_NAME + ";");
+        database.execSQL("INSERT INTO " + FeedEntry.TABLE_NAME + " (" +
+                FeedEntry.YEAR + ", " + FeedEntry.MONTH + ", " + FeedEntry.DAY + ", " +
+                FeedEntry.REVENUE + ", " + FeedEntry.INVOICE_COUNT + ", " +
+                FeedEntry.ITEM_COUNT + ") " +
+                invoicesFramesTable.SQL_SELECT_DAILY_TOTALS + ";");
+    }
+
+    /**
+     * Total revenue for each month in the given years, summed from the buckets (Integer sum).
+     * @param fromYear First year, included.
+     * @param toYear Last year, included.
+     * @return Array [year - fromYear][month] in cents, month index 0 is January. 0 if no revenue.
+     */
+    public @NonNull long[][] getRevenuesByMonths(int fromYear, int toYear) {
+        if (toYear < fromYear) return new long[0][12];
+        long[][] revenues = new long[toYear - fromYear + 1][12];
+
+        String query =
+                "SELECT " + FeedEntry.YEAR + ", " + FeedEntry.MONTH + ", " +
+                        "SUM(" + FeedEntry.REVENUE + ") " +
+                        "FROM " + FeedEntry.TABLE_NAME + " " +
+                        "WHERE " + FeedEntry.YEAR + " BETWEEN ? AND ? " +
+                        "GROUP BY " + FeedEntry.YEAR + ", " + FeedEntry.MONTH + ";";
+        String[] selectionArgs = { String.valueOf(fromYear), String.valueOf(toYear) };
+
+        try (Cursor cursor = readDatabase.rawQuery(query, selectionArgs)) {
+            while (cursor.moveToNext()) {
+                int year = cursor.getInt(0);
+                int month = cursor.getInt(1);
+                if (year >= fromYear && year <= toYear && month >= 1 && month <= 12)
+                    revenues[year - fromYear][month - 1] = cursor.getLong(2);
+            }
+        }
+        catch (Exception e) { Log.e(FeedEntry.TABLE_NAME, e.toString()); }
+        return revenues;
+    }
+}
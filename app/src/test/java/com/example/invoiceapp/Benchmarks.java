@@ -0,0 +1,38 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import androidx.annotation.NonNull;
+import org.junit.Assume;
+import java.util.Arrays;
+
+/**
+ * Helpers of the benchmark tests. The benchmarks print their timings and assert none, and
+ * are skipped unless the system property "benchmarks" is true: ./gradlew test -Pbenchmarks
+ * (See testOptions in app/build.gradle.kts).
+ */
+final class Benchmarks {
+
+    private Benchmarks() {}
+
+    /** Skip the calling test, unless the benchmarks are enabled. */
+    static void assumeEnabled() {
+        Assume.assumeTrue("Benchmark, run with -Pbenchmarks", Boolean.getBoolean("benchmarks"));
+    }
+
+    /**
+     * @param latency Latency of each run, nanoseconds, any order (Not changed).
+     * @return "p50 ... ms, p99 ... ms".
+     */
+    static @NonNull String percentiles(@NonNull long[] latency) {
+        long[] sorted = latency.clone();
+        Arrays.sort(sorted);
+        return String.format("p50 %.3f ms, p99 %.3f ms", sorted[sorted.length / 2] / 1e6,
+                sorted[sorted.length * 99 / 100] / 1e6);
+    }
+}
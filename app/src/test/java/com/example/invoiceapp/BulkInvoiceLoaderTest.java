@@ -0,0 +1,90 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bulk loader of invoices by IDs (DatabaseHelper.forEachInvoice, sorted long[] IDs): Each
+ * invoice once, by ID order, with its own rows, across the query chunks of 500 IDs.
+ */
+public class BulkInvoiceLoaderTest extends DatabaseTestCase {
+
+    private static final int INVOICES = 1200;
+
+    private Item coffee;
+
+    @Before
+    public void setUp() {
+        openDatabase(DatabaseProfile.DEFAULT);
+        coffee = database.getItemByID(database.addNewItem(new Item(0, "Coffee", "Black", 1250)));
+        // Invoice n has n % 3 + 1 rows, the quantity of row r is r + 1
+        assertTrue(database.runInTransaction(() -> {
+            for (int n = 1; n <= INVOICES; n++)
+                if (!database.addComposedInvoice(rows(n % 3 + 1))) return false;
+            return true;
+        }));
+    }
+
+    @Test
+    public void everyOtherInvoiceAcrossChunks() {
+        // 600 IDs (2 chunks), with unknown IDs at both ends
+        long[] IDs = new long[INVOICES / 2 + 2];
+        for (int i = 1; i <= INVOICES / 2; i++) IDs[i] = 2L * i;
+        IDs[0] = -1;
+        IDs[IDs.length - 1] = INVOICES + 100;
+
+        List<Long> loaded = new ArrayList<>();
+        assertTrue(database.forEachInvoice(IDs, true, (frame, rows) -> {
+            loaded.add(frame.getID());
+            assertEquals(frame.getID() % 3 + 1, rows.size());
+            long total = 0;
+            for (int r = 0; r < rows.size(); r++) {
+                assertEquals(frame.getID(), rows.get(r).getInvoiceID());
+                assertEquals(r + 1, rows.get(r).getQuantity());
+                total += rows.get(r).getTotalRowCents();
+            }
+            assertEquals(frame.getTotalCents(), total);
+            return true;
+        }));
+
+        long[] expected = new long[INVOICES / 2];
+        for (int i = 0; i < expected.length; i++) expected[i] = 2L * (i + 1);
+        assertArrayEquals(expected, toArray(loaded));
+    }
+
+    @Test
+    public void consumerStopsLoading() {
+        long[] IDs = new long[INVOICES];
+        for (int i = 0; i < IDs.length; i++) IDs[i] = i + 1;
+        int[] count = { 0 };
+        assertFalse(database.forEachInvoice(IDs, true, (frame, rows) -> ++count[0] < 10));
+        assertEquals(10, count[0]);
+        assertTrue(database.forEachInvoice(new long[0], true, (frame, rows) -> false));
+    }
+
+    private List<InvoiceRow> rows(int count) {
+        List<InvoiceRow> rows = new ArrayList<>();
+        for (int r = 0; r < count; r++) rows.add(new InvoiceRow(0, r + 1, coffee));
+        return rows;
+    }
+
+    private static long[] toArray(List<Long> values) {
+        long[] array = new long[values.size()];
+        for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+        return array;
+    }
+}
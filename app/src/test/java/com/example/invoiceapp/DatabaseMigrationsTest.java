@@ -0,0 +1,179 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upgrade of a database from each old schema version to the latest: All the data is kept, the
+ * money is converted to cents, the derived tables (revenue rollup, items search) are filled,
+ * and the schema is the same as of a new database.
+ */
+public class DatabaseMigrationsTest extends DatabaseTestCase {
+
+    private static final String DATE = "2024-03-15 10:20:30";
+
+    @Test
+    public void upgradeFromEachVersionKeepsData() throws Exception {
+        List<String> latestSchema = newDatabaseSchema();
+        for (int version = DatabaseMigrations.BASE_VERSION;
+             version < DatabaseMigrations.LATEST_VERSION; version++) {
+            createOldDatabase(version);
+            openDatabase(DatabaseProfile.DEFAULT);
+            String from = "From version " + version;
+
+            assertEquals(from, DatabaseMigrations.LATEST_VERSION,
+                    database.getReadableDatabase().getVersion());
+            assertEquals(from, latestSchema, schema(database.getReadableDatabase()));
+
+            Item coffee = database.getItemByID(1);
+            assertNotNull(from, coffee);
+            assertEquals(from, 1250, coffee.getValueCents());
+            assertEquals(from, 1, database.searchItems("cof", 10).size());
+            assertEquals(from, 0, database.searchItems("tea", 10).size()); // Removed
+
+            InvoiceFrame frame = database.getInvoiceById(2);
+            assertNotNull(from, frame);
+            assertEquals(from, 4050, frame.getTotalCents());
+            assertEquals(from, FormatUtils.parseDateFullMillis(DATE), frame.getDateMillis());
+            List<InvoiceRow> rows = database.getAllRowsByID(2, true);
+            assertEquals(from, 2, rows.size());
+            assertEquals(from, 4050, rows.get(0).getTotalRowCents()
+                    + rows.get(1).getTotalRowCents());
+
+            long[] revenues = database.getRevenuesByMonths(2024, 2024)[0];
+            assertEquals(from, 4050 + 99, revenues[2]);
+            assertEquals(from, coffee.toString(), database.bestSellingItem());
+
+            // Draft kept, its rows apart from the invoices rows
+            List<InvoiceRow> draft = database.getDraftRows(invoiceDraftsTable.NEW_INVOICE);
+            if (version >= 7) {
+                assertNotNull(from, draft);
+                assertEquals(from, 1, draft.size());
+                assertEquals(from, 2, draft.get(0).getQuantity());
+                assertEquals(from, 2500, draft.get(0).getTotalRowCents());
+            }
+            else assertNull(from, draft);
+            assertEquals(from, 2, database.getInvoicesCount());
+
+            // Removed invoices IDs are not recycled
+            assertTrue(from, database.addComposedInvoice(rows));
+            long[] IDs = database.getInvoiceIDs(InvoiceFilter.ALL);
+            assertEquals(from, 8, IDs[IDs.length - 1]);
+
+            deleteDatabaseFile();
+        }
+    }
+
+    @Test
+    public void realMoneyRoundedToCents() {
+        // REAL values whose multiply by 100 is just below the half (0.285 * 100 = 28.4999...)
+        double[] values = { 0.285, 1.005, 0.145, 2.675, 1.115, 0.015, 12.5, 0.99,
+                1_000_000_000.005 };
+        long[] cents = { 29, 101, 15, 268, 112, 2, 1250, 99, 100_000_000_001L };
+        try (SQLiteDatabase old = SQLiteDatabase.openOrCreateDatabase(
+                context.getDatabasePath(databaseName()), null)) {
+            DatabaseMigrations.createBaseSchema(old);
+            DatabaseMigrations.migrate(old, DatabaseMigrations.BASE_VERSION, 5);
+            for (int i = 0; i < values.length; i++) {
+                old.execSQL("INSERT INTO BasicItem (_id, Name, Description, Value, isRemoved) " +
+                        "VALUES (?, ?, NULL, ?, 0)", new Object[]{ i + 1, "Item " + i,
+                        values[i] });
+                old.execSQL("INSERT INTO InvoiceFrame (_id, Date, Price, DateEpoch) " +
+                        "VALUES (?, '" + DATE + "', ?, 0)", new Object[]{ i + 1, values[i] });
+                old.execSQL("INSERT INTO InvoiceRows (InvoiceID, ItemID, Value, Amount) " +
+                        "VALUES (?, ?, ?, 1)", new Object[]{ i + 1, i + 1, values[i] });
+            }
+            old.setVersion(5);
+        }
+        openDatabase(DatabaseProfile.DEFAULT);
+        for (int i = 0; i < values.length; i++) {
+            String value = "Value " + values[i];
+            assertEquals(value, cents[i], database.getItemByID(i + 1).getValueCents());
+            assertEquals(value, cents[i], database.getInvoiceById(i + 1).getTotalCents());
+            assertEquals(value, cents[i],
+                    database.getAllRowsByID(i + 1, true).get(0).getTotalRowCents());
+        }
+    }
+
+    /** Schema of a new database, created by the base schema and all the migrations. */
+    private List<String> newDatabaseSchema() {
+        List<String> schema = schema(openDatabase(DatabaseProfile.DEFAULT).getReadableDatabase());
+        deleteDatabaseFile();
+        return schema;
+    }
+
+    /**
+     * Create a database file at the given schema version, with the data as the app of this
+     * version writes it: Items Coffee (12.50) and Tea (removed), invoice 1 (1 x Tea at 0.99)
+     * and invoice 2 (3 x Coffee, 1 x Tea), and the IDs up to 7 used by removed invoices.
+     * From version 7, a draft of a new invoice (2 x Coffee).
+     * NOTE: The row value is the row total (price * amount).
+     */
+    private void createOldDatabase(int version) {
+        try (SQLiteDatabase old = SQLiteDatabase.openOrCreateDatabase(
+                context.getDatabasePath(databaseName()), null)) {
+            DatabaseMigrations.createBaseSchema(old);
+            DatabaseMigrations.migrate(old, DatabaseMigrations.BASE_VERSION, version);
+
+            boolean cents = version >= 6;
+            old.execSQL("INSERT INTO BasicItem (_id, Name, Description, Value, isRemoved) " +
+                    "VALUES (1, 'Coffee', 'Black', ?, 0), (2, 'Tea', NULL, ?, 1)",
+                    new Object[]{ money(cents, 1250), money(cents, 300) });
+            if (version >= 5)
+                old.execSQL("INSERT INTO BasicItemSearch (docid, Name, Description) " +
+                        "VALUES (1, 'Coffee', 'Black')");
+
+            String dateEpoch = version >= 4 ? ", DateEpoch" : "";
+            String epoch = version >= 4
+                    ? ", CAST(strftime('%s', '" + DATE + "', 'utc') AS INTEGER) * 1000" : "";
+            old.execSQL("INSERT INTO InvoiceFrame (_id, Date, Price" + dateEpoch + ") " +
+                    "VALUES (1, '" + DATE + "', ?" + epoch + "), (2, '" + DATE + "', ?" +
+                    epoch + ")", new Object[]{ money(cents, 99), money(cents, 4050) });
+            old.execSQL("UPDATE sqlite_sequence SET seq = 7 WHERE name = 'InvoiceFrame'");
+            old.execSQL("INSERT INTO InvoiceRows (InvoiceID, ItemID, Value, Amount) VALUES " +
+                    "(1, 2, ?, 1), (2, 1, ?, 3), (2, 2, ?, 1)",
+                    new Object[]{ money(cents, 99), money(cents, 3750), money(cents, 300) });
+            if (version >= 7) {
+                old.execSQL("INSERT INTO InvoiceDraft (_id, EditID, Updated) VALUES (1, 0, 0)");
+                old.execSQL("INSERT INTO InvoiceDraftRows (DraftID, ItemID, Value, Amount) " +
+                        "VALUES (1, 1, 2500, 2)");
+            }
+            if (version >= 3)
+                old.execSQL("INSERT INTO RevenueRollup VALUES (2024, 3, 15, ?, 2, 5)",
+                        new Object[]{ money(cents, 4149) });
+            old.setVersion(version);
+        }
+    }
+
+    /** Money as stored by the given schema: REAL before version 6, INTEGER cents after */
+    private static Object money(boolean cents, long amountCents) {
+        return cents ? (Object) amountCents : (Object) (amountCents / 100.0);
+    }
+
+    private static List<String> schema(SQLiteDatabase db) {
+        List<String> schema = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT type, name, sql FROM sqlite_master " +
+                "WHERE name NOT LIKE 'sqlite_%' AND name <> 'android_metadata' ORDER BY name",
+                null)) {
+            while (cursor.moveToNext())
+                schema.add(cursor.getString(0) + " " + cursor.getString(1) + " "
+                        + cursor.getString(2));
+        }
+        return schema;
+    }
+}
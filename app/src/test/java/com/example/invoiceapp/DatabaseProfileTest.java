@@ -0,0 +1,120 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connection profile: The per connection PRAGMAs reach the pooled read connections, and the
+ * read latency while invoices are saved, with the rollback journal (before) and WAL (after).
+ * Runs on the host with the real SQLite (Robolectric).
+ */
+public class DatabaseProfileTest extends DatabaseTestCase {
+
+    private static final int INVOICES = 2000;
+    private static final int PAGE_SIZE = 50;
+    private static final int READS = 300;
+
+    @Test
+    public void connectionPragmasReachPooledReadConnections() throws Exception {
+        openDatabase(DatabaseProfile.DEFAULT);
+        SQLiteDatabase db = database.getReadableDatabase();
+        assertEquals("wal", queryString(db, "PRAGMA journal_mode"));
+
+        // Slow reads at the same time: Each one holds its own pooled connection
+        String slowRead = "WITH RECURSIVE c(x) AS (SELECT 1 UNION ALL SELECT x + 1 FROM c"
+                + " WHERE x < 200000) SELECT (SELECT cache_size FROM pragma_cache_size),"
+                + " (SELECT synchronous FROM pragma_synchronous), count(*) FROM c";
+        ExecutorService readers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) results.add(readers.submit(() -> queryRow(db, slowRead)));
+            String expected = "-" + DatabaseProfile.DEFAULT.getCacheSizeKiB() + " 1 200000";
+            for (Future<String> result : results) assertEquals(expected, result.get());
+        }
+        finally { readers.shutdown(); }
+    }
+
+    @Test
+    public void readLatencyWhileSaving() throws Exception {
+        Benchmarks.assumeEnabled();
+        long[] rollback = measureReads(DatabaseProfile.ROLLBACK_JOURNAL);
+        long[] wal = measureReads(DatabaseProfile.DEFAULT);
+        System.out.println("Invoices page read while saving, " + INVOICES + " invoices:");
+        System.out.println("  " + DatabaseProfile.ROLLBACK_JOURNAL + " " + Benchmarks.percentiles(rollback));
+        System.out.println("  " + DatabaseProfile.DEFAULT + " " + Benchmarks.percentiles(wal));
+    }
+
+    /**
+     * Seed the invoices, then read pages while another thread keeps saving new invoices.
+     * @return Read latency of each page, nanoseconds.
+     */
+    private long[] measureReads(DatabaseProfile profile) throws Exception {
+        deleteDatabaseFile();
+        openDatabase(profile);
+        int itemID = database.addNewItem(new Item(0, "Coffee", "Black", 1250));
+        List<InvoiceRow> rows = new ArrayList<>();
+        rows.add(new InvoiceRow(0, 3, new Item(itemID, "Coffee", "Black", 1250)));
+        assertTrue(database.runInTransaction(() -> {
+            for (int i = 0; i < INVOICES; i++)
+                if (!database.addComposedInvoice(rows)) return false;
+            return true;
+        }));
+
+        AtomicBoolean reading = new AtomicBoolean(true);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        Future<?> saving = writer.submit(() -> {
+            while (reading.get()) database.addComposedInvoice(rows);
+        });
+        long[] latency = new long[READS];
+        try {
+            for (int i = 0; i < READS; i++) {
+                long start = System.nanoTime();
+                List<InvoiceFrame> page = database.getInvoicesPage(InvoiceSort.DATE, true,
+                        InvoiceFilter.ALL, null, PAGE_SIZE);
+                latency[i] = System.nanoTime() - start;
+                assertEquals(PAGE_SIZE, page.size());
+            }
+        }
+        finally {
+            reading.set(false);
+            saving.get();
+            writer.shutdown();
+            deleteDatabaseFile();
+        }
+        return latency;
+    }
+
+
+    private static String queryString(SQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        }
+    }
+
+    private static String queryRow(SQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            cursor.moveToFirst();
+            StringBuilder row = new StringBuilder(cursor.getString(0));
+            for (int i = 1; i < cursor.getColumnCount(); i++)
+                row.append(' ').append(cursor.getString(i));
+            return row.toString();
+        }
+    }
+}
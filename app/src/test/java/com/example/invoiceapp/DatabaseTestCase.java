@@ -0,0 +1,65 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+/**
+ * Base of the database tests: Each test runs on the host (Robolectric, the real SQLite) with
+ * its own database file, named by the test class. The file is deleted before and after each
+ * test, and the helper opened by the test is closed.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public abstract class DatabaseTestCase {
+
+    protected Context context;
+    protected DatabaseHelper database; // Null until openDatabase()
+
+    @Before
+    public final void deleteDatabaseBefore() {
+        context = RuntimeEnvironment.getApplication();
+        context.deleteDatabase(databaseName());
+    }
+
+    @After
+    public final void deleteDatabaseAfter() {
+        deleteDatabaseFile();
+    }
+
+    /** @return File name of the database of this test class. */
+    protected final @NonNull String databaseName() {
+        return getClass().getSimpleName() + ".db";
+    }
+
+    /**
+     * Open a new helper on the database file (e.g. a process restart), the open helper is
+     * closed first. The file is kept.
+     * @param profile Connection profile.
+     * @return The new helper, also kept in 'database'.
+     */
+    protected final @NonNull DatabaseHelper openDatabase(@NonNull DatabaseProfile profile) {
+        if (database != null) database.close();
+        database = new DatabaseHelper(context, databaseName(), profile);
+        return database;
+    }
+
+    /** Close the helper (if open) and delete the file, for a new database in the same test. */
+    protected final void deleteDatabaseFile() {
+        if (database != null) database.close();
+        database = null;
+        context.deleteDatabase(databaseName());
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Drafts of the invoices being composed, after the process was killed: The saved draft rows are
+ * restored by the next open (new and edited invoice), an interrupted save or commit keeps the
+ * previous draft, and the draft rows (own table) are never seen by the invoices aggregates.
+ */
+public class DraftRecoveryTest extends DatabaseTestCase {
+
+    /** Rows with this quantity fail to insert into InvoiceRows (See failingRowsTrigger) */
+    private static final int FAILING_QUANTITY = 999;
+
+    private Item coffee;
+    private Item tea;
+    private long invoiceID; // 1 x Tea
+
+    @Before
+    public void setUp() {
+        open();
+        coffee = database.getItemByID(database.addNewItem(new Item(0, "Coffee", "Black", 1250)));
+        tea = database.getItemByID(database.addNewItem(new Item(0, "Tea", null, 300)));
+        assertTrue(database.addComposedInvoice(rows(0, tea, 1)));
+        invoiceID = database.getInvoiceIDs(InvoiceFilter.ALL)[0];
+    }
+
+    @Test
+    public void draftsRestoredAfterRestart() {
+        List<InvoiceRow> composed = rows(0, coffee, 3);
+        composed.add(new InvoiceRow(0, 2, tea));
+        assertTrue(database.saveDraft(invoiceDraftsTable.NEW_INVOICE, composed));
+        List<InvoiceRow> edited = rows(invoiceID, tea, 4);
+        assertTrue(database.saveDraft(invoiceID, edited));
+        restart();
+
+        assertSameRows(composed, database.getDraftRows(invoiceDraftsTable.NEW_INVOICE));
+        assertSameRows(edited, database.getDraftRows(invoiceID));
+        assertEquals(invoiceID, database.getDraftRows(invoiceID).get(0).getInvoiceID());
+
+        // Commit the restored drafts
+        assertTrue(database.commitDraft(invoiceDraftsTable.NEW_INVOICE,
+                database.getDraftRows(invoiceDraftsTable.NEW_INVOICE)));
+        assertTrue(database.commitDraft(invoiceID, database.getDraftRows(invoiceID)));
+        assertNull(database.getDraftRows(invoiceDraftsTable.NEW_INVOICE));
+        assertNull(database.getDraftRows(invoiceID));
+        long[] IDs = database.getInvoiceIDs(InvoiceFilter.ALL);
+        assertEquals(2, IDs.length);
+        assertSameRows(edited, database.getAllRowsByID(invoiceID, true));
+        assertSameRows(composed, database.getAllRowsByID(IDs[1], true));
+        assertEquals(3 * 1250 + 2 * 300, database.getInvoiceById(IDs[1]).getTotalCents());
+    }
+
+    @Test
+    public void draftsNotInAggregates() {
+        long[] revenues = thisYearRevenues();
+        // Coffee only in the draft, more than all the Tea sold
+        assertTrue(database.saveDraft(invoiceDraftsTable.NEW_INVOICE, rows(0, coffee, 50)));
+        restart();
+
+        assertEquals(1, database.getInvoicesCount());
+        assertEquals(tea.toString(), database.bestSellingItem());
+        assertEquals(0, database.getInvoiceIDs(
+                InvoiceFilter.ALL.withItem(coffee.getID())).length);
+        assertTrue(database.getInvoicesByItem(coffee.getID(), Long.MAX_VALUE, 10).isEmpty());
+        assertEquals(1, database.getInvoicesByItem(tea.getID(), Long.MAX_VALUE, 10).size());
+        assertTrue(database.rebuildRevenueRollup());
+        assertArrayEquals(revenues, thisYearRevenues());
+    }
+
+    @Test
+    public void interruptedSaveKeepsPreviousDraft() {
+        List<InvoiceRow> saved = rows(0, coffee, 2);
+        assertTrue(database.saveDraft(invoiceDraftsTable.NEW_INVOICE, saved));
+        // Killed in the middle of the next save: Its transaction is never committed
+        assertFalse(database.runInTransaction(() -> {
+            assertTrue(database.saveDraft(invoiceDraftsTable.NEW_INVOICE, rows(0, tea, 7)));
+            return false;
+        }));
+        restart();
+
+        assertSameRows(saved, database.getDraftRows(invoiceDraftsTable.NEW_INVOICE));
+    }
+
+    @Test
+    public void failedCommitKeepsDraft() {
+        long[] revenues = thisYearRevenues();
+        List<InvoiceRow> saved = rows(0, coffee, 2);
+        assertTrue(database.saveDraft(invoiceDraftsTable.NEW_INVOICE, saved));
+        // The copy of the draft rows to the invoice fails
+        failingRowsTrigger();
+        List<InvoiceRow> changed = rows(0, coffee, 2);
+        changed.add(new InvoiceRow(0, FAILING_QUANTITY, tea));
+        assertFalse(database.commitDraft(invoiceDraftsTable.NEW_INVOICE, changed));
+        restart();
+
+        assertEquals(1, database.getInvoicesCount());
+        assertArrayEquals(revenues, thisYearRevenues());
+        assertSameRows(saved, database.getDraftRows(invoiceDraftsTable.NEW_INVOICE));
+        assertTrue(database.commitDraft(invoiceDraftsTable.NEW_INVOICE, changed));
+        assertEquals(2, database.getInvoicesCount());
+        assertNull(database.getDraftRows(invoiceDraftsTable.NEW_INVOICE));
+    }
+
+    private void open() {
+        openDatabase(DatabaseProfile.DEFAULT);
+    }
+
+    /** Process restart: A new helper on the same file, nothing kept in memory */
+    private void restart() {
+        open();
+    }
+
+    /** Make the insert of a row with FAILING_QUANTITY fail, as a write error in the middle */
+    private void failingRowsTrigger() {
+        database.getWritableDatabase().execSQL("CREATE TEMP TRIGGER FailingRow BEFORE INSERT " +
+                "ON InvoiceRows WHEN NEW.Amount = " + FAILING_QUANTITY +
+                " BEGIN SELECT RAISE(ABORT, 'Failing row'); END;");
+    }
+
+    private static List<InvoiceRow> rows(long invoiceID, Item item, int quantity) {
+        List<InvoiceRow> rows = new ArrayList<>();
+        rows.add(new InvoiceRow(invoiceID, quantity, item));
+        return rows;
+    }
+
+    private static void assertSameRows(List<InvoiceRow> expected, List<InvoiceRow> actual) {
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getItemID(), actual.get(i).getItemID());
+            assertEquals(expected.get(i).getItemName(), actual.get(i).getItemName());
+            assertEquals(expected.get(i).getQuantity(), actual.get(i).getQuantity());
+            assertEquals(expected.get(i).getTotalRowCents(), actual.get(i).getTotalRowCents());
+        }
+    }
+
+    private long[] thisYearRevenues() {
+        int year = Calendar.getInstance().get(Calendar.YEAR);
+        return database.getRevenuesByMonths(year, year)[0];
+    }
+}
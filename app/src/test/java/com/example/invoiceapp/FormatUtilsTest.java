@@ -0,0 +1,136 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * FormatUtils: Serial numbers same as the previous DecimalFormat("0000000000"), the same text
+ * when formatted by many threads at once, the number formats created again when the default
+ * locale changes, and the serial number format time against DecimalFormat.
+ */
+public class FormatUtilsTest {
+
+    private static final long[] SERIALS = { 0, 1, 42, 999, 1_000_000, 123_456_789,
+            9_999_999_999L, 10_000_000_000L, 12_345_678_901L, Long.MAX_VALUE, -1, -42 };
+    private static final int THREADS = 8;
+    private static final int CALLS = 20_000;
+    private static final int WARMUP = 100_000;
+    private static final int ROUNDS = 1_000_000;
+
+    private Locale defaultLocale;
+
+    @Before
+    public void setUp() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.US);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @Test
+    public void serialNumberSameAsDecimalFormat() {
+        DecimalFormat previous = new DecimalFormat("0000000000");
+        for (long number : SERIALS)
+            assertEquals("#" + previous.format(number), FormatUtils.formatSerialNumber(number));
+        for (long number = 0; number < 100_000; number += 7)
+            assertEquals("#" + previous.format(number), FormatUtils.formatSerialNumber(number));
+    }
+
+    @Test
+    public void concurrentFormattingSameText() throws Exception {
+        String date = "2025-02-18 12:30:45";
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int offset = t;
+            tasks.add(() -> {
+                for (int i = 0; i < CALLS; i++) {
+                    long number = (long) i * THREADS + offset;
+                    assertEquals(String.format(Locale.US, "#%010d", number),
+                            FormatUtils.formatSerialNumber(number));
+                    assertEquals(String.format(Locale.US, "$%,d.%02d", number / 100,
+                            number % 100), FormatUtils.formatCurrency(number));
+                    assertEquals(String.format(Locale.US, "%,d", number),
+                            FormatUtils.formatInteger((int) number));
+                    assertEquals("18-02-2025", FormatUtils.formatDateCompressed(date));
+                    assertEquals("18-02-2025 12:30:45", FormatUtils.changeFullDateFormat(date));
+                }
+                return null;
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            // Rethrows the failure of any thread
+            for (Future<Void> future : executor.invokeAll(tasks)) future.get();
+        }
+        finally { executor.shutdownNow(); }
+    }
+
+    @Test
+    public void localeChangeCreatesFormatsAgain() throws Exception {
+        long cents = 100_050;
+        assertEquals("$1,000.50", FormatUtils.formatCurrency(cents));
+        assertEquals("1,000", FormatUtils.formatInteger(1000));
+
+        for (Locale locale : new Locale[]{ Locale.GERMANY, Locale.FRANCE, Locale.JAPAN }) {
+            Locale.setDefault(locale);
+            NumberFormat currency = NumberFormat.getCurrencyInstance(locale);
+            currency.setMaximumFractionDigits(Money.SCALE);
+            assertEquals(locale.toString(), currency.format(Money.toDecimal(cents)),
+                    FormatUtils.formatCurrency(cents));
+            assertEquals(locale.toString(), NumberFormat.getIntegerInstance(locale).format(1000),
+                    FormatUtils.formatInteger(1000));
+            // Dates are numeric, the same in any locale
+            assertEquals(locale.toString(), "18/02/2025",
+                    FormatUtils.formatDateForDisplay("2025-02-18"));
+        }
+
+        Locale.setDefault(Locale.US);
+        assertEquals("$1,000.50", FormatUtils.formatCurrency(cents));
+    }
+
+    @Test
+    public void serialNumberFormatTime() {
+        Benchmarks.assumeEnabled();
+        DecimalFormat previous = new DecimalFormat("0000000000");
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += ("#" + previous.format(i)).length();
+            sink += FormatUtils.formatSerialNumber(i).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) sink += ("#" + previous.format(i)).length();
+        long decimalFormat = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) sink += FormatUtils.formatSerialNumber(i).length();
+        long serial = System.nanoTime() - start;
+
+        assertEquals(2L * (WARMUP + ROUNDS) * 11, sink);
+        System.out.printf("Serial number format, ns/call: DecimalFormat %.1f -> %.1f (x%.2f)%n",
+                (double) decimalFormat / ROUNDS, (double) serial / ROUNDS,
+                (double) decimalFormat / serial);
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit of the writes (GroupCommitQueue): The items catalog gets only committed items
+ * (Not inside the transaction, not after a rollback), and the load of many concurrent invoice
+ * saves, invoices/sec and p99 latency, grouped against a commit for each save.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class GroupCommitTest {
+
+    private static final int THREADS = 8;
+    private static final int SAVES_PER_THREAD = 100;
+
+    private Context context;
+    private DatabaseHelper database;
+    private Item coffee;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.getApplication();
+        // The writer uses the app database instance, kept between tests
+        database = DatabaseHelper.getInstance(context);
+        coffee = database.getItemByID(database.addNewItem(
+                new Item(0, "Coffee " + System.nanoTime(), "Black", 1250)));
+    }
+
+    @After
+    public void tearDown() {
+        long[] IDs = database.getInvoiceIDs(InvoiceFilter.ALL);
+        if (IDs.length > 0) database.RemoveInvoiceFrames(IDs);
+    }
+
+    @Test
+    public void catalogNotChangedByRolledBackItem() {
+        int[] ID = { 0 };
+        assertFalse(database.runInTransaction(() -> {
+            ID[0] = database.addNewItem(new Item(0, "Tea " + System.nanoTime(), null, 300));
+            assertTrue(ID[0] > 0);
+            assertNull(readOnOtherThread(ID[0])); // Not committed yet
+            return false;
+        }));
+        assertNull(database.getItemByID(ID[0]));
+        assertNull(readOnOtherThread(ID[0]));
+
+        // Failed nested transaction rolls back the outer one
+        assertFalse(database.runInTransaction(() -> {
+            ID[0] = database.addNewItem(new Item(0, "Tea " + System.nanoTime(), null, 300));
+            database.runInTransaction(() -> false);
+            return true;
+        }));
+        assertNull(database.getItemByID(ID[0]));
+
+        // Rows of removed items are shown as "Item Removed" (by the catalog)
+        List<InvoiceRow> rows = new ArrayList<>();
+        rows.add(new InvoiceRow(0, 1, coffee));
+        assertTrue(database.addComposedInvoice(rows));
+        long invoiceID = database.getInvoiceIDs(InvoiceFilter.ALL)[0];
+        long[] removed = { coffee.getID() };
+        assertFalse(database.runInTransaction(() -> {
+            assertEquals(1, database.removeItems(removed).length);
+            return false;
+        }));
+        assertEquals(coffee.getName(),
+                database.getAllRowsByID(invoiceID, false).get(0).getItemName());
+    }
+
+    @Test
+    public void catalogUpdatedAfterCommit() {
+        String name = "Tea " + System.nanoTime();
+        int[] ID = { 0 };
+        assertTrue(database.runInTransaction(() -> {
+            ID[0] = database.addNewItem(new Item(0, name, null, 300));
+            assertNull(readOnOtherThread(ID[0]));
+            return true;
+        }));
+        Item tea = database.getItemByID(ID[0]);
+        assertNotNull(tea);
+        assertEquals(name, tea.getName());
+        assertEquals(tea.getName(), readOnOtherThread(ID[0]).getName());
+    }
+
+    @Test
+    public void rolledBackGroupKeepsCatalog() throws Exception {
+        GroupCommitQueue queue = new GroupCommitQueue(context, 50, 8);
+        String name = "Tea " + System.nanoTime();
+        CountDownLatch delivered = new CountDownLatch(2);
+        int[] ID = { 0 };
+        // Item add, then a failing write of the same group: Rolled back, then run alone
+        queue.submit(new TestEntry(delivered, db -> {
+            ID[0] = db.addNewItem(new Item(0, name, null, 300));
+            return ID[0] > 0;
+        }));
+        queue.submit(new TestEntry(delivered, db -> false));
+        assertTrue(delivered.await(10, TimeUnit.SECONDS));
+
+        Item tea = database.getItemByID(ID[0]);
+        assertNotNull(tea);
+        assertEquals(name, tea.getName());
+        assertEquals(1, database.searchItems(name, 5).size());
+    }
+
+    @Test
+    public void saveLoad() throws Exception {
+        Benchmarks.assumeEnabled();
+        System.out.println("Invoice saves, " + THREADS + " threads x " + SAVES_PER_THREAD + ":");
+        measure("commit each", new GroupCommitQueue(context, 0, 1));
+        measure("grouped", new GroupCommitQueue(context, GroupCommitQueue.DEFAULT_BUDGET_MILLIS,
+                GroupCommitQueue.DEFAULT_MAX_GROUP));
+    }
+
+    /** Each thread saves invoices one after the other, waiting for each commit. */
+    private void measure(String name, GroupCommitQueue queue) throws Exception {
+        List<InvoiceRow> rows = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) rows.add(new InvoiceRow(0, i, coffee));
+        long before = database.getInvoicesCount();
+
+        ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+        List<Future<long[]>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(threads.submit(() -> {
+                long[] latency = new long[SAVES_PER_THREAD];
+                for (int i = 0; i < SAVES_PER_THREAD; i++) {
+                    CountDownLatch delivered = new CountDownLatch(1);
+                    TestEntry save = new TestEntry(delivered,
+                            db -> db.addComposedInvoice(rows));
+                    long submitted = System.nanoTime();
+                    queue.submit(save);
+                    assertTrue(delivered.await(10, TimeUnit.SECONDS));
+                    latency[i] = System.nanoTime() - submitted;
+                    assertTrue(save.success);
+                }
+                return latency;
+            }));
+        }
+        long[] latency = new long[THREADS * SAVES_PER_THREAD];
+        for (int t = 0; t < THREADS; t++)
+            System.arraycopy(results.get(t).get(), 0, latency, t * SAVES_PER_THREAD,
+                    SAVES_PER_THREAD);
+        long elapsed = System.nanoTime() - start;
+        threads.shutdown();
+
+        assertEquals(before + latency.length, database.getInvoicesCount());
+        System.out.printf("  %-12s %,8.0f invoices/sec, %s, %.1f saves/commit%n", name,
+                latency.length / (elapsed / 1e9), Benchmarks.percentiles(latency),
+                (double) queue.getCommittedWrites() / queue.getCommitGroups());
+    }
+
+    /** @return Item from the catalog, read by another thread. */
+    private Item readOnOtherThread(long ID) {
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try { return reader.submit(() -> database.getItemByID(ID)).get(); }
+        catch (Exception e) { throw new AssertionError(e); }
+        finally { reader.shutdown(); }
+    }
+
+    /** Write of the tests */
+    private interface Write {
+        boolean run(@NonNull DatabaseHelper database) throws Exception;
+    }
+
+    private static final class TestEntry implements GroupCommitQueue.Entry {
+        private final CountDownLatch delivered;
+        private final Write write;
+        volatile boolean success;
+
+        TestEntry(CountDownLatch delivered, Write write) {
+            this.delivered = delivered;
+            this.write = write;
+        }
+
+        @Override
+        public boolean perform(@NonNull DatabaseHelper database) throws Exception {
+            success = write.run(database);
+            return success;
+        }
+
+        @Override
+        public void complete() {
+            delivered.countDown();
+        }
+
+        @Override
+        public void fail(@NonNull Throwable error) {
+            success = false;
+            delivered.countDown();
+        }
+
+        @Override
+        public boolean isGrouped() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Invoice filters (InvoiceFilter) against a seeded database: Each combination of date, price,
+ * ID, item and min quantity returns the same invoices as a check of each invoice in memory,
+ * for the IDs, the count and the pages. And the query plan of each condition: Served by its
+ * index, no full scan of the frames, no temporary sort of the rows.
+ */
+public class InvoiceFilterTest extends DatabaseTestCase {
+
+    private static final int INVOICES = 60;
+    private static final int ITEMS = 4;
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final long FIRST_DATE = 1_700_000_000_000L;
+    private static final int MIN_QUANTITY = 4;
+
+    private final long[] itemIDs = new long[ITEMS];
+    private final long[] invoiceIDs = new long[INVOICES];
+    private final long[] dates = new long[INVOICES];
+    private final long[] totals = new long[INVOICES];
+    private final int[][] quantities = new int[INVOICES][ITEMS]; // By invoice, item
+
+    @Before
+    public void setUp() {
+        openDatabase(DatabaseProfile.DEFAULT);
+        Item[] items = new Item[ITEMS];
+        for (int i = 0; i < ITEMS; i++) {
+            itemIDs[i] = database.addNewItem(new Item(0, "Item " + i, null, 100L * (i + 1)));
+            items[i] = database.getItemByID(itemIDs[i]);
+        }
+
+        // 1 to 3 rows for each invoice, a day apart
+        Random random = new Random(24);
+        SQLiteDatabase db = database.getWritableDatabase();
+        for (int n = 0; n < INVOICES; n++) {
+            List<InvoiceRow> rows = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                if (rows.size() == 3 || random.nextInt(2) == 0) continue;
+                quantities[n][i] = random.nextInt(5) + 1;
+                rows.add(new InvoiceRow(0, quantities[n][i], items[i]));
+                totals[n] += items[i].getValueCents() * quantities[n][i];
+            }
+            if (rows.isEmpty()) {
+                quantities[n][0] = 1;
+                rows.add(new InvoiceRow(0, 1, items[0]));
+                totals[n] = items[0].getValueCents();
+            }
+            assertTrue(database.addComposedInvoice(rows));
+            invoiceIDs[n] = database.getInvoiceIDs(InvoiceFilter.ALL)[n];
+            dates[n] = FIRST_DATE + n * DAY_MILLIS;
+            db.execSQL("UPDATE InvoiceFrame SET DateEpoch = ? WHERE _id = ?",
+                    new Object[]{ dates[n], invoiceIDs[n] });
+        }
+    }
+
+    @Test
+    public void eachCombinationMatchesInvoices() {
+        long[] sortedTotals = totals.clone();
+        Arrays.sort(sortedTotals);
+        int combinations = 0, matched = 0;
+        // Bit per condition: Date, price, ID, item, min quantity
+        for (int set = 0; set < 32; set++) {
+            for (long itemID : itemIDs) {
+                if ((set & 8) == 0 && itemID != itemIDs[0]) continue; // No item: Once
+                InvoiceFilter filter = filter(set, itemID, sortedTotals);
+                long[] expected = expectedIDs(filter);
+                String name = "Conditions " + Integer.toBinaryString(set) + ", item " + itemID;
+
+                assertArrayEquals(name, expected, database.getInvoiceIDs(filter));
+                assertEquals(name, expected.length, database.getInvoicesCount(filter));
+                assertArrayEquals(name, expected, pagesIDs(filter));
+                combinations++;
+                matched += expected.length;
+            }
+        }
+        // The filters are not all empty (or all invoices)
+        assertTrue(matched > 0);
+        assertTrue(matched < combinations * INVOICES);
+        assertTrue(database.getInvoiceIDs(InvoiceFilter.ALL.withMinQuantity(MIN_QUANTITY))
+                .length > 0);
+        assertTrue(database.getInvoiceIDs(InvoiceFilter.ALL.withItem(itemIDs[1])
+                .withMinQuantity(MIN_QUANTITY)).length > 0);
+    }
+
+    @Test
+    public void conditionsServedByIndexes() {
+        long[] sortedTotals = totals.clone();
+        Arrays.sort(sortedTotals);
+        for (int set = 1; set < 32; set++) {
+            InvoiceFilter filter = filter(set, itemIDs[1], sortedTotals);
+            String plan = queryPlan(filter);
+            String name = "Conditions " + Integer.toBinaryString(set) + ": " + plan;
+
+            // Frames: A search by an index or the rowid, never a full scan. Rows: Grouped by
+            // the index order (The IDs of the result may be sorted)
+            assertTrue(name, plan.matches(".*SEARCH (TABLE )?InvoiceFrame .*"));
+            assertFalse(name, plan.matches(".*SCAN (TABLE )?InvoiceFrame.*"));
+            assertFalse(name, plan.contains("TEMP B-TREE FOR GROUP BY"));
+            if ((set & 8) != 0)
+                assertTrue(name, plan.contains("InvoiceRows_ItemID_InvoiceID"));
+            else if ((set & 16) != 0)
+                assertTrue(name, plan.contains("InvoiceRows_InvoiceID"));
+            if (set == 1) assertTrue(name, plan.contains("INDEX InvoiceFrame_DateEpoch"));
+            if (set == 2) assertTrue(name, plan.contains("INDEX InvoiceFrame_Price"));
+            if (set == 4) assertTrue(name, plan.contains("INTEGER PRIMARY KEY"));
+        }
+    }
+
+    /**
+     * Filter of the set conditions (Bits: 1 date, 2 price, 4 ID, 8 item, 16 min quantity).
+     * Each range holds about the middle half of the invoices.
+     */
+    private InvoiceFilter filter(int set, long itemID, long[] sortedTotals) {
+        InvoiceFilter filter = InvoiceFilter.ALL;
+        if ((set & 1) != 0)
+            filter = filter.withDateRange(dates[INVOICES / 6], dates[INVOICES * 5 / 6]);
+        if ((set & 2) != 0)
+            filter = filter.withPriceRange(sortedTotals[INVOICES / 4],
+                    sortedTotals[INVOICES * 3 / 4]);
+        if ((set & 4) != 0)
+            filter = filter.withIDRange(invoiceIDs[INVOICES / 3], invoiceIDs[INVOICES - 5]);
+        if ((set & 8) != 0) filter = filter.withItem(itemID);
+        if ((set & 16) != 0) filter = filter.withMinQuantity(MIN_QUANTITY);
+        return filter;
+    }
+
+    /** @return IDs of the invoices of the filter, each invoice checked in memory. */
+    private long[] expectedIDs(InvoiceFilter filter) {
+        List<Long> IDs = new ArrayList<>();
+        for (int n = 0; n < INVOICES; n++) {
+            if (dates[n] < filter.getFromMillis() || dates[n] >= filter.getToMillis()) continue;
+            if (totals[n] < filter.getMinCents() || totals[n] > filter.getMaxCents()) continue;
+            if (invoiceIDs[n] < filter.getFromID() || invoiceIDs[n] > filter.getToID()) continue;
+            int quantity = 0;
+            for (int i = 0; i < ITEMS; i++)
+                if (!filter.hasItem() || itemIDs[i] == filter.getItemID())
+                    quantity += quantities[n][i];
+            if (quantity == 0 || quantity < filter.getMinQuantity()) continue;
+            IDs.add(invoiceIDs[n]);
+        }
+        long[] array = new long[IDs.size()];
+        for (int i = 0; i < array.length; i++) array[i] = IDs.get(i);
+        return array;
+    }
+
+    /** @return IDs of all the pages of the filter (by ID, pages of 7), ascending. */
+    private long[] pagesIDs(InvoiceFilter filter) {
+        List<Long> IDs = new ArrayList<>();
+        InvoiceFrame anchor = null;
+        while (true) {
+            List<InvoiceFrame> page = database.getInvoicesPage(InvoiceSort.ID, false, filter,
+                    anchor, 7);
+            if (page.isEmpty()) break;
+            for (InvoiceFrame frame : page) IDs.add(frame.getID());
+            anchor = page.get(page.size() - 1);
+        }
+        long[] array = new long[IDs.size()];
+        for (int i = 0; i < array.length; i++) array[i] = IDs.get(i);
+        return array;
+    }
+
+    /** @return Query plan of the filter IDs query, the details of all steps in one line. */
+    private String queryPlan(InvoiceFilter filter) {
+        List<String> args = new ArrayList<>();
+        String query = "EXPLAIN QUERY PLAN SELECT _id FROM InvoiceFrame" +
+                invoicesFramesTable.sqlFilter(filter, args) + " ORDER BY _id";
+        StringBuilder plan = new StringBuilder();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(query,
+                args.toArray(new String[0]))) {
+            int detail = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) plan.append(cursor.getString(detail)).append("; ");
+        }
+        return plan.toString();
+    }
+}
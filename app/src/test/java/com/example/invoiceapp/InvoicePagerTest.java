@@ -0,0 +1,195 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.os.Looper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pages window of InvoicePager after removing frames: When all the frames of the window are
+ * removed while there are more frames, the window is filled again from the removed frames
+ * position (after them, or before them at the last page).
+ * Invoices 1..11 (By save order), newest first, pages of 3 frames (The last page is 2..1) and
+ * at most 2 pages in the window.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34, manifest = Config.NONE)
+public class InvoicePagerTest {
+
+    private static final int INVOICES = 11;
+    private static final int PAGE_SIZE = 3;
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    private DatabaseHelper database;
+    private InvoiceRepository.Scope requests;
+    private InvoicePager pager;
+    private long[] saved; // IDs of invoices 1..11
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        database = DatabaseHelper.getInstance(context);
+        long[] existing = database.getInvoiceIDs(InvoiceFilter.ALL);
+        if (existing.length > 0) assertTrue(database.RemoveInvoiceFrames(existing));
+        // The database is the app instance, kept between tests: A new item for each test
+        int itemID = database.addNewItem(new Item(0, "Coffee " + System.nanoTime(), "Black",
+                1250));
+        List<InvoiceRow> rows = new ArrayList<>();
+        rows.add(new InvoiceRow(0, 1, database.getItemByID(itemID)));
+        for (int i = 0; i < INVOICES; i++) assertTrue(database.addComposedInvoice(rows));
+        saved = database.getInvoiceIDs(InvoiceFilter.ALL);
+        assertEquals(INVOICES, saved.length);
+
+        requests = InvoiceRepository.getInstance(context).newScope();
+        pager = new InvoicePager(requests, PAGE_SIZE, 2);
+        await(callback -> pager.reset(InvoiceSort.DATE, true, callback));
+    }
+
+    @After
+    public void tearDown() {
+        if (requests != null) requests.cancelAll();
+        long[] IDs = database.getInvoiceIDs(InvoiceFilter.ALL);
+        if (IDs.length > 0) database.RemoveInvoiceFrames(IDs);
+    }
+
+    @Test
+    public void removeAllOfWindowLoadsPageAfter() {
+        loadNext();
+        loadNext(); // First page dropped, window 8..3
+        assertArrayEquals(IDs(8, 3), windowIDs());
+        assertTrue(pager.hasPrevious());
+
+        assertEquals(2, (int) await(callback -> remove(IDs(3, 8), callback)));
+        assertArrayEquals(IDs(2, 1), windowIDs());
+        assertFalse(pager.hasNext());
+        assertTrue(pager.hasPrevious());
+        assertTrue(loadPrevious()); // Before the window: 11..9
+        assertArrayEquals(IDs(11, 9, 2, 1), windowIDs());
+    }
+
+    @Test
+    public void removeAllOfLastPageLoadsPageBefore() {
+        loadNext();
+        loadNext();
+        loadNext(); // Window 5..1, the last page
+        assertFalse(pager.hasNext());
+        assertArrayEquals(IDs(5, 1), windowIDs());
+
+        assertEquals(PAGE_SIZE, (int) await(callback -> remove(IDs(1, 5), callback)));
+        assertArrayEquals(IDs(8, 6), windowIDs());
+        assertFalse(pager.hasNext());
+        assertTrue(pager.hasPrevious());
+    }
+
+    @Test
+    public void removeAllFramesLeavesEmptyWindow() {
+        loadNext(); // Window 11..6
+        assertTrue(pager.hasNext());
+        assertEquals(0, (int) await(callback -> remove(IDs(1, INVOICES), callback)));
+        assertEquals(0, pager.size());
+        assertFalse(pager.hasNext());
+        assertFalse(pager.hasPrevious());
+    }
+
+    @Test
+    public void removeSomeKeepsWindow() {
+        loadNext();
+        assertFalse(remove(IDs(10, 11), new Result<>()));
+        assertArrayEquals(IDs(9, 6), windowIDs());
+    }
+
+    /** Remove from database, then from the window. */
+    private boolean remove(long[] IDs, DialogCallback<Integer> callback) {
+        assertTrue(database.RemoveInvoiceFrames(IDs));
+        return pager.remove(IDs, callback);
+    }
+
+    private void loadNext() {
+        if (pager.hasNext()) await(callback -> assertTrue(pager.loadNext(callback)));
+    }
+
+    private boolean loadPrevious() {
+        if (!pager.hasPrevious()) return false;
+        await(callback -> assertTrue(pager.loadPrevious(callback)));
+        return true;
+    }
+
+    /**
+     * @param ranges Pairs of invoice numbers from..to, each ascending or descending.
+     * @return IDs of the invoices, by the given order.
+     */
+    private long[] IDs(int... ranges) {
+        List<Long> IDs = new ArrayList<>();
+        for (int r = 0; r < ranges.length; r += 2) {
+            int step = ranges[r + 1] >= ranges[r] ? 1 : -1;
+            for (int n = ranges[r]; n != ranges[r + 1] + step; n += step) IDs.add(saved[n - 1]);
+        }
+        long[] array = new long[IDs.size()];
+        for (int i = 0; i < array.length; i++) array[i] = IDs.get(i);
+        return array;
+    }
+
+    private long[] windowIDs() {
+        List<InvoiceFrameDisplay> window = pager.snapshot();
+        long[] IDs = new long[window.size()];
+        for (int i = 0; i < IDs.length; i++) IDs[i] = window.get(i).getID();
+        return IDs;
+    }
+
+    /** Request with a callback */
+    private interface Request {
+        void start(DialogCallback<Integer> callback);
+    }
+
+    /** Start the request, and run the main looper until the callback is called. */
+    private static Integer await(Request request) {
+        Result<Integer> result = new Result<>();
+        request.start(result);
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!result.done) {
+            assertTrue("No callback", System.currentTimeMillis() < deadline);
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.yield();
+        }
+        assertTrue(result.failMSG, result.failMSG == null);
+        return result.value;
+    }
+
+    private static final class Result<T> implements DialogCallback<T> {
+        volatile boolean done = false;
+        T value;
+        String failMSG;
+
+        @Override
+        public void onSuccess(T callbackItem) {
+            value = callbackItem;
+            done = true;
+        }
+
+        @Override
+        public void onFailure(String failMSG) {
+            this.failMSG = failMSG;
+            done = true;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Keyset pages (getInvoicesPage, the anchor is the last frame of the previous page) for each
+ * sort, ascending and descending: All the pages together hold each invoice once, in the order
+ * of the sort key then the ID. The keys are mostly tied (4 dates, 3 prices, both tied for
+ * many invoices), so the pages often end in the middle of a tie.
+ */
+public class InvoicePagesSortTest extends DatabaseTestCase {
+
+    private static final int INVOICES = 40;
+    private static final long[] DATES = { 1_700_000_000_000L, 1_700_086_400_000L,
+            1_700_172_800_000L, 1_700_259_200_000L };
+    private static final long[] PRICES = { 500, 1250, 9900 };
+    private static final int[] PAGE_SIZES = { 1, 3, 7, INVOICES };
+
+    private final List<InvoiceFrame> frames = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        openDatabase(DatabaseProfile.DEFAULT);
+        int itemID = database.addNewItem(new Item(0, "Coffee", "Black", 1250));
+        List<InvoiceRow> rows = new ArrayList<>();
+        rows.add(new InvoiceRow(0, 1, database.getItemByID(itemID)));
+        for (int n = 0; n < INVOICES; n++) assertTrue(database.addComposedInvoice(rows));
+
+        // Keys not by ID order: The date and price of each invoice are mixed
+        SQLiteDatabase db = database.getWritableDatabase();
+        long[] IDs = database.getInvoiceIDs(InvoiceFilter.ALL);
+        for (int n = 0; n < INVOICES; n++) {
+            db.execSQL("UPDATE InvoiceFrame SET DateEpoch = ?, Price = ? WHERE _id = ?",
+                    new Object[]{ DATES[(n * 7) % DATES.length],
+                            PRICES[(n * 5 / 2) % PRICES.length], IDs[n] });
+        }
+        frames.addAll(database.getInvoicesPage(InvoiceSort.ID, false, InvoiceFilter.ALL, null,
+                INVOICES));
+        assertEquals(INVOICES, frames.size());
+    }
+
+    @Test
+    public void pagesHaveNoDuplicatesOrGaps() {
+        for (InvoiceSort sort : InvoiceSort.values()) {
+            for (boolean descending : new boolean[]{ false, true }) {
+                long[] expected = expectedIDs(sort, descending);
+                for (int pageSize : PAGE_SIZES) {
+                    String name = sort + (descending ? " DESC" : " ASC") + ", pages of " +
+                            pageSize;
+                    assertArrayEquals(name, expected, pagesIDs(sort, descending, pageSize));
+                }
+            }
+        }
+    }
+
+    /** @return IDs of all the invoices, sorted in memory by the key then the ID. */
+    private long[] expectedIDs(InvoiceSort sort, boolean descending) {
+        Comparator<InvoiceFrame> byDate = Comparator.comparingLong(InvoiceFrame::getDateMillis);
+        Comparator<InvoiceFrame> byPrice = Comparator.comparingLong(InvoiceFrame::getTotalCents);
+        Comparator<InvoiceFrame> byID = Comparator.comparingLong(InvoiceFrame::getID);
+        Comparator<InvoiceFrame> order;
+        switch (sort) {
+            case DATE: order = byDate.thenComparing(byID); break;
+            case PRICE: order = byPrice.thenComparing(byID); break;
+            case DATE_PRICE: order = byDate.thenComparing(byPrice).thenComparing(byID); break;
+            case PRICE_DATE: order = byPrice.thenComparing(byDate).thenComparing(byID); break;
+            default: order = byID;
+        }
+        List<InvoiceFrame> sorted = new ArrayList<>(frames);
+        sorted.sort(descending ? order.reversed() : order);
+        long[] IDs = new long[sorted.size()];
+        for (int i = 0; i < IDs.length; i++) IDs[i] = sorted.get(i).getID();
+        return IDs;
+    }
+
+    /** @return IDs of all the pages, each page after the last frame of the previous one. */
+    private long[] pagesIDs(InvoiceSort sort, boolean descending, int pageSize) {
+        List<Long> IDs = new ArrayList<>();
+        InvoiceFrame anchor = null;
+        while (IDs.size() <= INVOICES) { // Stop on a loop (duplicates), the assert fails
+            List<InvoiceFrame> page = database.getInvoicesPage(sort, descending,
+                    InvoiceFilter.ALL, anchor, pageSize);
+            if (page.isEmpty()) break;
+            for (InvoiceFrame frame : page) IDs.add(frame.getID());
+            anchor = page.get(page.size() - 1);
+        }
+        long[] array = new long[IDs.size()];
+        for (int i = 0; i < array.length; i++) array[i] = IDs.get(i);
+        return array;
+    }
+}
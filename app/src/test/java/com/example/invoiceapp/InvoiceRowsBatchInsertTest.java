@@ -0,0 +1,116 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch insert of the invoice rows (RowsBatchWriter): Same rows as the previous insert path
+ * (ContentValues and SQLiteDatabase.insert for each row), and the throughput of both paths,
+ * rows/sec for invoices of 10, 100 and 1,000 rows.
+ */
+public class InvoiceRowsBatchInsertTest extends DatabaseTestCase {
+
+    private static final int[] INVOICE_ROWS = { 10, 100, 1000 };
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+
+    private SQLiteDatabase db;
+    private invoiceRowsTable rowsTable;
+    private long nextInvoiceID = 1;
+
+    @Before
+    public void setUp() {
+        openDatabase(DatabaseProfile.DEFAULT);
+        db = database.getWritableDatabase();
+        rowsTable = new invoiceRowsTable(db, db);
+    }
+
+    @Test
+    public void batchInsertWritesSameRows() {
+        List<InvoiceRow> rows = newRows(100);
+        long batchID = nextInvoiceID++, previousID = nextInvoiceID++;
+        assertTrue(rowsTable.addInvoiceRows(rows, batchID));
+        assertTrue(insertRowsPrevious(rows, previousID));
+        assertEquals(readRows(previousID), readRows(batchID));
+        assertEquals(100, readRows(batchID).size());
+    }
+
+    @Test
+    public void batchInsertThroughput() {
+        Benchmarks.assumeEnabled();
+        System.out.println("Invoice rows insert, rows/sec (previous ContentValues -> batch):");
+        for (int size : INVOICE_ROWS) {
+            List<InvoiceRow> rows = newRows(size);
+            double previous = rowsPerSecond(rows, true);
+            double batch = rowsPerSecond(rows, false);
+            System.out.printf("  %5d rows: %,10.0f -> %,10.0f (x%.2f)%n", size, previous, batch,
+                    batch / previous);
+        }
+    }
+
+    /** Insert the rows ROUNDS times (each as a new invoice), after the warmup. */
+    private double rowsPerSecond(List<InvoiceRow> rows, boolean previousPath) {
+        long elapsed = 0;
+        for (int round = 0; round < WARMUP + ROUNDS; round++) {
+            long invoiceID = nextInvoiceID++;
+            long start = System.nanoTime();
+            boolean success = previousPath ? insertRowsPrevious(rows, invoiceID)
+                    : rowsTable.addInvoiceRows(rows, invoiceID);
+            if (round >= WARMUP) elapsed += System.nanoTime() - start;
+            assertTrue(success);
+        }
+        return (double) rows.size() * ROUNDS / (elapsed / 1e9);
+    }
+
+    /** The insert path before RowsBatchWriter: A ContentValues and an insert for each row */
+    private boolean insertRowsPrevious(List<InvoiceRow> rows, long invoiceID) {
+        boolean success = true;
+        db.beginTransaction();
+        try {
+            for (InvoiceRow r : rows) {
+                ContentValues values = new ContentValues();
+                values.put("InvoiceID", invoiceID);
+                values.put("ItemID", r.getItemID());
+                values.put("Value", r.getTotalRowCents());
+                values.put("Amount", r.getQuantity());
+                if (db.insert("InvoiceRows", null, values) == -1) success = false;
+            }
+            if (success) db.setTransactionSuccessful();
+        }
+        finally { db.endTransaction(); }
+        return success;
+    }
+
+    private static List<InvoiceRow> newRows(int size) {
+        List<InvoiceRow> rows = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++)
+            rows.add(new InvoiceRow(0, i % 7 + 1, new Item(i, "Item " + i, null, 100L * i)));
+        return rows;
+    }
+
+    /** @return Rows of the invoice as "ItemID Value Amount", by insert order. */
+    private List<String> readRows(long invoiceID) {
+        List<String> rows = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("SELECT ItemID, Value, Amount FROM InvoiceRows " +
+                "WHERE InvoiceID = ? ORDER BY _id", new String[]{ String.valueOf(invoiceID) })) {
+            while (cursor.moveToNext())
+                rows.add(cursor.getLong(0) + " " + cursor.getLong(1) + " " + cursor.getInt(2));
+        }
+        return rows;
+    }
+}
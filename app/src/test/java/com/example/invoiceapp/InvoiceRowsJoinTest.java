@@ -0,0 +1,111 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Invoice rows loaded with a single LEFT JOIN on the items table: The names of the saved
+ * items, removed and unknown items shown by the showRemoved option, and the open latency with
+ * 5,000 catalog items against loading all the items (the cost of each open before the join).
+ */
+public class InvoiceRowsJoinTest extends DatabaseTestCase {
+
+    private static final int CATALOG_ITEMS = 5000;
+    private static final int INVOICE_ROWS = 30;
+    private static final int OPENS = 100;
+
+    private invoiceRowsTable rowsTable;
+    private itemsTable items;
+    private long invoiceID;
+
+    @Before
+    public void setUp() {
+        openDatabase(DatabaseProfile.DEFAULT);
+        SQLiteDatabase db = database.getWritableDatabase();
+        rowsTable = new invoiceRowsTable(db, db);
+        items = new itemsTable(db, db);
+
+        assertTrue(database.runInTransaction(() -> {
+            for (int i = 1; i <= CATALOG_ITEMS; i++)
+                if (items.addItem(new Item(0, "Item " + i, "Description " + i, 100L * i)) <= 0)
+                    return false;
+            return true;
+        }));
+        assertEquals(2, database.removeItems(new long[]{ 2, 3 }).length);
+
+        // Every 150th item, a removed item and an unknown item
+        List<InvoiceRow> rows = new ArrayList<>();
+        for (int i = 1; i <= INVOICE_ROWS - 2; i++) {
+            Item item = database.getItemByID(i * 150L);
+            rows.add(new InvoiceRow(0, i % 5 + 1, item));
+        }
+        rows.add(new InvoiceRow(0, 1, database.getItemByID(2)));
+        rows.add(new InvoiceRow(0, 4, new Item(CATALOG_ITEMS + 1, "Unknown", null, 700)));
+        assertTrue(database.addComposedInvoice(rows));
+        invoiceID = database.getInvoiceIDs(InvoiceFilter.ALL)[0];
+    }
+
+    @Test
+    public void joinedRowsNamedByItems() {
+        for (boolean showRemoved : new boolean[]{ true, false }) {
+            List<String> expected = new ArrayList<>();
+            for (int i = 1; i <= INVOICE_ROWS - 2; i++) {
+                long k = i * 150L;
+                int quantity = i % 5 + 1;
+                expected.add(k + " Item " + k + " Description " + k + " " + 100 * k + " " +
+                        quantity + " " + 100 * k * quantity);
+            }
+            expected.add(showRemoved ? "2 Item 2 Description 2 200 1 200"
+                                     : "2 Item Removed Item Removed 200 1 200");
+            expected.add((CATALOG_ITEMS + 1) + " Item Removed Item Removed 700 4 2800");
+            assertEquals(expected, describe(rowsTable.getAllRowsByIDJoined(invoiceID,
+                    showRemoved)));
+        }
+    }
+
+    @Test
+    public void openLatency() {
+        Benchmarks.assumeEnabled();
+        long[] previous = new long[OPENS];
+        long[] joined = new long[OPENS];
+        for (int i = 0; i < OPENS; i++) {
+            long start = System.nanoTime();
+            // Before the join, all the items were loaded for each open, to resolve the names
+            assertNotNull(new ItemCatalog(items::loadCatalog).getItem(1));
+            previous[i] = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            assertEquals(INVOICE_ROWS, rowsTable.getAllRowsByIDJoined(invoiceID, true).size());
+            joined[i] = System.nanoTime() - start;
+        }
+        System.out.println("Invoice open (" + INVOICE_ROWS + " rows, " + CATALOG_ITEMS +
+                " catalog items):");
+        System.out.println("  load all items: " + Benchmarks.percentiles(previous));
+        System.out.println("  joined query:   " + Benchmarks.percentiles(joined));
+    }
+
+    /** @return Each row as "ItemID Name Description Price Quantity Total", by row order. */
+    private static List<String> describe(List<InvoiceRow> rows) {
+        List<String> described = new ArrayList<>();
+        for (InvoiceRow r : rows)
+            described.add(r.getItemID() + " " + r.getItemName() + " " + r.getItemDescription()
+                    + " " + r.getItemValueCents() + " " + r.getQuantity() + " "
+                    + r.getTotalRowCents());
+        return described;
+    }
+
+}
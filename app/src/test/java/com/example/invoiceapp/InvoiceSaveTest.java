@@ -0,0 +1,178 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+
+/**
+ * Save of a whole invoice in one transaction: A failed row leaves no frame, rows nor revenue
+ * (new and edited invoice), a removed selection leaves the same revenue buckets as a rebuild
+ * (one grouped subtract for each day), and the save latency of one commit against the previous
+ * three commits (frame, rows and revenue bucket, each in its own transaction).
+ */
+public class InvoiceSaveTest extends DatabaseTestCase {
+
+    /** Rows with this quantity fail to insert (See failingRowsTrigger) */
+    private static final int FAILING_QUANTITY = 999;
+    private static final int SAVES = 200;
+
+    private Item coffee;
+
+    @Test
+    public void failedRowLeavesNoFrame() {
+        open(DatabaseProfile.DEFAULT);
+        failingRowsTrigger();
+        assertTrue(database.addComposedInvoice(rows(2)));
+        long[] revenues = thisYearRevenues();
+
+        List<InvoiceRow> failing = rows(1);
+        failing.add(new InvoiceRow(0, FAILING_QUANTITY, coffee));
+        assertFalse(database.addComposedInvoice(failing));
+
+        assertEquals(1, database.getInvoicesCount());
+        assertArrayEquals(revenues, thisYearRevenues());
+    }
+
+    @Test
+    public void failedEditKeepsOldInvoice() {
+        open(DatabaseProfile.DEFAULT);
+        failingRowsTrigger();
+        assertTrue(database.addComposedInvoice(rows(2)));
+        long ID = database.getInvoiceIDs(InvoiceFilter.ALL)[0];
+        long[] revenues = thisYearRevenues();
+
+        List<InvoiceRow> failing = rows(5);
+        failing.add(new InvoiceRow(0, FAILING_QUANTITY, coffee));
+        assertFalse(database.editInvoice(ID, failing));
+
+        assertEquals(2 * coffee.getValueCents(), database.getInvoiceById(ID).getTotalCents());
+        List<InvoiceRow> kept = database.getAllRowsByID(ID, true);
+        assertEquals(1, kept.size());
+        assertEquals(2, kept.get(0).getQuantity());
+        assertArrayEquals(revenues, thisYearRevenues());
+    }
+
+    @Test
+    public void removeSubtractsBuckets() {
+        open(DatabaseProfile.DEFAULT);
+        // 12 invoices over 4 days, 3 for each day
+        SQLiteDatabase db = database.getWritableDatabase();
+        for (int n = 0; n < 12; n++) assertTrue(database.addComposedInvoice(rows(n + 1)));
+        long[] IDs = database.getInvoiceIDs(InvoiceFilter.ALL);
+        for (int n = 0; n < IDs.length; n++) {
+            db.execSQL("UPDATE InvoiceFrame SET Date = ? WHERE _id = ?",
+                    new Object[]{ "2024-03-0" + (n % 4 + 1) + " 10:00:00", IDs[n] });
+        }
+        assertTrue(database.rebuildRevenueRollup());
+        assertTrue(database.saveDraft(IDs[0], rows(7)));
+        assertTrue(database.saveDraft(IDs[1], rows(8)));
+
+        // A whole day (1st: n = 0, 4, 8) and a part of two other days, and a missing ID
+        long[] removed = { IDs[0], IDs[4], IDs[8], IDs[5], IDs[2], IDs[11] + 100 };
+        assertTrue(database.RemoveInvoiceFrames(removed));
+
+        assertEquals(IDs.length - 5, database.getInvoicesCount());
+        assertNull(database.getDraftRows(IDs[0]));
+        assertNotNull(database.getDraftRows(IDs[1]));
+        String subtracted = buckets();
+        assertTrue(database.rebuildRevenueRollup());
+        assertEquals(buckets(), subtracted);
+    }
+
+    @Test
+    public void saveLatency() {
+        Benchmarks.assumeEnabled();
+        System.out.println("Invoice save (5 rows), previous 3 commits -> 1 commit:");
+        for (DatabaseProfile profile : new DatabaseProfile[]{ DatabaseProfile.ROLLBACK_JOURNAL,
+                DatabaseProfile.DEFAULT }) {
+            open(profile);
+            long[] previous = measureSaves(true);
+            long[] single = measureSaves(false);
+            System.out.println("  " + profile);
+            System.out.println("    previous: " + Benchmarks.percentiles(previous));
+            System.out.println("    single:   " + Benchmarks.percentiles(single));
+            deleteDatabaseFile();
+        }
+    }
+
+    /** @return Latency of each save, nanoseconds. */
+    private long[] measureSaves(boolean previousPath) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        invoicesFramesTable frames = new invoicesFramesTable(db, db);
+        invoiceRowsTable rowsTable = new invoiceRowsTable(db, db);
+        revenueRollupTable rollup = new revenueRollupTable(db, db);
+        List<InvoiceRow> rows = rows(1);
+        for (int i = 0; i < 4; i++) rows.add(new InvoiceRow(0, i + 1, coffee));
+
+        long[] latency = new long[SAVES];
+        for (int i = 0; i < SAVES; i++) {
+            long start = System.nanoTime();
+            if (previousPath) {
+                // Frame, rows and revenue bucket, each one commits by itself
+                String date = FormatUtils.getCurrentTimestamp();
+                long ID = frames.addNewInvoiceFrame(date, 1000);
+                assertTrue(rowsTable.addInvoiceRows(rows, ID));
+                assertTrue(rollup.addToBucket(date, 1000, 1, 11));
+            }
+            else assertTrue(database.addComposedInvoice(rows));
+            latency[i] = System.nanoTime() - start;
+        }
+        return latency;
+    }
+
+    private void open(DatabaseProfile profile) {
+        openDatabase(profile);
+        int ID = database.addNewItem(new Item(0, "Coffee", "Black", 1250));
+        coffee = database.getItemByID(ID);
+    }
+
+    /** Make the insert of a row with FAILING_QUANTITY fail, as a write error in the middle */
+    private void failingRowsTrigger() {
+        database.getWritableDatabase().execSQL("CREATE TEMP TRIGGER FailingRow BEFORE INSERT " +
+                "ON InvoiceRows WHEN NEW.Amount = " + FAILING_QUANTITY +
+                " BEGIN SELECT RAISE(ABORT, 'Failing row'); END;");
+    }
+
+    private List<InvoiceRow> rows(int quantity) {
+        List<InvoiceRow> rows = new ArrayList<>();
+        rows.add(new InvoiceRow(0, quantity, coffee));
+        return rows;
+    }
+
+    /** @return The buckets with invoices, one line each (Emptied buckets are kept as zeros) */
+    private String buckets() {
+        StringBuilder buckets = new StringBuilder();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery("SELECT * FROM " +
+                "RevenueRollup WHERE InvoiceCount != 0 ORDER BY Year, Month, Day", null)) {
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < cursor.getColumnCount(); i++)
+                    buckets.append(cursor.getLong(i)).append(' ');
+                buckets.append('\n');
+            }
+        }
+        return buckets.toString();
+    }
+
+    private long[] thisYearRevenues() {
+        int year = Calendar.getInstance().get(Calendar.YEAR);
+        return database.getRevenuesByMonths(year, year)[0];
+    }
+
+}
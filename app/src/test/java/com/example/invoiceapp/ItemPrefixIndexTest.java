@@ -0,0 +1,89 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ItemPrefixIndex: A prefix matches any word of the name (Also in the middle), each item is
+ * found once even if several of its words match, the limit, the empty (or blank) prefix for
+ * the first items, and the case and spaces of both the names and the prefix are ignored.
+ */
+public class ItemPrefixIndexTest {
+
+    private static final Item WHOLE_MILK = new Item(1, "Whole Milk", null, 100);
+    private static final Item MILK = new Item(2, "Milk 3%", null, 100);
+    private static final Item MINT_MILK = new Item(3, "Mint Milk", null, 100);
+    private static final Item COFFEE = new Item(4, "Black  Coffee", null, 100);
+    private static final Item COCOA = new Item(5, "COCOA Powder", null, 100);
+
+    private final ItemPrefixIndex index = new ItemPrefixIndex(Arrays.asList(WHOLE_MILK, MILK,
+            MINT_MILK, COFFEE, COCOA));
+
+    @Test
+    public void prefixMatchesWordsInTheMiddle() {
+        // By the matched word: "milk" (Whole Milk, Mint Milk), then "milk 3%"
+        assertEquals(names(WHOLE_MILK, MINT_MILK, MILK), names(index.find("milk", 10)));
+        assertEquals(names(COFFEE), names(index.find("cof", 10)));
+        assertEquals(names(COCOA), names(index.find("pow", 10)));
+        // The rest of the name from the word, not any substring
+        assertEquals(names(WHOLE_MILK), names(index.find("whole milk", 10)));
+        assertEquals(names(), names(index.find("ilk", 10)));
+        assertEquals(names(), names(index.find("milk whole", 10)));
+    }
+
+    @Test
+    public void itemFoundOnceForManyWords() {
+        // "m" matches both words of Mint Milk
+        List<Item> found = index.find("m", 10);
+        assertEquals(names(WHOLE_MILK, MINT_MILK, MILK), names(found));
+        assertEquals(found.size(), found.stream().distinct().count());
+    }
+
+    @Test
+    public void limit() {
+        assertEquals(names(WHOLE_MILK, MINT_MILK), names(index.find("m", 2)));
+        assertTrue(index.find("m", 0).isEmpty());
+        assertTrue(index.find("m", -1).isEmpty());
+        assertEquals(names(WHOLE_MILK, MILK), names(index.find("", 2)));
+    }
+
+    @Test
+    public void emptyPrefixReturnsFirstItems() {
+        List<String> all = names(WHOLE_MILK, MILK, MINT_MILK, COFFEE, COCOA);
+        assertEquals(all, names(index.find("", 10)));
+        assertEquals(all, names(index.find("   ", 10)));
+        assertEquals(all, names(index.find(null, 10)));
+        assertEquals(5, index.size());
+        assertTrue(new ItemPrefixIndex(new ArrayList<>()).find("m", 10).isEmpty());
+    }
+
+    @Test
+    public void caseAndSpacesIgnored() {
+        assertEquals(names(index.find("milk", 10)), names(index.find("MILK", 10)));
+        assertEquals(names(index.find("milk", 10)), names(index.find("mIlK", 10)));
+        assertEquals(names(COCOA), names(index.find("cocoa", 10)));
+        assertEquals(names(COFFEE), names(index.find(" black   cof", 10)));
+    }
+
+    private static List<String> names(Item... items) {
+        return names(Arrays.asList(items));
+    }
+
+    private static List<String> names(List<Item> items) {
+        List<String> names = new ArrayList<>();
+        for (Item item : items) names.add(item.getName());
+        return names;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Items search by the full-text shadow index (itemsTable.searchItems): The index follows each
+ * item change of addItem, editItem and RemoveItems (Name, description, removal), also rolled
+ * back with the transaction of the change. And the search time at 100,000 items, against the
+ * target of 10 ms for each query.
+ */
+public class ItemSearchTest extends DatabaseTestCase {
+
+    private static final int SEARCH_LIMIT = 200; // As ItemsActivity
+    private static final int CATALOG_ITEMS = 100_000;
+    private static final int SEARCHES = 300;
+    private static final String[] WORDS = { "coffee", "tea", "milk", "sugar", "cocoa", "bread",
+            "butter", "cheese", "honey", "lemon", "orange", "apple", "water", "juice", "cream",
+            "vanilla" };
+
+    private long coffeeID, teaID;
+
+    @Before
+    public void setUp() {
+        openDatabase(DatabaseProfile.DEFAULT);
+        coffeeID = database.addNewItem(new Item(0, "Black Coffee", "Hot", 1250));
+        teaID = database.addNewItem(new Item(0, "Green Tea", "Loose leaf", 300));
+        assertTrue(coffeeID > 0 && teaID > 0);
+    }
+
+    @Test
+    public void indexFollowsItemChanges() {
+        assertEquals(List.of(coffeeID), found("cof"));
+        assertEquals(List.of(coffeeID), found("bl cof"));
+        assertEquals(List.of(teaID), found("lea"));
+
+        // Rename: The old name words are gone, the new ones are found
+        assertTrue(database.editItem(new Item(coffeeID, "Espresso", "Hot", 1250)));
+        assertEquals(List.of(), found("cof"));
+        assertEquals(List.of(), found("black"));
+        assertEquals(List.of(coffeeID), found("esp"));
+        assertEquals(List.of(coffeeID), found("hot"));
+
+        // Description edit
+        assertTrue(database.editItem(new Item(coffeeID, "Espresso", "Double shot", 1250)));
+        assertEquals(List.of(), found("hot"));
+        assertEquals(List.of(coffeeID), found("dou"));
+        assertEquals(List.of(coffeeID), found("esp sho"));
+
+        // Rolled back rename: The index is rolled back with the item
+        assertFalse(database.runInTransaction(() -> {
+            assertTrue(database.editItem(new Item(coffeeID, "Latte", "Milk", 1250)));
+            assertEquals(List.of(coffeeID), found("lat"));
+            return false;
+        }));
+        assertEquals(List.of(), found("lat"));
+        assertEquals(List.of(coffeeID), found("esp"));
+
+        // Removal: Not found, the other items still are
+        assertEquals(1, database.removeItems(new long[]{ teaID }).length);
+        assertEquals(List.of(), found("tea"));
+        assertEquals(List.of(), found("lea"));
+        assertEquals(List.of(coffeeID), found("esp"));
+
+        // A new item with the name of the removed one is found, not the removed one
+        long newTeaID = database.addNewItem(new Item(0, "Green Tea Bags", null, 350));
+        assertTrue(newTeaID > 0);
+        assertEquals(List.of(newTeaID), found("gre tea"));
+    }
+
+    @Test
+    public void searchTimeAt100kItems() {
+        Benchmarks.assumeEnabled();
+        // Names of 2 words of 16 and a number, e.g. "Honey Milk 4711"
+        assertTrue(database.runInTransaction(() -> {
+            for (int i = 0; i < CATALOG_ITEMS; i++) {
+                String name = capitalize(WORDS[i % WORDS.length]) + " " +
+                        capitalize(WORDS[(i / WORDS.length) % WORDS.length]) + " " + i;
+                if (database.addNewItem(new Item(0, name, "Item " + i, 100 + i)) <= 0)
+                    return false;
+            }
+            return true;
+        }));
+
+        // One word prefix of 1 to 3 letters (Thousands of matches, LIMIT applies), and two
+        // words prefixes
+        Random random = new Random(12);
+        long[] oneWord = new long[SEARCHES];
+        long[] twoWords = new long[SEARCHES];
+        for (int i = 0; i < SEARCHES; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String prefix = word.substring(0, random.nextInt(3) + 1);
+            long start = System.nanoTime();
+            assertFalse(database.searchItems(prefix, SEARCH_LIMIT).isEmpty());
+            oneWord[i] = System.nanoTime() - start;
+
+            String other = WORDS[random.nextInt(WORDS.length)].substring(0, 2);
+            start = System.nanoTime();
+            database.searchItems(prefix + " " + other, SEARCH_LIMIT);
+            twoWords[i] = System.nanoTime() - start;
+        }
+        System.out.println("Items search, " + CATALOG_ITEMS + " items, limit " + SEARCH_LIMIT +
+                " (target 10 ms):");
+        System.out.println("  one word prefix:   " + Benchmarks.percentiles(oneWord));
+        System.out.println("  two word prefixes: " + Benchmarks.percentiles(twoWords));
+    }
+
+    /** @return IDs of the items found by the query, by the search order. */
+    private List<Long> found(String query) {
+        List<Long> IDs = new ArrayList<>();
+        for (Item item : database.searchItems(query, SEARCH_LIMIT)) IDs.add(item.getID());
+        return IDs;
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
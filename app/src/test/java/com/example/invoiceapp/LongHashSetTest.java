@@ -0,0 +1,110 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * LongHashSet against HashSet<Long>: Random adds and removes over a small range (many
+ * collisions, the value 0 included), and removes across the end of the slots array, where
+ * the probe sequence wraps around to slot 0.
+ */
+public class LongHashSetTest {
+
+    @Test
+    public void randomOperationsMatchHashSet() {
+        Random random = new Random(22);
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 200_000; i++) {
+            long value = random.nextInt(2_000) - 100; // Negative, 0 and positive
+            switch (random.nextInt(3)) {
+                case 0: assertEquals(expected.add(value), set.add(value)); break;
+                case 1: assertEquals(expected.remove(value), set.remove(value)); break;
+                default: assertEquals(expected.contains(value), set.contains(value));
+            }
+            assertEquals(expected.size(), set.size());
+            if (i % 50_000 == 0) assertArrayEquals(sorted(expected), set.toArray());
+        }
+        assertArrayEquals(sorted(expected), set.toArray());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0));
+    }
+
+    @Test
+    public void zeroIsAValue() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.contains(0));
+        assertEquals(1, set.size());
+        assertArrayEquals(new long[]{ 0 }, set.toArray());
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    public void removeAcrossWraparound() {
+        // Values whose home is one of the last 2 of 16 slots (8 values: Not resized), so
+        // their probe sequences wrap around to slot 0
+        long[] tail = new long[8];
+        int count = 0;
+        for (long value = 1; count < tail.length; value++) {
+            if (homeSlot(value, 16) >= 14) tail[count++] = value;
+        }
+        Random random = new Random(7);
+        for (int round = 0; round < 1_000; round++) {
+            LongHashSet set = new LongHashSet();
+            Set<Long> expected = new HashSet<>();
+            for (long value : tail) {
+                assertTrue(set.add(value));
+                expected.add(value);
+            }
+            // Remove in a random order, each remaining value must still be found
+            long[] order = tail.clone();
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                long swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+            for (long value : order) {
+                assertEquals(expected.remove(value), set.remove(value));
+                for (long other : tail) assertEquals(expected.contains(other), set.contains(other));
+                assertEquals(expected.size(), set.size());
+            }
+        }
+    }
+
+    /** Home slot of a value in a table of the capacity, as LongHashSet.hash */
+    private static int homeSlot(long value, int capacity) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (capacity - 1);
+    }
+
+    private static long[] sorted(Set<Long> values) {
+        long[] array = new long[values.size()];
+        int i = 0;
+        for (long value : values) array[i++] = value;
+        Arrays.sort(array);
+        return array;
+    }
+}
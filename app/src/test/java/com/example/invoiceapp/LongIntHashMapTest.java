@@ -0,0 +1,67 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * LongIntHashMap against HashMap<Long, Integer>: Random puts, removes and gets over a small
+ * range of keys (many collisions, the key 0 included), so the values follow their keys when
+ * removals move them back across the slots.
+ */
+public class LongIntHashMapTest {
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random random = new Random(17);
+        LongIntHashMap map = new LongIntHashMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(2_000) - 100; // Negative, 0 and positive
+            switch (random.nextInt(3)) {
+                case 0:
+                    int value = random.nextInt();
+                    expected.put(key, value);
+                    map.put(key, value);
+                    break;
+                case 1: assertEquals(expected.remove(key) != null, map.remove(key)); break;
+                default:
+                    assertEquals(expected.containsKey(key), map.containsKey(key));
+                    assertEquals((int) expected.getOrDefault(key, -1), map.get(key, -1));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, Integer> entry : expected.entrySet())
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(0));
+        assertEquals(-1, map.get(5, -1));
+    }
+
+    @Test
+    public void zeroIsAKey() {
+        LongIntHashMap map = new LongIntHashMap(4);
+        assertEquals(-1, map.get(0, -1));
+        map.put(0, 7);
+        map.put(0, 8);
+        assertEquals(8, map.get(0, -1));
+        assertEquals(1, map.size());
+        assertTrue(map.remove(0));
+        assertFalse(map.remove(0));
+        assertEquals(-1, map.get(0, -1));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Money in long cents: Parse and format round trip (exact, no rounding), multiply overflow,
+ * and the total bounds of a cart (ShoppingCard rejects rows out of bounds, no exception).
+ * The REAL to cents conversion of old databases is tested by DatabaseMigrationsTest.
+ */
+public class MoneyTest {
+
+    @Test
+    public void parseFormatRoundTrip() {
+        String[][] cases = { { "0", "0.00" }, { "12", "12.00" }, { "12.5", "12.50" },
+                { "12.50", "12.50" }, { "0.01", "0.01" }, { " 7.05 ", "7.05" },
+                { "0.285", null }, { "-3.10", "-3.10" }, { "1000000000.00", "1000000000.00" } };
+        for (String[] c : cases) {
+            if (c[1] == null) {
+                assertParseFails(c[0]);
+                continue;
+            }
+            long cents = Money.parse(c[0]);
+            assertEquals(c[0], c[1], Money.toPlainString(cents));
+            assertEquals(c[0], cents, Money.parse(Money.toPlainString(cents)));
+            assertEquals(c[0], new BigDecimal(c[1]), Money.toDecimal(cents));
+        }
+        assertEquals(1250, Money.parse("12.5"));
+        assertEquals(Money.MAX_PRICE_CENTS, Money.parse("1000000000"));
+    }
+
+    @Test
+    public void parseRejectsNoise() {
+        for (String text : Arrays.asList("", "abc", "1.2.3", "1.001", "0.285", "12,50", "1e400",
+                "99999999999999999999"))
+            assertParseFails(text);
+    }
+
+    @Test
+    public void timesExactAndOverflow() {
+        assertEquals(3750, Money.times(1250, 3));
+        assertEquals(0, Money.times(1250, 0));
+        assertEquals(-1250, Money.times(1250, -1));
+        assertEquals(214_748_364_700_000_000L,
+                Money.times(Money.MAX_PRICE_CENTS / 1000, Integer.MAX_VALUE));
+        try {
+            Money.times(Money.MAX_PRICE_CENTS, Integer.MAX_VALUE);
+            fail("Overflow not detected");
+        }
+        catch (ArithmeticException expected) { }
+        try {
+            Money.times(Long.MAX_VALUE / 2 + 1, 2);
+            fail("Overflow not detected");
+        }
+        catch (ArithmeticException expected) { }
+    }
+
+    @Test
+    public void fitsTotalBounds() {
+        long max = Money.MAX_TOTAL_CENTS;
+        assertTrue(Money.fitsTotal(0, Money.MAX_PRICE_CENTS, max / Money.MAX_PRICE_CENTS));
+        assertFalse(Money.fitsTotal(0, Money.MAX_PRICE_CENTS, max / Money.MAX_PRICE_CENTS + 1));
+        assertTrue(Money.fitsTotal(max - 100, 50, 2));
+        assertFalse(Money.fitsTotal(max - 100, 50, 3));
+        assertFalse(Money.fitsTotal(0, Money.MAX_PRICE_CENTS, Integer.MAX_VALUE));
+        assertFalse(Money.fitsTotal(0, Long.MAX_VALUE, Long.MAX_VALUE)); // No overflow
+        assertTrue(Money.fitsTotal(max, 0, Integer.MAX_VALUE));
+        assertFalse(Money.fitsTotal(0, -1, 1));
+        assertFalse(Money.fitsTotal(0, 1, -1));
+        assertFalse(Money.fitsTotal(max + 1, 0, 0));
+    }
+
+    @Test
+    public void cartRejectsRowsOutOfBounds() {
+        Item gold = new Item(1, "Gold", null, Money.MAX_PRICE_CENTS);
+        Item pin = new Item(2, "Pin", null, 1);
+        ShoppingCard cart = new ShoppingCard(null, 1);
+
+        // Row total itself would overflow: Rejected before the row is created
+        assertFalse(cart.canAdd(gold, Integer.MAX_VALUE));
+        int fits = (int) (Money.MAX_TOTAL_CENTS / Money.MAX_PRICE_CENTS);
+        assertEquals(0, cart.addRow(new InvoiceRow(1, fits, gold)));
+        assertEquals(Money.MAX_TOTAL_CENTS, cart.getTotalCents());
+
+        // Full cart: No more quantity, no more rows, cart unchanged
+        assertFalse(cart.canAdd(pin, 1));
+        assertEquals(-1, cart.addRow(new InvoiceRow(1, 1, pin)));
+        assertFalse(cart.addSelectedItemsQuantity(Arrays.asList(0)));
+        assertEquals(1, cart.getTotalItems());
+        assertEquals(fits, cart.getRows().get(0).getQuantity());
+        assertEquals(Money.MAX_TOTAL_CENTS, cart.getTotalCents());
+
+        // Room again after a reduce
+        assertFalse(cart.reduceSelectedItemQuantity(Arrays.asList(0)));
+        assertTrue(cart.canAdd(pin, 1000));
+        assertEquals(1, cart.addRow(new InvoiceRow(1, 1000, pin)));
+        assertTrue(cart.addSelectedItemsQuantity(Arrays.asList(1)));
+        assertEquals(Money.MAX_TOTAL_CENTS - Money.MAX_PRICE_CENTS + 1001, cart.getTotalCents());
+
+        // Row quantity bound (int)
+        ShoppingCard pins = new ShoppingCard(null, 2);
+        assertEquals(0, pins.addRow(new InvoiceRow(2, Integer.MAX_VALUE, pin)));
+        assertFalse(pins.canAdd(pin, 1));
+        assertFalse(pins.addSelectedItemsQuantity(Arrays.asList(0)));
+        assertEquals(Integer.MAX_VALUE, pins.getTotalCents());
+        assertFalse(pins.canAdd(pin, 0));
+        assertFalse(pins.canAdd(pin, -1));
+    }
+
+    private static void assertParseFails(String text) {
+        try {
+            Money.parse(text);
+            fail("Parsed: " + text);
+        }
+        catch (NumberFormatException expected) { }
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.invoiceapp;
+
+/*
+ * Copyright (c) 2025 NathanEl Mark, Dor Binyamin, Orel Gigi
+ *
+ * This software is licensed under the MIT License.
+ * See the LICENSE file in the root directory for details.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ShoppingCard: The cart total is always the sum of the rows totals (Also when an item is
+ * added again at a changed price), after any mix of add, +1, -1 and remove, and the index of
+ * each item follows its row. And the time of the cart operations at 1,000 lines, against the
+ * scan of the rows (the previous linked set).
+ */
+public class ShoppingCardTest {
+
+    private static final int LINES = 1000;
+    private static final int ROUNDS = 20_000;
+
+    @Test
+    public void addExistingItemAtRowPrice() {
+        Item coffee = new Item(1, "Coffee", "Black", 1250);
+        List<InvoiceRow> edited = new ArrayList<>();
+        edited.add(new InvoiceRow(7, 2, coffee));
+        ShoppingCard cart = new ShoppingCard(edited, 7);
+
+        // Same item, its price changed since the invoice was saved
+        Item repriced = new Item(1, "Coffee", "Black", 1300);
+        assertEquals(0, cart.addRow(new InvoiceRow(7, 3, repriced)));
+        assertEquals(5, cart.getRows().get(0).getQuantity());
+        assertEquals(5 * 1250, cart.getRows().get(0).getTotalRowCents());
+        assertEquals(5 * 1250, cart.getTotalCents());
+        assertTotalInvariant(cart);
+    }
+
+    @Test
+    public void totalIsSumOfRowsAfterMixedChanges() {
+        Random random = new Random(42);
+        ShoppingCard cart = new ShoppingCard(null, 1);
+        for (int step = 0; step < 5000; step++) {
+            int size = cart.getTotalItems();
+            switch (random.nextInt(4)) {
+                case 0: // Add a row, items repeat with a price of this moment
+                    long itemID = random.nextInt(60) + 1;
+                    Item item = new Item(itemID, "Item " + itemID, null,
+                            itemID * 100 + random.nextInt(3) * 7);
+                    cart.addRow(new InvoiceRow(1, random.nextInt(5) + 1, item));
+                    break;
+                case 1:
+                    cart.addSelectedItemsQuantity(randomPositions(random, size));
+                    break;
+                case 2:
+                    cart.reduceSelectedItemQuantity(randomPositions(random, size));
+                    break;
+                default:
+                    if (random.nextInt(4) == 0)
+                        cart.removeSelectedItems(randomPositions(random, size));
+            }
+            assertTotalInvariant(cart);
+        }
+    }
+
+    @Test
+    public void cartOperationsTime() {
+        Benchmarks.assumeEnabled();
+        List<InvoiceRow> lines = new ArrayList<>(LINES);
+        for (int i = 1; i <= LINES; i++)
+            lines.add(new InvoiceRow(1, 1, new Item(i, "Item " + i, null, 100L * i)));
+        ShoppingCard cart = new ShoppingCard(lines, 1);
+        List<InvoiceRow> scanned = new ArrayList<>(cart.getComposedList());
+        Random random = new Random(7);
+
+        long indexed = 0, scan = 0, sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            InvoiceRow row = new InvoiceRow(1, 1,
+                    new Item(random.nextInt(LINES) + 1, "Again", null, 1));
+
+            long start = System.nanoTime();
+            sink += cart.addRow(row);
+            cart.addSelectedItemsQuantity(Collections.singletonList(LINES - 1));
+            cart.reduceSelectedItemQuantity(Collections.singletonList(LINES - 1));
+            indexed += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            sink += addByScan(scanned, row);
+            scan += System.nanoTime() - start;
+        }
+        assertEquals(LINES, cart.getTotalItems());
+        assertEquals(LINES, scanned.size());
+        assertTotalInvariant(cart);
+        assertTrue(sink > 0);
+
+        // Remove 10% of the lines, spread over the cart
+        List<Integer> selected = new ArrayList<>();
+        for (int i = 0; i < LINES; i += 10) selected.add(i);
+        long start = System.nanoTime();
+        cart.removeSelectedItems(selected);
+        long remove = System.nanoTime() - start;
+        assertEquals(LINES - selected.size(), cart.getTotalItems());
+        assertTotalInvariant(cart);
+
+        System.out.printf("Cart of %d lines, ns/op: add existing item + (+1) + (-1) %.0f, " +
+                        "scan (add only) %.0f; remove %d lines %.3f ms%n", LINES,
+                (double) indexed / ROUNDS, (double) scan / ROUNDS, selected.size(),
+                remove / 1e6);
+    }
+
+    /** The add of the previous cart: Scan the rows for the item, by position */
+    private static int addByScan(List<InvoiceRow> rows, InvoiceRow newRow) {
+        for (int i = 0; i < rows.size(); i++) {
+            InvoiceRow row = rows.get(i);
+            if (row.getItemID() == newRow.getItemID()) {
+                row.addQuantity(newRow.getQuantity());
+                return i;
+            }
+        }
+        rows.add(newRow);
+        return rows.size() - 1;
+    }
+
+    private static List<Integer> randomPositions(Random random, int size) {
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < size; i++) if (random.nextInt(5) == 0) positions.add(i);
+        return positions;
+    }
+
+    private static void assertTotalInvariant(ShoppingCard cart) {
+        long sum = 0;
+        List<InvoiceRow> rows = cart.getRows();
+        for (int i = 0; i < rows.size(); i++) {
+            InvoiceRow row = rows.get(i);
+            assertEquals(Money.times(row.getItemValueCents(), row.getQuantity()),
+                    row.getTotalRowCents());
+            assertEquals(i, cart.indexOfItem(row.getItemID()));
+            sum += row.getTotalRowCents();
+        }
+        assertEquals(Arrays.toString(rows.toArray()), sum, cart.getTotalCents());
+        assertEquals(rows.size(), cart.getComposedList().size());
+    }
+}